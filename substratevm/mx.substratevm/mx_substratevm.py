@@ -424,6 +424,12 @@ def native_unittests_task():
 
     native_unittest(['--build-args', _native_unittest_features] + additional_build_args)
 
+    # Tests of non-default GC configurations run in their own image built with the option.
+    native_unittest(['com.oracle.svm.test.CompactingOldGenerationTest', '--build-args', '-H:+CompactingOldGeneration'])
+    native_unittest(['com.oracle.svm.test.ParallelScavengeTest', '--build-args', '-R:ParallelGCThreads=4'])
+    native_unittest(['com.oracle.svm.test.ThinLockTest', '--build-args', '-H:+UseThinLocks'])
+    native_unittest(['com.oracle.svm.graal.test.RuntimeCodeCacheAgingTest', '--build-args', '--features=com.oracle.svm.graal.test.RuntimeCodeCacheAgingTest$TestFeature'])
+
 
 def javac_image_command(javac_path):
     return [join(javac_path, 'javac'), "-proc:none", "-bootclasspath",
@@ -789,6 +789,24 @@ suite = {
             "testProject": True,
         },
 
+        "com.oracle.svm.hosted.test": {
+            "subDir": "src",
+            "sourceDirs": ["src"],
+            "dependencies": [
+                "mx:JUNIT_TOOL",
+                "com.oracle.svm.hosted",
+            ],
+            "requiresConcealed" : {
+                "jdk.internal.vm.ci": ["jdk.vm.ci.meta", "jdk.vm.ci.code"],
+            },
+            "checkstyle": "com.oracle.svm.hosted",
+            "checkPackagePrefix": "false",
+            "workingSets": "SVM",
+            "javaCompliance": "8+",
+            "spotbugs": "false",
+            "testProject": True,
+        },
+
         "com.oracle.svm.thirdparty": {
             "subDir": "src",
             "sourceDirs": ["src"],
@@ -817,6 +835,24 @@ suite = {
             "workingSets": "SVM",
         },
 
+        "com.oracle.svm.bench.jfr": {
+            "subDir": "src",
+            "sourceDirs": ["src"],
+            "dependencies": [
+                "com.oracle.svm.bench",
+                "com.oracle.svm.jfr",
+            ],
+            "checkstyle": "com.oracle.svm.truffle",
+            "javaCompliance": "11+",
+            "requires": [
+                "jdk.jfr",
+            ],
+            "annotationProcessors": [
+                "compiler:GRAAL_PROCESSOR",
+            ],
+            "workingSets": "SVM",
+        },
+
         "com.oracle.svm.truffle": {
             "subDir": "src",
             "sourceDirs": ["src"],
@@ -1392,6 +1428,9 @@ suite = {
                 "com.oracle.graal.pointsto.infrastructure",
                 "com.oracle.graal.pointsto.flow.context.object",
               ],
+              "requires": [
+                "java.management",
+              ],
               "requiresConcealed" : {
                 "jdk.internal.vm.ci" : [
                   "jdk.vm.ci.meta",
@@ -1411,6 +1450,7 @@ suite = {
             "com.oracle.svm.test.jdk11",
             "com.oracle.svm.configure.test",
             "com.oracle.svm.graal.test",
+            "com.oracle.svm.hosted.test",
           ],
           "distDependencies": [
             "mx:JUNIT_TOOL",
@@ -80,6 +80,16 @@ public abstract class AnalysisPolicy {
         return typeFlowSaturationCutoff;
     }
 
+    /**
+     * Specifies if the method flows should be kept compact. When enabled, the links between the
+     * flows of a method flows template are released as soon as the template was cloned and linked
+     * for its only context, since they are only needed to create further clones. Therefore this
+     * only applies to context insensitive analysis policies.
+     */
+    public boolean compactMethodFlows() {
+        return false;
+    }
+
     /** Provide an analysis context policy. */
     protected abstract AnalysisContextPolicy<? extends AnalysisContext> contextPolicy();
 
@@ -31,6 +31,7 @@ import java.lang.reflect.Executable;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
@@ -60,6 +61,7 @@ import com.oracle.graal.pointsto.api.HostVM;
 import com.oracle.graal.pointsto.api.PointstoOptions;
 import com.oracle.graal.pointsto.constraints.UnsupportedFeatures;
 import com.oracle.graal.pointsto.flow.AllSynchronizedTypeFlow;
+import com.oracle.graal.pointsto.flow.AllWrittenArraysTypeFlow;
 import com.oracle.graal.pointsto.flow.MethodTypeFlow;
 import com.oracle.graal.pointsto.flow.MethodTypeFlowBuilder;
 import com.oracle.graal.pointsto.flow.OffsetLoadTypeFlow.AbstractUnsafeLoadTypeFlow;
@@ -75,6 +77,7 @@ import com.oracle.graal.pointsto.meta.AnalysisUniverse;
 import com.oracle.graal.pointsto.meta.HostedProviders;
 import com.oracle.graal.pointsto.typestate.PointsToStats;
 import com.oracle.graal.pointsto.typestate.TypeState;
+import com.oracle.graal.pointsto.typestate.TypeStateCache;
 import com.oracle.graal.pointsto.util.CompletionExecutor;
 import com.oracle.graal.pointsto.util.CompletionExecutor.DebugContextRunnable;
 import com.oracle.graal.pointsto.util.Timer;
@@ -100,6 +103,7 @@ public abstract class BigBang {
     /** The type of {@link java.lang.Object}. */
     private final AnalysisType objectType;
     private TypeFlow<?> allSynchronizedTypeFlow;
+    private TypeFlow<?> allWrittenArraysTypeFlow;
 
     protected final AnalysisUniverse universe;
     protected final AnalysisMetaAccess metaAccess;
@@ -127,6 +131,15 @@ public abstract class BigBang {
     public final Timer analysisTimer;
 
     private final boolean strengthenGraalGraphs;
+    private final boolean trackArrayWrites;
+    private final TypeStateCache typeStateCache;
+    /**
+     * Flows posted by a worker while it updates a flow are collected in a worker local batch and
+     * updated by the same task, which reduces the number of tiny tasks posted to the executor and
+     * keeps related updates on the same thread. See {@link PointstoOptions#TypeFlowBatchSize}.
+     */
+    private final ThreadLocal<ArrayDeque<TypeFlow<?>>> currentFlowBatch = new ThreadLocal<>();
+    private final int flowBatchSize;
 
     public BigBang(OptionValues options, AnalysisUniverse universe, HostedProviders providers, HostVM hostVM, ForkJoinPool executorService, Runnable heartbeatCallback,
                     UnsupportedFeatures unsupportedFeatures, boolean strengthenGraalGraphs) {
@@ -146,6 +159,8 @@ public abstract class BigBang {
         this.unsupportedFeatures = unsupportedFeatures;
         this.providers = providers;
         this.strengthenGraalGraphs = strengthenGraalGraphs;
+        this.typeStateCache = new TypeStateCache(options);
+        this.flowBatchSize = PointstoOptions.TypeFlowBatchSize.getValue(options);
 
         this.objectType = metaAccess.lookupJavaType(Object.class);
         /*
@@ -154,6 +169,8 @@ public abstract class BigBang {
          */
         objectType.getTypeFlow(this, true);
         allSynchronizedTypeFlow = new AllSynchronizedTypeFlow();
+        allWrittenArraysTypeFlow = new AllWrittenArraysTypeFlow();
+        trackArrayWrites = PointstoOptions.TrackArrayWrites.getValue(options);
 
         trackTypeFlowInputs = PointstoOptions.TrackInputFlows.getValue(options);
         reportAnalysisStatistics = PointstoOptions.PrintPointsToStatistics.getValue(options);
@@ -178,6 +195,10 @@ public abstract class BigBang {
         return strengthenGraalGraphs;
     }
 
+    public boolean trackArrayWrites() {
+        return trackArrayWrites;
+    }
+
     public AnalysisType[] skippedHeapTypes() {
         return new AnalysisType[]{metaAccess.lookupJavaType(String.class)};
     }
@@ -275,9 +296,11 @@ public abstract class BigBang {
 
     public void cleanupAfterAnalysis() {
         allSynchronizedTypeFlow = null;
+        allWrittenArraysTypeFlow = null;
         unsafeLoads = null;
         unsafeStores = null;
         scannedObjects = null;
+        typeStateCache.clear();
 
         ConstantObjectsProfiler.constantTypes.clear();
 
@@ -294,6 +317,10 @@ public abstract class BigBang {
         return universe.analysisPolicy().getContextPolicy();
     }
 
+    public TypeStateCache getTypeStateCache() {
+        return typeStateCache;
+    }
+
     public AnalysisUniverse getUniverse() {
         return universe;
     }
@@ -374,6 +401,25 @@ public abstract class BigBang {
         return allSynchronizedTypeFlow.getState();
     }
 
+    public TypeFlow<?> getAllWrittenArraysTypeFlow() {
+        return allWrittenArraysTypeFlow;
+    }
+
+    /**
+     * Returns the types of all objects whose array elements may be written. Only meaningful when
+     * {@link PointstoOptions#TrackArrayWrites} is enabled, otherwise no writes are recorded.
+     */
+    public TypeState getAllWrittenArraysTypeState() {
+        /*
+         * If the type flow is saturated, then we no longer know precisely which objects are
+         * written and need to assume that any array can be written.
+         */
+        if (allWrittenArraysTypeFlow.isSaturated()) {
+            return getAllInstantiatedTypeFlow().getState();
+        }
+        return allWrittenArraysTypeFlow.getState();
+    }
+
     public boolean executorIsStarted() {
         return executor.isStarted();
     }
@@ -530,14 +576,42 @@ public abstract class BigBang {
         }
         operation.inQueue = true;
 
+        ArrayDeque<TypeFlow<?>> batch = currentFlowBatch.get();
+        if (batch != null && batch.size() < flowBatchSize) {
+            /* Update the flow in the task that is currently running on this worker. */
+            batch.add(operation);
+            return;
+        }
+        executeFlow(operation);
+    }
+
+    private void executeFlow(final TypeFlow<?> operation) {
         executor.execute(new TypeFlowRunnable() {
 
             @Override
             public void run(DebugContext ignored) {
-                PointsToStats.registerTypeFlowQueuedUpdate(BigBang.this, operation);
+                if (flowBatchSize <= 1 || executor.isSequential()) {
+                    updateFlow(operation);
+                    return;
+                }
 
-                operation.inQueue = false;
-                operation.update(BigBang.this);
+                ArrayDeque<TypeFlow<?>> batch = new ArrayDeque<>(flowBatchSize);
+                currentFlowBatch.set(batch);
+                try {
+                    updateFlow(operation);
+                    for (int processed = 1; processed < flowBatchSize && !batch.isEmpty(); processed++) {
+                        updateFlow(batch.poll());
+                    }
+                } finally {
+                    currentFlowBatch.set(null);
+                }
+                /*
+                 * Post the flows left over when the batch limit is reached as separate tasks so
+                 * that idle workers can steal them.
+                 */
+                for (TypeFlow<?> flow : batch) {
+                    executeFlow(flow);
+                }
             }
 
             @Override
@@ -558,6 +632,13 @@ public abstract class BigBang {
         });
     }
 
+    private void updateFlow(TypeFlow<?> operation) {
+        PointsToStats.registerTypeFlowQueuedUpdate(this, operation);
+
+        operation.inQueue = false;
+        operation.update(this);
+    }
+
     public void postTask(final DebugContextRunnable task) {
         executor.execute(task);
     }
@@ -37,6 +37,7 @@ import org.graalvm.compiler.options.OptionValues;
 import org.graalvm.compiler.phases.OptimisticOptimizations;
 
 import com.oracle.graal.pointsto.BigBang;
+import com.oracle.graal.pointsto.flow.ParsedGraphCache;
 import com.oracle.graal.pointsto.meta.AnalysisMethod;
 import com.oracle.graal.pointsto.meta.AnalysisType;
 import com.oracle.graal.pointsto.meta.AnalysisUniverse;
@@ -117,6 +118,14 @@ public interface HostVM {
         return InlineBeforeAnalysisPolicy.NO_INLINING;
     }
 
+    /**
+     * Returns the cache of parsed graphs that the analysis consults before parsing the bytecode of
+     * a method, or {@code null} if graphs are not cached.
+     */
+    default ParsedGraphCache getParsedGraphCache() {
+        return null;
+    }
+
     @SuppressWarnings("unused")
     default boolean skipInterface(AnalysisUniverse universe, ResolvedJavaType interfaceType, ResolvedJavaType implementingType) {
         return false;
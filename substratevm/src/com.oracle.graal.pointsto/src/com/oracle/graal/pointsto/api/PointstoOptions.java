@@ -38,6 +38,9 @@ public class PointstoOptions {
     @Option(help = "A context sensitive heap means that each heap allocated object is modeled by using at least the allocation site.")//
     public static final OptionKey<Boolean> AllocationSiteSensitiveHeap = new OptionKey<>(false);
 
+    @Option(help = "Use compact method flows in the context insensitive analysis, i.e., release the links between the flows of a method flows template once its only clone is linked.")//
+    public static final OptionKey<Boolean> CompactMethodFlows = new OptionKey<>(false);
+
     @Option(help = "The minimum length of the context used to model a heap object in addition to the allocation site; used only when ContextSensitiveHeap is enabled.")//
     public static final OptionKey<Integer> MinHeapContextDepth = new OptionKey<>(0);
 
@@ -62,6 +65,18 @@ public class PointstoOptions {
     @Option(help = "The maximum number of objects recorded for each type of a type state before disabling heap sensitivity for that type. The analysis must be heap sensitive. It has a minimum value of 1.")//
     public static final OptionKey<Integer> MaxObjectSetSize = new OptionKey<>(100);
 
+    @Option(help = "The maximum number of type flow updates processed by one analysis task. Flows posted while a task runs are queued in a worker local batch, up to this size, instead of being posted as separate tasks. A value of 1 disables batching.")//
+    public static final OptionKey<Integer> TypeFlowBatchSize = new OptionKey<>(32);
+
+    @Option(help = "Canonicalize the type states stored into the flows of a heap insensitive analysis, i.e., equal flow states are represented by the same object as far as the bounded intern table allows.")//
+    public static final OptionKey<Boolean> InternTypeStates = new OptionKey<>(true);
+
+    @Option(help = "The number of entries of the table that canonicalizes the type states stored into flows. Colliding states replace each other, so the table keeps at most this many states alive. A value of 0 disables interning.")//
+    public static final OptionKey<Integer> TypeStateInternTableSize = new OptionKey<>(16384);
+
+    @Option(help = "The number of entries of the cache that memoizes the most recent type state union, intersection and subtraction results. The cache is only used when type states are interned. A value of 0 disables the cache.")//
+    public static final OptionKey<Integer> TypeStateOperationCacheSize = new OptionKey<>(4096);
+
     @Option(help = "The maximum number of constant objects recorded for each type before merging the constants into one unique constant object per type. The analysis must be heap sensitive. It has a minimum value of 1.")//
     public static final OptionKey<Integer> MaxConstantObjectsPerType = new OptionKey<>(100);
 
@@ -74,6 +89,9 @@ public class PointstoOptions {
     @Option(help = "Print types used for Java synchronization.")//
     public static final OptionKey<Boolean> PrintSynchronizedAnalysis = new OptionKey<>(false);
 
+    @Option(help = "Track the types of all arrays whose elements may be written, so that arrays that are never written can be treated as immutable.")//
+    public static final OptionKey<Boolean> TrackArrayWrites = new OptionKey<>(false);
+
     @Option(help = "Analysis: Detect methods that return one of their parameters and hardwire the parameter straight to the return.")//
     public static final OptionKey<Boolean> DivertParameterReturningMethod = new OptionKey<>(true);
 
@@ -133,6 +151,9 @@ public class PointstoOptions {
      * <p/>
      * insens - context insensitive analysis,
      * <p/>
+     * summary - context insensitive analysis that keeps only compact method flows, see
+     * {@link #CompactMethodFlows},
+     * <p/>
      * allocsens - allocation site sensitive heap, i.e. heap allocated objects are modeled using the
      * allocation site, but the analysis is context insensitive
      * <p/>
@@ -141,7 +162,7 @@ public class PointstoOptions {
      * <p/>
      * 2obj1h - 2 object sensitive with a 1 context sensitive heap
      */
-    @Option(help = "Controls the static analysis context sensitivity. Available values: insens (context insensitive analysis), allocsens (context insensitive analysis, context insensitive heap, allocation site sensitive heap), " +
+    @Option(help = "Controls the static analysis context sensitivity. Available values: insens (context insensitive analysis), summary (context insensitive analysis with compact method flows), allocsens (context insensitive analysis, context insensitive heap, allocation site sensitive heap), " +
                     "_1obj (1 object sensitive analysis with a context insensitive heap), _2obj1h (2 object sensitive with a 1 context sensitive heap)")//
     public static final OptionKey<String> AnalysisContextSensitivity = new OptionKey<String>("insens") {
         @Override
@@ -155,6 +176,15 @@ public class PointstoOptions {
                     MaxCallingContextDepth.update(values, 0);
                     break;
 
+                case "summary":
+                    AllocationSiteSensitiveHeap.update(values, false);
+                    CompactMethodFlows.update(values, true);
+                    MinHeapContextDepth.update(values, 0);
+                    MaxHeapContextDepth.update(values, 0);
+                    MinCallingContextDepth.update(values, 0);
+                    MaxCallingContextDepth.update(values, 0);
+                    break;
+
                 case "allocsens":
                     AllocationSiteSensitiveHeap.update(values, true);
                     MinHeapContextDepth.update(values, 0);
@@ -203,6 +233,7 @@ public class PointstoOptions {
 
     public enum ContextSensitivity {
         insens("insens"),
+        summary("summary"),
         allocsens("allocsens"),
         _1obj("_1obj"),
         _2obj1h("_2obj1h"),
@@ -33,6 +33,7 @@ import org.graalvm.compiler.debug.DebugContext.Builder;
 import org.graalvm.compiler.debug.DebugContext.Description;
 import org.graalvm.compiler.debug.Indent;
 import org.graalvm.compiler.nodes.EncodedGraph;
+import org.graalvm.compiler.nodes.GraphDecoder;
 import org.graalvm.compiler.nodes.GraphEncoder;
 import org.graalvm.compiler.nodes.StructuredGraph;
 import org.graalvm.compiler.nodes.graphbuilderconf.GraphBuilderConfiguration;
@@ -52,6 +53,7 @@ import com.oracle.graal.pointsto.util.AnalysisError;
 import com.oracle.svm.util.ClassUtil;
 
 import jdk.vm.ci.code.Architecture;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
 import jdk.vm.ci.runtime.JVMCI;
 
 public final class AnalysisParsedGraph {
@@ -84,6 +86,14 @@ public final class AnalysisParsedGraph {
         return isIntrinsic;
     }
 
+    /**
+     * Returns a parsing result that only records that the method was parsed, for methods whose
+     * encoded graph is no longer needed, see {@link AnalysisMethod#releaseEncodedGraph()}.
+     */
+    public AnalysisParsedGraph withoutEncodedGraph() {
+        return encodedGraph == null ? this : new AnalysisParsedGraph(null, isIntrinsic);
+    }
+
     @SuppressWarnings("try")
     public static AnalysisParsedGraph parseBytecode(BigBang bb, AnalysisMethod method) {
         if (bb == null) {
@@ -114,6 +124,14 @@ public final class AnalysisParsedGraph {
                 return EMPTY;
             }
 
+            ParsedGraphCache cache = bb.getHostVM().getParsedGraphCache();
+            if (cache != null) {
+                EncodedGraph cachedGraph = cache.lookup(bb, method);
+                if (cachedGraph != null) {
+                    return optimizeAndEncode(bb, method, decodeCachedGraph(options, debug, method, cachedGraph), false);
+                }
+            }
+
             graph = new StructuredGraph.Builder(options, debug).method(method).build();
             try (DebugContext.Scope s = debug.scope("ClosedWorldAnalysis", graph, method)) {
 
@@ -137,10 +155,36 @@ public final class AnalysisParsedGraph {
             } catch (Throwable e) {
                 throw debug.handle(e);
             }
+            if (cache != null) {
+                cache.store(bb, method, graph);
+            }
             return optimizeAndEncode(bb, method, graph, false);
         }
     }
 
+    /**
+     * Reconstructs the graph that parsing produced in an earlier analysis run, including the
+     * properties of the graph that are not represented by nodes.
+     */
+    @SuppressWarnings("try")
+    private static StructuredGraph decodeCachedGraph(OptionValues options, DebugContext debug, AnalysisMethod method, EncodedGraph cachedGraph) {
+        StructuredGraph graph = new StructuredGraph.Builder(options, debug).method(method).trackNodeSourcePosition(cachedGraph.trackNodeSourcePosition()).build();
+        try (DebugContext.Scope s = debug.scope("ClosedWorldAnalysisCache", graph, method)) {
+            new GraphDecoder(HOST_ARCHITECTURE, graph).decode(cachedGraph);
+            if (cachedGraph.getInlinedMethods() != null) {
+                for (ResolvedJavaMethod inlinedMethod : cachedGraph.getInlinedMethods()) {
+                    graph.recordMethod(inlinedMethod);
+                }
+            }
+            if (cachedGraph.hasUnsafeAccess()) {
+                graph.markUnsafeAccess();
+            }
+        } catch (Throwable e) {
+            throw debug.handle(e);
+        }
+        return graph;
+    }
+
     private static AnalysisParsedGraph optimizeAndEncode(BigBang bb, AnalysisMethod method, StructuredGraph graph, boolean isIntrinsic) {
         /*
          * Must be called before any other thread can access the graph, i.e., before the graph is
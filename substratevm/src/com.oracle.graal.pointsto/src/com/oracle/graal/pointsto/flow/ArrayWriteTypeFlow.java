@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.pointsto.flow;
+
+import org.graalvm.compiler.nodes.ValueNode;
+
+import com.oracle.graal.pointsto.BigBang;
+
+import jdk.vm.ci.code.BytecodePosition;
+
+/**
+ * Models a write of array elements, either by a regular array store, by an unsafe access or array
+ * copy, or by raw memory access through the address of the object. The input is the receiver
+ * object, which is forwarded to {@link BigBang#getAllWrittenArraysTypeFlow()}.
+ */
+public class ArrayWriteTypeFlow extends TypeFlow<BytecodePosition> {
+
+    public ArrayWriteTypeFlow(BigBang bb, ValueNode source) {
+        super(source.getNodeSourcePosition(), null);
+        this.addUse(bb, bb.getAllWrittenArraysTypeFlow());
+    }
+
+    @Override
+    public TypeFlow<BytecodePosition> copy(BigBang bb, MethodFlowsGraph methodFlows) {
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder str = new StringBuilder();
+        str.append("ArrayWriteFlow<").append(getState()).append(">");
+        return str.toString();
+    }
+}
@@ -29,8 +29,6 @@ import static jdk.vm.ci.common.JVMCIError.guarantee;
 import java.util.Collection;
 import java.util.Collections;
 
-import org.graalvm.compiler.nodes.ParameterNode;
-
 import com.oracle.graal.pointsto.BigBang;
 import com.oracle.graal.pointsto.api.PointstoOptions;
 import com.oracle.graal.pointsto.flow.context.AnalysisContext;
@@ -166,8 +164,8 @@ public abstract class InvokeTypeFlow extends TypeFlow<BytecodePosition> {
         }
 
         if (PointstoOptions.DivertParameterReturningMethod.getValue(bb.getOptions())) {
-            ParameterNode paramNode = calleeFlows.getMethod().getTypeFlow().getReturnedParameter();
-            if (actualReturn != null && paramNode != null && paramNode.index() == 0) {
+            int paramIndex = calleeFlows.getMethod().getTypeFlow().getReturnedParameterIndex();
+            if (actualReturn != null && paramIndex == 0) {
                 actualReturn.addState(bb, receiverTypeState);
             }
         }
@@ -204,10 +202,10 @@ public abstract class InvokeTypeFlow extends TypeFlow<BytecodePosition> {
 
         if (actualReturn != null) {
             if (PointstoOptions.DivertParameterReturningMethod.getValue(bb.getOptions())) {
-                ParameterNode paramNode = calleeFlows.getMethod().getTypeFlow().getReturnedParameter();
-                if (paramNode != null) {
-                    if (isStatic || paramNode.index() != 0) {
-                        TypeFlow<?> actualParam = actualParameters[paramNode.index()];
+                int paramIndex = calleeFlows.getMethod().getTypeFlow().getReturnedParameterIndex();
+                if (paramIndex != -1) {
+                    if (isStatic || paramIndex != 0) {
+                        TypeFlow<?> actualParam = actualParameters[paramIndex];
                         actualParam.addUse(bb, actualReturn);
                     }
                     // else {
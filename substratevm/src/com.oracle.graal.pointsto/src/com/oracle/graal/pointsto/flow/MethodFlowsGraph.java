@@ -30,6 +30,7 @@ import java.lang.reflect.Modifier;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -124,6 +125,7 @@ public class MethodFlowsGraph {
     public void cloneOriginalFlows(BigBang bb) {
 
         assert this.isClone && context != null;
+        boolean compact = bb.analysisPolicy().compactMethodFlows();
 
         /*
          * The original method flows represent the source for cloning.
@@ -144,10 +146,24 @@ public class MethodFlowsGraph {
 
         initialParameterFlows = new InitialParamTypeFlow[originalMethodFlowsGraph.initialParameterFlows.length];
 
-        nodeFlows = originalMethodFlowsGraph.nodeFlows.entrySet().stream().collect(Collectors.toMap(e -> e.getKey(), e -> lookupCloneOf(bb, e.getValue())));
         result = originalMethodFlowsGraph.getResult() != null ? lookupCloneOf(bb, originalMethodFlowsGraph.getResult()) : null;
-        instanceOfFlows = originalMethodFlowsGraph.instanceOfFlows.entrySet().stream().collect(Collectors.toMap(e -> e.getKey(), e -> lookupCloneOf(bb, e.getValue())));
-        miscEntryFlows = originalMethodFlowsGraph.miscEntryFlows.stream().map(f -> lookupCloneOf(bb, f)).collect(Collectors.toList());
+        if (compact) {
+            /*
+             * The node, instanceof and miscellaneous entry flows of a clone are only looked up via
+             * the template, i.e., by the slot of the original flow, so the maps are not duplicated.
+             * The clones are still created since they are part of the linearized graph.
+             */
+            originalMethodFlowsGraph.nodeFlows.values().forEach(f -> lookupCloneOf(bb, f));
+            originalMethodFlowsGraph.instanceOfFlows.values().forEach(f -> lookupCloneOf(bb, f));
+            originalMethodFlowsGraph.miscEntryFlows.forEach(f -> lookupCloneOf(bb, f));
+            nodeFlows = Collections.emptyMap();
+            instanceOfFlows = Collections.emptyMap();
+            miscEntryFlows = Collections.emptyList();
+        } else {
+            nodeFlows = originalMethodFlowsGraph.nodeFlows.entrySet().stream().collect(Collectors.toMap(e -> e.getKey(), e -> lookupCloneOf(bb, e.getValue())));
+            instanceOfFlows = originalMethodFlowsGraph.instanceOfFlows.entrySet().stream().collect(Collectors.toMap(e -> e.getKey(), e -> lookupCloneOf(bb, e.getValue())));
+            miscEntryFlows = originalMethodFlowsGraph.miscEntryFlows.stream().map(f -> lookupCloneOf(bb, f)).collect(Collectors.toList());
+        }
         invokeFlows = originalMethodFlowsGraph.invokeFlows.entrySet().stream().collect(Collectors.toMap(e -> e.getKey(), e -> lookupCloneOf(bb, e.getValue())));
 
         /* At this point all the clones should have been created. */
@@ -161,7 +177,7 @@ public class MethodFlowsGraph {
         assert !(original instanceof FieldTypeFlow) : "Trying to clone a field type flow";
         assert !(original instanceof ArrayElementsTypeFlow) : "Trying to clone an mixed elements type flow";
 
-        if (original instanceof AllInstantiatedTypeFlow || original instanceof AllSynchronizedTypeFlow) {
+        if (original instanceof AllInstantiatedTypeFlow || original instanceof AllSynchronizedTypeFlow || original instanceof AllWrittenArraysTypeFlow) {
             /* All instantiated is not cloneable. */
             return original;
         }
@@ -257,6 +273,21 @@ public class MethodFlowsGraph {
         }
     }
 
+    /**
+     * Releases the links between the flows of this template graph after its only clone was
+     * linked, see {@link com.oracle.graal.pointsto.AnalysisPolicy#compactMethodFlows()}. Flows that
+     * are not cloned, i.e., that are shared by the template and the clone, keep their links.
+     */
+    public void compactOriginalFlows(MethodFlowsGraph clone) {
+        assert !isClone && clone.isClone && clone.sealed;
+        for (TypeFlow<?> original : linearizedGraph) {
+            TypeFlow<?> cloneFlow = clone.linearizedGraph[original.getSlot()];
+            if (cloneFlow != null && cloneFlow != original) {
+                original.releaseOriginalLinks();
+            }
+        }
+    }
+
     public static boolean nonCloneableFlow(TypeFlow<?> flow) {
         /*
          * References to field flows and to array elements flows are not part of the method itself;
@@ -50,6 +50,7 @@ import com.oracle.graal.pointsto.constraints.UnsupportedFeatureException;
 import com.oracle.graal.pointsto.flow.context.AnalysisContext;
 import com.oracle.graal.pointsto.meta.AnalysisMethod;
 import com.oracle.graal.pointsto.meta.AnalysisType;
+import com.oracle.graal.pointsto.phases.InlineBeforeAnalysis;
 import com.oracle.graal.pointsto.typestate.TypeState;
 import com.oracle.graal.pointsto.util.AnalysisError;
 
@@ -64,7 +65,11 @@ public class MethodTypeFlow extends TypeFlow<AnalysisMethod> {
     private volatile boolean typeFlowCreated;
     private InvokeTypeFlow parsingReason;
 
-    private ParameterNode returnedParameter;
+    /*
+     * Only the index of the returned parameter is kept, a ParameterNode would keep the whole graph
+     * of the method alive.
+     */
+    private int returnedParameterIndex = -1;
 
     public MethodTypeFlow(OptionValues options, AnalysisMethod method) {
         super(method, null);
@@ -114,6 +119,14 @@ public class MethodTypeFlow extends TypeFlow<AnalysisMethod> {
                 // link uses after adding the clone to the map since linking uses might trigger
                 // updates to the current method in the current context
                 methodFlows.linkClones(bb);
+                if (bb.analysisPolicy().compactMethodFlows()) {
+                    assert localCallingContextDepth == 0 : "Compact method flows require a context insensitive analysis";
+                    originalMethodFlows.compactOriginalFlows(methodFlows);
+                    if (!InlineBeforeAnalysis.isEnabled(bb)) {
+                        /* The type flows are the only consumer of the encoded graph. */
+                        method.releaseEncodedGraph();
+                    }
+                }
             }
         }
 
@@ -243,11 +256,11 @@ public class MethodTypeFlow extends TypeFlow<AnalysisMethod> {
         return originalMethodFlows.getInvokeFlows();
     }
 
-    private static ParameterNode computeReturnedParameter(StructuredGraph graph) {
+    private static int computeReturnedParameterIndex(StructuredGraph graph) {
 
         if (graph == null) {
             // Some methods, e.g., native ones, don't have a graph.
-            return null;
+            return -1;
         }
 
         ParameterNode retParam = null;
@@ -266,15 +279,15 @@ public class MethodTypeFlow extends TypeFlow<AnalysisMethod> {
             }
         }
 
-        return retParam;
+        return retParam != null ? retParam.index() : -1;
     }
 
     /**
-     * If the method returns a parameter through all of the return nodes then that ParameterNode is
-     * returned, otherwise null.
+     * If the method returns a parameter through all of the return nodes then the index of that
+     * parameter is returned, otherwise -1.
      */
-    public ParameterNode getReturnedParameter() {
-        return returnedParameter;
+    public int getReturnedParameterIndex() {
+        return returnedParameterIndex;
     }
 
     public void ensureTypeFlowCreated(BigBang bb, InvokeTypeFlow reason) {
@@ -315,7 +328,7 @@ public class MethodTypeFlow extends TypeFlow<AnalysisMethod> {
 
             bb.numParsedGraphs.incrementAndGet();
 
-            returnedParameter = computeReturnedParameter(graph);
+            returnedParameterIndex = computeReturnedParameterIndex(graph);
 
             typeFlowCreated = true;
         }
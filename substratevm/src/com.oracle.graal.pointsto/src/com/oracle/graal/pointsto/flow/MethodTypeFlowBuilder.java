@@ -928,6 +928,7 @@ public class MethodTypeFlowBuilder {
 
             } else if (n instanceof StoreIndexedNode) {
                 StoreIndexedNode node = (StoreIndexedNode) n;
+                registerArrayWrite(node, node.array(), null, state);
                 if (node.value().getStackKind() == JavaKind.Object) {
                     AnalysisType arrayType = (AnalysisType) StampTool.typeOrNull(node.array());
                     AnalysisType nonNullArrayType = Optional.ofNullable(arrayType).orElseGet(bb::getObjectArrayType);
@@ -1043,6 +1044,7 @@ public class MethodTypeFlowBuilder {
                 RawStoreNode node = (RawStoreNode) n;
 
                 checkUnsafeOffset(node.object(), node.offset());
+                registerArrayWrite(node, node.object(), node.offset(), state);
 
                 if (node.object().getStackKind() == JavaKind.Object && node.value().getStackKind() == JavaKind.Object) {
                     AnalysisType objectType = (AnalysisType) StampTool.typeOrNull(node.object());
@@ -1080,6 +1082,7 @@ public class MethodTypeFlowBuilder {
             } else if (n instanceof UnsafeCompareAndSwapNode) {
                 UnsafeCompareAndSwapNode node = (UnsafeCompareAndSwapNode) n;
                 checkUnsafeOffset(node.object(), node.offset());
+                registerArrayWrite(node, node.object(), node.offset(), state);
                 if (node.object().getStackKind() == JavaKind.Object && node.newValue().getStackKind() == JavaKind.Object) {
                     AnalysisType objectType = (AnalysisType) StampTool.typeOrNull(node.object());
                     TypeFlowBuilder<?> objectBuilder = state.lookup(node.object());
@@ -1117,14 +1120,17 @@ public class MethodTypeFlowBuilder {
 
             } else if (n instanceof UnsafeCompareAndExchangeNode) {
                 UnsafeCompareAndExchangeNode node = (UnsafeCompareAndExchangeNode) n;
+                registerArrayWrite(node, node.object(), node.offset(), state);
                 modelUnsafeReadAndWriteFlow(node, node.object(), node.newValue(), node.offset());
 
             } else if (n instanceof AtomicReadAndWriteNode) {
                 AtomicReadAndWriteNode node = (AtomicReadAndWriteNode) n;
+                registerArrayWrite(node, node.object(), node.offset(), state);
                 modelUnsafeReadAndWriteFlow(node, node.object(), node.newValue(), node.offset());
 
             } else if (n instanceof ArrayCopy) {
                 ArrayCopy node = (ArrayCopy) n;
+                registerArrayWrite(node.asNode(), node.getDestination(), null, state);
 
                 TypeFlowBuilder<?> srcBuilder = state.lookup(node.getSource());
                 TypeFlowBuilder<?> dstBuilder = state.lookup(node.getDestination());
@@ -1157,8 +1163,12 @@ public class MethodTypeFlowBuilder {
                     /*
                      * The object-to-word operation converts an object into its address. The
                      * points-to analysis doesn't model object-to-word operations and they must be
-                     * handled at a different level.
+                     * handled at a different level. Only the fact that array elements can be
+                     * written through the address is recorded.
                      */
+                    if (mayWriteArrayThroughAddress(node)) {
+                        registerArrayWrite(node, input, null, state);
+                    }
                 } else {
                     /* Word-to-object: Any object can flow out from a low level memory read. */
                     TypeFlowBuilder<?> wordToObjectBuilder = TypeFlowBuilder.create(bb, node, WordToObjectTypeFlow.class, () -> {
@@ -1430,6 +1440,53 @@ public class MethodTypeFlowBuilder {
         // Hook for subclasses to do their own processing.
     }
 
+    /**
+     * Records that the array elements of the given object may be written by the given node. Writes
+     * that are known to only access the object header do not count as array writes.
+     */
+    protected void registerArrayWrite(ValueNode node, ValueNode object, ValueNode offset, TypeFlowsOfNodes state) {
+        if (!bb.trackArrayWrites() || object.getStackKind() != JavaKind.Object) {
+            return;
+        }
+        AnalysisType objectType = (AnalysisType) StampTool.typeOrNull(object);
+        if (objectType != null && objectType.isInstanceClass() && !objectType.isJavaLangObject()) {
+            /* Statically known to be an instance, so no array elements can be written. */
+            return;
+        }
+        if (offset != null && isObjectHeaderOffset(offset)) {
+            return;
+        }
+
+        TypeFlowBuilder<?> objectBuilder = state.lookup(object);
+        TypeFlowBuilder<?> arrayWriteBuilder = TypeFlowBuilder.create(bb, node, ArrayWriteTypeFlow.class, () -> {
+            ArrayWriteTypeFlow arrayWriteFlow = new ArrayWriteTypeFlow(bb, node);
+            methodFlow.addMiscEntry(arrayWriteFlow);
+            return arrayWriteFlow;
+        });
+        arrayWriteBuilder.addUseDependency(objectBuilder);
+        /* Array writes must not be removed. */
+        typeFlowGraphBuilder.registerSinkBuilder(arrayWriteBuilder);
+    }
+
+    /**
+     * Returns true if the offset of an unsafe access is known to be in the object header, i.e.,
+     * before the first array element. The default implementation does not know the object layout.
+     */
+    @SuppressWarnings("unused")
+    protected boolean isObjectHeaderOffset(ValueNode offset) {
+        return false;
+    }
+
+    /**
+     * Returns true if array elements can be written through the address that the given
+     * object-to-word operation produces. The address of a value that is statically known to be an
+     * array is always assumed to be used for writing.
+     */
+    protected boolean mayWriteArrayThroughAddress(WordCastNode node) {
+        AnalysisType inputType = (AnalysisType) StampTool.typeOrNull(node.getInput());
+        return inputType != null && inputType.isArray();
+    }
+
     /**
      * This method returns a unique key for the given node. Unless the node comes from a
      * substitution, the unique key is the BCI of the node. Every
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.pointsto.flow;
+
+import org.graalvm.compiler.nodes.EncodedGraph;
+import org.graalvm.compiler.nodes.StructuredGraph;
+
+import com.oracle.graal.pointsto.BigBang;
+import com.oracle.graal.pointsto.meta.AnalysisMethod;
+
+/**
+ * A cache of the graphs that bytecode parsing produces for analysis methods, which can outlive a
+ * single analysis run. The cached graphs are the plain parsing results, i.e., they are taken
+ * before {@link com.oracle.graal.pointsto.api.HostVM#methodAfterParsingHook} runs, so that the
+ * hook also sees graphs that come from the cache.
+ */
+public interface ParsedGraphCache {
+
+    /**
+     * Returns the graph that parsing produced for the method in an earlier analysis run, if it is
+     * still valid, or {@code null}.
+     */
+    EncodedGraph lookup(BigBang bb, AnalysisMethod method);
+
+    /**
+     * Offers the graph that parsing produced for the method. The cache is free to ignore graphs
+     * that it cannot persist.
+     */
+    void store(BigBang bb, AnalysisMethod method, StructuredGraph graph);
+
+    /**
+     * Records that parsing the graph had side effects that are not represented by the graph
+     * itself, for example registrations for reflection or unsafe access done by graph builder
+     * plugins. A cache hit would skip them, so the graph must not be {@linkplain #store stored}.
+     */
+    void markUncacheable(StructuredGraph graph);
+}
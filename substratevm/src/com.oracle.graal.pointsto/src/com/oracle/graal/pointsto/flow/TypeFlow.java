@@ -239,7 +239,7 @@ public abstract class TypeFlow<T> {
     public void setState(BigBang bb, TypeState state) {
         assert !PointstoOptions.ExtendedAsserts.getValue(bb.getOptions()) || this instanceof InstanceOfTypeFlow ||
                         state.verifyDeclaredType(declaredType) : "declaredType: " + declaredType.toJavaName(true) + " state: " + state;
-        this.state = state;
+        this.state = bb.getTypeStateCache().intern(state);
     }
 
     public void setSlot(int slot) {
@@ -292,6 +292,7 @@ public abstract class TypeFlow<T> {
             if (after.equals(before)) {
                 return false;
             }
+            after = bb.getTypeStateCache().intern(after);
         } while (!STATE_UPDATER.compareAndSet(this, before, after));
 
         PointsToStats.registerTypeFlowSuccessfulUpdate(bb, this, add);
@@ -500,6 +501,19 @@ public abstract class TypeFlow<T> {
         return ConcurrentLightHashSet.removeElement(this, INPUTS_UPDATER, input);
     }
 
+    /**
+     * Drops all uses, inputs, observers and observees of an original flow. This is only valid
+     * once no more clones of the original flow will be linked, since the links of the original
+     * flow are the blueprint for the links of its clones.
+     */
+    public void releaseOriginalLinks() {
+        assert !isClone : "Releasing the links of the cloned flow " + this;
+        ConcurrentLightHashSet.clear(this, USE_UPDATER);
+        ConcurrentLightHashSet.clear(this, INPUTS_UPDATER);
+        ConcurrentLightHashSet.clear(this, OBSERVERS_UPDATER);
+        ConcurrentLightHashSet.clear(this, OBSERVEES_UPDATER);
+    }
+
     public TypeState filter(@SuppressWarnings("unused") BigBang bb, TypeState newState) {
         return newState;
     }
@@ -188,6 +188,18 @@ public class AnalysisMethod implements WrappedJavaMethod, GraphProvider, Origina
         }
     }
 
+    /**
+     * Drops the encoded graph of a method whose type flows are already created, while keeping the
+     * method in the parsed state so that it is never parsed again. Must only be called when no later
+     * parsing can inline the method.
+     */
+    public void releaseEncodedGraph() {
+        Object curState = parsedGraphCacheState.get();
+        if (curState instanceof AnalysisParsedGraph) {
+            parsedGraphCacheState.compareAndSet(curState, ((AnalysisParsedGraph) curState).withoutEncodedGraph());
+        }
+    }
+
     public void startTrackInvocations() {
         if (invokedBy == null) {
             invokedBy = new ConcurrentHashMap<>();
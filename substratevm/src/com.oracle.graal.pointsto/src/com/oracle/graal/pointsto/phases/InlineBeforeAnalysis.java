@@ -81,6 +81,14 @@ public class InlineBeforeAnalysis {
         public static final OptionKey<Boolean> InlineBeforeAnalysis = new OptionKey<>(false);
     }
 
+    /**
+     * Returns true if the encoded graphs of already parsed methods can still be inlined into the
+     * graphs of methods that are parsed later.
+     */
+    public static boolean isEnabled(BigBang bb) {
+        return bb.strengthenGraalGraphs() && Options.InlineBeforeAnalysis.getValue(bb.getOptions());
+    }
+
     @SuppressWarnings("try")
     public static StructuredGraph decodeGraph(BigBang bb, AnalysisMethod method, AnalysisParsedGraph analysisParsedGraph) {
         DebugContext.Description description = new DebugContext.Description(method, ClassUtil.getUnqualifiedName(method.getClass()) + ":" + method.getId());
@@ -94,7 +102,7 @@ public class InlineBeforeAnalysis {
 
         try (DebugContext.Scope s = debug.scope("InlineBeforeAnalysis", result)) {
 
-            if (bb.strengthenGraalGraphs() && Options.InlineBeforeAnalysis.getValue(bb.getOptions())) {
+            if (isEnabled(bb)) {
                 InlineBeforeAnalysisGraphDecoder<?> decoder = new InlineBeforeAnalysisGraphDecoder<>(bb, bb.getHostVM().inlineBeforeAnalysisPolicy(), result);
                 decoder.decode(method, false, result.trackNodeSourcePosition());
             } else {
@@ -26,6 +26,9 @@ package com.oracle.graal.pointsto.reports;
 
 import java.io.File;
 import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
 import java.util.Map;
 import java.util.function.Consumer;
 
@@ -85,7 +88,8 @@ public final class StatisticsPrinter {
         print(out, "features_time_ms", bigbang.processFeaturesTimer.getTotalTime());
         print(out, "total_analysis_time_ms", bigbang.analysisTimer.getTotalTime());
 
-        printLast(out, "total_memory_bytes", bigbang.analysisTimer.getTotalMemory());
+        print(out, "total_memory_bytes", bigbang.analysisTimer.getTotalMemory());
+        printLast(out, "peak_heap_bytes", getPeakHeapUsage());
 
         endObject(out);
     }
@@ -112,6 +116,20 @@ public final class StatisticsPrinter {
         out.format("%s\"%s\": %d%n", INDENT, key, value);
     }
 
+    /**
+     * The sum of the peak usages of all heap memory pools since the image builder started, which
+     * includes the whole analysis.
+     */
+    private static long getPeakHeapUsage() {
+        long peakUsage = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) {
+                peakUsage += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peakUsage;
+    }
+
     private static int[] getNumReachableTypes(BigBang bb) {
         int reachable = 0;
         int appReachable = 0;
@@ -357,12 +357,11 @@ public abstract class StrengthenGraphs extends AbstractAnalysisResultsBuilder {
                      */
                     return;
                 }
-                ParameterNode returnedCalleeParameter = callee.getTypeFlow().getReturnedParameter();
-                if (returnedCalleeParameter == null) {
+                int returnedCalleeParameterIndex = callee.getTypeFlow().getReturnedParameterIndex();
+                if (returnedCalleeParameterIndex == -1) {
                     /* This callee does not return a parameter. */
                     return;
                 }
-                int returnedCalleeParameterIndex = returnedCalleeParameter.index();
                 if (returnedParameterIndex == -1) {
                     returnedParameterIndex = returnedCalleeParameterIndex;
                 } else if (returnedParameterIndex != returnedCalleeParameterIndex) {
@@ -208,7 +208,7 @@ public class MultiTypeState extends TypeState {
     public TypeState exactTypeState(BigBang bb, AnalysisType exactType) {
         if (containsType(exactType)) {
             AnalysisObject[] resultObjects = objectsArray(exactType);
-            return new SingleTypeState(bb, canBeNull, bb.analysisPolicy().makePoperties(bb, resultObjects), resultObjects);
+            return intern(bb, new SingleTypeState(bb, canBeNull, bb.analysisPolicy().makePoperties(bb, resultObjects), resultObjects));
         } else {
             return EmptyTypeState.SINGLETON;
         }
@@ -220,7 +220,7 @@ public class MultiTypeState extends TypeState {
             return this;
         } else {
             /* Just flip the canBeNull flag and copy the rest of the values from this. */
-            return new MultiTypeState(bb, resultCanBeNull, this);
+            return intern(bb, new MultiTypeState(bb, resultCanBeNull, this));
         }
     }
 
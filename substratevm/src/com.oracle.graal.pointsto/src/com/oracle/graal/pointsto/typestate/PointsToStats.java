@@ -50,6 +50,7 @@ import com.oracle.graal.pointsto.BigBang;
 import com.oracle.graal.pointsto.flow.ActualReturnTypeFlow;
 import com.oracle.graal.pointsto.flow.AllInstantiatedTypeFlow;
 import com.oracle.graal.pointsto.flow.AllSynchronizedTypeFlow;
+import com.oracle.graal.pointsto.flow.AllWrittenArraysTypeFlow;
 import com.oracle.graal.pointsto.flow.ArrayElementsTypeFlow;
 import com.oracle.graal.pointsto.flow.CloneTypeFlow;
 import com.oracle.graal.pointsto.flow.DynamicNewInstanceTypeFlow;
@@ -494,6 +495,8 @@ public class PointsToStats {
             return "AllInstantiated(" + formatType(flow.getDeclaredType(), true) + ")";
         } else if (flow instanceof AllSynchronizedTypeFlow) {
             return "AllSynchronized";
+        } else if (flow instanceof AllWrittenArraysTypeFlow) {
+            return "AllWrittenArrays";
         } else if (flow instanceof FieldSinkTypeFlow) {
             FieldSinkTypeFlow sink = (FieldSinkTypeFlow) flow;
             return "FieldSink(" + formatField(sink.getSource()) + ")";
@@ -187,7 +187,7 @@ public class SingleTypeState extends TypeState {
         if (stateCanBeNull == this.canBeNull()) {
             return this;
         } else {
-            return new SingleTypeState(bb, stateCanBeNull, this);
+            return intern(bb, new SingleTypeState(bb, stateCanBeNull, this));
         }
     }
 
@@ -40,6 +40,7 @@ import com.oracle.graal.pointsto.flow.context.BytecodeLocation;
 import com.oracle.graal.pointsto.flow.context.object.AnalysisObject;
 import com.oracle.graal.pointsto.meta.AnalysisType;
 import com.oracle.graal.pointsto.typestate.MultiTypeState.Range;
+import com.oracle.graal.pointsto.typestate.TypeStateCache.Operation;
 import com.oracle.graal.pointsto.util.BitArrayUtils;
 
 import jdk.vm.ci.meta.JavaConstant;
@@ -407,7 +408,18 @@ public abstract class TypeState {
             return s1;
         } else if (s2.isNull()) {
             return s1.forCanBeNull(bb, true);
-        } else if (s1 instanceof SingleTypeState && s2 instanceof SingleTypeState) {
+        }
+
+        TypeStateCache cache = bb.getTypeStateCache();
+        TypeState result = cache.lookup(Operation.UNION, s1, s2);
+        if (result == null) {
+            result = cache.record(Operation.UNION, s1, s2, computeUnion(bb, s1, s2));
+        }
+        return result;
+    }
+
+    private static TypeState computeUnion(BigBang bb, TypeState s1, TypeState s2) {
+        if (s1 instanceof SingleTypeState && s2 instanceof SingleTypeState) {
             return doUnion(bb, (SingleTypeState) s1, (SingleTypeState) s2);
         } else if (s1 instanceof SingleTypeState && s2 instanceof MultiTypeState) {
             return doUnion(bb, (MultiTypeState) s2, (SingleTypeState) s1);
@@ -432,7 +444,18 @@ public abstract class TypeState {
             return s2;
         } else if (s2.isNull()) {
             return s2.forCanBeNull(bb, s1.canBeNull());
-        } else if (s1 instanceof SingleTypeState && s2 instanceof SingleTypeState) {
+        }
+
+        TypeStateCache cache = bb.getTypeStateCache();
+        TypeState result = cache.lookup(Operation.INTERSECTION, s1, s2);
+        if (result == null) {
+            result = cache.record(Operation.INTERSECTION, s1, s2, computeIntersection(bb, s1, s2));
+        }
+        return result;
+    }
+
+    private static TypeState computeIntersection(BigBang bb, TypeState s1, TypeState s2) {
+        if (s1 instanceof SingleTypeState && s2 instanceof SingleTypeState) {
             return doIntersection(bb, (SingleTypeState) s1, (SingleTypeState) s2);
         } else if (s1 instanceof SingleTypeState && s2 instanceof MultiTypeState) {
             return doIntersection(bb, (SingleTypeState) s1, (MultiTypeState) s2);
@@ -453,7 +476,18 @@ public abstract class TypeState {
             return s1;
         } else if (s2.isNull()) {
             return s1.forCanBeNull(bb, false);
-        } else if (s1 instanceof SingleTypeState && s2 instanceof SingleTypeState) {
+        }
+
+        TypeStateCache cache = bb.getTypeStateCache();
+        TypeState result = cache.lookup(Operation.SUBTRACTION, s1, s2);
+        if (result == null) {
+            result = cache.record(Operation.SUBTRACTION, s1, s2, computeSubtraction(bb, s1, s2));
+        }
+        return result;
+    }
+
+    private static TypeState computeSubtraction(BigBang bb, TypeState s1, TypeState s2) {
+        if (s1 instanceof SingleTypeState && s2 instanceof SingleTypeState) {
             return doSubtraction(bb, (SingleTypeState) s1, (SingleTypeState) s2);
         } else if (s1 instanceof SingleTypeState && s2 instanceof MultiTypeState) {
             return doSubtraction(bb, (SingleTypeState) s1, (MultiTypeState) s2);
@@ -672,23 +706,10 @@ public abstract class TypeState {
      * Optimization that gives 1.5-3x in performance for the (typeflow) phase.
      */
     private static TypeState allocationInsensitiveSpeculativeUnion1(BigBang bb, MultiTypeState s1, MultiTypeState s2, boolean resultCanBeNull) {
-        if (s1.typesBitSet.length() >= s2.typesBitSet.length()) {
-            long[] bits1 = TypeStateUtils.extractBitSetField(s1.typesBitSet);
-            long[] bits2 = TypeStateUtils.extractBitSetField(s2.typesBitSet);
-            assert s2.typesBitSet.cardinality() == s2.objects.length : "Cardinality and length of objects must match.";
-
-            boolean speculate = true;
-            int numberOfWords = Math.min(bits1.length, bits2.length);
-            for (int i = 0; i < numberOfWords; i++) {
-                /* bits2 is a subset of bits1 */
-                if ((bits1[i] & bits2[i]) != bits2[i]) {
-                    speculate = false;
-                    break;
-                }
-            }
-            if (speculate) {
-                return s1.forCanBeNull(bb, resultCanBeNull);
-            }
+        assert s2.typesBitSet.cardinality() == s2.objects.length : "Cardinality and length of objects must match.";
+        if (TypeStateUtils.isSubset(s1.typesBitSet, s2.typesBitSet)) {
+            /* The types of s2 are a subset of the types of s1. */
+            return s1.forCanBeNull(bb, resultCanBeNull);
         }
         return doUnion2(bb, s1, s2, resultCanBeNull, 0, 0);
     }
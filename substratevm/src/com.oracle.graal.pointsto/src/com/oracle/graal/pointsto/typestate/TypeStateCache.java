@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.pointsto.typestate;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.graalvm.compiler.options.OptionValues;
+
+import com.oracle.graal.pointsto.api.PointstoOptions;
+
+/**
+ * Canonicalizes the type states stored into the flows of a heap insensitive analysis and memoizes
+ * the results of the most recent type state operations.
+ *
+ * When the heap is not allocation site sensitive each type is modeled by its context insensitive
+ * analysis object and the type state properties are not used, so a type state is fully described
+ * by its objects and its null flag, and operations on type states have no side effects. Only the
+ * states that a {@link com.oracle.graal.pointsto.flow.TypeFlow} is about to store are interned,
+ * which lets flows that reach the same state share one copy and lets the operation cache hit on
+ * the identity of its operands. The intermediate states created during propagation are never
+ * registered. Both tables are bounded and direct mapped: a colliding state or operation result
+ * simply replaces the previous entry, so the tables never keep more than a fixed number of states
+ * alive and interning is only a best effort deduplication, never required for correctness.
+ */
+public final class TypeStateCache {
+
+    enum Operation {
+        UNION,
+        INTERSECTION,
+        SUBTRACTION
+    }
+
+    private static final class OperationEntry {
+        final Operation operation;
+        final TypeState s1;
+        final TypeState s2;
+        final TypeState result;
+
+        OperationEntry(Operation operation, TypeState s1, TypeState s2, TypeState result) {
+            this.operation = operation;
+            this.s1 = s1;
+            this.s2 = s2;
+            this.result = result;
+        }
+    }
+
+    /**
+     * A direct mapped table of canonical type states. A state that is evicted by a colliding one
+     * stays valid; later equal states just get a new canonical copy.
+     */
+    private final AtomicReferenceArray<TypeState> internTable;
+    private final int internTableMask;
+    /**
+     * A direct mapped cache of operation results. Entries are immutable and replaced as a whole, so
+     * racy updates can only lose an entry, never expose an inconsistent one.
+     */
+    private final AtomicReferenceArray<OperationEntry> operationCache;
+    private final int operationCacheMask;
+
+    public TypeStateCache(OptionValues options) {
+        boolean enabled = PointstoOptions.InternTypeStates.getValue(options) && !PointstoOptions.AllocationSiteSensitiveHeap.getValue(options);
+
+        int tableSize = enabled ? PointstoOptions.TypeStateInternTableSize.getValue(options) : 0;
+        if (tableSize > 0) {
+            int size = powerOfTwo(tableSize);
+            this.internTable = new AtomicReferenceArray<>(size);
+            this.internTableMask = size - 1;
+        } else {
+            this.internTable = null;
+            this.internTableMask = 0;
+        }
+
+        int cacheSize = enabled ? PointstoOptions.TypeStateOperationCacheSize.getValue(options) : 0;
+        if (cacheSize > 0) {
+            int size = powerOfTwo(cacheSize);
+            this.operationCache = new AtomicReferenceArray<>(size);
+            this.operationCacheMask = size - 1;
+        } else {
+            this.operationCache = null;
+            this.operationCacheMask = 0;
+        }
+    }
+
+    /** Round up to a power of two so that the table index can be computed with a mask. */
+    private static int powerOfTwo(int value) {
+        int size = Integer.highestOneBit(value);
+        return size < value ? size << 1 : size;
+    }
+
+    /**
+     * Returns a canonical type state equal to {@code state}, or {@code state} itself if no equal
+     * state is currently registered. Must only be called for states that are stored into a flow.
+     */
+    public TypeState intern(TypeState state) {
+        if (internTable == null || !(state instanceof SingleTypeState || state instanceof MultiTypeState)) {
+            /* The other type states are singletons. */
+            return state;
+        }
+        int hash = state.hashCode();
+        int index = (hash ^ (hash >>> 16)) & internTableMask;
+        TypeState canonical = internTable.get(index);
+        if (canonical != null && canonical.equals(state)) {
+            return canonical;
+        }
+        internTable.set(index, state);
+        return state;
+    }
+
+    TypeState lookup(Operation operation, TypeState s1, TypeState s2) {
+        if (operationCache == null) {
+            return null;
+        }
+        OperationEntry entry = operationCache.get(index(operation, s1, s2));
+        if (entry != null && entry.operation == operation && entry.s1 == s1 && entry.s2 == s2) {
+            return entry.result;
+        }
+        return null;
+    }
+
+    TypeState record(Operation operation, TypeState s1, TypeState s2, TypeState result) {
+        if (operationCache != null) {
+            operationCache.set(index(operation, s1, s2), new OperationEntry(operation, s1, s2, result));
+        }
+        return result;
+    }
+
+    private int index(Operation operation, TypeState s1, TypeState s2) {
+        int hash = (System.identityHashCode(s1) * 31 + System.identityHashCode(s2)) * 31 + operation.ordinal();
+        return (hash ^ (hash >>> 16)) & operationCacheMask;
+    }
+
+    /** Drops the interned type states and the cached operation results. */
+    public void clear() {
+        if (internTable != null) {
+            for (int i = 0; i < internTable.length(); i++) {
+                internTable.set(i, null);
+            }
+        }
+        if (operationCache != null) {
+            for (int i = 0; i < operationCache.length(); i++) {
+                operationCache.set(i, null);
+            }
+        }
+    }
+}
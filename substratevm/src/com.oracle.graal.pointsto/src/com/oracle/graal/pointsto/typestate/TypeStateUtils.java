@@ -34,6 +34,7 @@ import java.util.List;
 import com.oracle.graal.pointsto.BigBang;
 import com.oracle.graal.pointsto.api.PointstoOptions;
 import com.oracle.graal.pointsto.flow.context.object.AnalysisObject;
+import com.oracle.graal.pointsto.util.BitArrayUtils;
 import com.oracle.svm.util.ReflectionUtil;
 
 import jdk.vm.ci.common.JVMCIError;
@@ -342,8 +343,27 @@ public class TypeStateUtils {
         return false;
     }
 
-    /** Logical OR two bit sets without modifying the source. */
+    /** Returns the number of words of the bit set up to and including its highest set bit. */
+    static int wordsInUse(BitSet bs) {
+        return (bs.length() + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    /** Checks if all the bits set in {@code sub} are also set in {@code bs}. */
+    static boolean isSubset(BitSet bs, BitSet sub) {
+        return BitArrayUtils.isSubset(extractBitSetField(bs), wordsInUse(bs), extractBitSetField(sub), wordsInUse(sub));
+    }
+
+    /**
+     * Logical OR two bit sets without modifying the source. If one of the bit sets already
+     * contains the other one it is returned directly, avoiding the copy. This is safe since the bit
+     * sets used by type states are never modified.
+     */
     protected static BitSet or(BitSet bs1, BitSet bs2) {
+        if (isSubset(bs1, bs2)) {
+            return bs1;
+        } else if (isSubset(bs2, bs1)) {
+            return bs2;
+        }
         BitSet bsr = (BitSet) bs1.clone();
         bsr.or(bs2);
         return bsr;
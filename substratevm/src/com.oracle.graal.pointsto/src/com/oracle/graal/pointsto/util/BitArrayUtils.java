@@ -24,7 +24,11 @@
  */
 package com.oracle.graal.pointsto.util;
 
-/** Utility methods for manipulating bit arrays stored as an int. */
+/**
+ * Utility methods for manipulating bit arrays stored as an int, and for manipulating the long word
+ * arrays that back a {@link java.util.BitSet}. The word array operations are plain counted loops
+ * over the words so that the compiler can unroll and vectorize them.
+ */
 public class BitArrayUtils {
 
     /** An empty bit array, i.e., not bits set. */
@@ -52,4 +56,22 @@ public class BitArrayUtils {
         assert 0 <= bit && bit < 64;
         return (array & (1 << bit)) == 1;
     }
+
+    /**
+     * Returns true if all bits set in the first {@code subWordsInUse} words of {@code sub} are also
+     * set in the first {@code wordsInUse} words of {@code words}. As for a {@link java.util.BitSet},
+     * the last word in use of each array must be non-zero.
+     */
+    public static boolean isSubset(long[] words, int wordsInUse, long[] sub, int subWordsInUse) {
+        if (subWordsInUse > wordsInUse) {
+            /* The last word in use of a bit set is never zero, so sub must have extra bits. */
+            return false;
+        }
+        for (int i = 0; i < subWordsInUse; i++) {
+            if ((sub[i] & ~words[i]) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
 }
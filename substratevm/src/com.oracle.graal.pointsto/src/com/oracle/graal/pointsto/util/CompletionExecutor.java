@@ -30,7 +30,7 @@ import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.atomic.LongAdder;
 
@@ -61,6 +61,13 @@ public class CompletionExecutor {
     private final AtomicReference<State> state;
     private final LongAdder postedOperations;
     private final LongAdder completedOperations;
+    /**
+     * The number of posted operations that have not completed yet. Operations are only posted
+     * before the executor is started or by running operations, so once this counter drops to zero
+     * no more operations can be posted and the executor is quiescent.
+     */
+    private final AtomicLong pendingOperations;
+    private final Object quiescenceLock = new Object();
     private final List<DebugContextRunnable> postedBeforeStart;
     private volatile CopyOnWriteArrayList<Throwable> exceptions = new CopyOnWriteArrayList<>();
 
@@ -90,6 +97,7 @@ public class CompletionExecutor {
         state = new AtomicReference<>(State.UNUSED);
         postedOperations = new LongAdder();
         completedOperations = new LongAdder();
+        pendingOperations = new AtomicLong();
         postedBeforeStart = new ArrayList<>();
     }
 
@@ -102,6 +110,7 @@ public class CompletionExecutor {
         setState(State.BEFORE_START);
         postedOperations.reset();
         completedOperations.reset();
+        pendingOperations.set(0);
         postedBeforeStart.clear();
         vmConfig = bb.getHostVM().getConfiguration();
     }
@@ -168,6 +177,7 @@ public class CompletionExecutor {
     }
 
     public void executeService(DebugContextRunnable command) {
+        pendingOperations.incrementAndGet();
         executorService.execute(() -> {
             executeCommand(command);
         });
@@ -199,6 +209,15 @@ public class CompletionExecutor {
                 exceptions.add(thrown);
             }
             completedOperations.increment();
+            if (pendingOperations.decrementAndGet() == 0 || thrown != null) {
+                signalQuiescence();
+            }
+        }
+    }
+
+    private void signalQuiescence() {
+        synchronized (quiescenceLock) {
+            quiescenceLock.notifyAll();
         }
     }
 
@@ -234,10 +253,16 @@ public class CompletionExecutor {
             assert state.get() == State.STARTED;
 
             boolean quiescent;
-            if (executorService instanceof ForkJoinPool) {
-                quiescent = ((ForkJoinPool) executorService).awaitQuiescence(100, TimeUnit.MILLISECONDS);
-            } else {
-                quiescent = executorService.awaitTermination(100, TimeUnit.MILLISECONDS);
+            synchronized (quiescenceLock) {
+                /*
+                 * Block until the last pending operation completes or an operation fails, instead
+                 * of polling the executor service. The timeout is only needed for printing the
+                 * timing information.
+                 */
+                if (pendingOperations.get() != 0 && exceptions.isEmpty()) {
+                    quiescenceLock.wait(timing != null ? 100 : 0);
+                }
+                quiescent = pendingOperations.get() == 0;
             }
             if (timing != null && !quiescent) {
                 long curTime = System.nanoTime();
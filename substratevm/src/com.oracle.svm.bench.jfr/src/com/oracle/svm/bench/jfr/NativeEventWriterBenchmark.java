@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.bench.jfr;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.graalvm.nativeimage.StackValue;
+import org.graalvm.word.WordFactory;
+
+import com.oracle.svm.bench.ThroughputBenchmark;
+import com.oracle.svm.core.annotate.Uninterruptible;
+import com.oracle.svm.jfr.JfrBuffer;
+import com.oracle.svm.jfr.JfrBufferAccess;
+import com.oracle.svm.jfr.JfrEvents;
+import com.oracle.svm.jfr.JfrNativeEventWriter;
+import com.oracle.svm.jfr.JfrNativeEventWriterData;
+import com.oracle.svm.jfr.JfrNativeEventWriterDataAccess;
+import com.oracle.svm.jfr.JfrTicks;
+
+import jdk.jfr.Recording;
+
+/**
+ * Measures how many native JFR events per second can be committed with {@link JfrNativeEventWriter}
+ * depending on the number of writing threads, and the 99th percentile of the commit latency. Each
+ * thread writes into its own small buffer, so nearly every commit that fills the buffer promotes
+ * it into the global JFR memory, where the threads compete with each other. The events are
+ * persisted by a recording that writes to a temporary file.
+ *
+ * The size of the per-thread buffers can be set with {@code -Dbench.jfr.bufferSize}. The latency
+ * includes the overhead of two {@link System#nanoTime()} calls.
+ */
+public final class NativeEventWriterBenchmark extends ThroughputBenchmark {
+    private static final int LATENCY_SAMPLES_PER_THREAD = 1 << 18;
+
+    private final long bufferSize = Long.getLong("bench.jfr.bufferSize", 4 * 1024);
+    private ThreadState[] states;
+    private volatile boolean measuring;
+
+    /** Separate objects per thread, so that the threads do not write to shared cache lines. */
+    private static final class ThreadState {
+        JfrBuffer buffer;
+        final long[] latencies = new long[LATENCY_SAMPLES_PER_THREAD];
+        int latencyCount;
+    }
+
+    @Override
+    protected String getName() {
+        return "JfrNativeEventWriter.commit";
+    }
+
+    @Override
+    protected void setUp(int threads) {
+        states = new ThreadState[threads];
+        for (int i = 0; i < threads; i++) {
+            states[i] = new ThreadState();
+            states[i].buffer = JfrBufferAccess.allocate(WordFactory.unsigned(bufferSize));
+            if (states[i].buffer.isNull()) {
+                throw new OutOfMemoryError("Could not allocate a JFR buffer");
+            }
+        }
+    }
+
+    @Override
+    protected void setUpIteration(boolean warmup) {
+        measuring = !warmup;
+    }
+
+    @Override
+    protected void tearDown() {
+        int total = 0;
+        for (ThreadState state : states) {
+            total += Math.min(state.latencyCount, LATENCY_SAMPLES_PER_THREAD);
+        }
+        long[] latencies = new long[total];
+        int pos = 0;
+        for (ThreadState state : states) {
+            int count = Math.min(state.latencyCount, LATENCY_SAMPLES_PER_THREAD);
+            System.arraycopy(state.latencies, 0, latencies, pos, count);
+            pos += count;
+            JfrBufferAccess.free(state.buffer);
+        }
+        if (total > 0) {
+            Arrays.sort(latencies);
+            double p99 = latencies[(int) Math.min(total - 1, (long) Math.ceil(total * 0.99) - 1)];
+            printResult(getName() + ":p99", states.length, total, p99, latencies[0], latencies[total - 1], "ns");
+        }
+        states = null;
+    }
+
+    @Override
+    protected long operation(int threadIndex) {
+        ThreadState state = states[threadIndex];
+        long start = System.nanoTime();
+        long written = writeEvent(state.buffer, start);
+        long latency = System.nanoTime() - start;
+        if (measuring) {
+            // Keeps the most recent samples if there are more operations than samples.
+            state.latencies[state.latencyCount % LATENCY_SAMPLES_PER_THREAD] = latency;
+            state.latencyCount++;
+        }
+        return written;
+    }
+
+    /** Writes an event with the layout of {@link JfrEvents#DataLossEvent}. */
+    @Uninterruptible(reason = "Accesses a JFR buffer.")
+    private static long writeEvent(JfrBuffer buffer, long value) {
+        JfrNativeEventWriterData data = StackValue.get(JfrNativeEventWriterData.class);
+        JfrNativeEventWriterDataAccess.initialize(data, buffer);
+
+        JfrNativeEventWriter.beginEventWrite(data, false);
+        JfrNativeEventWriter.putLong(data, JfrEvents.DataLossEvent.getId());
+        JfrNativeEventWriter.putLong(data, JfrTicks.elapsedTicks());
+        JfrNativeEventWriter.putLong(data, 0);
+        JfrNativeEventWriter.putLong(data, value);
+        return JfrNativeEventWriter.endEventWrite(data, false).rawValue();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path file = Files.createTempFile("jfr-bench", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.setDestination(file);
+            recording.start();
+            new NativeEventWriterBenchmark().run(args);
+            recording.stop();
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
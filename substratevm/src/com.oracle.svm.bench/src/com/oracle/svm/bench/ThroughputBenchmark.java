@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * A minimal harness in the style of JMH for multi-threaded throughput benchmarks. JMH itself
+ * relies on generated code and on forking JVMs, so it cannot measure code in a native image. This
+ * harness runs an {@link #operation} in a loop on a given number of threads for a fixed time, with
+ * warmup iterations that are not measured, and reports the throughput per thread count.
+ *
+ * Supported arguments, with the same names as the corresponding JMH options:
+ * <ul>
+ * <li>{@code -t 1,2,4}: the thread counts to measure.</li>
+ * <li>{@code -wi 3}: the number of warmup iterations per thread count.</li>
+ * <li>{@code -i 5}: the number of measurement iterations per thread count.</li>
+ * <li>{@code -r 1000}: the duration of an iteration, in milliseconds.</li>
+ * </ul>
+ */
+public abstract class ThroughputBenchmark {
+    private static final String RESULT_FORMAT = "%-40s %8s %4s %16s %16s %16s  %s%n";
+
+    private volatile boolean running;
+    /** Consumes the results of the operations so that they cannot be optimized away. */
+    private volatile long blackhole;
+
+    private int[] threadCounts = {1, 2, 4, 8};
+    private int warmupIterations = 3;
+    private int measurementIterations = 5;
+    private long iterationMillis = 1000;
+
+    /** The name that is printed in the results. */
+    protected abstract String getName();
+
+    /** Called before the iterations of a thread count. */
+    protected void setUp(@SuppressWarnings("unused") int threads) {
+    }
+
+    /**
+     * Called after the iterations of a thread count, once the throughput was reported. Benchmarks
+     * can report additional results here, see {@link #printResult}.
+     */
+    protected void tearDown() {
+    }
+
+    /** Called before each iteration, which is either a warmup or a measurement iteration. */
+    protected void setUpIteration(@SuppressWarnings("unused") boolean warmup) {
+    }
+
+    /**
+     * Performs one operation on the thread with the given index. The result is consumed by the
+     * harness.
+     */
+    protected abstract long operation(int threadIndex);
+
+    public final void run(String[] args) throws InterruptedException {
+        parseArguments(args);
+        printHeader();
+        for (int threads : threadCounts) {
+            setUp(threads);
+            for (int i = 0; i < warmupIterations; i++) {
+                setUpIteration(true);
+                runIteration(threads);
+            }
+            double sum = 0;
+            double min = Double.MAX_VALUE;
+            double max = 0;
+            for (int i = 0; i < measurementIterations; i++) {
+                setUpIteration(false);
+                double score = runIteration(threads);
+                sum += score;
+                min = Math.min(min, score);
+                max = Math.max(max, score);
+            }
+            printResult(getName(), threads, measurementIterations, sum / measurementIterations, min, max, "ops/s");
+            tearDown();
+        }
+    }
+
+    /** Prints the header of the result table. */
+    public static void printHeader() {
+        System.out.printf(RESULT_FORMAT, "Benchmark", "Threads", "Cnt", "Score", "Min", "Max", "Units");
+    }
+
+    /** Prints a line of the result table. */
+    public static void printResult(String name, int threads, int count, double score, double min, double max, String units) {
+        System.out.printf(RESULT_FORMAT, name, String.valueOf(threads), String.valueOf(count), String.format("%.1f", score), String.format("%.1f", min), String.format("%.1f", max), units);
+    }
+
+    private void parseArguments(String[] args) {
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "-t":
+                    String[] counts = value.split(",");
+                    threadCounts = new int[counts.length];
+                    for (int j = 0; j < counts.length; j++) {
+                        threadCounts[j] = Integer.parseInt(counts[j].trim());
+                    }
+                    break;
+                case "-wi":
+                    warmupIterations = Integer.parseInt(value);
+                    break;
+                case "-i":
+                    measurementIterations = Integer.parseInt(value);
+                    break;
+                case "-r":
+                    iterationMillis = Long.parseLong(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown argument: " + args[i]);
+            }
+        }
+    }
+
+    /** Runs the operation on the given number of threads and returns the operations per second. */
+    private double runIteration(int threads) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        long[] operations = new long[threads];
+        List<Thread> workers = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            int threadIndex = t;
+            Thread worker = new Thread(() -> {
+                started.countDown();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long count = 0;
+                long sink = 0;
+                while (running) {
+                    sink += operation(threadIndex);
+                    count++;
+                }
+                operations[threadIndex] = count;
+                blackhole += sink;
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        started.await();
+        running = true;
+        long startNanos = System.nanoTime();
+        start.countDown();
+        Thread.sleep(iterationMillis);
+        running = false;
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+
+        long total = 0;
+        for (long count : operations) {
+            total += count;
+        }
+        return total * 1e9 / elapsedNanos;
+    }
+}
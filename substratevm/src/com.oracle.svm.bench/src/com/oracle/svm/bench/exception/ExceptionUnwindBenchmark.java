@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.bench.exception;
+
+import com.oracle.svm.bench.ThroughputBenchmark;
+
+/**
+ * Measures the throughput of throwing an exception through a given number of frames and catching
+ * it, which is dominated by looking up the code metadata of every frame during unwinding. Compare
+ * results of images built with different code metadata indexes, e.g.,
+ * {@code -H:+CodeInfoSortedIndex} or {@code -H:CodeInfoLookupCacheSize=0}.
+ *
+ * The stack depths can be set with {@code -Dbench.exception.depths} (comma separated). By default,
+ * a preallocated exception is thrown, so that only the unwinding is measured. With
+ * {@code -Dbench.exception.stackTrace=true}, a new exception with a stack trace is created for
+ * every throw.
+ */
+public final class ExceptionUnwindBenchmark extends ThroughputBenchmark {
+    private static final boolean FILL_STACK_TRACE = Boolean.getBoolean("bench.exception.stackTrace");
+
+    private final int depth;
+    private final BenchmarkException preallocated = new BenchmarkException(false);
+
+    @SuppressWarnings("serial")
+    private static final class BenchmarkException extends RuntimeException {
+        final long value;
+
+        BenchmarkException(boolean stackTrace) {
+            super(null, null, false, stackTrace);
+            this.value = 1;
+        }
+    }
+
+    private ExceptionUnwindBenchmark(int depth) {
+        this.depth = depth;
+    }
+
+    @Override
+    protected String getName() {
+        return "ExceptionUnwind.depth" + depth + (FILL_STACK_TRACE ? ".stackTrace" : "");
+    }
+
+    @Override
+    protected long operation(int threadIndex) {
+        try {
+            return recurse(depth);
+        } catch (BenchmarkException e) {
+            return e.value;
+        }
+    }
+
+    private long recurse(int remaining) {
+        if (remaining <= 0) {
+            throw FILL_STACK_TRACE ? new BenchmarkException(true) : preallocated;
+        }
+        /* The addition after the call prevents the recursion from becoming a tail call. */
+        return recurse(remaining - 1) + remaining;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        for (String depth : System.getProperty("bench.exception.depths", "1,10,100").split(",")) {
+            new ExceptionUnwindBenchmark(Integer.parseInt(depth.trim())).run(args);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.bench.gc;
+
+import com.oracle.svm.bench.ThroughputBenchmark;
+
+/**
+ * Measures the allocation throughput depending on the number of allocating threads. Each operation
+ * allocates one array, so that the threads frequently need new TLAB chunks. The arrays are kept
+ * alive briefly so that their allocation cannot be removed by escape analysis.
+ *
+ * The array size in bytes can be set with {@code -Dbench.allocation.size}. Sizes above the large
+ * array threshold of the heap exercise the allocation of unaligned chunks instead.
+ */
+public final class AllocationThroughputBenchmark extends ThroughputBenchmark {
+    private static final int RETAINED_PER_THREAD = 64;
+
+    private final int allocationSize = Integer.getInteger("bench.allocation.size", 1024);
+    private ThreadState[] states;
+
+    /** Separate objects per thread, so that the threads do not write to shared cache lines. */
+    private static final class ThreadState {
+        final Object[] retained = new Object[RETAINED_PER_THREAD];
+        int next;
+    }
+
+    @Override
+    protected String getName() {
+        return "AllocationThroughput.byteArray" + allocationSize;
+    }
+
+    @Override
+    protected void setUp(int threads) {
+        states = new ThreadState[threads];
+        for (int i = 0; i < threads; i++) {
+            states[i] = new ThreadState();
+        }
+    }
+
+    @Override
+    protected void tearDown() {
+        states = null;
+    }
+
+    @Override
+    protected long operation(int threadIndex) {
+        byte[] array = new byte[allocationSize];
+        ThreadState state = states[threadIndex];
+        state.retained[state.next] = array;
+        state.next = (state.next + 1) % RETAINED_PER_THREAD;
+        return array.length;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        new AllocationThroughputBenchmark().run(args);
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.bench.monitor;
+
+import com.oracle.svm.bench.ThroughputBenchmark;
+
+/**
+ * Measures the throughput of uncontended locking of objects that do not have a monitor slot,
+ * depending on the number of locking threads. Each thread synchronizes on its own arrays (arrays
+ * never have a monitor slot), so the monitors are stored in the secondary storage of the monitor
+ * support. The threads never compete for the same monitor, so any loss of throughput with more
+ * threads comes from the synchronization of the secondary storage.
+ *
+ * The number of arrays per thread can be set with {@code -Dbench.monitor.objects}.
+ */
+public final class MonitorlessLockingBenchmark extends ThroughputBenchmark {
+    private final int objectsPerThread = Integer.getInteger("bench.monitor.objects", 16);
+    private ThreadState[] states;
+
+    /** Separate objects per thread, so that the threads do not write to shared cache lines. */
+    private static final class ThreadState {
+        final long[][] locks;
+        int next;
+
+        ThreadState(int objects) {
+            locks = new long[objects][1];
+        }
+    }
+
+    @Override
+    protected String getName() {
+        return "MonitorlessLocking.array" + objectsPerThread;
+    }
+
+    @Override
+    protected void setUp(int threads) {
+        states = new ThreadState[threads];
+        for (int i = 0; i < threads; i++) {
+            states[i] = new ThreadState(objectsPerThread);
+        }
+    }
+
+    @Override
+    protected void tearDown() {
+        states = null;
+    }
+
+    @Override
+    protected long operation(int threadIndex) {
+        ThreadState state = states[threadIndex];
+        long[] lock = state.locks[state.next];
+        state.next = (state.next + 1) % state.locks.length;
+        synchronized (lock) {
+            return ++lock[0];
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        new MonitorlessLockingBenchmark().run(args);
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.bench.startup;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.oracle.svm.bench.ThroughputBenchmark;
+
+/**
+ * Measures the time from starting a process until it has served its first request, which for a
+ * native image is dominated by mapping and faulting in the image heap. Compare results of images
+ * built with and without {@code -H:+ImageHeapHugePages}, and of runs with and without
+ * {@code -XX:+PrefaultImageHeap}.
+ *
+ * The class has two modes. With the argument {@code server}, it listens on an ephemeral port,
+ * prints that port, serves a single HTTP request and exits; this mode is what should be built into
+ * an image. Otherwise, it repeatedly starts the server command given with
+ * {@code -Dbench.startup.command} (space separated, e.g., {@code "./startupbench server"}), sends
+ * a request as soon as the port is known and reports the elapsed time until the response arrived.
+ * The number of measured runs can be set with {@code -Dbench.startup.runs} and the number of
+ * unmeasured runs that warm up the file system cache with {@code -Dbench.startup.warmupRuns}.
+ */
+public final class TimeToFirstRequestBenchmark {
+    private static final String PORT_PREFIX = "PORT ";
+
+    private TimeToFirstRequestBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length > 0 && args[0].equals("server")) {
+            serveOneRequest();
+            return;
+        }
+        String command = System.getProperty("bench.startup.command");
+        if (command == null) {
+            throw new IllegalArgumentException("The server command must be specified with -Dbench.startup.command");
+        }
+        List<String> commandLine = Arrays.asList(command.trim().split("\\s+"));
+        int warmupRuns = Integer.getInteger("bench.startup.warmupRuns", 3);
+        int runs = Integer.getInteger("bench.startup.runs", 10);
+
+        for (int i = 0; i < warmupRuns; i++) {
+            measure(commandLine);
+        }
+        double sum = 0;
+        double min = Double.MAX_VALUE;
+        double max = 0;
+        for (int i = 0; i < runs; i++) {
+            double millis = measure(commandLine) / 1_000_000.0;
+            sum += millis;
+            min = Math.min(min, millis);
+            max = Math.max(max, millis);
+        }
+        ThroughputBenchmark.printHeader();
+        ThroughputBenchmark.printResult("TimeToFirstRequest", 1, runs, sum / runs, min, max, "ms");
+    }
+
+    /** Returns the nanoseconds from starting the server process until its first response. */
+    private static long measure(List<String> commandLine) throws IOException, InterruptedException {
+        ProcessBuilder builder = new ProcessBuilder(new ArrayList<>(commandLine));
+        builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+        long start = System.nanoTime();
+        Process process = builder.start();
+        try {
+            int port = readPort(process.getInputStream());
+            try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+                OutputStream out = socket.getOutputStream();
+                out.write("GET / HTTP/1.0\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+                out.flush();
+                InputStream in = socket.getInputStream();
+                if (in.read() < 0) {
+                    throw new IOException("The server closed the connection without a response");
+                }
+                long elapsed = System.nanoTime() - start;
+                while (in.read() >= 0) {
+                    // Drain the response.
+                }
+                return elapsed;
+            }
+        } finally {
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private static int readPort(InputStream serverOutput) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(serverOutput, StandardCharsets.US_ASCII));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.startsWith(PORT_PREFIX)) {
+                return Integer.parseInt(line.substring(PORT_PREFIX.length()).trim());
+            }
+        }
+        throw new IOException("The server exited without printing its port");
+    }
+
+    private static void serveOneRequest() throws IOException {
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            System.out.println(PORT_PREFIX + server.getLocalPort());
+            System.out.flush();
+            try (Socket socket = server.accept()) {
+                BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+                String requestLine = reader.readLine();
+                String line;
+                while ((line = reader.readLine()) != null && !line.isEmpty()) {
+                    // Skip the headers.
+                }
+                String body = String.format("Served %s from %s with %d processors%n", requestLine, System.getProperty("java.vm.name"), Runtime.getRuntime().availableProcessors());
+                byte[] bodyBytes = body.getBytes(StandardCharsets.UTF_8);
+                String header = "HTTP/1.0 200 OK\r\nContent-Type: text/plain\r\nContent-Length: " + bodyBytes.length + "\r\n\r\n";
+                OutputStream out = socket.getOutputStream();
+                out.write(header.getBytes(StandardCharsets.US_ASCII));
+                out.write(bodyBytes);
+                out.flush();
+            }
+        }
+    }
+}
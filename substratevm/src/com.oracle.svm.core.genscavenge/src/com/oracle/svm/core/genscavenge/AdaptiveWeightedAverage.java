@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.genscavenge;
+
+import org.graalvm.nativeimage.Platform;
+import org.graalvm.nativeimage.Platforms;
+
+/**
+ * An exponentially decaying average of samples, together with the average deviation of the
+ * samples. The padded average adds a multiple of the deviation, which makes it a conservative
+ * estimate of the upper end of the samples. This does not allocate, so it can be updated during a
+ * collection.
+ */
+final class AdaptiveWeightedAverage {
+    /** The weight of a new sample, as a percentage. */
+    private final int weight;
+    /** The number of deviations that are added to get the padded average. */
+    private final double padding;
+
+    private long sampleCount;
+    private double average;
+    private double deviation;
+
+    @Platforms(Platform.HOSTED_ONLY.class)
+    AdaptiveWeightedAverage(int weight, double padding) {
+        assert weight > 0 && weight <= 100;
+        this.weight = weight;
+        this.padding = padding;
+    }
+
+    void sample(double value) {
+        sampleCount++;
+        /* Give the first samples more weight so that the average does not start from zero. */
+        double effectiveWeight = Math.max(weight, 100.0 / sampleCount) / 100.0;
+        average = decay(average, value, effectiveWeight);
+        deviation = decay(deviation, Math.abs(value - average), effectiveWeight);
+    }
+
+    private static double decay(double average, double value, double weight) {
+        return (1.0 - weight) * average + weight * value;
+    }
+
+    long getSampleCount() {
+        return sampleCount;
+    }
+
+    double getAverage() {
+        return average;
+    }
+
+    double getPaddedAverage() {
+        return average + padding * deviation;
+    }
+}
@@ -93,6 +93,7 @@ public final class AlignedHeapChunk {
         HeapChunk.initialize(chunk, AlignedHeapChunk.getObjectsStart(chunk), HeapChunk.getEndOffset(chunk));
     }
 
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
     public static Pointer getObjectsStart(AlignedHeader that) {
         return HeapChunk.asPointer(that).add(getObjectsStartOffset());
     }
@@ -33,12 +33,14 @@ import org.graalvm.nativeimage.Platform;
 import org.graalvm.nativeimage.Platforms;
 import org.graalvm.nativeimage.hosted.Feature.FeatureAccess;
 import org.graalvm.word.UnsignedWord;
+import org.graalvm.word.WordFactory;
 
 import com.oracle.svm.core.SubstrateOptions;
 import com.oracle.svm.core.log.Log;
 import com.oracle.svm.core.option.HostedOptionKey;
 import com.oracle.svm.core.option.RuntimeOptionKey;
 import com.oracle.svm.core.util.TimeUtils;
+import com.oracle.svm.core.util.UnsignedUtils;
 import com.oracle.svm.core.util.UserError;
 
 /** A collection policy decides when to collect incrementally or completely. */
@@ -49,6 +51,13 @@ public abstract class CollectionPolicy {
 
         @Option(help = "Percentage of total collection time that should be spent on young generation collections.")//
         public static final RuntimeOptionKey<Integer> PercentTimeInIncrementalCollection = new RuntimeOptionKey<>(50);
+
+        @Option(help = "Pause time goal for young generation collections in milliseconds, if the adaptive collection policy is used.")//
+        public static final RuntimeOptionKey<Integer> MaxGCPauseMillis = new RuntimeOptionKey<>(200);
+
+        @Option(help = "Throughput goal as the ratio of application time to collection time, if the adaptive collection policy is used. " +
+                        "A value of N aims at spending 1/(1+N) of the time in collections.")//
+        public static final RuntimeOptionKey<Integer> GCTimeRatio = new RuntimeOptionKey<>(19);
     }
 
     @Platforms(Platform.HOSTED_ONLY.class)
@@ -90,6 +99,26 @@ public abstract class CollectionPolicy {
     CollectionPolicy() {
     }
 
+    /** Returns the size of the young generation at which an incremental collection is triggered. */
+    public UnsignedWord getYoungGenerationSize() {
+        return HeapPolicy.getMaximumYoungGenerationSize();
+    }
+
+    /**
+     * Returns how many incremental collections an object must survive before it is promoted to the
+     * old generation. Values larger than {@link HeapPolicyOptions#MaxSurvivorSpaces} have no effect.
+     */
+    public int getTenuringAge() {
+        return HeapPolicy.getMaxTenuringAge();
+    }
+
+    /**
+     * Called at the end of every collection, so that the policy can adapt to the costs that were
+     * recorded in {@link GCAccounting}. Must not allocate.
+     */
+    public void onCollectionEnd(@SuppressWarnings("unused") boolean completeCollection) {
+    }
+
     public abstract void nameToLog(Log log);
 
     public abstract String getName();
@@ -187,9 +216,9 @@ public abstract class CollectionPolicy {
          * Estimates the heap size at the next incremental collection assuming that the whole
          * current young generation gets promoted.
          */
-        private static UnsignedWord estimateUsedHeapAtNextIncrementalCollection() {
+        private UnsignedWord estimateUsedHeapAtNextIncrementalCollection() {
             UnsignedWord currentYoungBytes = HeapImpl.getHeapImpl().getYoungGeneration().getChunkBytes();
-            UnsignedWord maxYoungBytes = HeapPolicy.getMaximumYoungGenerationSize();
+            UnsignedWord maxYoungBytes = getYoungGenerationSize();
             UnsignedWord oldBytes = getAccounting().getOldGenerationAfterChunkBytes();
             return currentYoungBytes.add(maxYoungBytes).add(oldBytes);
         }
@@ -215,4 +244,120 @@ public abstract class CollectionPolicy {
             return "by space and time";
         }
     }
+
+    /**
+     * A collection policy that adapts the size of the young generation and the tenuring age to a
+     * pause time goal and a throughput goal, similar to the adaptive size policy of HotSpot's
+     * Parallel GC. After each collection, the goals are checked in order:
+     * <ol>
+     * <li>If the padded average pause of incremental collections is above
+     * {@link Options#MaxGCPauseMillis}, the young generation is shrunk. The padding makes this a
+     * goal for the slow end of the pauses rather than for the average pause.</li>
+     * <li>Otherwise, if more time than allowed by {@link Options#GCTimeRatio} is spent in
+     * collections, the young generation is grown.</li>
+     * </ol>
+     * The tenuring age is decreased if the pause time goal is missed or if incremental collections
+     * cost more time than complete collections, and increased if complete collections cost more.
+     * When to collect completely is decided as in {@link BySpaceAndTime}.
+     */
+    public static class Adaptive extends BySpaceAndTime {
+        private static final int YOUNG_GENERATION_SIZE_INCREMENT_PERCENT = 20;
+        private static final int YOUNG_GENERATION_SIZE_DECREMENT_PERCENT = 5;
+        private static final int MINIMUM_YOUNG_GENERATION_CHUNKS = 4;
+        private static final int TENURING_AGE_TOLERANCE_PERCENT = 10;
+        private static final int AVERAGE_WEIGHT_PERCENT = 10;
+        private static final double PAUSE_PADDING = 3.0;
+
+        private final AdaptiveWeightedAverage incrementalPauseNanos = new AdaptiveWeightedAverage(AVERAGE_WEIGHT_PERCENT, PAUSE_PADDING);
+        /* The fraction of time spent in incremental and complete collections, respectively. */
+        private final AdaptiveWeightedAverage incrementalCost = new AdaptiveWeightedAverage(AVERAGE_WEIGHT_PERCENT, 0);
+        private final AdaptiveWeightedAverage completeCost = new AdaptiveWeightedAverage(AVERAGE_WEIGHT_PERCENT, 0);
+        private long nanosSinceCompleteCollection = 0;
+
+        /* Zero until the first adjustment, which means that the configured maximum is used. */
+        private UnsignedWord youngGenerationSize = WordFactory.zero();
+        /* Clamped to the configured maximum, which can only be read at run time. */
+        private int tenuringAge = Integer.MAX_VALUE;
+
+        @Override
+        public UnsignedWord getYoungGenerationSize() {
+            UnsignedWord maxSize = HeapPolicy.getMaximumYoungGenerationSize();
+            if (youngGenerationSize.equal(0) || youngGenerationSize.aboveThan(maxSize)) {
+                return maxSize;
+            }
+            return youngGenerationSize;
+        }
+
+        @Override
+        public int getTenuringAge() {
+            return Math.min(tenuringAge, HeapPolicy.getMaxTenuringAge());
+        }
+
+        @Override
+        public void onCollectionEnd(boolean completeCollection) {
+            long pauseNanos = getAccounting().getLastCollectionNanos();
+            long mutatorNanos = getAccounting().getLastMutatorNanos();
+            nanosSinceCompleteCollection += mutatorNanos + pauseNanos;
+            if (completeCollection) {
+                completeCost.sample(fraction(pauseNanos, nanosSinceCompleteCollection));
+                nanosSinceCompleteCollection = 0;
+            } else {
+                incrementalPauseNanos.sample(pauseNanos);
+                incrementalCost.sample(fraction(pauseNanos, mutatorNanos + pauseNanos));
+            }
+
+            boolean pauseGoalMissed = incrementalPauseNanos.getSampleCount() > 0 &&
+                            incrementalPauseNanos.getPaddedAverage() > TimeUtils.millisToNanos(Options.MaxGCPauseMillis.getValue());
+            double throughputGoal = 1.0 / (1 + Options.GCTimeRatio.getValue());
+            boolean throughputGoalMissed = incrementalCost.getAverage() + completeCost.getAverage() > throughputGoal;
+            adjustYoungGenerationSize(pauseGoalMissed, throughputGoalMissed);
+            adjustTenuringAge(pauseGoalMissed);
+        }
+
+        private void adjustYoungGenerationSize(boolean pauseGoalMissed, boolean throughputGoalMissed) {
+            UnsignedWord size = getYoungGenerationSize();
+            if (pauseGoalMissed) {
+                size = size.subtract(size.unsignedDivide(100).multiply(YOUNG_GENERATION_SIZE_DECREMENT_PERCENT));
+            } else if (throughputGoalMissed) {
+                size = size.add(size.unsignedDivide(100).multiply(YOUNG_GENERATION_SIZE_INCREMENT_PERCENT));
+            } else {
+                return;
+            }
+            UnsignedWord minSize = HeapPolicy.getAlignedHeapChunkSize().multiply(MINIMUM_YOUNG_GENERATION_CHUNKS);
+            UnsignedWord maxSize = HeapPolicy.getMaximumYoungGenerationSize();
+            youngGenerationSize = UnsignedUtils.min(UnsignedUtils.max(size, minSize), maxSize);
+        }
+
+        private void adjustTenuringAge(boolean pauseGoalMissed) {
+            double tolerance = 1.0 + TENURING_AGE_TOLERANCE_PERCENT / 100.0;
+            tenuringAge = getTenuringAge();
+            if (pauseGoalMissed || incrementalCost.getAverage() > completeCost.getAverage() * tolerance) {
+                /* Copying survivors again and again is expensive, promote them earlier. */
+                if (tenuringAge > 0) {
+                    tenuringAge--;
+                }
+            } else if (completeCost.getAverage() > incrementalCost.getAverage() * tolerance) {
+                /* Keep objects longer in the young generation so that fewer of them get promoted. */
+                if (tenuringAge < HeapPolicy.getMaxTenuringAge()) {
+                    tenuringAge++;
+                }
+            }
+        }
+
+        private static double fraction(long part, long total) {
+            return (total <= 0) ? 0 : ((double) part) / total;
+        }
+
+        @Override
+        public void nameToLog(Log log) {
+            log.string(getName()).string(": pause goal ").signed(Options.MaxGCPauseMillis.getValue()).string(" ms, throughput goal ")
+                            .signed(Options.GCTimeRatio.getValue()).string(", young generation size ").unsigned(getYoungGenerationSize())
+                            .string(", tenuring age ").signed(getTenuringAge());
+        }
+
+        @Override
+        public String getName() {
+            return "adaptive";
+        }
+    }
 }
@@ -59,6 +59,17 @@ public final class CompleteGarbageCollectorMXBean implements com.sun.management.
         return TimeUtils.roundNanosToMillis(nanos);
     }
 
+    /**
+     * Returns an estimate of the bytes that were promoted to the old generation by incremental
+     * collections, but were unreachable at the next complete collection. Such objects would
+     * better have stayed in the survivor spaces, see {@link HeapPolicyOptions#MaxSurvivorSpaces}
+     * and {@link HeapPolicyOptions#MaxTenuringThreshold}. Not part of the standard interface, so
+     * callers need to cast the bean.
+     */
+    public long getPrematurelyPromotedBytes() {
+        return HeapImpl.getHeapImpl().getGCImpl().getAccounting().getPrematurelyPromotedTotalChunkBytes().rawValue();
+    }
+
     @Override
     public String[] getMemoryPoolNames() {
         /* Return a new array each time because arrays are not immutable. */
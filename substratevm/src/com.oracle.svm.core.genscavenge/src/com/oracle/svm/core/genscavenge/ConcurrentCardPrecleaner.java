@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.genscavenge;
+
+import org.graalvm.compiler.api.replacements.Fold;
+import org.graalvm.word.UnsignedWord;
+import org.graalvm.word.WordFactory;
+
+import com.oracle.svm.core.SubstrateOptions;
+import com.oracle.svm.core.annotate.Uninterruptible;
+import com.oracle.svm.core.genscavenge.AlignedHeapChunk.AlignedHeader;
+import com.oracle.svm.core.genscavenge.remset.RememberedSet;
+import com.oracle.svm.core.util.VMError;
+
+/**
+ * Cleans the dirty cards of the old generation in a background thread between collections, so
+ * that less card scanning is left for the pause of incremental collections. See
+ * {@link HeapOptions#ConcurrentCardPrecleaning}.
+ * <p>
+ * Each chunk is precleaned in uninterruptible code, so no collection can happen while the objects
+ * of a chunk are examined. Between two chunks, a collection may have changed the chunk list of the
+ * old generation. In that case, the current pass is abandoned.
+ */
+final class ConcurrentCardPrecleaner {
+    private static volatile boolean stopped;
+
+    /* Work done since the last collection, see Timers. */
+    private static long precleanedCards;
+    private static long precleanNanos;
+
+    private ConcurrentCardPrecleaner() {
+    }
+
+    @Fold
+    static boolean isEnabled() {
+        return SubstrateOptions.useRememberedSet() && HeapOptions.ConcurrentCardPrecleaning.getValue();
+    }
+
+    static void startPrecleaner() {
+        if (isEnabled()) {
+            new PrecleanerThread().start();
+        }
+    }
+
+    static void stopPrecleaner() {
+        stopped = true;
+    }
+
+    /** Moves the statistics of the precleaning since the last collection to the given timers. */
+    static void collectStatistics(Timers timers) {
+        timers.precleanedCards = precleanedCards;
+        timers.precleanNanos = precleanNanos;
+        precleanedCards = 0;
+        precleanNanos = 0;
+    }
+
+    private static void precleanOldGeneration() {
+        long startNanos = System.nanoTime();
+        UnsignedWord epoch = GCImpl.getGCImpl().getCollectionEpoch();
+        AlignedHeader chunk = getFirstChunk(epoch);
+        while (chunk.isNonNull() && !stopped) {
+            chunk = precleanChunk(chunk, epoch);
+        }
+        precleanNanos += System.nanoTime() - startNanos;
+    }
+
+    @Uninterruptible(reason = "The chunks of the old generation must not change.")
+    private static AlignedHeader getFirstChunk(UnsignedWord epoch) {
+        if (GCImpl.getGCImpl().getCollectionEpoch().notEqual(epoch)) {
+            return WordFactory.nullPointer();
+        }
+        /* Between collections, all objects of the old generation are in its from-space. */
+        return HeapImpl.getHeapImpl().getOldGeneration().getFromSpace().getFirstAlignedHeapChunk();
+    }
+
+    /** Precleans a chunk and returns the next one, or null if a collection happened. */
+    @Uninterruptible(reason = "The chunks of the old generation must not change.")
+    private static AlignedHeader precleanChunk(AlignedHeader chunk, UnsignedWord epoch) {
+        if (GCImpl.getGCImpl().getCollectionEpoch().notEqual(epoch)) {
+            return WordFactory.nullPointer();
+        }
+        precleanedCards += RememberedSet.get().precleanDirtyCards(chunk).rawValue();
+        return HeapChunk.getNext(chunk);
+    }
+
+    private static final class PrecleanerThread extends Thread {
+        PrecleanerThread() {
+            super("Card Precleaner");
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!stopped) {
+                    Thread.sleep(HeapOptions.CardPrecleaningInterval.getValue());
+                    precleanOldGeneration();
+                }
+            } catch (InterruptedException e) {
+                /* Stop precleaning. */
+            } catch (Throwable e) {
+                VMError.shouldNotReachHere("No exception must be thrown in the card precleaner thread.");
+            }
+        }
+    }
+}
@@ -30,6 +30,7 @@ import org.graalvm.word.UnsignedWord;
 import org.graalvm.word.WordFactory;
 
 import com.oracle.svm.core.log.Log;
+import com.oracle.svm.core.util.UnsignedUtils;
 
 /**
  * This data is only updated during a GC.
@@ -47,6 +48,13 @@ public final class GCAccounting {
     private UnsignedWord allocatedChunkBytes = WordFactory.zero();
     private UnsignedWord promotedTotalChunkBytes = WordFactory.zero();
     private UnsignedWord copiedTotalChunkBytes = WordFactory.zero();
+    private UnsignedWord promotedChunkBytesSinceCompleteCollection = WordFactory.zero();
+    private UnsignedWord prematurelyPromotedTotalChunkBytes = WordFactory.zero();
+
+    /* Costs of the last collection and of the mutator interval before it. */
+    private long lastCollectionNanos = 0;
+    private long lastMutatorNanos = 0;
+    private long lastCollectionFinishNanos = 0;
 
     /* Before and after measures. */
     private UnsignedWord youngChunkBytesBefore = WordFactory.zero();
@@ -116,6 +124,26 @@ public final class GCAccounting {
         return lastCollectionPromotedChunkBytes;
     }
 
+    /**
+     * An estimate of the bytes that incremental collections promoted to the old generation, but
+     * that were already unreachable at the next complete collection. For each complete collection,
+     * this is the shrinkage of the old generation, up to the bytes that were promoted since the
+     * previous complete collection. A high value means that objects are tenured too early.
+     */
+    public UnsignedWord getPrematurelyPromotedTotalChunkBytes() {
+        return prematurelyPromotedTotalChunkBytes;
+    }
+
+    /** The duration of the last collection. */
+    long getLastCollectionNanos() {
+        return lastCollectionNanos;
+    }
+
+    /** The time between the end of the previous collection and the start of the last one. */
+    long getLastMutatorNanos() {
+        return lastMutatorNanos;
+    }
+
     void beforeCollection() {
         Log trace = Log.noopLog().string("[GCImpl.Accounting.beforeCollection:").newline();
         /* Gather some space statistics. */
@@ -138,6 +166,15 @@ public final class GCAccounting {
     }
 
     void afterCollection(boolean completeCollection, Timer collectionTimer) {
+        long collectionStartNanos = collectionTimer.getFinish() - collectionTimer.getLastIntervalNanos();
+        if (lastCollectionFinishNanos == 0) {
+            lastMutatorNanos = Timer.getTimeSinceFirstAllocation(collectionStartNanos);
+        } else {
+            lastMutatorNanos = collectionStartNanos - lastCollectionFinishNanos;
+        }
+        lastCollectionNanos = collectionTimer.getLastIntervalNanos();
+        lastCollectionFinishNanos = collectionTimer.getFinish();
+
         if (completeCollection) {
             afterCompleteCollection(collectionTimer);
         } else {
@@ -157,6 +194,7 @@ public final class GCAccounting {
         /* Incremental collections only promote. */
         lastCollectionPromotedChunkBytes = oldChunkBytesAfter.subtract(oldChunkBytesBefore);
         promotedTotalChunkBytes = promotedTotalChunkBytes.add(lastCollectionPromotedChunkBytes);
+        promotedChunkBytesSinceCompleteCollection = promotedChunkBytesSinceCompleteCollection.add(lastCollectionPromotedChunkBytes);
         incrementalCollectionTotalNanos += collectionTimer.getMeasuredNanos();
         trace.string("  incrementalCollectionCount: ").signed(incrementalCollectionCount)
                         .string("  oldChunkBytesAfter: ").unsigned(oldChunkBytesAfter)
@@ -171,6 +209,12 @@ public final class GCAccounting {
         afterCollectionCommon();
         /* Complete collections only copy, and they copy everything. */
         copiedTotalChunkBytes = copiedTotalChunkBytes.add(oldChunkBytesAfter);
+        if (oldChunkBytesBefore.aboveThan(oldChunkBytesAfter)) {
+            UnsignedWord reclaimedOldChunkBytes = oldChunkBytesBefore.subtract(oldChunkBytesAfter);
+            UnsignedWord prematurelyPromoted = UnsignedUtils.min(reclaimedOldChunkBytes, promotedChunkBytesSinceCompleteCollection);
+            prematurelyPromotedTotalChunkBytes = prematurelyPromotedTotalChunkBytes.add(prematurelyPromoted);
+        }
+        promotedChunkBytesSinceCompleteCollection = WordFactory.zero();
         completeCollectionTotalNanos += collectionTimer.getMeasuredNanos();
         trace.string("  completeCollectionCount: ").signed(completeCollectionCount)
                         .string("  oldChunkBytesAfter: ").unsigned(oldChunkBytesAfter);
@@ -27,8 +27,6 @@ package com.oracle.svm.core.genscavenge;
 import static com.oracle.svm.core.snippets.KnownIntrinsics.readCallerStackPointer;
 import static com.oracle.svm.core.snippets.KnownIntrinsics.readReturnAddress;
 
-import java.lang.ref.Reference;
-
 import org.graalvm.compiler.api.replacements.Fold;
 import org.graalvm.nativeimage.CurrentIsolate;
 import org.graalvm.nativeimage.IsolateThread;
@@ -70,7 +68,11 @@ import com.oracle.svm.core.genscavenge.remset.RememberedSet;
 import com.oracle.svm.core.heap.CodeReferenceMapDecoder;
 import com.oracle.svm.core.heap.GC;
 import com.oracle.svm.core.heap.GCCause;
+import com.oracle.svm.core.heap.GCListenerSupport;
+import com.oracle.svm.core.heap.GCName;
 import com.oracle.svm.core.heap.NoAllocationVerifier;
+import com.oracle.svm.core.heap.ObjectReferenceVisitor;
+import com.oracle.svm.core.heap.ObjectVisitor;
 import com.oracle.svm.core.heap.ReferenceHandler;
 import com.oracle.svm.core.heap.ReferenceMapIndex;
 import com.oracle.svm.core.heap.RuntimeCodeCacheCleaner;
@@ -96,7 +98,9 @@ import com.oracle.svm.core.util.VMError;
 public final class GCImpl implements GC {
     private final GreyToBlackObjRefVisitor greyToBlackObjRefVisitor = new GreyToBlackObjRefVisitor();
     private final GreyToBlackObjectVisitor greyToBlackObjectVisitor = new GreyToBlackObjectVisitor(greyToBlackObjRefVisitor);
-    private final BlackenImageHeapRootsVisitor blackenImageHeapRootsVisitor = new BlackenImageHeapRootsVisitor();
+    private final ImageHeapRootsVisitor blackenImageHeapRootsVisitor = new ImageHeapRootsVisitor(greyToBlackObjectVisitor);
+    private final ImageHeapRootsVisitor markImageHeapRootsVisitor = new ImageHeapRootsVisitor(MarkCompactCollector.getMarkingObjectVisitor());
+    private final ImageHeapRootsVisitor updateImageHeapRootsVisitor = new ImageHeapRootsVisitor(MarkCompactCollector.getUpdatingObjectVisitor());
     private final RuntimeCodeCacheWalker runtimeCodeCacheWalker = new RuntimeCodeCacheWalker(greyToBlackObjRefVisitor);
     private final RuntimeCodeCacheCleaner runtimeCodeCacheCleaner = new RuntimeCodeCacheCleaner();
 
@@ -112,11 +116,17 @@ public final class GCImpl implements GC {
     private UnsignedWord sizeBefore = WordFactory.zero();
     private boolean collectionInProgress = false;
     private UnsignedWord collectionEpoch = WordFactory.zero();
+    private volatile boolean collectionsDeferred = false;
+    private volatile boolean deferredCollectionRequested = false;
 
     @Platforms(Platform.HOSTED_ONLY.class)
     GCImpl(FeatureAccess access) {
         this.policy = CollectionPolicy.getInitialPolicy(access);
         RuntimeSupport.getRuntimeSupport().addShutdownHook(this::printGCSummary);
+        RuntimeSupport.getRuntimeSupport().addStartupHook(ParallelScavenge::startWorkers);
+        RuntimeSupport.getRuntimeSupport().addTearDownHook(ParallelScavenge::stopWorkers);
+        RuntimeSupport.getRuntimeSupport().addStartupHook(ConcurrentCardPrecleaner::startPrecleaner);
+        RuntimeSupport.getRuntimeSupport().addTearDownHook(ConcurrentCardPrecleaner::stopPrecleaner);
     }
 
     @Override
@@ -136,6 +146,11 @@ public final class GCImpl implements GC {
     @RestrictHeapAccess(access = RestrictHeapAccess.Access.NO_ALLOCATION, reason = "Must not allocate in the implementation of garbage collection.")
     boolean collectWithoutAllocating(GCCause cause, boolean forceFullGC) {
         VMError.guarantee(!hasNeverCollectPolicy());
+        if (collectionsDeferred) {
+            /* Avoid a safepoint that would not do anything. */
+            deferredCollectionRequested = true;
+            return false;
+        }
 
         int size = SizeOf.get(CollectionVMOperationData.class);
         CollectionVMOperationData data = StackValue.get(size);
@@ -157,11 +172,19 @@ public final class GCImpl implements GC {
     private boolean collectOperation(GCCause cause, UnsignedWord requestingEpoch, boolean forceFullGC) {
         assert VMOperation.isGCInProgress() : "Collection should be a VMOperation.";
         assert getCollectionEpoch().equal(requestingEpoch);
+        if (collectionsDeferred) {
+            deferredCollectionRequested = true;
+            return false;
+        }
 
         timers.mutator.close();
+        long startNanos = System.nanoTime();
         startCollectionOrExit();
 
         timers.resetAllExceptMutator();
+        if (ConcurrentCardPrecleaner.isEnabled()) {
+            ConcurrentCardPrecleaner.collectStatistics(timers);
+        }
         collectionEpoch = collectionEpoch.add(1);
 
         /* Flush all TLAB chunks to eden. */
@@ -175,6 +198,13 @@ public final class GCImpl implements GC {
         finishCollection();
         timers.mutator.open();
 
+        if (GCListenerSupport.get().hasListeners()) {
+            long endNanos = System.nanoTime();
+            GCName name = completeCollection ? GenScavengeGCName.Complete : GenScavengeGCName.Incremental;
+            GCListenerSupport.get().phasePause(collectionEpoch, 0, name.getName(), startNanos, endNanos);
+            GCListenerSupport.get().collectionEnd(collectionEpoch, name, cause, startNanos, endNanos);
+        }
+
         return outOfMemory;
     }
 
@@ -209,11 +239,23 @@ public final class GCImpl implements GC {
         CommittedMemoryProvider.get().beforeGarbageCollection();
 
         accounting.beforeCollection();
+        ReferenceObjectProcessing.beforeCollection();
 
         Timer collectionTimer = timers.collection.open();
         try {
             completeCollection = forceFullGC || policy.collectCompletely();
-            if (completeCollection) {
+            HeapImpl.getHeapImpl().getYoungGeneration().setTenuringAge(policy.getTenuringAge());
+            if (completeCollection && MarkCompactCollector.isEnabled()) {
+                /*
+                 * Promote all live young objects with an incremental scavenge, which neither copies
+                 * nor releases the old generation. Only then is the old generation compacted.
+                 */
+                completeCollection = false;
+                HeapImpl.getHeapImpl().getYoungGeneration().setTenuringAge(0);
+                scavenge(true);
+                completeCollection = true;
+                compactOldGeneration();
+            } else if (completeCollection) {
                 if (HeapPolicyOptions.CollectYoungGenerationSeparately.getValue()) {
                     scavenge(true);
                 }
@@ -229,6 +271,7 @@ public final class GCImpl implements GC {
         CommittedMemoryProvider.get().afterGarbageCollection(completeCollection);
 
         accounting.afterCollection(completeCollection, timers.collection);
+        policy.onCollectionEnd(completeCollection);
         UnsignedWord maxBytes = HeapPolicy.getMaximumHeapSize();
         UnsignedWord usedBytes = getChunkBytes();
         boolean outOfMemory = usedBytes.aboveThan(maxBytes);
@@ -296,7 +339,7 @@ public final class GCImpl implements GC {
         sizeBefore = ((SubstrateGCOptions.PrintGC.getValue() || HeapOptions.PrintHeapShape.getValue()) ? getChunkBytes() : WordFactory.zero());
         if (SubstrateGCOptions.VerboseGC.getValue() && getCollectionEpoch().equal(1)) {
             verboseGCLog.string("[Heap policy parameters: ").newline();
-            verboseGCLog.string("  YoungGenerationSize: ").unsigned(HeapPolicy.getMaximumYoungGenerationSize()).newline();
+            verboseGCLog.string("  YoungGenerationSize: ").unsigned(getPolicy().getYoungGenerationSize()).newline();
             verboseGCLog.string("      MaximumHeapSize: ").unsigned(HeapPolicy.getMaximumHeapSize()).newline();
             verboseGCLog.string("      MinimumHeapSize: ").unsigned(HeapPolicy.getMinimumHeapSize()).newline();
             verboseGCLog.string("     AlignedChunkSize: ").unsigned(HeapPolicy.getAlignedHeapChunkSize()).newline();
@@ -354,6 +397,7 @@ public final class GCImpl implements GC {
                 verboseGCLog.string("  policy: ");
                 verboseGCLog.string(getPolicy().getName());
                 verboseGCLog.string("  type: ").string(completeCollection ? "complete" : "incremental");
+                ReferenceObjectProcessing.logCounts(verboseGCLog);
                 if (HeapOptions.PrintHeapShape.getValue()) {
                     heap.report(verboseGCLog);
                 }
@@ -451,6 +495,28 @@ public final class GCImpl implements GC {
         collect(cause, true);
     }
 
+    /**
+     * Defers all collections until {@link #resumeCollections} is called, so that objects neither
+     * move nor are freed while they are accessed outside of a safepoint, e.g., by the heap dump
+     * writer. Allocations in the meantime only grow the heap, so collections should be deferred for
+     * as short as possible.
+     */
+    void deferCollections() {
+        VMOperation.guaranteeInProgressAtSafepoint("Collections must only be deferred at a safepoint");
+        assert !collectionsDeferred;
+        collectionsDeferred = true;
+    }
+
+    /** Ends {@link #deferCollections deferral} and runs any collection that was requested since. */
+    void resumeCollections(GCCause cause) {
+        assert collectionsDeferred;
+        collectionsDeferred = false;
+        if (deferredCollectionRequested) {
+            deferredCollectionRequested = false;
+            collect(cause);
+        }
+    }
+
     public boolean isCompleteCollection() {
         return completeCollection;
     }
@@ -486,8 +552,7 @@ public final class GCImpl implements GC {
 
             Timer referenceObjectsTimer = timers.referenceObjects.open();
             try {
-                Reference<?> newlyPendingList = ReferenceObjectProcessing.processRememberedReferences();
-                HeapImpl.getHeapImpl().addToReferencePendingList(newlyPendingList);
+                ReferenceObjectProcessing.processRememberedReferences();
             } finally {
                 referenceObjectsTimer.close();
             }
@@ -507,14 +572,70 @@ public final class GCImpl implements GC {
         }
     }
 
+    /**
+     * Collects the old generation in place, see {@link MarkCompactCollector}. All live objects must
+     * already be in the from-space of the old generation.
+     */
+    private void compactOldGeneration() {
+        Space oldSpace = HeapImpl.getHeapImpl().getOldGeneration().getFromSpace();
+        assert completeCollection;
+        assert HeapImpl.getHeapImpl().getYoungGeneration().getChunkBytes().equal(0) : "all young objects must have been promoted";
+        assert HeapImpl.getHeapImpl().getOldGeneration().getToSpace().isEmpty();
+
+        Timer markTimer = timers.markLiveObjects.open();
+        try {
+            MarkCompactCollector.startMarking(oldSpace);
+            walkRootsForCompaction(MarkCompactCollector.getMarkingObjRefVisitor(), markImageHeapRootsVisitor);
+            MarkCompactCollector.finishMarking();
+        } finally {
+            markTimer.close();
+        }
+
+        Timer referenceObjectsTimer = timers.referenceObjects.open();
+        try {
+            /* The pending list is reachable from the image heap, so its references are updated. */
+            ReferenceObjectProcessing.processRememberedReferences();
+        } finally {
+            referenceObjectsTimer.close();
+        }
+
+        Timer updateTimer = timers.updateReferences.open();
+        try {
+            MarkCompactCollector.planCompaction(oldSpace);
+            walkRootsForCompaction(MarkCompactCollector.getUpdatingObjRefVisitor(), updateImageHeapRootsVisitor);
+            MarkCompactCollector.updateReferences(oldSpace);
+        } finally {
+            updateTimer.close();
+        }
+
+        Timer compactTimer = timers.compactOldGeneration.open();
+        try {
+            assert chunkReleaser.isEmpty();
+            MarkCompactCollector.compact(oldSpace, chunkReleaser);
+            chunkReleaser.release();
+        } finally {
+            compactTimer.close();
+        }
+    }
+
+    private void walkRootsForCompaction(ObjectReferenceVisitor refVisitor, ImageHeapRootsVisitor imageHeapRootsVisitor) {
+        blackenStackRoots(refVisitor);
+        walkThreadLocals(refVisitor);
+        blackenImageHeapRoots(imageHeapRootsVisitor);
+    }
+
     /**
      * Visit all the memory that is reserved for runtime compiled code. References from the runtime
      * compiled code to the Java heap must be consider as either strong or weak references,
      * depending on whether the code is currently on the execution stack.
      */
-    private void walkRuntimeCodeCache() {
+    private void walkRuntimeCodeCache(boolean ageCode) {
         Timer walkRuntimeCodeCacheTimer = timers.walkRuntimeCodeCache.open();
         try {
+            if (ageCode) {
+                CodeInfoTable.getRuntimeCodeCache().startAgingCycle();
+            }
+            runtimeCodeCacheWalker.setAgeCode(ageCode);
             RuntimeCodeInfoMemory.singleton().walkRuntimeMethodsDuringGC(runtimeCodeCacheWalker);
         } finally {
             walkRuntimeCodeCacheTimer.close();
@@ -551,23 +672,27 @@ public final class GCImpl implements GC {
              * Stack references are grey at the beginning of a collection, so I need to blacken
              * them.
              */
-            blackenStackRoots();
+            blackenStackRoots(greyToBlackObjRefVisitor);
 
             /* Custom memory regions which contain object references. */
-            walkThreadLocals();
+            walkThreadLocals(greyToBlackObjRefVisitor);
 
             /*
              * Native image Objects are grey at the beginning of a collection, so I need to blacken
              * them.
              */
-            blackenImageHeapRoots();
+            blackenImageHeapRoots(blackenImageHeapRootsVisitor);
 
             /* Visit all the Objects promoted since the snapshot. */
             scanGreyObjects(false);
 
             if (DeoptimizationSupport.enabled()) {
-                /* Visit the runtime compiled code, now that we know all the reachable objects. */
-                walkRuntimeCodeCache();
+                /*
+                 * Visit the runtime compiled code, now that we know all the reachable objects. As
+                 * all roots were scanned, unreachable tethers identify code that can be evicted if
+                 * it was not entered recently.
+                 */
+                walkRuntimeCodeCache(true);
 
                 /* Visit all objects that became reachable because of the compiled code. */
                 scanGreyObjects(false);
@@ -617,10 +742,10 @@ public final class GCImpl implements GC {
              * Stack references are grey at the beginning of a collection, so I need to blacken
              * them.
              */
-            blackenStackRoots();
+            blackenStackRoots(greyToBlackObjRefVisitor);
 
             /* Custom memory regions which contain object references. */
-            walkThreadLocals();
+            walkThreadLocals(greyToBlackObjRefVisitor);
 
             /*
              * Native image Objects are grey at the beginning of a collection, so I need to blacken
@@ -633,7 +758,7 @@ public final class GCImpl implements GC {
 
             if (DeoptimizationSupport.enabled()) {
                 /* Visit the runtime compiled code, now that we know all the reachable objects. */
-                walkRuntimeCodeCache();
+                walkRuntimeCodeCache(false);
 
                 /* Visit all objects that became reachable because of the compiled code. */
                 scanGreyObjects(true);
@@ -697,7 +822,7 @@ public final class GCImpl implements GC {
                     "Note that we could start the stack frame also further down the stack, because GC stack frames must not access any objects that are processed by the GC. " +
                     "But we don't store stack frame information for the first frame we would need to process.")
     @Uninterruptible(reason = "Required by called JavaStackWalker methods. We are at a safepoint during GC, so it does not change anything for this method.", calleeMustBe = false)
-    private void blackenStackRoots() {
+    private void blackenStackRoots(ObjectReferenceVisitor visitor) {
         Timer blackenStackRootsTimer = timers.blackenStackRoots.open();
         try {
             Pointer sp = readCallerStackPointer();
@@ -705,7 +830,7 @@ public final class GCImpl implements GC {
 
             JavaStackWalk walk = StackValue.get(JavaStackWalk.class);
             JavaStackWalker.initWalk(walk, sp, ip);
-            walkStack(walk);
+            walkStack(walk, visitor);
 
             if (SubstrateOptions.MultiThreaded.getValue()) {
                 /*
@@ -723,7 +848,7 @@ public final class GCImpl implements GC {
                         continue;
                     }
                     if (JavaStackWalker.initWalk(walk, vmThread)) {
-                        walkStack(walk);
+                        walkStack(walk, visitor);
                     }
                 }
             }
@@ -739,7 +864,7 @@ public final class GCImpl implements GC {
      * calls to a stack frame visitor.
      */
     @Uninterruptible(reason = "Required by called JavaStackWalker methods. We are at a safepoint during GC, so it does not change anything for this method.", calleeMustBe = false)
-    private void walkStack(JavaStackWalk walk) {
+    private static void walkStack(JavaStackWalk walk, ObjectReferenceVisitor visitor) {
         assert VMOperation.isGCInProgress() : "This methods accesses a CodeInfo without a tether";
 
         while (true) {
@@ -763,7 +888,7 @@ public final class GCImpl implements GC {
                 if (referenceMapIndex == ReferenceMapIndex.NO_REFERENCE_MAP) {
                     throw CodeInfoTable.reportNoReferenceMap(sp, ip, codeInfo);
                 }
-                CodeReferenceMapDecoder.walkOffsetsFromPointer(sp, referenceMapEncoding, referenceMapIndex, greyToBlackObjRefVisitor);
+                CodeReferenceMapDecoder.walkOffsetsFromPointer(sp, referenceMapEncoding, referenceMapIndex, visitor);
             } else {
                 /*
                  * This is a deoptimized frame. The DeoptimizedFrame object is stored in the frame,
@@ -779,8 +904,8 @@ public final class GCImpl implements GC {
                  * decide to invalidate too much code, depending on the order in which the CodeInfo
                  * objects are visited.
                  */
-                RuntimeCodeInfoAccess.walkStrongReferences(codeInfo, greyToBlackObjRefVisitor);
-                RuntimeCodeInfoAccess.walkWeakReferences(codeInfo, greyToBlackObjRefVisitor);
+                RuntimeCodeInfoAccess.walkStrongReferences(codeInfo, visitor);
+                RuntimeCodeInfoAccess.walkWeakReferences(codeInfo, visitor);
             }
 
             if (!JavaStackWalker.continueWalk(walk, queryResult, deoptFrame)) {
@@ -790,11 +915,11 @@ public final class GCImpl implements GC {
         }
     }
 
-    private void walkThreadLocals() {
+    private void walkThreadLocals(ObjectReferenceVisitor visitor) {
         if (SubstrateOptions.MultiThreaded.getValue()) {
             Timer walkThreadLocalsTimer = timers.walkThreadLocals.open();
             try {
-                ThreadLocalMTWalker.walk(greyToBlackObjRefVisitor);
+                ThreadLocalMTWalker.walk(visitor);
             } finally {
                 walkThreadLocalsTimer.close();
             }
@@ -803,7 +928,7 @@ public final class GCImpl implements GC {
 
     private void blackenDirtyImageHeapRoots() {
         if (!HeapImpl.usesImageHeapCardMarking()) {
-            blackenImageHeapRoots();
+            blackenImageHeapRoots(blackenImageHeapRootsVisitor);
             return;
         }
 
@@ -837,20 +962,28 @@ public final class GCImpl implements GC {
         }
     }
 
-    private void blackenImageHeapRoots() {
+    private void blackenImageHeapRoots(ImageHeapRootsVisitor visitor) {
         Timer blackenImageHeapRootsTimer = timers.blackenImageHeapRoots.open();
         try {
-            HeapImpl.getHeapImpl().walkNativeImageHeapRegions(blackenImageHeapRootsVisitor);
+            HeapImpl.getHeapImpl().walkNativeImageHeapRegions(visitor);
         } finally {
             blackenImageHeapRootsTimer.close();
         }
     }
 
-    private class BlackenImageHeapRootsVisitor implements MemoryWalker.ImageHeapRegionVisitor {
+    /** Visits the objects of the image heap that can refer to objects of the collected heap. */
+    private static final class ImageHeapRootsVisitor implements MemoryWalker.ImageHeapRegionVisitor {
+        private final ObjectVisitor objectVisitor;
+
+        @Platforms(Platform.HOSTED_ONLY.class)
+        ImageHeapRootsVisitor(ObjectVisitor objectVisitor) {
+            this.objectVisitor = objectVisitor;
+        }
+
         @Override
         public <T> boolean visitNativeImageHeapRegion(T region, MemoryWalker.NativeImageHeapRegionAccess<T> access) {
             if (access.containsReferences(region) && access.isWritable(region)) {
-                access.visitObjects(region, greyToBlackObjectVisitor);
+                access.visitObjects(region, objectVisitor);
             }
             return true;
         }
@@ -884,7 +1017,9 @@ public final class GCImpl implements GC {
         OldGeneration oldGen = heap.getOldGeneration();
         Timer scanGreyObjectsTimer = timers.scanGreyObjects.open();
         try {
-            if (isIncremental) {
+            if (ParallelScavenge.isEnabled()) {
+                ParallelScavenge.scanGreyObjects(isIncremental);
+            } else if (isIncremental) {
                 scanGreyObjectsLoop();
             } else {
                 oldGen.scanGreyObjects();
@@ -1151,7 +1286,7 @@ public final class GCImpl implements GC {
                 firstAligned = WordFactory.nullPointer();
             }
             if (firstUnaligned.isNonNull()) {
-                HeapChunkProvider.consumeUnalignedChunks(firstUnaligned);
+                HeapImpl.getChunkProvider().consumeUnalignedChunks(firstUnaligned);
                 firstUnaligned = WordFactory.nullPointer();
             }
         }
@@ -1175,7 +1310,7 @@ public final class GCImpl implements GC {
         Log log = Log.log();
         final String prefix = "PrintGCSummary: ";
 
-        log.string(prefix).string("YoungGenerationSize: ").unsigned(HeapPolicy.getMaximumYoungGenerationSize()).newline();
+        log.string(prefix).string("YoungGenerationSize: ").unsigned(getPolicy().getYoungGenerationSize()).newline();
         log.string(prefix).string("MinimumHeapSize: ").unsigned(HeapPolicy.getMinimumHeapSize()).newline();
         log.string(prefix).string("MaximumHeapSize: ").unsigned(HeapPolicy.getMaximumHeapSize()).newline();
         log.string(prefix).string("AlignedChunkSize: ").unsigned(HeapPolicy.getAlignedHeapChunkSize()).newline();
@@ -1200,6 +1335,8 @@ public final class GCImpl implements GC {
         long completeNanos = accounting.getCompleteCollectionTotalNanos();
         log.string(prefix).string("CompleteGCCount: ").signed(accounting.getCompleteCollectionCount()).newline();
         log.string(prefix).string("CompleteGCNanos: ").signed(completeNanos).newline();
+        log.string(prefix).string("PrematurelyPromotedChunkBytes: ").unsigned(accounting.getPrematurelyPromotedTotalChunkBytes()).newline();
+        HeapImpl.getChunkProvider().printSummary(log, prefix);
 
         long gcNanos = incrementalNanos + completeNanos;
         long mutatorNanos = timers.mutator.getMeasuredNanos();
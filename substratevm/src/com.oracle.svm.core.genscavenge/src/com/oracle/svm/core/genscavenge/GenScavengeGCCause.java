@@ -28,6 +28,7 @@ import com.oracle.svm.core.heap.GCCause;
 
 final class GenScavengeGCCause extends GCCause {
     public static final GCCause OnAllocation = new GenScavengeGCCause("CollectOnAllocation", 10);
+    public static final GCCause HeapDump = new GenScavengeGCCause("HeapDump", 11);
 
     private GenScavengeGCCause(String name, int id) {
         super(name, id);
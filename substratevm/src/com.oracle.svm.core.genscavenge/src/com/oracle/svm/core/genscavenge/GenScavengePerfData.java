@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.genscavenge;
+
+import org.graalvm.nativeimage.Platform;
+import org.graalvm.nativeimage.Platforms;
+
+import com.oracle.svm.core.annotate.Uninterruptible;
+import com.oracle.svm.core.jvmstat.PerfDataHolder;
+import com.oracle.svm.core.jvmstat.PerfLongCounter;
+import com.oracle.svm.core.jvmstat.PerfManager;
+import com.oracle.svm.core.jvmstat.PerfMemory;
+
+/**
+ * The jvmstat counters of the garbage collector, with the names that jstat expects from a HotSpot
+ * VM: collector 0 is the incremental (young) collection and collector 1 the complete collection.
+ * Generation 0 is the young generation with the spaces eden, s0 and s1, where s0 holds all survivor
+ * spaces and s1 is always empty outside of a collection. Generation 1 is the old generation.
+ */
+public final class GenScavengePerfData implements PerfDataHolder {
+    private PerfLongCounter incrementalInvocations;
+    private PerfLongCounter incrementalTime;
+    private PerfLongCounter completeInvocations;
+    private PerfLongCounter completeTime;
+
+    private SpaceCounters young;
+    private SpaceCounters eden;
+    private SpaceCounters survivor;
+    private SpaceCounters emptySurvivor;
+    private SpaceCounters old;
+    private SpaceCounters oldSpace;
+
+    /* A consistent snapshot of the heap sizes, see sampleSizes(). */
+    private long edenUsed;
+    private long youngUsed;
+    private long oldUsed;
+
+    @Platforms(Platform.HOSTED_ONLY.class)
+    public GenScavengePerfData() {
+    }
+
+    /** The capacity counters of a generation or a space. */
+    private static final class SpaceCounters {
+        final PerfLongCounter used;
+        final PerfLongCounter capacity;
+        final PerfLongCounter maxCapacity;
+
+        SpaceCounters(PerfManager manager, String prefix, String name, long max) {
+            manager.createString(prefix + ".name", name);
+            used = manager.createLong(prefix + ".used", PerfMemory.VARIABILITY_VARIABLE, PerfMemory.UNITS_BYTES, 0);
+            capacity = manager.createLong(prefix + ".capacity", PerfMemory.VARIABILITY_VARIABLE, PerfMemory.UNITS_BYTES, 0);
+            maxCapacity = manager.createLong(prefix + ".maxCapacity", PerfMemory.VARIABILITY_CONSTANT, PerfMemory.UNITS_BYTES, max);
+        }
+
+        void set(long usedBytes, long capacityBytes) {
+            used.set(usedBytes);
+            capacity.set(capacityBytes);
+        }
+    }
+
+    @Override
+    public void allocate(PerfManager manager) {
+        manager.createString("sun.gc.collector.0.name", "young generation scavenger");
+        incrementalInvocations = manager.createLong("sun.gc.collector.0.invocations", PerfMemory.VARIABILITY_MONOTONIC, PerfMemory.UNITS_EVENTS, 0);
+        incrementalTime = manager.createLong("sun.gc.collector.0.time", PerfMemory.VARIABILITY_MONOTONIC, PerfMemory.UNITS_TICKS, 0);
+        manager.createString("sun.gc.collector.1.name", "complete scavenger");
+        completeInvocations = manager.createLong("sun.gc.collector.1.invocations", PerfMemory.VARIABILITY_MONOTONIC, PerfMemory.UNITS_EVENTS, 0);
+        completeTime = manager.createLong("sun.gc.collector.1.time", PerfMemory.VARIABILITY_MONOTONIC, PerfMemory.UNITS_TICKS, 0);
+
+        long maxHeap = HeapPolicy.getMaximumHeapSize().rawValue();
+        long maxYoung = HeapPolicy.getMaximumYoungGenerationSize().rawValue();
+        manager.createLong("sun.gc.generation.0.spaces", PerfMemory.VARIABILITY_CONSTANT, PerfMemory.UNITS_NONE, 3);
+        young = new SpaceCounters(manager, "sun.gc.generation.0", "young", maxYoung);
+        eden = new SpaceCounters(manager, "sun.gc.generation.0.space.0", "eden", maxYoung);
+        survivor = new SpaceCounters(manager, "sun.gc.generation.0.space.1", "s0", maxYoung);
+        emptySurvivor = new SpaceCounters(manager, "sun.gc.generation.0.space.2", "s1", maxYoung);
+        manager.createLong("sun.gc.generation.1.spaces", PerfMemory.VARIABILITY_CONSTANT, PerfMemory.UNITS_NONE, 1);
+        old = new SpaceCounters(manager, "sun.gc.generation.1", "old", maxHeap - maxYoung);
+        oldSpace = new SpaceCounters(manager, "sun.gc.generation.1.space.0", "old", maxHeap - maxYoung);
+    }
+
+    @Override
+    public void update() {
+        GCAccounting accounting = HeapImpl.getHeapImpl().getGCImpl().getAccounting();
+        incrementalInvocations.set(accounting.getIncrementalCollectionCount());
+        incrementalTime.set(accounting.getIncrementalCollectionTotalNanos());
+        completeInvocations.set(accounting.getCompleteCollectionCount());
+        completeTime.set(accounting.getCompleteCollectionTotalNanos());
+
+        sampleSizes();
+        long survivorUsed = youngUsed - edenUsed;
+        /* Eden can grow until the young generation is full, the other spaces are fully used. */
+        long edenCapacity = Math.max(edenUsed, HeapPolicy.getMaximumYoungGenerationSize().rawValue() - survivorUsed);
+        young.set(youngUsed, edenCapacity + survivorUsed);
+        eden.set(edenUsed, edenCapacity);
+        survivor.set(survivorUsed, survivorUsed);
+        emptySurvivor.set(0, 0);
+        old.set(oldUsed, oldUsed);
+        oldSpace.set(oldUsed, oldUsed);
+    }
+
+    @Uninterruptible(reason = "Necessary to get a reasonably consistent snapshot (a GC can change the queried values).")
+    private void sampleSizes() {
+        edenUsed = HeapPolicy.getEdenUsedBytes().rawValue();
+        youngUsed = HeapPolicy.getYoungUsedBytes().rawValue();
+        oldUsed = HeapImpl.getHeapImpl().getOldGeneration().getChunkBytes().rawValue();
+    }
+}
@@ -84,6 +84,48 @@ final class GreyObjectsWalker {
         }
     }
 
+    /**
+     * Instead of walking the grey Objects, hand them to the {@link ParallelScavenge} as work for
+     * the current thread. The scan point is not moved, see {@link #skipGreyObjects()}.
+     */
+    void handOffGreyObjects() {
+        AlignedHeapChunk.AlignedHeader aChunk;
+        Pointer start;
+        if (alignedHeapChunk.isNull() && alignedTop.isNull()) {
+            aChunk = space.getFirstAlignedHeapChunk();
+            start = aChunk.isNonNull() ? AlignedHeapChunk.getObjectsStart(aChunk) : WordFactory.nullPointer();
+        } else {
+            aChunk = alignedHeapChunk;
+            start = alignedTop;
+        }
+        while (aChunk.isNonNull()) {
+            Pointer end = HeapChunk.getTopPointer(aChunk);
+            if (start.belowThan(end)) {
+                ParallelScavenge.pushWork(start, end);
+            }
+            aChunk = HeapChunk.getNext(aChunk);
+            if (aChunk.isNonNull()) {
+                start = AlignedHeapChunk.getObjectsStart(aChunk);
+            }
+        }
+
+        UnalignedHeapChunk.UnalignedHeader uChunk;
+        if (unalignedHeapChunk.isNull()) {
+            uChunk = space.getFirstUnalignedHeapChunk();
+        } else {
+            uChunk = HeapChunk.getNext(unalignedHeapChunk);
+        }
+        while (uChunk.isNonNull()) {
+            ParallelScavenge.pushWork(UnalignedHeapChunk.getObjectStart(uChunk), HeapChunk.getTopPointer(uChunk));
+            uChunk = HeapChunk.getNext(uChunk);
+        }
+    }
+
+    /** Treat all Objects that are currently in the Space as black. */
+    void skipGreyObjects() {
+        setScanStart(space);
+    }
+
     @AlwaysInline("GC performance")
     private void walkAlignedGreyObjects() {
         AlignedHeapChunk.AlignedHeader aChunk;
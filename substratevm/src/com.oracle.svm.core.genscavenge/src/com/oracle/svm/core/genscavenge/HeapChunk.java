@@ -167,6 +167,19 @@ public final class HeapChunk {
         @RawField
         @UniqueLocationIdentity
         void setOffsetToNextChunk(SignedWord newNext);
+
+        /**
+         * Side data of the {@link MarkCompactCollector} during a complete collection: for an
+         * aligned chunk, the address of its mark bitmap and forwarding table, for an unaligned
+         * chunk, a non-null value if its object is marked. Null outside of such a collection.
+         */
+        @RawField
+        @UniqueLocationIdentity
+        Pointer getMarkData();
+
+        @RawField
+        @UniqueLocationIdentity
+        void setMarkData(Pointer newMarkData);
     }
 
     public static void initialize(Header<?> chunk, Pointer objectsStart, UnsignedWord chunkSize) {
@@ -175,6 +188,7 @@ public final class HeapChunk {
         HeapChunk.setSpace(chunk, null);
         HeapChunk.setNext(chunk, WordFactory.nullPointer());
         HeapChunk.setPrevious(chunk, WordFactory.nullPointer());
+        HeapChunk.setMarkData(chunk, WordFactory.nullPointer());
     }
 
     @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
@@ -247,6 +261,14 @@ public final class HeapChunk {
         that.setOffsetToNextChunk(offsetFromPointer(that, newNext));
     }
 
+    static Pointer getMarkData(Header<?> that) {
+        return that.getMarkData();
+    }
+
+    static void setMarkData(Header<?> that, Pointer newMarkData) {
+        that.setMarkData(newMarkData);
+    }
+
     /**
      * Converts from an offset to a pointer, where a zero offset translates to {@code NULL}. This is
      * necessary for treating image heap chunks, where addresses at runtime are not yet known.
@@ -24,6 +24,8 @@
  */
 package com.oracle.svm.core.genscavenge;
 
+import org.graalvm.compiler.serviceprovider.GraalUnsafeAccess;
+import org.graalvm.nativeimage.CurrentIsolate;
 import org.graalvm.nativeimage.Platform;
 import org.graalvm.nativeimage.Platforms;
 import org.graalvm.word.Pointer;
@@ -36,38 +38,86 @@ import com.oracle.svm.core.MemoryWalker;
 import com.oracle.svm.core.SubstrateOptions;
 import com.oracle.svm.core.annotate.AlwaysInline;
 import com.oracle.svm.core.annotate.Uninterruptible;
+import com.oracle.svm.core.config.ConfigurationValues;
 import com.oracle.svm.core.genscavenge.AlignedHeapChunk.AlignedHeader;
 import com.oracle.svm.core.genscavenge.HeapChunk.Header;
 import com.oracle.svm.core.genscavenge.UnalignedHeapChunk.UnalignedHeader;
-import com.oracle.svm.core.jdk.UninterruptibleUtils;
+import com.oracle.svm.core.jdk.UninterruptibleUtils.AtomicLong;
+import com.oracle.svm.core.jdk.UninterruptibleUtils.AtomicPointer;
 import com.oracle.svm.core.jdk.UninterruptibleUtils.AtomicUnsigned;
 import com.oracle.svm.core.log.Log;
 import com.oracle.svm.core.os.CommittedMemoryProvider;
+import com.oracle.svm.core.os.NumaNodeProvider;
 import com.oracle.svm.core.thread.VMThreads;
+import com.oracle.svm.core.util.TimeUtils;
+
+import jdk.vm.ci.meta.JavaKind;
+import sun.misc.Unsafe;
 
 /**
  * Allocates and frees the memory for aligned and unaligned heap chunks. The methods are
  * thread-safe, so no locking is necessary when calling them.
  *
  * Memory for aligned chunks is not immediately released to the OS. Up to
- * {@link HeapPolicy#getMinimumHeapSize()} chunks are saved in an unused chunk list. Memory for
- * unaligned chunks is released immediately.
+ * {@link HeapPolicy#getMinimumHeapSize()} chunks are saved in unused chunk lists, which serve as a
+ * reservation for refilling TLABs without going to the OS. The lists are striped so that
+ * concurrently allocating threads usually do not compete for the same list head: each thread
+ * starts at its own stripe and only moves on to other stripes if that one is empty. With
+ * {@link HeapPolicyOptions#NumaAwareChunkAllocation}, there is a group of stripes per NUMA node,
+ * and threads prefer the chunks of the node that they are running on.
+ *
+ * Memory for unaligned chunks is released immediately, unless
+ * {@link HeapPolicyOptions#UnalignedChunkPoolSize} is set. In that case, the sizes of unaligned
+ * chunks are rounded up to size classes, and unused chunks are kept in one list per size class
+ * until the pool size is reached.
  */
 final class HeapChunkProvider {
+    /** NUMA nodes beyond this number share the unused chunk lists of lower nodes. */
+    private static final int MAX_NUMA_NODES = 16;
+    private static final int STRIPES_PER_NUMA_NODE = 4;
+    private static final int ALIGNED_CHUNK_LIST_COUNT = MAX_NUMA_NODES * STRIPES_PER_NUMA_NODE;
+
+    /** Unaligned chunks are pooled if their size is in (2^MIN, 2^MAX]. */
+    private static final int MIN_POOLED_UNALIGNED_CHUNK_SIZE_LOG = 12;
+    private static final int MAX_POOLED_UNALIGNED_CHUNK_SIZE_LOG = 36;
+    /** Every power of two is split into 2^SIZE_CLASS_STEPS_LOG size classes. */
+    private static final int SIZE_CLASS_STEPS_LOG = 2;
+    private static final int SIZE_CLASS_STEPS = 1 << SIZE_CLASS_STEPS_LOG;
+    private static final int SIZE_CLASS_COUNT = (MAX_POOLED_UNALIGNED_CHUNK_SIZE_LOG - MIN_POOLED_UNALIGNED_CHUNK_SIZE_LOG) * SIZE_CLASS_STEPS;
+
     /**
-     * The head of the linked list of unused aligned chunks. Chunks are chained using
-     * {@link HeapChunk#getNext}.
+     * The striped linked lists of unused aligned chunks. If chunks are allocated NUMA-aware, the
+     * stripes of a node are consecutive. Chunks are chained using {@link HeapChunk#getNext}.
      */
-    private final UninterruptibleUtils.AtomicPointer<AlignedHeader> unusedAlignedChunks = new UninterruptibleUtils.AtomicPointer<>();
+    private final AlignedChunkStripes unusedAlignedChunks;
 
     /**
-     * The number of chunks in the {@link #unusedAlignedChunks} list.
+     * The number of chunks that were ever pushed to the {@link #unusedAlignedChunks} lists. Pushes
+     * only happen during a GC, so the counter is not atomic. The pop counters are striped like the
+     * lists, so that popping does not update a single contended location.
      *
-     * The value is not updated atomically with respect to the {@link #unusedAlignedChunks list
-     * head}, but this is OK because we only need the number of chunks for policy code (to avoid
-     * running down the list and counting the number of chunks).
+     * The difference of the counters is not updated atomically with respect to the list heads, but
+     * this is OK because we only need the number of chunks for policy code (to avoid running down
+     * the lists and counting the number of chunks).
+     */
+    private long pushedAlignedChunks;
+
+    /** The stripe to which the next chunk is pushed, so that chunks are evenly distributed. */
+    private int nextPushStripe;
+
+    /** The heads of the linked lists of unused unaligned chunks, indexed by size class. */
+    private final AtomicPointer<UnalignedHeader>[] unusedUnalignedChunks;
+
+    /** The number of bytes in the {@link #unusedUnalignedChunks} lists. */
+    private final AtomicUnsigned bytesInUnusedUnalignedChunks = new AtomicUnsigned();
+
+    /*
+     * Statistics about how often the unused chunk lists can satisfy a request. The hits of aligned
+     * chunks are the pops.
      */
-    private final AtomicUnsigned bytesInUnusedAlignedChunks = new AtomicUnsigned();
+    private final AtomicLong alignedChunkPoolMisses = new AtomicLong(0);
+    private final AtomicLong unalignedChunkRequests = new AtomicLong(0);
+    private final AtomicLong unalignedChunkPoolHits = new AtomicLong(0);
 
     /**
      * The time of the first allocation, as the basis for computing deltas.
@@ -78,12 +128,80 @@ final class HeapChunkProvider {
     private long firstAllocationTime;
 
     @Platforms(Platform.HOSTED_ONLY.class)
+    @SuppressWarnings("unchecked")
     HeapChunkProvider() {
+        unusedAlignedChunks = new AlignedChunkStripes(ALIGNED_CHUNK_LIST_COUNT);
+        unusedUnalignedChunks = new AtomicPointer[SIZE_CLASS_COUNT];
+        for (int i = 0; i < unusedUnalignedChunks.length; i++) {
+            unusedUnalignedChunks[i] = new AtomicPointer<>();
+        }
     }
 
     @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
     public UnsignedWord getBytesInUnusedChunks() {
-        return bytesInUnusedAlignedChunks.get();
+        return getBytesInUnusedAlignedChunks().add(bytesInUnusedUnalignedChunks.get());
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    private UnsignedWord getBytesInUnusedAlignedChunks() {
+        long chunks = pushedAlignedChunks - getPoppedAlignedChunks();
+        return chunks <= 0 ? WordFactory.zero() : HeapPolicy.getAlignedHeapChunkSize().multiply(WordFactory.unsigned(chunks));
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    private long getPoppedAlignedChunks() {
+        long result = 0;
+        for (int i = 0; i < ALIGNED_CHUNK_LIST_COUNT; i++) {
+            result += unusedAlignedChunks.getPopped(i);
+        }
+        return result;
+    }
+
+    private static boolean isNumaAware() {
+        return NumaNodeProvider.isAvailable() && HeapPolicyOptions.NumaAwareChunkAllocation.getValue();
+    }
+
+    private static boolean isUnalignedChunkPoolEnabled() {
+        return HeapPolicyOptions.UnalignedChunkPoolSize.getValue() > 0;
+    }
+
+    /** Returns the first of the unused aligned chunk lists that belong to the given NUMA node. */
+    private static int getFirstAlignedChunkList(boolean numaAware, int node) {
+        return (!numaAware || node < 0) ? 0 : (node % MAX_NUMA_NODES) * STRIPES_PER_NUMA_NODE;
+    }
+
+    /** Returns how many unused aligned chunk lists belong to a single NUMA node. */
+    private static int getAlignedChunkStripes(boolean numaAware) {
+        return numaAware ? STRIPES_PER_NUMA_NODE : ALIGNED_CHUNK_LIST_COUNT;
+    }
+
+    /** Spreads the threads over the stripes by hashing the address of their thread structure. */
+    private static int getCurrentThreadStripe(int stripes) {
+        long hash = CurrentIsolate.getCurrentThread().rawValue() * 0x9E3779B97F4A7C15L;
+        return (int) ((hash >>> 32) % stripes);
+    }
+
+    /**
+     * Returns the size class of an unaligned chunk with the given size, or -1 if such chunks are
+     * not pooled. Sizes in (2^n, 2^(n+1)] are split into {@link #SIZE_CLASS_STEPS} classes, so that
+     * rounding up to a size class wastes at most 25% of a chunk.
+     */
+    private static int getSizeClass(UnsignedWord chunkSize) {
+        long size = chunkSize.rawValue();
+        if (size <= (1L << MIN_POOLED_UNALIGNED_CHUNK_SIZE_LOG) || size > (1L << MAX_POOLED_UNALIGNED_CHUNK_SIZE_LOG)) {
+            return -1;
+        }
+        int log = 63 - Long.numberOfLeadingZeros(size - 1);
+        int shift = log - SIZE_CLASS_STEPS_LOG;
+        long steps = (size + (1L << shift) - 1) >>> shift;
+        assert steps > SIZE_CLASS_STEPS && steps <= 2 * SIZE_CLASS_STEPS;
+        return (log - MIN_POOLED_UNALIGNED_CHUNK_SIZE_LOG) * SIZE_CLASS_STEPS + (int) steps - SIZE_CLASS_STEPS - 1;
+    }
+
+    private static UnsignedWord getSizeClassChunkSize(int sizeClass) {
+        int log = MIN_POOLED_UNALIGNED_CHUNK_SIZE_LOG + sizeClass / SIZE_CLASS_STEPS;
+        long steps = SIZE_CLASS_STEPS + 1 + sizeClass % SIZE_CLASS_STEPS;
+        return WordFactory.unsigned(steps << (log - SIZE_CLASS_STEPS_LOG));
     }
 
     @AlwaysInline("Remove all logging when noopLog is returned by this method")
@@ -104,7 +222,8 @@ final class HeapChunkProvider {
         log().string("  unused chunk: ").hex(result).newline();
 
         if (result.isNull()) {
-            /* Unused list was empty, need to allocate memory. */
+            /* Unused lists were empty, need to allocate memory. */
+            alignedChunkPoolMisses.incrementAndGet();
             noteFirstAllocationTime();
             result = (AlignedHeader) CommittedMemoryProvider.get().allocate(chunkSize, HeapPolicy.getAlignedHeapChunkAlignment(), false);
             if (result.isNull()) {
@@ -158,8 +277,15 @@ final class HeapChunkProvider {
         }
     }
 
+    private static void cleanUnalignedChunk(UnalignedHeader unalignedChunk) {
+        UnalignedHeapChunk.initialize(unalignedChunk, unalignedChunkSize(unalignedChunk));
+        if (HeapPolicy.getZapConsumedHeapChunks()) {
+            zap(unalignedChunk, HeapPolicy.getConsumedHeapChunkZapWord());
+        }
+    }
+
     /**
-     * Push a chunk to the global linked list of unused chunks.
+     * Push a chunk to one of the global linked lists of unused chunks.
      * <p>
      * This method is <em>not</em> atomic. It only runs when the VMThreads.THREAD_MUTEX is held (or
      * the virtual machine is single-threaded). However it must not be allowed to compete with pops
@@ -174,46 +300,79 @@ final class HeapChunkProvider {
         if (SubstrateOptions.MultiThreaded.getValue()) {
             VMThreads.guaranteeOwnsThreadMutex("Should hold the lock when pushing to the global list.");
         }
-        log().string("  old list top: ").hex(unusedAlignedChunks.get()).string("  list bytes ").signed(bytesInUnusedAlignedChunks.get()).newline();
-
-        HeapChunk.setNext(chunk, unusedAlignedChunks.get());
-        unusedAlignedChunks.set(chunk);
-        bytesInUnusedAlignedChunks.addAndGet(HeapPolicy.getAlignedHeapChunkSize());
-
-        log().string("  new list top: ").hex(unusedAlignedChunks.get()).string("  list bytes ").signed(bytesInUnusedAlignedChunks.get()).newline();
+        boolean numaAware = isNumaAware();
+        /* The memory of a chunk stays on the node on which it was first touched. */
+        int node = numaAware ? NumaNodeProvider.singleton().getNode(chunk) : 0;
+        int stripes = getAlignedChunkStripes(numaAware);
+        nextPushStripe = (nextPushStripe + 1) % stripes;
+        int list = getFirstAlignedChunkList(numaAware, node) + nextPushStripe;
+        log().string("  old list top: ").hex(unusedAlignedChunks.getHead(list)).string("  list bytes ").signed(getBytesInUnusedAlignedChunks()).newline();
+
+        HeapChunk.setNext(chunk, unusedAlignedChunks.getHead(list));
+        unusedAlignedChunks.setHead(list, chunk);
+        pushedAlignedChunks++;
+
+        log().string("  new list top: ").hex(unusedAlignedChunks.getHead(list)).string("  list bytes ").signed(getBytesInUnusedAlignedChunks()).newline();
     }
 
     /**
-     * Pop a chunk from the global linked list of unused chunks. Returns {@code null} if the list is
-     * empty.
+     * Pop a chunk from the global linked lists of unused chunks. Returns {@code null} if the lists
+     * are empty.
      * <p>
      * This method uses compareAndSet to protect itself from races with competing pop operations,
      * but it is <em>not</em> safe with respect to competing pushes. Since pushes can happen during
      * garbage collections, I avoid the ABA problem by making the kernel of this method
      * uninterruptible so it can not be interrupted by a safepoint.
+     *
+     * The stripes of the current thread's NUMA node are tried first, starting with the stripe of
+     * the current thread. The stripes of other nodes are only used when they are all empty.
      */
     private AlignedHeader popUnusedAlignedChunk() {
-        log().string("  old list top: ").hex(unusedAlignedChunks.get()).string("  list bytes ").signed(bytesInUnusedAlignedChunks.get()).newline();
-
-        AlignedHeader result = popUnusedAlignedChunkUninterruptibly();
-        if (result.isNull()) {
+        if (pushedAlignedChunks == 0) {
+            /* Nothing was ever reserved, avoid scanning all the empty lists. */
             return WordFactory.nullPointer();
-        } else {
-            bytesInUnusedAlignedChunks.subtractAndGet(HeapPolicy.getAlignedHeapChunkSize());
-            log().string("  new list top: ").hex(unusedAlignedChunks.get()).string("  list bytes ").signed(bytesInUnusedAlignedChunks.get()).newline();
-            return result;
         }
+        boolean numaAware = isNumaAware();
+        int stripes = getAlignedChunkStripes(numaAware);
+        int first = getFirstAlignedChunkList(numaAware, numaAware ? NumaNodeProvider.singleton().getCurrentNode() : 0);
+        int stripe = getCurrentThreadStripe(stripes);
+        for (int i = 0; i < stripes; i++) {
+            AlignedHeader result = popUnusedAlignedChunk(first + (stripe + i) % stripes);
+            if (result.isNonNull()) {
+                return result;
+            }
+        }
+        if (numaAware) {
+            for (int i = 0; i < ALIGNED_CHUNK_LIST_COUNT; i++) {
+                if (i < first || i >= first + stripes) {
+                    AlignedHeader result = popUnusedAlignedChunk(i);
+                    if (result.isNonNull()) {
+                        return result;
+                    }
+                }
+            }
+        }
+        return WordFactory.nullPointer();
+    }
+
+    private AlignedHeader popUnusedAlignedChunk(int list) {
+        AlignedHeader result = popUnusedAlignedChunkUninterruptibly(unusedAlignedChunks, list);
+        if (result.isNonNull()) {
+            unusedAlignedChunks.incrementPopped(list);
+            log().string("  popped from list ").signed(list).string("  list bytes ").signed(getBytesInUnusedAlignedChunks()).newline();
+        }
+        return result;
     }
 
     @Uninterruptible(reason = "Must not be interrupted by competing pushes.")
-    private AlignedHeader popUnusedAlignedChunkUninterruptibly() {
+    private static AlignedHeader popUnusedAlignedChunkUninterruptibly(AlignedChunkStripes lists, int list) {
         while (true) {
-            AlignedHeader result = unusedAlignedChunks.get();
+            AlignedHeader result = lists.getHead(list);
             if (result.isNull()) {
                 return WordFactory.nullPointer();
             } else {
                 AlignedHeader next = HeapChunk.getNext(result);
-                if (unusedAlignedChunks.compareAndSet(result, next)) {
+                if (lists.compareAndSetHead(list, result, next)) {
                     HeapChunk.setNext(result, WordFactory.nullPointer());
                     return result;
                 }
@@ -221,18 +380,73 @@ final class HeapChunkProvider {
         }
     }
 
-    /** Acquire an UnalignedHeapChunk from the operating system. */
+    @Uninterruptible(reason = "Must not be interrupted by competing pushes.")
+    private static <T extends Header<T>> T popUnusedChunkUninterruptibly(AtomicPointer<T> list) {
+        while (true) {
+            T result = list.get();
+            if (result.isNull()) {
+                return WordFactory.nullPointer();
+            } else {
+                T next = HeapChunk.getNext(result);
+                if (list.compareAndSet(result, next)) {
+                    HeapChunk.setNext(result, WordFactory.nullPointer());
+                    return result;
+                }
+            }
+        }
+    }
+
+    /**
+     * Push an unaligned chunk to the list of unused chunks of its size class. The same
+     * restrictions as for {@link #pushUnusedAlignedChunk} apply.
+     */
+    private void pushUnusedUnalignedChunk(UnalignedHeader chunk, int sizeClass) {
+        if (SubstrateOptions.MultiThreaded.getValue()) {
+            VMThreads.guaranteeOwnsThreadMutex("Should hold the lock when pushing to the global list.");
+        }
+        AtomicPointer<UnalignedHeader> list = unusedUnalignedChunks[sizeClass];
+        HeapChunk.setNext(chunk, list.get());
+        list.set(chunk);
+        bytesInUnusedUnalignedChunks.addAndGet(unalignedChunkSize(chunk));
+    }
+
+    private UnalignedHeader popUnusedUnalignedChunk(int sizeClass) {
+        UnalignedHeader result = popUnusedChunkUninterruptibly(unusedUnalignedChunks[sizeClass]);
+        if (result.isNonNull()) {
+            bytesInUnusedUnalignedChunks.subtractAndGet(unalignedChunkSize(result));
+        }
+        return result;
+    }
+
+    /**
+     * Acquire an UnalignedHeapChunk, either from the unused chunks of its size class or from the
+     * operating system.
+     */
     UnalignedHeader produceUnalignedChunk(UnsignedWord objectSize) {
         UnsignedWord chunkSize = UnalignedHeapChunk.getChunkSizeForObject(objectSize);
+        int sizeClass = isUnalignedChunkPoolEnabled() ? getSizeClass(chunkSize) : -1;
+        if (sizeClass >= 0) {
+            chunkSize = getSizeClassChunkSize(sizeClass);
+        }
         log().string("[HeapChunkProvider.produceUnalignedChunk  objectSize: ").unsigned(objectSize).string("  chunkSize: ").hex(chunkSize).newline();
 
-        noteFirstAllocationTime();
-        UnalignedHeader result = (UnalignedHeader) CommittedMemoryProvider.get().allocate(chunkSize, CommittedMemoryProvider.UNALIGNED, false);
-        if (result.isNull()) {
-            throw UNALIGNED_OUT_OF_MEMORY_ERROR;
+        unalignedChunkRequests.incrementAndGet();
+        UnalignedHeader result = WordFactory.nullPointer();
+        if (sizeClass >= 0) {
+            result = popUnusedUnalignedChunk(sizeClass);
+            log().string("  unused chunk: ").hex(result).newline();
         }
 
-        UnalignedHeapChunk.initialize(result, chunkSize);
+        if (result.isNonNull()) {
+            unalignedChunkPoolHits.incrementAndGet();
+        } else {
+            noteFirstAllocationTime();
+            result = (UnalignedHeader) CommittedMemoryProvider.get().allocate(chunkSize, CommittedMemoryProvider.UNALIGNED, false);
+            if (result.isNull()) {
+                throw UNALIGNED_OUT_OF_MEMORY_ERROR;
+            }
+            UnalignedHeapChunk.initialize(result, chunkSize);
+        }
         assert objectSize.belowOrEqual(HeapChunk.availableObjectMemory(result)) : "UnalignedHeapChunk insufficient for requested object";
 
         if (HeapPolicy.getZapProducedHeapChunks()) {
@@ -246,11 +460,30 @@ final class HeapChunkProvider {
     }
 
     /**
-     * Releases a list of UnalignedHeapChunks back to the operating system. They are never recycled
-     * to a free list.
+     * Releases a list of UnalignedHeapChunks, either to the unused chunks of their size class or
+     * back to the operating system. This method may only be called after the chunks were already
+     * removed from the spaces.
      */
-    static void consumeUnalignedChunks(UnalignedHeader firstChunk) {
-        freeUnalignedChunkList(firstChunk);
+    void consumeUnalignedChunks(UnalignedHeader firstChunk) {
+        assert HeapChunk.getPrevious(firstChunk).isNull() : "prev must be null";
+        if (!isUnalignedChunkPoolEnabled()) {
+            freeUnalignedChunkList(firstChunk);
+            return;
+        }
+
+        UnsignedWord poolSize = WordFactory.unsigned(HeapPolicyOptions.UnalignedChunkPoolSize.getValue());
+        for (UnalignedHeader cur = firstChunk; cur.isNonNull();) {
+            UnalignedHeader next = HeapChunk.getNext(cur);
+            UnsignedWord chunkSize = unalignedChunkSize(cur);
+            int sizeClass = getSizeClass(chunkSize);
+            if (sizeClass >= 0 && chunkSize.equal(getSizeClassChunkSize(sizeClass)) && bytesInUnusedUnalignedChunks.get().add(chunkSize).belowOrEqual(poolSize)) {
+                cleanUnalignedChunk(cur);
+                pushUnusedUnalignedChunk(cur, sizeClass);
+            } else {
+                freeUnalignedChunk(cur);
+            }
+            cur = next;
+        }
     }
 
     private static void zap(Header<?> chunk, WordBase value) {
@@ -264,31 +497,70 @@ final class HeapChunkProvider {
 
     Log report(Log log, boolean traceHeapChunks) {
         log.string("[Unused:").indent(true);
-        log.string("aligned: ").signed(bytesInUnusedAlignedChunks.get())
+        log.string("aligned: ").signed(getBytesInUnusedAlignedChunks())
                         .string("/")
-                        .signed(bytesInUnusedAlignedChunks.get().unsignedDivide(HeapPolicy.getAlignedHeapChunkSize()));
+                        .signed(getBytesInUnusedAlignedChunks().unsignedDivide(HeapPolicy.getAlignedHeapChunkSize()));
+        log.newline().string("unaligned: ").signed(bytesInUnusedUnalignedChunks.get());
         if (traceHeapChunks) {
-            if (unusedAlignedChunks.get().isNonNull()) {
-                log.newline().string("aligned chunks:").redent(true);
-                for (AlignedHeapChunk.AlignedHeader aChunk = unusedAlignedChunks.get(); aChunk.isNonNull(); aChunk = HeapChunk.getNext(aChunk)) {
-                    log.newline().hex(aChunk).string(" (").hex(AlignedHeapChunk.getObjectsStart(aChunk)).string("-").hex(HeapChunk.getTopPointer(aChunk)).string(")");
+            for (int i = 0; i < ALIGNED_CHUNK_LIST_COUNT; i++) {
+                if (unusedAlignedChunks.getHead(i).isNonNull()) {
+                    log.newline().string("aligned chunks of list ").signed(i).string(":").redent(true);
+                    for (AlignedHeapChunk.AlignedHeader aChunk = unusedAlignedChunks.getHead(i); aChunk.isNonNull(); aChunk = HeapChunk.getNext(aChunk)) {
+                        log.newline().hex(aChunk).string(" (").hex(AlignedHeapChunk.getObjectsStart(aChunk)).string("-").hex(HeapChunk.getTopPointer(aChunk)).string(")");
+                    }
+                    log.redent(false);
+                }
+            }
+            for (int i = 0; i < unusedUnalignedChunks.length; i++) {
+                if (unusedUnalignedChunks[i].get().isNonNull()) {
+                    log.newline().string("unaligned chunks of size ").unsigned(getSizeClassChunkSize(i)).string(":").redent(true);
+                    for (UnalignedHeader uChunk = unusedUnalignedChunks[i].get(); uChunk.isNonNull(); uChunk = HeapChunk.getNext(uChunk)) {
+                        log.newline().hex(uChunk);
+                    }
+                    log.redent(false);
                 }
-                log.redent(false);
             }
         }
         log.redent(false).string("]");
         return log;
     }
 
+    void printSummary(Log log, String prefix) {
+        long alignedChunkPoolHits = getPoppedAlignedChunks();
+        log.string(prefix).string("AlignedChunkRequests: ").signed(alignedChunkPoolHits + alignedChunkPoolMisses.get()).newline();
+        log.string(prefix).string("AlignedChunkPoolHits: ").signed(alignedChunkPoolHits).newline();
+        log.string(prefix).string("UnusedAlignedChunkBytes: ").signed(getBytesInUnusedAlignedChunks()).newline();
+        log.string(prefix).string("UnalignedChunkRequests: ").signed(unalignedChunkRequests.get()).newline();
+        log.string(prefix).string("UnalignedChunkPoolHits: ").signed(unalignedChunkPoolHits.get()).newline();
+        log.string(prefix).string("UnusedUnalignedChunkBytes: ").signed(bytesInUnusedUnalignedChunks.get()).newline();
+        log.string(prefix).string("ChunkPoolHitPercent: ").signed(getChunkPoolHitPercent()).newline();
+    }
+
     boolean walkHeapChunks(MemoryWalker.Visitor visitor) {
         boolean continueVisiting = true;
         MemoryWalker.HeapChunkAccess<AlignedHeapChunk.AlignedHeader> access = AlignedHeapChunk.getMemoryWalkerAccess();
-        for (AlignedHeapChunk.AlignedHeader aChunk = unusedAlignedChunks.get(); continueVisiting && aChunk.isNonNull(); aChunk = HeapChunk.getNext(aChunk)) {
-            continueVisiting = visitor.visitHeapChunk(aChunk, access);
+        for (int i = 0; continueVisiting && i < ALIGNED_CHUNK_LIST_COUNT; i++) {
+            for (AlignedHeapChunk.AlignedHeader aChunk = unusedAlignedChunks.getHead(i); continueVisiting && aChunk.isNonNull(); aChunk = HeapChunk.getNext(aChunk)) {
+                continueVisiting = visitor.visitHeapChunk(aChunk, access);
+            }
+        }
+        MemoryWalker.HeapChunkAccess<UnalignedHeapChunk.UnalignedHeader> unalignedAccess = UnalignedHeapChunk.getMemoryWalkerAccess();
+        for (int i = 0; continueVisiting && i < unusedUnalignedChunks.length; i++) {
+            for (UnalignedHeader uChunk = unusedUnalignedChunks[i].get(); continueVisiting && uChunk.isNonNull(); uChunk = HeapChunk.getNext(uChunk)) {
+                continueVisiting = visitor.visitHeapChunk(uChunk, unalignedAccess);
+            }
         }
         return continueVisiting;
     }
 
+    /** The number of chunk requests that were satisfied with unused chunks, in percent. */
+    private long getChunkPoolHitPercent() {
+        long alignedChunkPoolHits = getPoppedAlignedChunks();
+        long requests = alignedChunkPoolHits + alignedChunkPoolMisses.get() + unalignedChunkRequests.get();
+        long hits = alignedChunkPoolHits + unalignedChunkPoolHits.get();
+        return requests == 0 ? 0 : TimeUtils.roundedDivide(100 * hits, requests);
+    }
+
     private void noteFirstAllocationTime() {
         if (firstAllocationTime == 0L) {
             firstAllocationTime = System.nanoTime();
@@ -301,7 +573,12 @@ final class HeapChunkProvider {
 
     @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
     void tearDown() {
-        freeAlignedChunkList(unusedAlignedChunks.get());
+        for (int i = 0; i < ALIGNED_CHUNK_LIST_COUNT; i++) {
+            freeAlignedChunkList(unusedAlignedChunks.getHead(i));
+        }
+        for (int i = 0; i < unusedUnalignedChunks.length; i++) {
+            freeUnalignedChunkList(unusedUnalignedChunks[i].get());
+        }
     }
 
     @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
@@ -336,4 +613,57 @@ final class HeapChunkProvider {
     private static UnsignedWord unalignedChunkSize(UnalignedHeader chunk) {
         return HeapChunk.getEndOffset(chunk);
     }
+
+    /**
+     * The heads and pop counters of the unused aligned chunk lists. Separate atomic objects would
+     * be packed next to each other in the image heap, so that several stripes would share a cache
+     * line. Instead, the values are stored in a single array with a stride of two cache lines per
+     * stripe: the array itself is not cache line aligned, but the used slots of two stripes are
+     * always more than a cache line apart. Like
+     * {@link com.oracle.svm.core.threadlocal.FastThreadLocal#FIRST_CACHE_LINE}, we assume the
+     * common cache line size of 64 bytes.
+     */
+    private static final class AlignedChunkStripes {
+        private static final Unsafe UNSAFE = GraalUnsafeAccess.getUnsafe();
+        private static final int CACHE_LINE_SIZE = 64;
+        private static final int STRIDE = 2 * CACHE_LINE_SIZE / Long.BYTES;
+        private static final int HEAD = 0;
+        private static final int POPPED = 1;
+
+        private final long[] values;
+
+        @Platforms(Platform.HOSTED_ONLY.class)
+        AlignedChunkStripes(int stripes) {
+            values = new long[stripes * STRIDE];
+        }
+
+        @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+        private static long offset(int stripe, int slot) {
+            return ConfigurationValues.getObjectLayout().getArrayElementOffset(JavaKind.Long, stripe * STRIDE + slot);
+        }
+
+        @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+        AlignedHeader getHead(int stripe) {
+            return WordFactory.pointer(UNSAFE.getLongVolatile(values, offset(stripe, HEAD)));
+        }
+
+        @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+        void setHead(int stripe, AlignedHeader head) {
+            UNSAFE.putLongVolatile(values, offset(stripe, HEAD), head.rawValue());
+        }
+
+        @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+        boolean compareAndSetHead(int stripe, AlignedHeader expected, AlignedHeader head) {
+            return UNSAFE.compareAndSwapLong(values, offset(stripe, HEAD), expected.rawValue(), head.rawValue());
+        }
+
+        @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+        long getPopped(int stripe) {
+            return UNSAFE.getLongVolatile(values, offset(stripe, POPPED));
+        }
+
+        void incrementPopped(int stripe) {
+            UNSAFE.getAndAddLong(values, offset(stripe, POPPED), 1);
+        }
+    }
 }
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.genscavenge;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.graalvm.nativeimage.ImageSingletons;
+import org.graalvm.nativeimage.Platform;
+import org.graalvm.nativeimage.Platforms;
+import org.graalvm.nativeimage.hosted.Feature;
+import org.graalvm.nativeimage.impl.HeapDumpSupport;
+
+import com.oracle.svm.core.SubstrateOptions;
+import com.oracle.svm.core.VMInspection;
+import com.oracle.svm.core.annotate.AutomaticFeature;
+import com.oracle.svm.core.os.RawFileOperationSupport;
+import com.oracle.svm.core.os.RawFileOperationSupport.FileAccessMode;
+import com.oracle.svm.core.os.RawFileOperationSupport.RawFileDescriptor;
+import com.oracle.svm.core.thread.JavaVMOperation;
+
+/**
+ * Writes heap dumps with the {@link HeapDumpWriter}. The application is only stopped for the
+ * snapshot of the heap layout, not while the objects are written.
+ */
+final class HeapDumpSupportImpl implements HeapDumpSupport {
+    /** Collections are deferred while a heap dump is written, so only one can run at a time. */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    @Platforms(Platform.HOSTED_ONLY.class)
+    HeapDumpSupportImpl() {
+    }
+
+    @Override
+    public void dumpHeap(String outputFile, boolean live) throws IOException {
+        if (new File(outputFile).exists()) {
+            throw new IOException("File exists: " + outputFile);
+        }
+
+        lock.lock();
+        try {
+            if (live) {
+                HeapImpl.getHeapImpl().getGC().collectCompletely(GenScavengeGCCause.HeapDump);
+            }
+
+            RawFileOperationSupport file = RawFileOperationSupport.bigEndian();
+            RawFileDescriptor fd = file.open(outputFile, FileAccessMode.WRITE);
+            if (!file.isValid(fd)) {
+                throw new IOException("Could not open file for writing: " + outputFile);
+            }
+            HeapDumpWriter writer = new HeapDumpWriter(fd);
+            try {
+                JavaVMOperation.enqueueBlockingSafepoint("HeapDumpSnapshot", writer::snapshot);
+                try {
+                    writer.write();
+                } finally {
+                    writer.release();
+                    HeapImpl.getHeapImpl().getGCImpl().resumeCollections(GenScavengeGCCause.HeapDump);
+                }
+            } finally {
+                file.close(fd);
+            }
+            if (!writer.hasSucceeded()) {
+                throw new IOException("Could not write heap dump: " + outputFile);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
+
+@AutomaticFeature
+class HeapDumpFeature implements Feature {
+    @Override
+    public boolean isInConfiguration(IsInConfigurationAccess access) {
+        return SubstrateOptions.UseSerialGC.getValue() && VMInspection.isHeapDumpSupported();
+    }
+
+    @Override
+    public void afterRegistration(AfterRegistrationAccess access) {
+        ImageSingletons.add(HeapDumpSupport.class, new HeapDumpSupportImpl());
+    }
+}
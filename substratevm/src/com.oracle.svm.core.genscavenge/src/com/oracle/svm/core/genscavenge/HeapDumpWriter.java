@@ -0,0 +1,741 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.genscavenge;
+
+import org.graalvm.compiler.nodes.java.ArrayLengthNode;
+import org.graalvm.compiler.word.ObjectAccess;
+import org.graalvm.compiler.word.Word;
+import org.graalvm.nativeimage.CurrentIsolate;
+import org.graalvm.nativeimage.ImageSingletons;
+import org.graalvm.nativeimage.IsolateThread;
+import org.graalvm.nativeimage.c.function.CodePointer;
+import org.graalvm.nativeimage.impl.UnmanagedMemorySupport;
+import org.graalvm.word.Pointer;
+import org.graalvm.word.UnsignedWord;
+import org.graalvm.word.WordFactory;
+
+import com.oracle.svm.core.StaticFieldsSupport;
+import com.oracle.svm.core.UnmanagedMemoryUtil;
+import com.oracle.svm.core.c.NonmovableArrays;
+import com.oracle.svm.core.code.CodeInfo;
+import com.oracle.svm.core.code.CodeInfoTable;
+import com.oracle.svm.core.code.ReusableTypeReader;
+import com.oracle.svm.core.deopt.DeoptimizedFrame;
+import com.oracle.svm.core.heap.HeapDumpMetadata;
+import com.oracle.svm.core.heap.InstanceReferenceMapDecoder;
+import com.oracle.svm.core.heap.ObjectHeader;
+import com.oracle.svm.core.heap.ObjectReferenceVisitor;
+import com.oracle.svm.core.heap.ObjectVisitor;
+import com.oracle.svm.core.heap.ReferenceAccess;
+import com.oracle.svm.core.hub.DynamicHub;
+import com.oracle.svm.core.hub.LayoutEncoding;
+import com.oracle.svm.core.jdk.UninterruptibleUtils;
+import com.oracle.svm.core.os.RawFileOperationSupport;
+import com.oracle.svm.core.os.RawFileOperationSupport.RawFileDescriptor;
+import com.oracle.svm.core.stack.JavaStackWalker;
+import com.oracle.svm.core.stack.StackFrameVisitor;
+import com.oracle.svm.core.thread.JavaThreads;
+import com.oracle.svm.core.thread.VMOperation;
+import com.oracle.svm.core.thread.VMThreads;
+import com.oracle.svm.core.threadlocal.VMThreadLocalMTSupport;
+import com.oracle.svm.core.util.UnsignedUtils;
+
+/**
+ * Writes a heap dump in the HPROF format without stopping the application for the whole duration
+ * of the dump.
+ *
+ * Only {@link #snapshot()} runs in a safepoint. It retires all TLABs, records the allocated range
+ * of every heap chunk as well as the roots on the thread stacks and in the thread locals, and
+ * {@linkplain GCImpl#deferCollections() defers} collections. Afterwards, {@link #write()} streams
+ * the image heap and the recorded chunk ranges to the file while the application continues to
+ * run. Because no collection can move or free objects in the meantime, the recorded ranges remain
+ * parseable. Objects allocated after the snapshot are not part of the dump, and references to them
+ * are written as null. Field values are read while the application modifies them, so the dump is
+ * not an atomic snapshot of the object graph.
+ */
+final class HeapDumpWriter {
+    private static final byte[] HPROF_HEADER = {'J', 'A', 'V', 'A', ' ', 'P', 'R', 'O', 'F', 'I', 'L', 'E', ' ', '1', '.', '0', '.', '2', 0};
+
+    /* Record tags. */
+    private static final int HPROF_UTF8 = 0x01;
+    private static final int HPROF_LOAD_CLASS = 0x02;
+    private static final int HPROF_TRACE = 0x05;
+    private static final int HPROF_HEAP_DUMP_SEGMENT = 0x1C;
+    private static final int HPROF_HEAP_DUMP_END = 0x2C;
+
+    /* Sub-record tags within heap dump segments. */
+    private static final int HPROF_GC_ROOT_UNKNOWN = 0xFF;
+    private static final int HPROF_GC_ROOT_JAVA_FRAME = 0x03;
+    private static final int HPROF_GC_ROOT_STICKY_CLASS = 0x05;
+    private static final int HPROF_GC_ROOT_THREAD_BLOCK = 0x06;
+    private static final int HPROF_GC_ROOT_THREAD_OBJ = 0x08;
+    private static final int HPROF_GC_CLASS_DUMP = 0x20;
+    private static final int HPROF_GC_INSTANCE_DUMP = 0x21;
+    private static final int HPROF_GC_OBJ_ARRAY_DUMP = 0x22;
+    private static final int HPROF_GC_PRIM_ARRAY_DUMP = 0x23;
+
+    /** All objects refer to a single empty stack trace. */
+    private static final int STACK_TRACE_SERIAL = 1;
+
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    /** Segments are split well before their u4 length field can overflow. */
+    private static final long MAX_SEGMENT_SIZE = 1L << 30;
+    /** Larger arrays are truncated so that a single sub-record cannot overflow a segment. */
+    private static final long MAX_ARRAY_BYTES = 1L << 31;
+
+    /* Each chunk range consists of the start and the end address. */
+    private static final int CHUNK_RANGE_SIZE = 2 * Long.BYTES;
+    /* Each root consists of the sub-record tag, the object, the thread serial, and the frame. */
+    private static final int ROOT_SIZE = 4 * Long.BYTES;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final RawFileDescriptor fd;
+    private final HeapDumpMetadata metadata = HeapDumpMetadata.singleton();
+    private final ReusableTypeReader reader = new ReusableTypeReader();
+    private final StackRootsVisitor stackRootsVisitor = new StackRootsVisitor();
+    private final RootReferenceVisitor rootReferenceVisitor = new RootReferenceVisitor();
+    private final LoadClassVisitor loadClassVisitor = new LoadClassVisitor();
+    private final ImageHeapObjectVisitor imageHeapObjectVisitor = new ImageHeapObjectVisitor();
+
+    private Pointer buffer;
+    private int bufferPosition;
+    private long flushedBytes;
+    private long segmentLengthPosition;
+    private boolean failed;
+
+    private Pointer chunkRanges;
+    private int chunkRangeCount;
+    private int chunkRangeCapacity;
+
+    private Pointer roots;
+    private int rootCount;
+    private int rootCapacity;
+
+    private int loadClassSerial;
+
+    HeapDumpWriter(RawFileDescriptor fd) {
+        this.fd = fd;
+    }
+
+    /** Returns false if the heap dump could not be written completely. */
+    boolean hasSucceeded() {
+        return !failed;
+    }
+
+    /** Records everything that must be captured while all other threads are stopped. */
+    void snapshot() {
+        VMOperation.guaranteeInProgressAtSafepoint("Heap dump snapshots must be taken at a safepoint");
+        ThreadLocalAllocation.disableAndFlushForAllThreads();
+
+        HeapImpl heap = HeapImpl.getHeapImpl();
+        heap.getGCImpl().deferCollections();
+
+        YoungGeneration youngGen = heap.getYoungGeneration();
+        addChunkRanges(youngGen.getEden());
+        for (int i = 0; i < youngGen.getMaxSurvivorSpaces(); i++) {
+            addChunkRanges(youngGen.getSurvivorFromSpaceAt(i));
+            addChunkRanges(youngGen.getSurvivorToSpaceAt(i));
+        }
+        addChunkRanges(heap.getOldGeneration().getFromSpace());
+        addChunkRanges(heap.getOldGeneration().getToSpace());
+        sortChunkRanges();
+
+        VMThreadLocalMTSupport threadLocals = ImageSingletons.lookup(VMThreadLocalMTSupport.class);
+        int threadSerial = 0;
+        for (IsolateThread vmThread = VMThreads.firstThread(); vmThread.isNonNull(); vmThread = VMThreads.nextThread(vmThread)) {
+            threadSerial++;
+            Thread thread = JavaThreads.fromVMThread(vmThread);
+            if (thread != null) {
+                addRoot(HPROF_GC_ROOT_THREAD_OBJ, thread, threadSerial, 0);
+            }
+
+            rootReferenceVisitor.initialize(HPROF_GC_ROOT_THREAD_BLOCK, threadSerial);
+            InstanceReferenceMapDecoder.walkOffsetsFromPointer((Pointer) vmThread, NonmovableArrays.fromImageHeap(threadLocals.vmThreadReferenceMapEncoding),
+                            threadLocals.vmThreadReferenceMapIndex, rootReferenceVisitor, null);
+
+            if (vmThread != CurrentIsolate.getCurrentThread()) {
+                /* The current thread writes the heap dump, so its stack is not of interest. */
+                rootReferenceVisitor.initialize(HPROF_GC_ROOT_JAVA_FRAME, threadSerial);
+                JavaStackWalker.walkThread(vmThread, stackRootsVisitor);
+            }
+        }
+    }
+
+    /** Writes the heap dump. Must be called after {@link #snapshot()}, outside of a safepoint. */
+    void write() {
+        buffer = ImageSingletons.lookup(UnmanagedMemorySupport.class).malloc(WordFactory.unsigned(BUFFER_SIZE));
+        if (buffer.isNull()) {
+            failed = true;
+            return;
+        }
+
+        for (int i = 0; i < HPROF_HEADER.length; i++) {
+            writeU1(HPROF_HEADER[i]);
+        }
+        writeU4(Long.BYTES);
+        writeU8(System.currentTimeMillis());
+
+        for (int i = 0; i < metadata.getFieldNameCount(); i++) {
+            String name = metadata.getFieldName(i);
+            writeUtf8(getId(name), name, false);
+        }
+
+        writeRecordHeader(HPROF_TRACE, 3 * Integer.BYTES);
+        writeU4(STACK_TRACE_SERIAL);
+        writeU4(0);
+        writeU4(0);
+
+        walkImageHeap(loadClassVisitor);
+
+        startSegment();
+        for (int i = 0; i < rootCount && !failed; i++) {
+            writeRoot(roots.add(i * ROOT_SIZE));
+        }
+        walkImageHeap(imageHeapObjectVisitor);
+        for (int i = 0; i < chunkRangeCount && !failed; i++) {
+            Pointer range = chunkRanges.add(i * CHUNK_RANGE_SIZE);
+            Pointer end = range.readWord(Long.BYTES);
+            Pointer p = range.readWord(0);
+            while (p.belowThan(end)) {
+                Object obj = p.toObject();
+                writeObject(obj);
+                p = p.add(LayoutEncoding.getSizeFromObject(obj));
+            }
+        }
+        endSegment();
+
+        writeRecordHeader(HPROF_HEAP_DUMP_END, 0);
+        flush();
+    }
+
+    /** Releases all native memory. Must be called after {@link #snapshot()}. */
+    void release() {
+        UnmanagedMemorySupport memory = ImageSingletons.lookup(UnmanagedMemorySupport.class);
+        memory.free(buffer);
+        memory.free(chunkRanges);
+        memory.free(roots);
+        buffer = WordFactory.nullPointer();
+        chunkRanges = WordFactory.nullPointer();
+        roots = WordFactory.nullPointer();
+    }
+
+    private static void walkImageHeap(ObjectVisitor visitor) {
+        ImageHeapWalker.walkImageHeapObjects(HeapImpl.getImageHeapInfo(), visitor);
+        if (AuxiliaryImageHeap.isPresent()) {
+            AuxiliaryImageHeap.singleton().walkObjects(visitor);
+        }
+    }
+
+    private void writeRoot(Pointer root) {
+        int tag = (int) root.readLong(0);
+        writeU1(tag);
+        writeU8(root.readLong(Long.BYTES));
+        if (tag == HPROF_GC_ROOT_THREAD_OBJ) {
+            writeU4((int) root.readLong(2 * Long.BYTES));
+            writeU4(STACK_TRACE_SERIAL);
+        } else if (tag == HPROF_GC_ROOT_JAVA_FRAME) {
+            writeU4((int) root.readLong(2 * Long.BYTES));
+            writeU4((int) root.readLong(3 * Long.BYTES));
+        } else {
+            assert tag == HPROF_GC_ROOT_THREAD_BLOCK;
+            writeU4((int) root.readLong(2 * Long.BYTES));
+        }
+    }
+
+    private void writeLoadClass(DynamicHub hub) {
+        long classId = getId(hub);
+        /* Class names are identified by the hub, field names by their string. */
+        writeUtf8(classId, hub.getName(), true);
+        writeRecordHeader(HPROF_LOAD_CLASS, 2 * Integer.BYTES + 2 * Long.BYTES);
+        writeU4(++loadClassSerial);
+        writeU8(classId);
+        writeU4(STACK_TRACE_SERIAL);
+        writeU8(classId);
+    }
+
+    private void writeObject(Object obj) {
+        DynamicHub hub = ObjectHeader.readDynamicHubFromObject(obj);
+        if (obj instanceof Class) {
+            writeClass(DynamicHub.fromClass((Class<?>) obj));
+        } else if (hub.isArray()) {
+            writeArray(obj, hub);
+        } else {
+            writeInstance(obj, hub);
+        }
+        if (getPosition() - segmentLengthPosition > MAX_SEGMENT_SIZE) {
+            endSegment();
+            startSegment();
+        }
+    }
+
+    private void writeClass(DynamicHub hub) {
+        writeU1(HPROF_GC_ROOT_STICKY_CLASS);
+        writeU8(getId(hub));
+
+        writeU1(HPROF_GC_CLASS_DUMP);
+        writeU8(getId(hub));
+        writeU4(STACK_TRACE_SERIAL);
+        writeObjectId(hub.getSuperHub());
+        /* Class loader, signers, protection domain, and two reserved fields. */
+        for (int i = 0; i < 5; i++) {
+            writeU8(0);
+        }
+        int layoutEncoding = hub.getLayoutEncoding();
+        writeU4(LayoutEncoding.isInstance(layoutEncoding) ? (int) LayoutEncoding.getInstanceSize(layoutEncoding).rawValue() : 0);
+        /* Constant pool size. */
+        writeU2(0);
+
+        if (!metadata.initReader(reader, hub)) {
+            writeU2(0);
+            writeU2(0);
+            return;
+        }
+        reader.getUV(); // instance field bytes
+        int instanceFieldCount = reader.getUVInt();
+        long instanceFieldsIndex = reader.getByteIndex();
+        skipFields(instanceFieldCount);
+
+        int staticFieldCount = reader.getUVInt();
+        writeU2(staticFieldCount);
+        for (int i = 0; i < staticFieldCount; i++) {
+            writeU8(getId(metadata.getFieldName(reader.getUVInt())));
+            int type = reader.getU1();
+            int offset = reader.getUVInt();
+            writeU1(type);
+            if (type == HeapDumpMetadata.TYPE_OBJECT) {
+                writeValue(StaticFieldsSupport.getStaticObjectFields(), type, offset);
+            } else {
+                writeValue(StaticFieldsSupport.getStaticPrimitiveFields(), type, offset);
+            }
+        }
+
+        reader.setByteIndex(instanceFieldsIndex);
+        writeU2(instanceFieldCount);
+        for (int i = 0; i < instanceFieldCount; i++) {
+            writeU8(getId(metadata.getFieldName(reader.getUVInt())));
+            writeU1(reader.getU1());
+            reader.getUV(); // offset
+        }
+    }
+
+    private void skipFields(int count) {
+        for (int i = 0; i < count; i++) {
+            reader.getUV();
+            reader.getU1();
+            reader.getUV();
+        }
+    }
+
+    private void writeInstance(Object obj, DynamicHub hub) {
+        int fieldBytes = 0;
+        for (DynamicHub cur = hub; cur != null; cur = cur.getSuperHub()) {
+            if (metadata.initReader(reader, cur)) {
+                fieldBytes += reader.getUVInt();
+            }
+        }
+
+        writeU1(HPROF_GC_INSTANCE_DUMP);
+        writeU8(getId(obj));
+        writeU4(STACK_TRACE_SERIAL);
+        writeU8(getId(hub));
+        writeU4(fieldBytes);
+        for (DynamicHub cur = hub; cur != null; cur = cur.getSuperHub()) {
+            if (metadata.initReader(reader, cur)) {
+                reader.getUV(); // instance field bytes
+                int count = reader.getUVInt();
+                for (int i = 0; i < count; i++) {
+                    reader.getUV(); // name
+                    int type = reader.getU1();
+                    writeValue(obj, type, reader.getUVInt());
+                }
+            }
+        }
+    }
+
+    private void writeArray(Object array, DynamicHub hub) {
+        int layoutEncoding = hub.getLayoutEncoding();
+        int elementSize = LayoutEncoding.getArrayIndexScale(layoutEncoding);
+        int length = (int) Math.min(ArrayLengthNode.arrayLength(array), MAX_ARRAY_BYTES / elementSize);
+        boolean isObjectArray = LayoutEncoding.isObjectArray(layoutEncoding);
+
+        writeU1(isObjectArray ? HPROF_GC_OBJ_ARRAY_DUMP : HPROF_GC_PRIM_ARRAY_DUMP);
+        writeU8(getId(array));
+        writeU4(STACK_TRACE_SERIAL);
+        writeU4(length);
+        if (isObjectArray) {
+            writeU8(getId(hub));
+            for (int i = 0; i < length; i++) {
+                writeObjectId(ObjectAccess.readObject(array, getElementOffset(layoutEncoding, i)));
+            }
+            return;
+        }
+
+        int type = getPrimitiveArrayType(hub.getComponentHub());
+        writeU1(type);
+        if (elementSize == 1) {
+            /* Byte-sized elements do not need to be converted to big endian. */
+            Pointer data = Word.objectToUntrackedPointer(array).add(LayoutEncoding.getArrayBaseOffset(layoutEncoding));
+            UnsignedWord remaining = WordFactory.unsigned(length);
+            while (remaining.aboveThan(0)) {
+                if (bufferPosition == BUFFER_SIZE) {
+                    flush();
+                }
+                UnsignedWord size = UnsignedUtils.min(remaining, WordFactory.unsigned(BUFFER_SIZE - bufferPosition));
+                UnmanagedMemoryUtil.copy(data, buffer.add(bufferPosition), size);
+                bufferPosition += (int) size.rawValue();
+                data = data.add(size);
+                remaining = remaining.subtract(size);
+            }
+        } else {
+            for (int i = 0; i < length; i++) {
+                writeValue(array, type, getElementOffset(layoutEncoding, i));
+            }
+        }
+    }
+
+    private static int getElementOffset(int layoutEncoding, int index) {
+        return (int) LayoutEncoding.getArrayElementOffset(layoutEncoding, index).rawValue();
+    }
+
+    private static int getPrimitiveArrayType(DynamicHub componentHub) {
+        Class<?> componentType = DynamicHub.toClass(componentHub);
+        if (componentType == boolean.class) {
+            return HeapDumpMetadata.TYPE_BOOLEAN;
+        } else if (componentType == byte.class) {
+            return HeapDumpMetadata.TYPE_BYTE;
+        } else if (componentType == char.class) {
+            return HeapDumpMetadata.TYPE_CHAR;
+        } else if (componentType == short.class) {
+            return HeapDumpMetadata.TYPE_SHORT;
+        } else if (componentType == int.class) {
+            return HeapDumpMetadata.TYPE_INT;
+        } else if (componentType == float.class) {
+            return HeapDumpMetadata.TYPE_FLOAT;
+        } else if (componentType == long.class) {
+            return HeapDumpMetadata.TYPE_LONG;
+        } else {
+            assert componentType == double.class;
+            return HeapDumpMetadata.TYPE_DOUBLE;
+        }
+    }
+
+    private void writeValue(Object obj, int type, int offset) {
+        switch (type) {
+            case HeapDumpMetadata.TYPE_OBJECT:
+                writeObjectId(ObjectAccess.readObject(obj, offset));
+                break;
+            case HeapDumpMetadata.TYPE_BOOLEAN:
+            case HeapDumpMetadata.TYPE_BYTE:
+                writeU1(ObjectAccess.readByte(obj, offset));
+                break;
+            case HeapDumpMetadata.TYPE_CHAR:
+            case HeapDumpMetadata.TYPE_SHORT:
+                writeU2(ObjectAccess.readShort(obj, offset));
+                break;
+            case HeapDumpMetadata.TYPE_FLOAT:
+            case HeapDumpMetadata.TYPE_INT:
+                writeU4(ObjectAccess.readInt(obj, offset));
+                break;
+            default:
+                assert type == HeapDumpMetadata.TYPE_LONG || type == HeapDumpMetadata.TYPE_DOUBLE;
+                writeU8(ObjectAccess.readLong(obj, offset));
+        }
+    }
+
+    /** Writes the id of an object, or null if the object is not part of the heap dump. */
+    private void writeObjectId(Object obj) {
+        Pointer p = Word.objectToUntrackedPointer(obj);
+        writeU8(isInSnapshot(p) ? p.rawValue() : 0);
+    }
+
+    private boolean isInSnapshot(Pointer p) {
+        if (p.isNull() || HeapImpl.getHeapImpl().isInImageHeap(p)) {
+            return true;
+        }
+        int low = 0;
+        int high = chunkRangeCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            Pointer range = chunkRanges.add(mid * CHUNK_RANGE_SIZE);
+            if (p.belowThan(range.readWord(0))) {
+                high = mid - 1;
+            } else if (p.aboveOrEqual(range.readWord(Long.BYTES))) {
+                low = mid + 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long getId(Object obj) {
+        return Word.objectToUntrackedPointer(obj).rawValue();
+    }
+
+    private void addChunkRanges(Space space) {
+        for (AlignedHeapChunk.AlignedHeader chunk = space.getFirstAlignedHeapChunk(); chunk.isNonNull(); chunk = HeapChunk.getNext(chunk)) {
+            addChunkRange(AlignedHeapChunk.getObjectsStart(chunk), HeapChunk.getTopPointer(chunk));
+        }
+        for (UnalignedHeapChunk.UnalignedHeader chunk = space.getFirstUnalignedHeapChunk(); chunk.isNonNull(); chunk = HeapChunk.getNext(chunk)) {
+            addChunkRange(UnalignedHeapChunk.getObjectStart(chunk), HeapChunk.getTopPointer(chunk));
+        }
+    }
+
+    private void addChunkRange(Pointer start, Pointer end) {
+        if (chunkRangeCount == chunkRangeCapacity) {
+            chunkRangeCapacity = Math.max(INITIAL_CAPACITY, chunkRangeCapacity * 2);
+            chunkRanges = grow(chunkRanges, chunkRangeCapacity * CHUNK_RANGE_SIZE);
+            if (chunkRanges.isNull()) {
+                chunkRangeCount = 0;
+                chunkRangeCapacity = 0;
+                return;
+            }
+        }
+        Pointer range = chunkRanges.add(chunkRangeCount * CHUNK_RANGE_SIZE);
+        range.writeWord(0, start);
+        range.writeWord(Long.BYTES, end);
+        chunkRangeCount++;
+    }
+
+    /** Sorts the chunk ranges by address with a heap sort, which needs no additional memory. */
+    private void sortChunkRanges() {
+        for (int i = chunkRangeCount / 2 - 1; i >= 0; i--) {
+            siftDown(i, chunkRangeCount);
+        }
+        for (int end = chunkRangeCount - 1; end > 0; end--) {
+            swapChunkRanges(0, end);
+            siftDown(0, end);
+        }
+    }
+
+    private void siftDown(int start, int end) {
+        int root = start;
+        while (2 * root + 1 < end) {
+            int child = 2 * root + 1;
+            if (child + 1 < end && getChunkRangeStart(child).belowThan(getChunkRangeStart(child + 1))) {
+                child++;
+            }
+            if (getChunkRangeStart(root).aboveOrEqual(getChunkRangeStart(child))) {
+                return;
+            }
+            swapChunkRanges(root, child);
+            root = child;
+        }
+    }
+
+    private Pointer getChunkRangeStart(int index) {
+        return chunkRanges.readWord(index * CHUNK_RANGE_SIZE);
+    }
+
+    private void swapChunkRanges(int a, int b) {
+        Pointer rangeA = chunkRanges.add(a * CHUNK_RANGE_SIZE);
+        Pointer rangeB = chunkRanges.add(b * CHUNK_RANGE_SIZE);
+        for (int offset = 0; offset < CHUNK_RANGE_SIZE; offset += Long.BYTES) {
+            long tmp = rangeA.readLong(offset);
+            rangeA.writeLong(offset, rangeB.readLong(offset));
+            rangeB.writeLong(offset, tmp);
+        }
+    }
+
+    private void addRoot(int tag, Object obj, int threadSerial, int frameNumber) {
+        if (rootCount == rootCapacity) {
+            rootCapacity = Math.max(INITIAL_CAPACITY, rootCapacity * 2);
+            roots = grow(roots, rootCapacity * ROOT_SIZE);
+            if (roots.isNull()) {
+                rootCount = 0;
+                rootCapacity = 0;
+                return;
+            }
+        }
+        Pointer root = roots.add(rootCount * ROOT_SIZE);
+        root.writeLong(0, tag);
+        root.writeLong(Long.BYTES, getId(obj));
+        root.writeLong(2 * Long.BYTES, threadSerial);
+        root.writeLong(3 * Long.BYTES, frameNumber);
+        rootCount++;
+    }
+
+    /** Grows a native array, or frees it and marks the heap dump as failed if that is impossible. */
+    private Pointer grow(Pointer array, int newSize) {
+        UnmanagedMemorySupport memory = ImageSingletons.lookup(UnmanagedMemorySupport.class);
+        Pointer result = array.isNull() ? memory.malloc(WordFactory.unsigned(newSize)) : memory.realloc(array, WordFactory.unsigned(newSize));
+        if (result.isNull()) {
+            memory.free(array);
+            failed = true;
+        }
+        return result;
+    }
+
+    private void writeUtf8(long id, String value, boolean isClassName) {
+        int length = UninterruptibleUtils.String.modifiedUtf8Length(value, false);
+        writeRecordHeader(HPROF_UTF8, Long.BYTES + length);
+        writeU8(id);
+        if (length > BUFFER_SIZE) {
+            failed = true;
+            return;
+        }
+        ensureCapacity(length);
+        Pointer start = buffer.add(bufferPosition);
+        UninterruptibleUtils.String.toModifiedUtf8(value, start, start.add(length), false);
+        if (isClassName) {
+            /* HPROF uses the internal form of class names. */
+            for (int i = 0; i < length; i++) {
+                if (start.readByte(i) == '.') {
+                    start.writeByte(i, (byte) '/');
+                }
+            }
+        }
+        bufferPosition += length;
+    }
+
+    private void writeRecordHeader(int tag, int length) {
+        writeU1(tag);
+        writeU4(0); // microseconds since the timestamp in the header
+        writeU4(length);
+    }
+
+    private void startSegment() {
+        writeU1(HPROF_HEAP_DUMP_SEGMENT);
+        writeU4(0);
+        segmentLengthPosition = getPosition();
+        writeU4(0);
+    }
+
+    private void endSegment() {
+        int length = (int) (getPosition() - segmentLengthPosition - Integer.BYTES);
+        if (segmentLengthPosition >= flushedBytes) {
+            int position = bufferPosition;
+            bufferPosition = (int) (segmentLengthPosition - flushedBytes);
+            writeU4(length);
+            bufferPosition = position;
+        } else {
+            flush();
+            RawFileOperationSupport file = RawFileOperationSupport.bigEndian();
+            if (!file.seek(fd, WordFactory.signed(segmentLengthPosition)) || !file.writeInt(fd, length) || !file.seek(fd, WordFactory.signed(flushedBytes))) {
+                failed = true;
+            }
+        }
+    }
+
+    private long getPosition() {
+        return flushedBytes + bufferPosition;
+    }
+
+    private void ensureCapacity(int size) {
+        if (bufferPosition + size > BUFFER_SIZE) {
+            flush();
+        }
+    }
+
+    private void flush() {
+        if (bufferPosition > 0 && !failed) {
+            failed = !RawFileOperationSupport.bigEndian().write(fd, buffer, WordFactory.unsigned(bufferPosition));
+        }
+        flushedBytes += bufferPosition;
+        bufferPosition = 0;
+    }
+
+    private void writeU1(int value) {
+        ensureCapacity(Byte.BYTES);
+        buffer.writeByte(bufferPosition, (byte) value);
+        bufferPosition += Byte.BYTES;
+    }
+
+    private void writeU2(int value) {
+        ensureCapacity(Short.BYTES);
+        buffer.writeByte(bufferPosition, (byte) (value >> 8));
+        buffer.writeByte(bufferPosition + 1, (byte) value);
+        bufferPosition += Short.BYTES;
+    }
+
+    private void writeU4(int value) {
+        ensureCapacity(Integer.BYTES);
+        for (int i = 0; i < Integer.BYTES; i++) {
+            buffer.writeByte(bufferPosition + i, (byte) (value >> (24 - 8 * i)));
+        }
+        bufferPosition += Integer.BYTES;
+    }
+
+    private void writeU8(long value) {
+        ensureCapacity(Long.BYTES);
+        for (int i = 0; i < Long.BYTES; i++) {
+            buffer.writeByte(bufferPosition + i, (byte) (value >> (56 - 8 * i)));
+        }
+        bufferPosition += Long.BYTES;
+    }
+
+    private final class StackRootsVisitor extends StackFrameVisitor {
+        @Override
+        protected boolean visitFrame(Pointer sp, CodePointer ip, CodeInfo codeInfo, DeoptimizedFrame deoptimizedFrame) {
+            CodeInfoTable.visitObjectReferences(sp, ip, codeInfo, deoptimizedFrame, rootReferenceVisitor);
+            rootReferenceVisitor.frameNumber++;
+            return true;
+        }
+    }
+
+    private final class RootReferenceVisitor implements ObjectReferenceVisitor {
+        private int tag;
+        private int threadSerial;
+        private int frameNumber;
+
+        void initialize(int rootTag, int serial) {
+            this.tag = rootTag;
+            this.threadSerial = serial;
+            this.frameNumber = 0;
+        }
+
+        @Override
+        public boolean visitObjectReference(Pointer objRef, boolean compressed) {
+            Object obj = ReferenceAccess.singleton().readObjectAt(objRef, compressed);
+            if (obj != null) {
+                addRoot(tag, obj, threadSerial, frameNumber);
+            }
+            return true;
+        }
+    }
+
+    private final class LoadClassVisitor implements ObjectVisitor {
+        @Override
+        public boolean visitObject(Object obj) {
+            if (obj instanceof Class) {
+                writeLoadClass(DynamicHub.fromClass((Class<?>) obj));
+            }
+            return !failed;
+        }
+    }
+
+    private final class ImageHeapObjectVisitor implements ObjectVisitor {
+        @Override
+        public boolean visitObject(Object obj) {
+            if (!(obj instanceof Class)) {
+                /* Image heap objects are never collected and may be referenced from code. */
+                writeU1(HPROF_GC_ROOT_UNKNOWN);
+                writeU8(getId(obj));
+            }
+            writeObject(obj);
+            return !failed;
+        }
+    }
+}
@@ -94,6 +94,8 @@ public final class HeapImpl extends Heap {
 
     /** Head of the linked list of currently pending (ready to be enqueued) {@link Reference}s. */
     private Reference<?> refPendingList;
+    /** Last element of {@link #refPendingList}, so that newly pending references are appended quickly. */
+    private Reference<?> refPendingListTail;
     /** Total number of times when a new pending reference list became available. */
     private volatile long refListOfferCounter;
     /** Total number of times when threads waiting for a pending reference list were interrupted. */
@@ -221,7 +223,9 @@ public final class HeapImpl extends Heap {
         Log trace = Log.noopLog().string("[HeapImpl.promoteObject:").string("  original: ").object(original);
 
         Object result;
-        if (HeapPolicy.getMaxSurvivorSpaces() > 0 && !getGCImpl().isCompleteCollection()) {
+        if (ParallelScavenge.isInParallelPhase()) {
+            result = ParallelScavenge.promoteObject(original, header);
+        } else if (HeapPolicy.getMaxSurvivorSpaces() > 0 && !getGCImpl().isCompleteCollection()) {
             result = getYoungGeneration().promoteObject(original, header);
         } else {
             result = getOldGeneration().promoteObject(original, header);
@@ -442,28 +446,28 @@ public final class HeapImpl extends Heap {
     }
 
     @SuppressFBWarnings(value = "VO_VOLATILE_INCREMENT", justification = "Only the GC increments the volatile field 'refListOfferCounter'.")
-    void addToReferencePendingList(Reference<?> list) {
+    void addToReferencePendingList(Reference<?> list, Reference<?> last) {
         VMOperation.guaranteeGCInProgress("Must only be called during a GC.");
         if (list == null) {
             return;
         }
+        assert last != null && ReferenceInternals.getNextDiscovered(last) == null;
 
         REF_MUTEX.lock();
         try {
             if (refPendingList != null) { // append
-                Reference<?> current = refPendingList;
-                Reference<?> next = ReferenceInternals.getNextDiscovered(current);
-                while (next != null) {
-                    current = next;
-                    next = ReferenceInternals.getNextDiscovered(current);
-                }
-                ReferenceInternals.setNextDiscovered(current, list);
+                /*
+                 * The reference handler might not have drained the list of an earlier collection
+                 * yet, so it can be long: do not walk it during the pause.
+                 */
+                ReferenceInternals.setNextDiscovered(refPendingListTail, list);
                 // No need to notify: waiters would have been notified about the existing list
             } else {
                 refPendingList = list;
                 refListOfferCounter++;
                 REF_CONDITION.broadcast();
             }
+            refPendingListTail = last;
         } finally {
             REF_MUTEX.unlock();
         }
@@ -578,6 +582,7 @@ public final class HeapImpl extends Heap {
             Reference<?> list = refPendingList;
             if (list != null) {
                 refPendingList = null;
+                refPendingListTail = null;
             }
             return list;
         } finally {
@@ -56,6 +56,26 @@ public final class HeapOptions {
     @Option(help = "Enables card marking for image heap objects, which arranges them in chunks. Automatically enabled when supported.", type = OptionType.Expert) //
     public static final HostedOptionKey<Boolean> ImageHeapCardMarking = new HostedOptionKey<>(null);
 
+    @Option(help = "Number of threads that scan grey objects during a collection, including the thread that performs the collection. " +
+                    "Values of 0 or 1 disable parallel scavenging.", type = OptionType.Expert) //
+    public static final RuntimeOptionKey<Integer> ParallelGCThreads = new RuntimeOptionKey<>(0);
+
+    @Option(help = "Maintain a summary level for the card table and clean the dirty cards of the old generation in a background thread " +
+                    "between collections, so that incremental collections need to scan fewer cards.", type = OptionType.Expert) //
+    public static final HostedOptionKey<Boolean> ConcurrentCardPrecleaning = new HostedOptionKey<>(false);
+
+    @Option(help = "Milliseconds between two passes of the background thread that precleans dirty cards, if ConcurrentCardPrecleaning is enabled.", type = OptionType.Expert) //
+    public static final RuntimeOptionKey<Integer> CardPrecleaningInterval = new RuntimeOptionKey<>(10);
+
+    @Option(help = "Collect the old generation in place with a mark-compact algorithm during complete collections instead of copying it, " +
+                    "so that the memory needed by a complete collection stays close to the size of the live objects. " +
+                    "Ignored when runtime compilation is enabled.", type = OptionType.Expert) //
+    public static final HostedOptionKey<Boolean> CompactingOldGeneration = new HostedOptionKey<>(false);
+
+    @Option(help = "Touch the frequently accessed partitions of the image heap before the main method runs, so that their pages are " +
+                    "faulted in at once rather than one by one on first access.", type = OptionType.Expert) //
+    public static final RuntimeOptionKey<Boolean> PrefaultImageHeap = new RuntimeOptionKey<>(false);
+
     private HeapOptions() {
     }
 }
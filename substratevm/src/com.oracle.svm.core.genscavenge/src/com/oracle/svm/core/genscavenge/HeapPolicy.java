@@ -91,6 +91,12 @@ public final class HeapPolicy {
         return HeapPolicyOptions.MaxSurvivorSpaces.getValue();
     }
 
+    /** The number of survivor spaces that objects are copied through before they are promoted. */
+    public static int getMaxTenuringAge() {
+        int threshold = HeapPolicyOptions.MaxTenuringThreshold.getValue();
+        return Math.max(0, Math.min(threshold, getMaxSurvivorSpaces()));
+    }
+
     /*
      * Memory configuration
      */
@@ -237,6 +243,7 @@ public final class HeapPolicy {
         return youngUsedBytes.get();
     }
 
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
     public static UnsignedWord getEdenUsedBytes() {
         assert !VMOperation.isGCInProgress() : "value is incorrect during a GC";
         return edenUsedBytes.get();
@@ -253,7 +260,7 @@ public final class HeapPolicy {
                 throw OUT_OF_MEMORY_ERROR;
             }
         } else {
-            UnsignedWord maxYoungSize = getMaximumYoungGenerationSize();
+            UnsignedWord maxYoungSize = GCImpl.getPolicy().getYoungGenerationSize();
             boolean outOfMemory = maybeCollectOnAllocation(maxYoungSize);
             if (outOfMemory) {
                 throw OUT_OF_MEMORY_ERROR;
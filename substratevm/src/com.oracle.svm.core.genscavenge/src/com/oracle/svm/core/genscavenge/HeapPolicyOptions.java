@@ -73,6 +73,17 @@ public final class HeapPolicyOptions {
     @Option(help = "Maximum number of survivor spaces.") //
     public static final HostedOptionKey<Integer> MaxSurvivorSpaces = new HostedOptionKey<>(0);
 
+    @Option(help = "Number of incremental collections that an object must survive before it is promoted to the old generation. " +
+                    "Values larger than MaxSurvivorSpaces have the same effect as MaxSurvivorSpaces.") //
+    public static final RuntimeOptionKey<Integer> MaxTenuringThreshold = new RuntimeOptionKey<>(15);
+
+    @Option(help = "Maximum number of bytes in unused unaligned heap chunks that are kept for reuse instead of being released to the operating system. " +
+                    "Unaligned chunks are rounded up to size classes so that they can be reused for similarly sized objects. 0 disables the pooling of unaligned chunks.") //
+    public static final RuntimeOptionKey<Long> UnalignedChunkPoolSize = new RuntimeOptionKey<>(0L);
+
+    @Option(help = "Keep unused aligned heap chunks in separate lists per NUMA node and prefer chunks from the node of the allocating thread. Only has an effect on Linux.") //
+    public static final RuntimeOptionKey<Boolean> NumaAwareChunkAllocation = new RuntimeOptionKey<>(false);
+
     @Option(help = "Determines if a full GC collects the young generation separately or together with the old generation.") //
     public static final RuntimeOptionKey<Boolean> CollectYoungGenerationSeparately = new RuntimeOptionKey<>(false);
 
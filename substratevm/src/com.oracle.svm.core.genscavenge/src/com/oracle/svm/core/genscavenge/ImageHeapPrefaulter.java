@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.genscavenge;
+
+import org.graalvm.compiler.word.Word;
+import org.graalvm.word.LocationIdentity;
+import org.graalvm.word.Pointer;
+import org.graalvm.word.UnsignedWord;
+
+import com.oracle.svm.core.hub.LayoutEncoding;
+import com.oracle.svm.core.os.VirtualMemoryProvider;
+import com.oracle.svm.core.util.PointerUtils;
+
+/**
+ * Touches the pages of the image heap partitions that are accessed early and frequently, if
+ * {@link HeapOptions#PrefaultImageHeap} is enabled.
+ * <p>
+ * The image heap layout places the read-only reference, read-only relocatable and writable
+ * partitions, which hold the class metadata, the static fields and most of the object graph,
+ * contiguously between the read-only primitive partition and the huge object partitions. These
+ * partitions are touched once per page in a single pass, similar to mapping them with
+ * {@code MAP_POPULATE}, and the large primitive arrays are left to be paged in on demand.
+ * <p>
+ * The read-only partitions are touched with a read. The image heap is a private file mapping, so
+ * a read of a writable page only maps the shared file page and the first write to the page would
+ * still take a copy-on-write fault. The writable partitions are therefore touched with a write: an
+ * atomic compare-and-swap of an int with its own value, which creates the private copy of the page
+ * without changing its contents, even if another thread writes to the page concurrently. The
+ * writable partitions start and end in chunks that are writable as a whole, so the touched pages
+ * are never read-only.
+ */
+public final class ImageHeapPrefaulter implements Runnable {
+    /** Consumes the values that are read so that the reads cannot be optimized away. */
+    private static volatile int sink;
+
+    @Override
+    public void run() {
+        if (HeapOptions.PrefaultImageHeap.getValue()) {
+            prefault(HeapImpl.getImageHeapInfo());
+        }
+    }
+
+    private static void prefault(ImageHeapInfo info) {
+        UnsignedWord pageSize = VirtualMemoryProvider.get().getGranularity();
+        Object firstReadOnly = firstNonNull(info.firstReadOnlyReferenceObject, info.firstReadOnlyRelocatableObject);
+        Object lastReadOnly = firstNonNull(info.lastReadOnlyRelocatableObject, info.lastReadOnlyReferenceObject);
+        if (firstReadOnly != null && lastReadOnly != null) {
+            int sum = 0;
+            for (Pointer page = pageBegin(firstReadOnly, pageSize); page.belowThan(objectEnd(lastReadOnly)); page = page.add(pageSize)) {
+                sum += page.readByte(0);
+            }
+            sink = sum;
+        }
+
+        Object firstWritable = firstNonNull(info.firstWritablePrimitiveObject, info.firstWritableReferenceObject);
+        Object lastWritable = firstNonNull(info.lastWritableReferenceObject, info.lastWritablePrimitiveObject);
+        if (firstWritable != null && lastWritable != null) {
+            for (Pointer page = pageBegin(firstWritable, pageSize); page.belowThan(objectEnd(lastWritable)); page = page.add(pageSize)) {
+                int value = page.readInt(0);
+                page.logicCompareAndSwapInt(0, value, value, LocationIdentity.ANY_LOCATION);
+            }
+        }
+    }
+
+    private static Pointer pageBegin(Object first, UnsignedWord pageSize) {
+        return PointerUtils.roundDown(Word.objectToUntrackedPointer(first), pageSize);
+    }
+
+    private static Pointer objectEnd(Object last) {
+        return Word.objectToUntrackedPointer(last).add(LayoutEncoding.getSizeFromObject(last));
+    }
+
+    private static Object firstNonNull(Object a, Object b) {
+        return a != null ? a : b;
+    }
+}
@@ -0,0 +1,651 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.genscavenge;
+
+import java.lang.ref.Reference;
+
+import org.graalvm.compiler.api.replacements.Fold;
+import org.graalvm.compiler.word.Word;
+import org.graalvm.nativeimage.ImageSingletons;
+import org.graalvm.nativeimage.Platform;
+import org.graalvm.nativeimage.Platforms;
+import org.graalvm.nativeimage.c.struct.RawField;
+import org.graalvm.nativeimage.c.struct.RawStructure;
+import org.graalvm.nativeimage.c.struct.SizeOf;
+import org.graalvm.nativeimage.impl.UnmanagedMemorySupport;
+import org.graalvm.word.Pointer;
+import org.graalvm.word.PointerBase;
+import org.graalvm.word.UnsignedWord;
+import org.graalvm.word.WordFactory;
+
+import com.oracle.svm.core.UnmanagedMemoryUtil;
+import com.oracle.svm.core.annotate.AlwaysInline;
+import com.oracle.svm.core.config.ConfigurationValues;
+import com.oracle.svm.core.deopt.DeoptimizationSupport;
+import com.oracle.svm.core.genscavenge.AlignedHeapChunk.AlignedHeader;
+import com.oracle.svm.core.genscavenge.GCImpl.ChunkReleaser;
+import com.oracle.svm.core.genscavenge.UnalignedHeapChunk.UnalignedHeader;
+import com.oracle.svm.core.genscavenge.remset.RememberedSet;
+import com.oracle.svm.core.heap.ObjectReferenceVisitor;
+import com.oracle.svm.core.heap.ObjectVisitor;
+import com.oracle.svm.core.heap.ReferenceAccess;
+import com.oracle.svm.core.heap.ReferenceInternals;
+import com.oracle.svm.core.hub.DynamicHub;
+import com.oracle.svm.core.hub.InteriorObjRefWalker;
+import com.oracle.svm.core.hub.LayoutEncoding;
+import com.oracle.svm.core.snippets.KnownIntrinsics;
+import com.oracle.svm.core.util.UnsignedUtils;
+import com.oracle.svm.core.util.VMError;
+
+/**
+ * Collects the old generation in place with a sliding mark-compact algorithm, see
+ * {@link HeapOptions#CompactingOldGeneration}.
+ *
+ * A complete collection first promotes all live young objects into the old generation with an
+ * incremental scavenge, and then compacts the from-space of the old generation in four phases:
+ * <ol>
+ * <li>Mark: starting from the roots, the live objects are marked in a bitmap with one bit per
+ * {@linkplain #getGranuleSize() granule} of each aligned chunk. {@link Reference} objects are
+ * discovered and processed as in a scavenge.</li>
+ * <li>Plan: the live objects of the aligned chunks are assigned new addresses by sliding them
+ * towards the start of the chunk list. Only the new address of the first live object of every
+ * block of {@link #BLOCK_SIZE} bytes is stored: the new address of any other object is computed from
+ * the sizes of the marked objects before it in the same block. The live objects of a block are
+ * always moved together, so a block that does not fit into the rest of a chunk starts the next
+ * one.</li>
+ * <li>Update: all references in the roots and in the live objects are set to the new addresses.</li>
+ * <li>Move: the live objects are copied to their new addresses. The top pointers, the
+ * {@link com.oracle.svm.core.genscavenge.remset.FirstObjectTable first object tables} and the card
+ * tables of the chunks are rebuilt, and chunks that became empty are released.</li>
+ * </ol>
+ *
+ * Objects in unaligned chunks and in aligned chunks that contain pinned objects are never moved.
+ * As in a scavenge, all objects in an aligned chunk with pinned objects are kept alive.
+ *
+ * The mark bitmap and the forwarding table of a chunk are allocated in native memory for the
+ * duration of the collection (see {@link HeapChunk.Header#getMarkData}) and take about 3% of the
+ * size of the chunk, so a complete collection does not need a second copy of the live objects.
+ */
+final class MarkCompactCollector {
+    /** Number of bytes of a chunk covered by one entry of its forwarding table. */
+    private static final int BLOCK_SIZE = 512;
+    private static final int INITIAL_MARK_STACK_CAPACITY = 4 * 1024;
+
+    /** The side data of an aligned chunk, followed by its mark bitmap and forwarding table. */
+    @RawStructure
+    interface ChunkData extends PointerBase {
+        /** Whether the chunk contains pinned objects, so that none of its objects can move. */
+        @RawField
+        boolean getPinned();
+
+        @RawField
+        void setPinned(boolean value);
+
+        /** The top of the chunk after the compaction. */
+        @RawField
+        Pointer getNewTop();
+
+        @RawField
+        void setNewTop(Pointer value);
+    }
+
+    private static final MarkingObjRefVisitor markingObjRefVisitor = new MarkingObjRefVisitor();
+    private static final MarkingObjectVisitor markingObjectVisitor = new MarkingObjectVisitor();
+    private static final UpdatingObjRefVisitor updatingObjRefVisitor = new UpdatingObjRefVisitor();
+    private static final UpdatingObjectVisitor updatingObjectVisitor = new UpdatingObjectVisitor();
+
+    private static boolean marking;
+    private static Pointer markStack = WordFactory.nullPointer();
+    private static int markStackCapacity;
+    private static int markStackSize;
+
+    private MarkCompactCollector() { // all static
+    }
+
+    @Fold
+    static boolean isEnabled() {
+        /* Runtime compiled code refers to objects weakly, which would need a separate phase. */
+        return HeapOptions.CompactingOldGeneration.getValue() && !DeoptimizationSupport.enabled();
+    }
+
+    static ObjectReferenceVisitor getMarkingObjRefVisitor() {
+        return markingObjRefVisitor;
+    }
+
+    static ObjectVisitor getMarkingObjectVisitor() {
+        return markingObjectVisitor;
+    }
+
+    static ObjectReferenceVisitor getUpdatingObjRefVisitor() {
+        return updatingObjRefVisitor;
+    }
+
+    static ObjectVisitor getUpdatingObjectVisitor() {
+        return updatingObjectVisitor;
+    }
+
+    /** Whether the live objects are currently being marked, see {@link #isMarked}. */
+    static boolean isMarking() {
+        return marking;
+    }
+
+    /**
+     * Allocates the side data of the chunks of the given space and marks the objects that must
+     * stay where they are. The roots have to be marked next, followed by {@link #finishMarking}.
+     */
+    static void startMarking(Space space) {
+        assert !marking && markStackSize == 0;
+        AlignedHeader aChunk = space.getFirstAlignedHeapChunk();
+        while (aChunk.isNonNull()) {
+            ChunkData data = ImageSingletons.lookup(UnmanagedMemorySupport.class).calloc(getChunkDataSize(aChunk));
+            VMError.guarantee(data.isNonNull(), "Could not allocate the mark bitmap of a chunk");
+            data.setNewTop(AlignedHeapChunk.getObjectsStart(aChunk));
+            HeapChunk.setMarkData(aChunk, (Pointer) data);
+            aChunk = HeapChunk.getNext(aChunk);
+        }
+        UnalignedHeader uChunk = space.getFirstUnalignedHeapChunk();
+        while (uChunk.isNonNull()) {
+            assert HeapChunk.getMarkData(uChunk).isNull();
+            uChunk = HeapChunk.getNext(uChunk);
+        }
+        marking = true;
+        markPinnedObjects();
+    }
+
+    /** Marks the objects that are transitively reachable from the already marked objects. */
+    static void finishMarking() {
+        assert marking;
+        while (markStackSize > 0) {
+            markStackSize--;
+            Pointer p = markStack.readWord(markStackSize * ConfigurationValues.getTarget().wordSize);
+            markingObjectVisitor.visitObjectInline(p.toObject());
+        }
+        if (markStack.isNonNull()) {
+            ImageSingletons.lookup(UnmanagedMemorySupport.class).free(markStack);
+            markStack = WordFactory.nullPointer();
+            markStackCapacity = 0;
+        }
+    }
+
+    /** Assigns new addresses to the live objects. Must be called after the references are processed. */
+    static void planCompaction(Space space) {
+        assert marking && markStackSize == 0;
+        marking = false;
+
+        AlignedHeader target = getNextUnpinnedChunk(space.getFirstAlignedHeapChunk());
+        Pointer targetTop = target.isNull() ? WordFactory.nullPointer() : AlignedHeapChunk.getObjectsStart(target);
+        AlignedHeader chunk = space.getFirstAlignedHeapChunk();
+        while (chunk.isNonNull()) {
+            ChunkData data = getChunkData(chunk);
+            if (!data.getPinned()) {
+                UnsignedWord blockLimit = getBlockLimit(chunk);
+                for (UnsignedWord block = WordFactory.zero(); block.belowThan(blockLimit); block = block.add(1)) {
+                    UnsignedWord liveBytes = getLiveBytesOfBlock(chunk, data, block);
+                    if (liveBytes.equal(0)) {
+                        continue;
+                    }
+                    if (targetTop.add(liveBytes).aboveThan(HeapChunk.getEndPointer(target))) {
+                        /* Cannot advance beyond the current chunk, the block always fits there. */
+                        getChunkData(target).setNewTop(targetTop);
+                        target = getNextUnpinnedChunk(HeapChunk.getNext(target));
+                        targetTop = AlignedHeapChunk.getObjectsStart(target);
+                    }
+                    setBlockTarget(chunk, data, block, targetTop);
+                    targetTop = targetTop.add(liveBytes);
+                }
+            }
+            chunk = HeapChunk.getNext(chunk);
+        }
+        if (target.isNonNull()) {
+            getChunkData(target).setNewTop(targetTop);
+        }
+    }
+
+    /**
+     * Updates the references in the live objects of the given space. The references in the roots
+     * must be updated with {@link #getUpdatingObjRefVisitor} and {@link #getUpdatingObjectVisitor}.
+     */
+    static void updateReferences(Space space) {
+        AlignedHeader aChunk = space.getFirstAlignedHeapChunk();
+        while (aChunk.isNonNull()) {
+            ChunkData data = getChunkData(aChunk);
+            Pointer objectsStart = AlignedHeapChunk.getObjectsStart(aChunk);
+            UnsignedWord granuleLimit = getGranuleLimit(aChunk);
+            UnsignedWord granule = getNextMarkedGranule(data, WordFactory.zero(), granuleLimit);
+            while (granule.belowThan(granuleLimit)) {
+                Object obj = granuleToPointer(objectsStart, granule).toObject();
+                UnsignedWord size = LayoutEncoding.getSizeFromObject(obj);
+                updatingObjectVisitor.visitObjectInline(obj);
+                granule = getNextMarkedGranule(data, granule.add(size.unsignedDivide(getGranuleSize())), granuleLimit);
+            }
+            aChunk = HeapChunk.getNext(aChunk);
+        }
+        UnalignedHeader uChunk = space.getFirstUnalignedHeapChunk();
+        while (uChunk.isNonNull()) {
+            if (HeapChunk.getMarkData(uChunk).isNonNull()) {
+                updatingObjectVisitor.visitObjectInline(UnalignedHeapChunk.getObjectStart(uChunk).toObject());
+            }
+            uChunk = HeapChunk.getNext(uChunk);
+        }
+    }
+
+    /**
+     * Moves the live objects to their new addresses, rebuilds the remembered set of the chunks,
+     * frees the side data, and hands the chunks that no longer contain live objects to the given
+     * releaser.
+     */
+    static void compact(Space space, ChunkReleaser chunkReleaser) {
+        AlignedHeader aChunk = space.getFirstAlignedHeapChunk();
+        while (aChunk.isNonNull()) {
+            ChunkData data = getChunkData(aChunk);
+            if (!data.getPinned()) {
+                moveObjects(aChunk, data);
+            }
+            aChunk = HeapChunk.getNext(aChunk);
+        }
+
+        aChunk = space.getFirstAlignedHeapChunk();
+        while (aChunk.isNonNull()) {
+            AlignedHeader next = HeapChunk.getNext(aChunk);
+            ChunkData data = getChunkData(aChunk);
+            boolean pinned = data.getPinned();
+            Pointer newTop = data.getNewTop();
+            ImageSingletons.lookup(UnmanagedMemorySupport.class).free(data);
+            HeapChunk.setMarkData(aChunk, WordFactory.nullPointer());
+            if (pinned) {
+                RememberedSet.get().clearRememberedSet(aChunk);
+            } else if (newTop.equal(AlignedHeapChunk.getObjectsStart(aChunk))) {
+                space.extractAlignedHeapChunk(aChunk);
+                chunkReleaser.add(aChunk);
+            } else {
+                HeapChunk.setTopPointer(aChunk, newTop);
+                RememberedSet.get().enableRememberedSetForChunk(aChunk);
+            }
+            aChunk = next;
+        }
+
+        UnalignedHeader uChunk = space.getFirstUnalignedHeapChunk();
+        while (uChunk.isNonNull()) {
+            UnalignedHeader next = HeapChunk.getNext(uChunk);
+            if (HeapChunk.getMarkData(uChunk).isNull()) {
+                space.extractUnalignedHeapChunk(uChunk);
+                chunkReleaser.add(uChunk);
+            } else {
+                HeapChunk.setMarkData(uChunk, WordFactory.nullPointer());
+                RememberedSet.get().clearRememberedSet(uChunk);
+            }
+            uChunk = next;
+        }
+    }
+
+    /** Whether the given object of the old generation has been marked as live. */
+    static boolean isMarked(Object obj) {
+        Pointer p = Word.objectToUntrackedPointer(obj);
+        if (ObjectHeaderImpl.isAlignedObject(obj)) {
+            AlignedHeader chunk = AlignedHeapChunk.getEnclosingChunkFromObjectPointer(p);
+            return isMarked(getChunkData(chunk), getGranule(chunk, p));
+        } else {
+            assert ObjectHeaderImpl.isUnalignedObject(obj);
+            return HeapChunk.getMarkData(UnalignedHeapChunk.getEnclosingChunkFromObjectPointer(p)).isNonNull();
+        }
+    }
+
+    private static void markPinnedObjects() {
+        PinnedObjectImpl cur = PinnedObjectImpl.getPinnedObjects();
+        while (cur != null) {
+            Object obj = cur.getObject();
+            if (obj != null && !HeapImpl.getHeapImpl().isInImageHeap(obj)) {
+                if (ObjectHeaderImpl.isAlignedObject(obj)) {
+                    markChunkWithPinnedObjects(AlignedHeapChunk.getEnclosingChunk(obj));
+                } else {
+                    markAndPush(Word.objectToUntrackedPointer(obj));
+                }
+            }
+            cur = cur.getNext();
+        }
+    }
+
+    private static void markChunkWithPinnedObjects(AlignedHeader chunk) {
+        ChunkData data = getChunkData(chunk);
+        if (data.getPinned()) {
+            return;
+        }
+        data.setPinned(true);
+        data.setNewTop(HeapChunk.getTopPointer(chunk));
+        Pointer p = AlignedHeapChunk.getObjectsStart(chunk);
+        Pointer top = HeapChunk.getTopPointer(chunk);
+        while (p.belowThan(top)) {
+            markAndPush(p);
+            p = p.add(LayoutEncoding.getSizeFromObject(p.toObject()));
+        }
+    }
+
+    @AlwaysInline("GC performance")
+    private static void markAndPush(Pointer p) {
+        if (mark(p)) {
+            if (markStackSize == markStackCapacity) {
+                growMarkStack();
+            }
+            markStack.writeWord(markStackSize * ConfigurationValues.getTarget().wordSize, p);
+            markStackSize++;
+        }
+    }
+
+    /** Marks the object at the given address and returns true if it was not marked before. */
+    @AlwaysInline("GC performance")
+    private static boolean mark(Pointer p) {
+        UnsignedWord header = ObjectHeaderImpl.readHeaderFromPointer(p);
+        if (ObjectHeaderImpl.isAlignedHeader(header)) {
+            AlignedHeader chunk = AlignedHeapChunk.getEnclosingChunkFromObjectPointer(p);
+            ChunkData data = getChunkData(chunk);
+            UnsignedWord granule = getGranule(chunk, p);
+            if (isMarked(data, granule)) {
+                return false;
+            }
+            Pointer bitmapByte = getBitmapStart(data).add(granule.unsignedShiftRight(3));
+            bitmapByte.writeByte(0, (byte) (bitmapByte.readByte(0) | (1 << granule.and(7).rawValue())));
+            return true;
+        } else {
+            UnalignedHeader chunk = UnalignedHeapChunk.getEnclosingChunkFromObjectPointer(p);
+            if (HeapChunk.getMarkData(chunk).isNonNull()) {
+                return false;
+            }
+            HeapChunk.setMarkData(chunk, HeapChunk.asPointer(chunk));
+            return true;
+        }
+    }
+
+    private static void growMarkStack() {
+        int newCapacity = (markStackCapacity == 0) ? INITIAL_MARK_STACK_CAPACITY : markStackCapacity * 2;
+        UnsignedWord newSize = WordFactory.unsigned(newCapacity).multiply(ConfigurationValues.getTarget().wordSize);
+        UnmanagedMemorySupport memory = ImageSingletons.lookup(UnmanagedMemorySupport.class);
+        Pointer newStack = markStack.isNull() ? memory.malloc(newSize) : memory.realloc(markStack, newSize);
+        if (newStack.isNull()) {
+            throw VMError.shouldNotReachHere("Could not grow the mark stack of the old generation");
+        }
+        markStack = newStack;
+        markStackCapacity = newCapacity;
+    }
+
+    /** Returns the address that the given object of the old generation will be moved to. */
+    @AlwaysInline("GC performance")
+    private static Pointer getNewAddress(Pointer p) {
+        UnsignedWord header = ObjectHeaderImpl.readHeaderFromPointer(p);
+        if (!ObjectHeaderImpl.isAlignedHeader(header)) {
+            return p;
+        }
+        AlignedHeader chunk = AlignedHeapChunk.getEnclosingChunkFromObjectPointer(p);
+        ChunkData data = getChunkData(chunk);
+        if (data.getPinned()) {
+            return p;
+        }
+        Pointer objectsStart = AlignedHeapChunk.getObjectsStart(chunk);
+        UnsignedWord granule = getGranule(chunk, p);
+        assert isMarked(data, granule) : "Only live objects can be referenced";
+        UnsignedWord block = granule.unsignedDivide(getGranulesPerBlock());
+        Pointer result = getBlockTarget(chunk, data, block);
+        UnsignedWord cur = getNextMarkedGranule(data, block.multiply(getGranulesPerBlock()), granule);
+        while (cur.belowThan(granule)) {
+            UnsignedWord size = LayoutEncoding.getSizeFromObject(granuleToPointer(objectsStart, cur).toObject());
+            result = result.add(size);
+            cur = getNextMarkedGranule(data, cur.add(size.unsignedDivide(getGranuleSize())), granule);
+        }
+        return result;
+    }
+
+    private static void moveObjects(AlignedHeader chunk, ChunkData data) {
+        Pointer objectsStart = AlignedHeapChunk.getObjectsStart(chunk);
+        UnsignedWord granuleLimit = getGranuleLimit(chunk);
+        UnsignedWord currentBlock = UnsignedUtils.MAX_VALUE;
+        Pointer target = WordFactory.nullPointer();
+        UnsignedWord granule = getNextMarkedGranule(data, WordFactory.zero(), granuleLimit);
+        while (granule.belowThan(granuleLimit)) {
+            UnsignedWord block = granule.unsignedDivide(getGranulesPerBlock());
+            if (block.notEqual(currentBlock)) {
+                currentBlock = block;
+                target = getBlockTarget(chunk, data, block);
+            }
+            Pointer p = granuleToPointer(objectsStart, granule);
+            /* Read the size first: the copy can overwrite the object itself. */
+            UnsignedWord size = LayoutEncoding.getSizeFromObject(p.toObject());
+            if (target.notEqual(p)) {
+                UnmanagedMemoryUtil.copy(p, target, size);
+            }
+            target = target.add(size);
+            granule = getNextMarkedGranule(data, granule.add(size.unsignedDivide(getGranuleSize())), granuleLimit);
+        }
+    }
+
+    private static UnsignedWord getLiveBytesOfBlock(AlignedHeader chunk, ChunkData data, UnsignedWord block) {
+        Pointer objectsStart = AlignedHeapChunk.getObjectsStart(chunk);
+        UnsignedWord limit = UnsignedUtils.min(block.add(1).multiply(getGranulesPerBlock()), getGranuleLimit(chunk));
+        UnsignedWord result = WordFactory.zero();
+        UnsignedWord granule = getNextMarkedGranule(data, block.multiply(getGranulesPerBlock()), limit);
+        while (granule.belowThan(limit)) {
+            UnsignedWord size = LayoutEncoding.getSizeFromObject(granuleToPointer(objectsStart, granule).toObject());
+            result = result.add(size);
+            granule = getNextMarkedGranule(data, granule.add(size.unsignedDivide(getGranuleSize())), limit);
+        }
+        return result;
+    }
+
+    /** Returns the first marked granule in the given range, or {@code limit} if there is none. */
+    @AlwaysInline("GC performance")
+    private static UnsignedWord getNextMarkedGranule(ChunkData data, UnsignedWord start, UnsignedWord limit) {
+        Pointer bitmapStart = getBitmapStart(data);
+        UnsignedWord granule = start;
+        while (granule.belowThan(limit)) {
+            int bits = (bitmapStart.readByte(granule.unsignedShiftRight(3)) & 0xff) >>> granule.and(7).rawValue();
+            if (bits == 0) {
+                /* Skip the rest of the byte. */
+                granule = granule.or(7).add(1);
+            } else if ((bits & 1) != 0) {
+                return granule;
+            } else {
+                granule = granule.add(1);
+            }
+        }
+        return limit;
+    }
+
+    private static AlignedHeader getNextUnpinnedChunk(AlignedHeader start) {
+        AlignedHeader chunk = start;
+        while (chunk.isNonNull() && getChunkData(chunk).getPinned()) {
+            chunk = HeapChunk.getNext(chunk);
+        }
+        return chunk;
+    }
+
+    @AlwaysInline("GC performance")
+    private static boolean isMarked(ChunkData data, UnsignedWord granule) {
+        byte bits = getBitmapStart(data).readByte(granule.unsignedShiftRight(3));
+        return (bits & (1 << granule.and(7).rawValue())) != 0;
+    }
+
+    @AlwaysInline("GC performance")
+    private static ChunkData getChunkData(AlignedHeader chunk) {
+        ChunkData data = (ChunkData) HeapChunk.getMarkData(chunk);
+        assert data.isNonNull() : "Chunk is not part of the compacted space";
+        return data;
+    }
+
+    @AlwaysInline("GC performance")
+    private static UnsignedWord getGranule(AlignedHeader chunk, Pointer p) {
+        return AlignedHeapChunk.getObjectOffset(chunk, p).unsignedDivide(getGranuleSize());
+    }
+
+    @AlwaysInline("GC performance")
+    private static Pointer granuleToPointer(Pointer objectsStart, UnsignedWord granule) {
+        return objectsStart.add(granule.multiply(getGranuleSize()));
+    }
+
+    /** Returns the number of granules between the start of the objects and the top of the chunk. */
+    private static UnsignedWord getGranuleLimit(AlignedHeader chunk) {
+        return AlignedHeapChunk.getObjectOffset(chunk, HeapChunk.getTopPointer(chunk)).unsignedDivide(getGranuleSize());
+    }
+
+    private static UnsignedWord getBlockLimit(AlignedHeader chunk) {
+        return UnsignedUtils.roundUp(getGranuleLimit(chunk), WordFactory.unsigned(getGranulesPerBlock())).unsignedDivide(getGranulesPerBlock());
+    }
+
+    private static Pointer getBlockTarget(AlignedHeader chunk, ChunkData data, UnsignedWord block) {
+        return getForwardingTableStart(chunk, data).readWord(block.multiply(ConfigurationValues.getTarget().wordSize));
+    }
+
+    private static void setBlockTarget(AlignedHeader chunk, ChunkData data, UnsignedWord block, Pointer target) {
+        getForwardingTableStart(chunk, data).writeWord(block.multiply(ConfigurationValues.getTarget().wordSize), target);
+    }
+
+    @AlwaysInline("GC performance")
+    private static Pointer getBitmapStart(ChunkData data) {
+        return ((Pointer) data).add(getChunkDataHeaderSize());
+    }
+
+    private static Pointer getForwardingTableStart(AlignedHeader chunk, ChunkData data) {
+        return getBitmapStart(data).add(getBitmapSize(chunk));
+    }
+
+    private static UnsignedWord getBitmapSize(AlignedHeader chunk) {
+        UnsignedWord granules = AlignedHeapChunk.getCommittedObjectMemory(chunk).unsignedDivide(getGranuleSize());
+        UnsignedWord bytes = UnsignedUtils.roundUp(granules, WordFactory.unsigned(8)).unsignedDivide(8);
+        return UnsignedUtils.roundUp(bytes, WordFactory.unsigned(ConfigurationValues.getTarget().wordSize));
+    }
+
+    private static UnsignedWord getChunkDataSize(AlignedHeader chunk) {
+        UnsignedWord blocks = UnsignedUtils.roundUp(AlignedHeapChunk.getCommittedObjectMemory(chunk), WordFactory.unsigned(BLOCK_SIZE)).unsignedDivide(BLOCK_SIZE);
+        return getChunkDataHeaderSize().add(getBitmapSize(chunk)).add(blocks.multiply(ConfigurationValues.getTarget().wordSize));
+    }
+
+    @Fold
+    static UnsignedWord getChunkDataHeaderSize() {
+        return UnsignedUtils.roundUp(SizeOf.unsigned(ChunkData.class), WordFactory.unsigned(ConfigurationValues.getTarget().wordSize));
+    }
+
+    /** The object alignment, which is the smallest distance between the starts of two objects. */
+    @Fold
+    static int getGranuleSize() {
+        return ConfigurationValues.getObjectLayout().getAlignment();
+    }
+
+    @Fold
+    static int getGranulesPerBlock() {
+        return BLOCK_SIZE / getGranuleSize();
+    }
+
+    /** Marks the referenced objects of the old generation and pushes them onto the mark stack. */
+    private static final class MarkingObjRefVisitor implements ObjectReferenceVisitor {
+        @Platforms(Platform.HOSTED_ONLY.class)
+        MarkingObjRefVisitor() {
+        }
+
+        @Override
+        public boolean visitObjectReference(Pointer objRef, boolean compressed) {
+            return visitObjectReferenceInline(objRef, 0, compressed, null);
+        }
+
+        @Override
+        @AlwaysInline("GC performance")
+        public boolean visitObjectReferenceInline(Pointer objRef, int innerOffset, boolean compressed, Object holderObject) {
+            Pointer offsetP = ReferenceAccess.singleton().readObjectAsUntrackedPointer(objRef, compressed);
+            Pointer p = offsetP.subtract(innerOffset);
+            if (p.isNonNull() && !HeapImpl.getHeapImpl().isInImageHeap(p)) {
+                markAndPush(p);
+            }
+            return true;
+        }
+    }
+
+    /** Discovers {@link Reference} objects and marks the objects that an object refers to. */
+    private static final class MarkingObjectVisitor implements ObjectVisitor {
+        @Platforms(Platform.HOSTED_ONLY.class)
+        MarkingObjectVisitor() {
+        }
+
+        @Override
+        public boolean visitObject(Object o) {
+            return visitObjectInline(o);
+        }
+
+        @Override
+        @AlwaysInline("GC performance")
+        public boolean visitObjectInline(Object o) {
+            ReferenceObjectProcessing.discoverIfReference(o, markingObjRefVisitor);
+            InteriorObjRefWalker.walkObjectInline(o, markingObjRefVisitor);
+            return true;
+        }
+    }
+
+    /** Sets the visited references to the new addresses of the objects of the old generation. */
+    private static final class UpdatingObjRefVisitor implements ObjectReferenceVisitor {
+        @Platforms(Platform.HOSTED_ONLY.class)
+        UpdatingObjRefVisitor() {
+        }
+
+        @Override
+        public boolean visitObjectReference(Pointer objRef, boolean compressed) {
+            return visitObjectReferenceInline(objRef, 0, compressed, null);
+        }
+
+        @Override
+        @AlwaysInline("GC performance")
+        public boolean visitObjectReferenceInline(Pointer objRef, int innerOffset, boolean compressed, Object holderObject) {
+            Pointer offsetP = ReferenceAccess.singleton().readObjectAsUntrackedPointer(objRef, compressed);
+            Pointer p = offsetP.subtract(innerOffset);
+            if (p.isNonNull() && !HeapImpl.getHeapImpl().isInImageHeap(p)) {
+                Pointer newP = getNewAddress(p);
+                if (newP.notEqual(p)) {
+                    ReferenceAccess.singleton().writeObjectAt(objRef, newP.add(innerOffset).toObject(), compressed);
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Updates the references of an object, including the referent of a {@link Reference}, which is
+     * not part of the reference map.
+     */
+    private static final class UpdatingObjectVisitor implements ObjectVisitor {
+        @Platforms(Platform.HOSTED_ONLY.class)
+        UpdatingObjectVisitor() {
+        }
+
+        @Override
+        public boolean visitObject(Object o) {
+            return visitObjectInline(o);
+        }
+
+        @Override
+        @AlwaysInline("GC performance")
+        public boolean visitObjectInline(Object o) {
+            DynamicHub hub = KnownIntrinsics.readHub(o);
+            if (hub.isReferenceInstanceClass()) {
+                updatingObjRefVisitor.visitObjectReference(ReferenceInternals.getReferentFieldAddress((Reference<?>) o), true);
+            }
+            InteriorObjRefWalker.walkObjectInline(o, updatingObjRefVisitor);
+            return true;
+        }
+    }
+}
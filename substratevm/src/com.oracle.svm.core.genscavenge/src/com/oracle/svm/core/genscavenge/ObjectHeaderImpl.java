@@ -275,6 +275,7 @@ public final class ObjectHeaderImpl extends ObjectHeader {
         writeHeaderToObject(o, newHeader);
     }
 
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
     public static boolean hasRememberedSet(UnsignedWord header) {
         return header.and(REMEMBERED_SET_BIT).notEqual(0);
     }
@@ -335,6 +336,50 @@ public final class ObjectHeaderImpl extends ObjectHeader {
         assert isPointerToForwardedObject(Word.objectToUntrackedPointer(original));
     }
 
+    /**
+     * Like {@link #installForwardingPointer}, but for objects that several GC threads may try to
+     * promote at the same time. The forwarding pointer is only installed if the header of the
+     * original object is still the expected one. This is the case as long as no other thread
+     * installed a forwarding pointer in the meanwhile.
+     *
+     * @return the copy that was installed as the forwarding target, which is either the given copy
+     *         or the copy of another thread.
+     */
+    static Object installForwardingPointerParallel(Object original, UnsignedWord expectedHeader, Object copy) {
+        assert !isForwardedHeader(expectedHeader);
+        Pointer originalPtr = Word.objectToUntrackedPointer(original);
+        boolean installed;
+        if (ReferenceAccess.singleton().haveCompressedReferences()) {
+            UnsignedWord compressedCopy = ReferenceAccess.singleton().getCompressedRepresentation(copy);
+            if (ReferenceAccess.singleton().getCompressEncoding().hasShift()) {
+                /*
+                 * The forwarding reference is stored after the hub pointer (see
+                 * installForwardingPointer). Both are replaced with a single 64-bit
+                 * compare-and-swap, which assumes a little-endian platform. The second half is
+                 * only modified when a forwarding pointer is installed, so it is sufficient to
+                 * compare the header half with the expected value.
+                 */
+                assert ConfigurationValues.getObjectLayout().isAligned(getHubOffset()) && getReferenceSize() == Integer.BYTES;
+                long current = originalPtr.readLong(getHubOffset());
+                long expected = (current & 0xffffffff00000000L) | (expectedHeader.rawValue() & 0xffffffffL);
+                long forwardHeader = 0xf0f0f0f0L | FORWARDED_BIT.rawValue();
+                long newValue = (compressedCopy.rawValue() << 32) | forwardHeader;
+                installed = originalPtr.logicCompareAndSwapLong(getHubOffset(), expected, newValue, LocationIdentity.ANY_LOCATION);
+            } else {
+                int newHeader = (int) compressedCopy.or(FORWARDED_BIT).rawValue();
+                installed = originalPtr.logicCompareAndSwapInt(getHubOffset(), (int) expectedHeader.rawValue(), newHeader, LocationIdentity.ANY_LOCATION);
+            }
+        } else {
+            UnsignedWord newHeader = Word.objectToUntrackedPointer(copy).or(FORWARDED_BIT);
+            installed = originalPtr.logicCompareAndSwapWord(getHubOffset(), expectedHeader, newHeader, LocationIdentity.ANY_LOCATION);
+        }
+        if (installed) {
+            return copy;
+        }
+        assert isPointerToForwardedObject(originalPtr);
+        return getForwardedObject(originalPtr);
+    }
+
     @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
     private static UnsignedWord getHeaderBitsFromHeader(UnsignedWord header) {
         assert !isProducedHeapChunkZapped(header) : "Produced chunk zap value";
@@ -116,6 +116,14 @@ public final class OldGeneration extends Generation {
         return true;
     }
 
+    void handOffGreyObjects() {
+        toGreyObjectsWalker.handOffGreyObjects();
+    }
+
+    void skipGreyObjects() {
+        toGreyObjectsWalker.skipGreyObjects();
+    }
+
     @Override
     public Log report(Log log, boolean traceHeapChunks) {
         log.string("[Old generation: ").indent(true);
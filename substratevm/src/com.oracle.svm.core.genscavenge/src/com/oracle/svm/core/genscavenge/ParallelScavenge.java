@@ -0,0 +1,785 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.genscavenge;
+
+import org.graalvm.compiler.api.replacements.Fold;
+import org.graalvm.compiler.nodes.PauseNode;
+import org.graalvm.compiler.word.Word;
+import org.graalvm.nativeimage.ImageSingletons;
+import org.graalvm.nativeimage.c.struct.RawField;
+import org.graalvm.nativeimage.c.struct.RawFieldOffset;
+import org.graalvm.nativeimage.c.struct.RawStructure;
+import org.graalvm.nativeimage.c.struct.SizeOf;
+import org.graalvm.nativeimage.impl.UnmanagedMemorySupport;
+import org.graalvm.word.LocationIdentity;
+import org.graalvm.word.Pointer;
+import org.graalvm.word.PointerBase;
+import org.graalvm.word.UnsignedWord;
+import org.graalvm.word.WordFactory;
+
+import com.oracle.svm.core.UnmanagedMemoryUtil;
+import com.oracle.svm.core.annotate.AlwaysInline;
+import com.oracle.svm.core.annotate.NeverInline;
+import com.oracle.svm.core.annotate.Uninterruptible;
+import com.oracle.svm.core.config.ConfigurationValues;
+import com.oracle.svm.core.genscavenge.remset.RememberedSet;
+import com.oracle.svm.core.hub.DynamicHub;
+import com.oracle.svm.core.hub.LayoutEncoding;
+import com.oracle.svm.core.jdk.UninterruptibleUtils;
+import com.oracle.svm.core.locks.VMCondition;
+import com.oracle.svm.core.locks.VMMutex;
+import com.oracle.svm.core.log.Log;
+import com.oracle.svm.core.nodes.CFunctionEpilogueNode;
+import com.oracle.svm.core.nodes.CFunctionPrologueNode;
+import com.oracle.svm.core.thread.Safepoint;
+import com.oracle.svm.core.thread.VMOperation;
+import com.oracle.svm.core.thread.VMThreads;
+import com.oracle.svm.core.threadlocal.FastThreadLocalFactory;
+import com.oracle.svm.core.threadlocal.FastThreadLocalWord;
+import com.oracle.svm.core.util.VMError;
+
+/**
+ * Scans grey objects with several threads, see {@link HeapOptions#ParallelGCThreads}.
+ *
+ * The worker threads are started at image startup and wait in native code until the collector
+ * starts a parallel phase. The collector thread itself is worker 0. Work items are address ranges
+ * of grey objects, either in aligned chunks or whole unaligned chunks. Each worker keeps its work
+ * items in a deque: the owner takes items from the tail, idle workers steal items from the head.
+ *
+ * Every worker promotes objects into its own aligned chunks, one per target space, so that copying
+ * an object only needs a compare-and-swap to install the forwarding pointer. If two workers copy
+ * the same object, the loser retracts its allocation and uses the copy of the winner. A worker
+ * scans the objects in its own chunks itself, unless other workers are idle, in which case it
+ * shares the unscanned part. Unaligned chunks are promoted under a global lock. At the end of the
+ * phase, the collector thread appends the chunks of all workers to the spaces.
+ *
+ * Only the scanning of grey objects is parallel: roots, reference objects and the release of
+ * spaces are still processed by the collector thread.
+ */
+final class ParallelScavenge {
+
+    @RawStructure
+    interface WorkerData extends PointerBase {
+        /** Spin lock for the work deque, see {@link #lock}. */
+        @RawField
+        int getLock();
+
+        @RawField
+        void setLock(int value);
+
+        @RawFieldOffset
+        static int offsetOfLock() {
+            throw VMError.unimplemented(); // replaced
+        }
+
+        /** Entries of the work deque, each a pair of words: start and end of a grey range. */
+        @RawField
+        Pointer getQueue();
+
+        @RawField
+        void setQueue(Pointer value);
+
+        @RawField
+        int getQueueCapacity();
+
+        @RawField
+        void setQueueCapacity(int value);
+
+        @RawField
+        int getQueueHead();
+
+        @RawField
+        void setQueueHead(int value);
+
+        @RawField
+        int getQueueTail();
+
+        @RawField
+        void setQueueTail(int value);
+
+        /** One {@link PromotionSlot} per target space, see {@link #getPromotionSlotIndex}. */
+        @RawField
+        PromotionSlot getSlots();
+
+        @RawField
+        void setSlots(PromotionSlot value);
+
+        /** The last phase that this worker has seen, see {@link #awaitPhase}. */
+        @RawField
+        int getSeenPhase();
+
+        @RawField
+        void setSeenPhase(int value);
+
+        @RawField
+        boolean getRegistered();
+
+        @RawField
+        void setRegistered(boolean value);
+    }
+
+    /** The chunks that a worker has promoted objects into for a single target space. */
+    @RawStructure
+    interface PromotionSlot extends PointerBase {
+        /** The chunk that objects are currently copied into. */
+        @RawField
+        AlignedHeapChunk.AlignedHeader getChunk();
+
+        @RawField
+        void setChunk(AlignedHeapChunk.AlignedHeader value);
+
+        /** Objects in {@link #getChunk()} below this pointer have been scanned or shared. */
+        @RawField
+        Pointer getScan();
+
+        @RawField
+        void setScan(Pointer value);
+
+        /** Full chunks that were replaced by a new {@link #getChunk()}, linked via next. */
+        @RawField
+        AlignedHeapChunk.AlignedHeader getFullChunks();
+
+        @RawField
+        void setFullChunks(AlignedHeapChunk.AlignedHeader value);
+
+        /** Promoted unaligned chunks, linked via next. */
+        @RawField
+        UnalignedHeapChunk.UnalignedHeader getUnalignedChunks();
+
+        @RawField
+        void setUnalignedChunks(UnalignedHeapChunk.UnalignedHeader value);
+    }
+
+    private static final int INITIAL_QUEUE_CAPACITY = 1024;
+
+    private static final VMMutex MUTEX = new VMMutex();
+    private static final VMCondition PHASE_STARTED = new VMCondition(MUTEX);
+    private static final VMCondition WORKER_FINISHED = new VMCondition(MUTEX);
+
+    /** Protects unaligned chunk promotion and the list of discovered reference objects. */
+    private static final UninterruptibleUtils.AtomicInteger GLOBAL_LOCK = new UninterruptibleUtils.AtomicInteger(0);
+    /** Workers that are looking for work or scanning, used for termination detection. */
+    private static final UninterruptibleUtils.AtomicInteger ACTIVE_WORKERS = new UninterruptibleUtils.AtomicInteger(0);
+
+    private static final FastThreadLocalWord<WorkerData> workerDataTL = FastThreadLocalFactory.createWord();
+
+    private static WorkerData workers = WordFactory.nullPointer();
+    private static int workerCount;
+
+    /* The following fields are protected by MUTEX. */
+    private static int phase;
+    private static int registeredWorkers;
+    private static int finishedWorkers;
+    private static int participatingWorkers;
+    private static boolean stopped;
+
+    private static boolean inParallelPhase;
+
+    private ParallelScavenge() { // all static
+    }
+
+    /** Allocates the worker data and starts the worker threads, if enabled. */
+    static void startWorkers() {
+        int count = HeapOptions.ParallelGCThreads.getValue();
+        if (count <= 1) {
+            return;
+        }
+        UnsignedWord workersSize = SizeOf.unsigned(WorkerData.class).multiply(count);
+        WorkerData data = ImageSingletons.lookup(UnmanagedMemorySupport.class).calloc(workersSize);
+        VMError.guarantee(data.isNonNull(), "Could not allocate the data of the parallel GC workers");
+        for (int i = 0; i < count; i++) {
+            WorkerData worker = getWorker(data, i);
+            UnsignedWord queueSize = getQueueEntrySize().multiply(INITIAL_QUEUE_CAPACITY);
+            Pointer queue = ImageSingletons.lookup(UnmanagedMemorySupport.class).malloc(queueSize);
+            PromotionSlot slots = ImageSingletons.lookup(UnmanagedMemorySupport.class).calloc(SizeOf.unsigned(PromotionSlot.class).multiply(getSlotCount()));
+            VMError.guarantee(queue.isNonNull() && slots.isNonNull(), "Could not allocate the data of the parallel GC workers");
+            worker.setQueue(queue);
+            worker.setQueueCapacity(INITIAL_QUEUE_CAPACITY);
+            worker.setSlots(slots);
+        }
+        workers = data;
+        workerCount = count;
+
+        /* Worker 0 is the thread that performs the collection. */
+        for (int i = 1; i < count; i++) {
+            new WorkerThread(i).start();
+        }
+    }
+
+    /** Stops the worker threads. The worker data is not freed as a worker might still use it. */
+    @Uninterruptible(reason = "Locking without transition requires that the whole critical section is uninterruptible.")
+    static void stopWorkers() {
+        MUTEX.lockNoTransition();
+        try {
+            stopped = true;
+            PHASE_STARTED.broadcast();
+        } finally {
+            MUTEX.unlock();
+        }
+    }
+
+    @AlwaysInline("GC performance")
+    static boolean isEnabled() {
+        return workers.isNonNull();
+    }
+
+    @AlwaysInline("GC performance")
+    static boolean isInParallelPhase() {
+        return inParallelPhase;
+    }
+
+    /**
+     * Scans all grey objects of the spaces that objects are promoted into, using all worker
+     * threads. This is the parallel counterpart of walking the grey objects with a
+     * {@link GreyObjectsWalker}.
+     */
+    static void scanGreyObjects(boolean isIncremental) {
+        assert VMOperation.isGCInProgress() && isEnabled() && !inParallelPhase;
+        HeapImpl heap = HeapImpl.getHeapImpl();
+        WorkerData self = getWorker(workers, 0);
+        workerDataTL.set(self);
+        inParallelPhase = true;
+        try {
+            if (isIncremental) {
+                heap.getYoungGeneration().handOffGreyObjects();
+            }
+            heap.getOldGeneration().handOffGreyObjects();
+
+            int participants = startPhase();
+            scanUntilTermination(self);
+            awaitWorkers(participants);
+        } finally {
+            inParallelPhase = false;
+            workerDataTL.set(WordFactory.nullPointer());
+        }
+
+        mergePromotedChunks();
+        if (isIncremental) {
+            heap.getYoungGeneration().skipGreyObjects();
+        }
+        heap.getOldGeneration().skipGreyObjects();
+    }
+
+    @Uninterruptible(reason = "Locking without transition requires that the whole critical section is uninterruptible.")
+    private static int startPhase() {
+        MUTEX.lockNoTransition();
+        try {
+            participatingWorkers = registeredWorkers;
+            finishedWorkers = 0;
+            ACTIVE_WORKERS.set(participatingWorkers + 1);
+            phase++;
+            PHASE_STARTED.broadcast();
+            return participatingWorkers;
+        } finally {
+            MUTEX.unlock();
+        }
+    }
+
+    @Uninterruptible(reason = "Locking without transition requires that the whole critical section is uninterruptible.")
+    private static void awaitWorkers(int participants) {
+        MUTEX.lockNoTransition();
+        try {
+            while (finishedWorkers < participants) {
+                WORKER_FINISHED.blockNoTransition();
+            }
+        } finally {
+            MUTEX.unlock();
+        }
+    }
+
+    /** Appends the chunks that the workers promoted objects into to the target spaces. */
+    private static void mergePromotedChunks() {
+        Log trace = Log.noopLog().string("[ParallelScavenge.mergePromotedChunks:");
+        for (int i = 0; i < workerCount; i++) {
+            WorkerData worker = getWorker(workers, i);
+            assert worker.getQueueHead() == worker.getQueueTail() : "work left in queue";
+            for (int slotIndex = 0; slotIndex < getSlotCount(); slotIndex++) {
+                PromotionSlot slot = getSlot(worker, slotIndex);
+                Space space = getSpaceForSlot(slotIndex);
+
+                AlignedHeapChunk.AlignedHeader aChunk = slot.getFullChunks();
+                while (aChunk.isNonNull()) {
+                    AlignedHeapChunk.AlignedHeader next = HeapChunk.getNext(aChunk);
+                    space.appendAlignedHeapChunk(aChunk);
+                    aChunk = next;
+                }
+                if (slot.getChunk().isNonNull()) {
+                    space.appendAlignedHeapChunk(slot.getChunk());
+                }
+                UnalignedHeapChunk.UnalignedHeader uChunk = slot.getUnalignedChunks();
+                while (uChunk.isNonNull()) {
+                    UnalignedHeapChunk.UnalignedHeader next = HeapChunk.getNext(uChunk);
+                    space.appendUnalignedHeapChunk(uChunk);
+                    uChunk = next;
+                }
+                trace.string("  worker: ").signed(i).string("  space: ").string(space.getName());
+
+                slot.setChunk(WordFactory.nullPointer());
+                slot.setScan(WordFactory.nullPointer());
+                slot.setFullChunks(WordFactory.nullPointer());
+                slot.setUnalignedChunks(WordFactory.nullPointer());
+            }
+        }
+        trace.string("]").newline();
+    }
+
+    /** Adds a range of grey objects to the work deque of the current worker. */
+    static void pushWork(Pointer start, Pointer end) {
+        push(workerDataTL.get(), start, end);
+    }
+
+    /** The parallel counterpart of {@link HeapImpl#promoteObject}. */
+    static Object promoteObject(Object original, UnsignedWord header) {
+        if (ObjectHeaderImpl.isAlignedHeader(header)) {
+            AlignedHeapChunk.AlignedHeader originalChunk = AlignedHeapChunk.getEnclosingChunk(original);
+            Space originalSpace = HeapChunk.getSpace(originalChunk);
+            if (originalSpace.isFromSpace()) {
+                return promoteAlignedObject(original, header, originalSpace);
+            }
+        } else {
+            assert ObjectHeaderImpl.isUnalignedHeader(header);
+            promoteUnalignedChunk(UnalignedHeapChunk.getEnclosingChunk(original));
+        }
+        return original;
+    }
+
+    private static Object promoteAlignedObject(Object original, UnsignedWord header, Space originalSpace) {
+        WorkerData self = workerDataTL.get();
+        int slotIndex = getPromotionSlotIndex(originalSpace);
+        PromotionSlot slot = getSlot(self, slotIndex);
+
+        /* The header might be replaced by a forwarding header at any time, so don't re-read it. */
+        DynamicHub hub = ObjectHeaderImpl.getObjectHeaderImpl().dynamicHubFromObjectHeader(header);
+        UnsignedWord size = LayoutEncoding.getSizeFromObject(original, hub);
+        Pointer copyMemory = allocate(self, slot, slotIndex, size);
+        UnmanagedMemoryUtil.copyLongsForward(Word.objectToUntrackedPointer(original), copyMemory, size);
+        Object copy = copyMemory.toObject();
+
+        Object result = ObjectHeaderImpl.installForwardingPointerParallel(original, header, copy);
+        if (result != copy) {
+            /* Another worker was faster: nothing was allocated after the copy, so undo it. */
+            assert HeapChunk.getTopPointer(slot.getChunk()).equal(copyMemory.add(size));
+            HeapChunk.setTopPointer(slot.getChunk(), copyMemory);
+            return result;
+        }
+        if (slotIndex == getOldSlotIndex()) {
+            RememberedSet.get().enableRememberedSetForObject(slot.getChunk(), copy);
+        }
+        return copy;
+    }
+
+    private static Pointer allocate(WorkerData self, PromotionSlot slot, int slotIndex, UnsignedWord size) {
+        AlignedHeapChunk.AlignedHeader chunk = slot.getChunk();
+        if (chunk.isNonNull()) {
+            Pointer result = AlignedHeapChunk.allocateMemory(chunk, size);
+            if (result.isNonNull()) {
+                return result;
+            }
+            /* Share the unscanned remainder of the full chunk. */
+            Pointer scan = slot.getScan();
+            Pointer top = HeapChunk.getTopPointer(chunk);
+            if (scan.belowThan(top)) {
+                push(self, scan, top);
+            }
+            HeapChunk.setNext(chunk, slot.getFullChunks());
+            slot.setFullChunks(chunk);
+        }
+
+        AlignedHeapChunk.AlignedHeader newChunk = HeapImpl.getChunkProvider().produceAlignedChunk();
+        HeapChunk.setSpace(newChunk, getSpaceForSlot(slotIndex));
+        HeapChunk.setPrevious(newChunk, WordFactory.nullPointer());
+        HeapChunk.setNext(newChunk, WordFactory.nullPointer());
+        if (slotIndex == getOldSlotIndex()) {
+            RememberedSet.get().enableRememberedSetForChunk(newChunk);
+        }
+        slot.setChunk(newChunk);
+        slot.setScan(AlignedHeapChunk.getObjectsStart(newChunk));
+
+        Pointer result = AlignedHeapChunk.allocateMemory(newChunk, size);
+        if (result.isNull()) {
+            throw VMError.shouldNotReachHere("Promotion failure");
+        }
+        return result;
+    }
+
+    private static void promoteUnalignedChunk(UnalignedHeapChunk.UnalignedHeader chunk) {
+        if (!HeapChunk.getSpace(chunk).isFromSpace()) {
+            return;
+        }
+        acquireGlobalLock();
+        try {
+            /* Check again, another worker might have promoted the chunk in the meanwhile. */
+            Space originalSpace = HeapChunk.getSpace(chunk);
+            if (!originalSpace.isFromSpace()) {
+                return;
+            }
+            int slotIndex = getPromotionSlotIndex(originalSpace);
+            PromotionSlot slot = getSlot(workerDataTL.get(), slotIndex);
+            originalSpace.extractUnalignedHeapChunk(chunk);
+            HeapChunk.setSpace(chunk, getSpaceForSlot(slotIndex));
+            HeapChunk.setNext(chunk, slot.getUnalignedChunks());
+            slot.setUnalignedChunks(chunk);
+            if (slotIndex == getOldSlotIndex()) {
+                if (originalSpace.isYoungSpace()) {
+                    RememberedSet.get().enableRememberedSetForChunk(chunk);
+                } else {
+                    assert originalSpace.isOldSpace();
+                    RememberedSet.get().clearRememberedSet(chunk);
+                }
+            }
+        } finally {
+            releaseGlobalLock();
+        }
+        pushWork(UnalignedHeapChunk.getObjectStart(chunk), HeapChunk.getTopPointer(chunk));
+    }
+
+    /** Same target space selection as in {@link YoungGeneration} and {@link OldGeneration}. */
+    private static int getPromotionSlotIndex(Space originalSpace) {
+        int maxSurvivorSpaces = HeapPolicy.getMaxSurvivorSpaces();
+        if (maxSurvivorSpaces > 0 && !GCImpl.getGCImpl().isCompleteCollection() && originalSpace.getAge() < HeapImpl.getHeapImpl().getYoungGeneration().getTenuringAge()) {
+            return originalSpace.getNextAgeForPromotion() - 1;
+        }
+        return getOldSlotIndex();
+    }
+
+    private static Space getSpaceForSlot(int slotIndex) {
+        HeapImpl heap = HeapImpl.getHeapImpl();
+        if (slotIndex == getOldSlotIndex()) {
+            return heap.getOldGeneration().getToSpace();
+        }
+        return heap.getYoungGeneration().getSurvivorToSpaceAt(slotIndex);
+    }
+
+    @Fold
+    static int getOldSlotIndex() {
+        return HeapPolicy.getMaxSurvivorSpaces();
+    }
+
+    @Fold
+    static int getSlotCount() {
+        return getOldSlotIndex() + 1;
+    }
+
+    /**
+     * Scans grey objects until all workers ran out of work. A worker only becomes inactive when
+     * its own deque is empty and only the owner adds work to a deque, so there can't be any work
+     * left once all workers are inactive.
+     */
+    private static void scanUntilTermination(WorkerData self) {
+        boolean inNative = getWorkerIndex(self) != 0;
+        while (true) {
+            scanAvailableWork(self, inNative);
+            ACTIVE_WORKERS.decrementAndGet();
+            while (!hasQueuedWork()) {
+                if (ACTIVE_WORKERS.get() == 0) {
+                    return;
+                }
+                if (inNative) {
+                    /* See awaitAndScanInNative. */
+                    Safepoint.resetSafepointRequestedForVMOperationHelper();
+                }
+                PauseNode.pause();
+            }
+            ACTIVE_WORKERS.incrementAndGet();
+        }
+    }
+
+    private static void scanAvailableWork(WorkerData self, boolean inNative) {
+        while (scanFromQueue(self, true) || scanPromotedObjects(self) || steal(self)) {
+            if (inNative) {
+                /* See awaitAndScanInNative. */
+                Safepoint.resetSafepointRequestedForVMOperationHelper();
+            }
+        }
+    }
+
+    private static boolean steal(WorkerData self) {
+        int selfIndex = getWorkerIndex(self);
+        for (int i = 1; i < workerCount; i++) {
+            WorkerData victim = getWorker(workers, (selfIndex + i) % workerCount);
+            if (victim.getQueueHead() < victim.getQueueTail() && scanFromQueue(victim, false)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasQueuedWork() {
+        for (int i = 0; i < workerCount; i++) {
+            WorkerData worker = getWorker(workers, i);
+            if (worker.getQueueHead() < worker.getQueueTail()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Scans the objects that the current worker promoted into its own chunks. */
+    private static boolean scanPromotedObjects(WorkerData self) {
+        GreyToBlackObjectVisitor visitor = GCImpl.getGCImpl().getGreyToBlackObjectVisitor();
+        boolean scanned = false;
+        for (int slotIndex = 0; slotIndex < getSlotCount(); slotIndex++) {
+            PromotionSlot slot = getSlot(self, slotIndex);
+            while (slot.getChunk().isNonNull()) {
+                AlignedHeapChunk.AlignedHeader chunk = slot.getChunk();
+                Pointer scan = slot.getScan();
+                if (scan.aboveOrEqual(HeapChunk.getTopPointer(chunk))) {
+                    break;
+                }
+                scanned = true;
+                /* Move the scan pointer first, the visitor might replace the chunk. */
+                Object obj = scan.toObject();
+                slot.setScan(scan.add(LayoutEncoding.getSizeFromObject(obj)));
+                visitor.visitObjectInline(obj);
+
+                if (slot.getChunk().equal(chunk) && ACTIVE_WORKERS.get() <= participatingWorkers && self.getQueueHead() == self.getQueueTail()) {
+                    /* Other workers are idle: share the rest. */
+                    Pointer start = slot.getScan();
+                    Pointer end = HeapChunk.getTopPointer(chunk);
+                    if (start.belowThan(end)) {
+                        slot.setScan(end);
+                        push(self, start, end);
+                    }
+                }
+            }
+        }
+        return scanned;
+    }
+
+    private static boolean scanFromQueue(WorkerData queueOwner, boolean fromTail) {
+        Pointer start;
+        Pointer end;
+        lock(queueOwner);
+        try {
+            int head = queueOwner.getQueueHead();
+            int tail = queueOwner.getQueueTail();
+            if (head >= tail) {
+                return false;
+            }
+            int index;
+            if (fromTail) {
+                tail--;
+                index = tail;
+            } else {
+                index = head;
+                head++;
+            }
+            if (head == tail) {
+                head = 0;
+                tail = 0;
+            }
+            queueOwner.setQueueHead(head);
+            queueOwner.setQueueTail(tail);
+            Pointer entry = getQueueEntry(queueOwner, index);
+            start = entry.readWord(0);
+            end = entry.readWord(ConfigurationValues.getTarget().wordSize);
+        } finally {
+            unlock(queueOwner);
+        }
+        scanRange(start, end);
+        return true;
+    }
+
+    private static void scanRange(Pointer start, Pointer end) {
+        GreyToBlackObjectVisitor visitor = GCImpl.getGCImpl().getGreyToBlackObjectVisitor();
+        Pointer cur = start;
+        while (cur.belowThan(end)) {
+            Object obj = cur.toObject();
+            UnsignedWord size = LayoutEncoding.getSizeFromObject(obj);
+            visitor.visitObjectInline(obj);
+            cur = cur.add(size);
+        }
+    }
+
+    private static void push(WorkerData worker, Pointer start, Pointer end) {
+        lock(worker);
+        try {
+            int tail = worker.getQueueTail();
+            if (tail == worker.getQueueCapacity()) {
+                makeRoom(worker);
+                tail = worker.getQueueTail();
+            }
+            Pointer entry = getQueueEntry(worker, tail);
+            entry.writeWord(0, start);
+            entry.writeWord(ConfigurationValues.getTarget().wordSize, end);
+            worker.setQueueTail(tail + 1);
+        } finally {
+            unlock(worker);
+        }
+    }
+
+    private static void makeRoom(WorkerData worker) {
+        int head = worker.getQueueHead();
+        int tail = worker.getQueueTail();
+        if (head > 0) {
+            /* Entries were stolen from the head, move the remaining ones to the start. */
+            UnmanagedMemoryUtil.copyForward(getQueueEntry(worker, head), worker.getQueue(), getQueueEntrySize().multiply(tail - head));
+            worker.setQueueHead(0);
+            worker.setQueueTail(tail - head);
+        } else {
+            int newCapacity = worker.getQueueCapacity() * 2;
+            Pointer newQueue = ImageSingletons.lookup(UnmanagedMemorySupport.class).realloc(worker.getQueue(), getQueueEntrySize().multiply(newCapacity));
+            if (newQueue.isNull()) {
+                throw VMError.shouldNotReachHere("Could not grow the work queue of a parallel GC worker");
+            }
+            worker.setQueue(newQueue);
+            worker.setQueueCapacity(newCapacity);
+        }
+    }
+
+    private static void lock(WorkerData worker) {
+        while (!((Pointer) worker).logicCompareAndSwapInt(WorkerData.offsetOfLock(), 0, 1, LocationIdentity.ANY_LOCATION)) {
+            PauseNode.pause();
+        }
+    }
+
+    private static void unlock(WorkerData worker) {
+        boolean released = ((Pointer) worker).logicCompareAndSwapInt(WorkerData.offsetOfLock(), 1, 0, LocationIdentity.ANY_LOCATION);
+        assert released;
+    }
+
+    static void acquireGlobalLock() {
+        while (!GLOBAL_LOCK.compareAndSet(0, 1)) {
+            PauseNode.pause();
+        }
+    }
+
+    static void releaseGlobalLock() {
+        GLOBAL_LOCK.set(0);
+    }
+
+    private static WorkerData getWorker(WorkerData first, int index) {
+        return (WorkerData) ((Pointer) first).add(SizeOf.unsigned(WorkerData.class).multiply(index));
+    }
+
+    private static int getWorkerIndex(WorkerData worker) {
+        return (int) ((Pointer) worker).subtract((Pointer) workers).unsignedDivide(SizeOf.unsigned(WorkerData.class)).rawValue();
+    }
+
+    private static PromotionSlot getSlot(WorkerData worker, int slotIndex) {
+        return (PromotionSlot) ((Pointer) worker.getSlots()).add(SizeOf.unsigned(PromotionSlot.class).multiply(slotIndex));
+    }
+
+    private static Pointer getQueueEntry(WorkerData worker, int index) {
+        return worker.getQueue().add(getQueueEntrySize().multiply(index));
+    }
+
+    @Fold
+    static UnsignedWord getQueueEntrySize() {
+        return WordFactory.unsigned(2 * ConfigurationValues.getTarget().wordSize);
+    }
+
+    /**
+     * Waits in native code for the next parallel phase. Returns false if the worker should stop.
+     */
+    @NeverInline("Must not be inlined in a caller that has an exception handler: We only support InvokeNode and not InvokeWithExceptionNode between a CFunctionPrologueNode and CFunctionEpilogueNode")
+    private static boolean transitionToNativeThenAwaitAndScan() {
+        CFunctionPrologueNode.cFunctionPrologue(VMThreads.StatusSupport.STATUS_IN_NATIVE);
+        boolean keepRunning = awaitAndScanInNative();
+        CFunctionEpilogueNode.cFunctionEpilogue(VMThreads.StatusSupport.STATUS_IN_NATIVE);
+        return keepRunning;
+    }
+
+    @Uninterruptible(reason = "In native.", calleeMustBe = false)
+    @NeverInline("Provide a return address for the Java frame anchor.")
+    private static boolean awaitAndScanInNative() {
+        /*
+         * This thread stays in native state during the whole collection, so that the collection
+         * does not wait for it. The scanning code is interruptible though, so it must not enter
+         * the safepoint slow path. Safepoint polls only decrement the thread-local counter and
+         * enter the slow path when it reaches 0. The counter of this thread was negated or cleared
+         * when the safepoint of the collection was requested, so we reset it to Integer.MAX_VALUE
+         * here, and again before every work item and while spinning for work: either needs far
+         * fewer polls. Nothing else can lower the counter in the meantime: no other safepoint can
+         * be requested while the collector holds this one, and otherwise only the thread itself
+         * sets its counter, from the slow path or when it registers a recurring callback, which a
+         * worker never does. Should a poll still reach the slow path, enterSlowPathSafepointCheck
+         * fails its guarantee that the thread is in Java state, i.e., the VM stops with a fatal
+         * error instead of blocking this worker at the safepoint (which would deadlock the
+         * collector that waits for the workers) or resuming it in Java state during the GC.
+         */
+        WorkerData self = workerDataTL.get();
+        if (!awaitPhase(self)) {
+            return false;
+        }
+        Safepoint.resetSafepointRequestedForVMOperationHelper();
+        scanUntilTermination(self);
+        noteWorkerFinished();
+        return true;
+    }
+
+    @Uninterruptible(reason = "Locking without transition requires that the whole critical section is uninterruptible.")
+    private static boolean awaitPhase(WorkerData self) {
+        MUTEX.lockNoTransition();
+        try {
+            if (!self.getRegistered()) {
+                /* Participate starting with the next phase. */
+                self.setRegistered(true);
+                self.setSeenPhase(phase);
+                registeredWorkers++;
+            }
+            while (!stopped && self.getSeenPhase() == phase) {
+                PHASE_STARTED.blockNoTransition();
+            }
+            self.setSeenPhase(phase);
+            return !stopped;
+        } finally {
+            MUTEX.unlock();
+        }
+    }
+
+    @Uninterruptible(reason = "Locking without transition requires that the whole critical section is uninterruptible.")
+    private static void noteWorkerFinished() {
+        MUTEX.lockNoTransition();
+        try {
+            finishedWorkers++;
+            WORKER_FINISHED.broadcast();
+        } finally {
+            MUTEX.unlock();
+        }
+    }
+
+    private static final class WorkerThread extends Thread {
+        private final int index;
+
+        WorkerThread(int index) {
+            super("GC Worker " + index);
+            this.index = index;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                workerDataTL.set(getWorker(workers, index));
+                while (transitionToNativeThenAwaitAndScan()) {
+                    /* Wait for the next collection. */
+                }
+            } catch (Throwable e) {
+                VMError.shouldNotReachHere("No exception must be thrown in a parallel GC worker thread.");
+            }
+        }
+    }
+}
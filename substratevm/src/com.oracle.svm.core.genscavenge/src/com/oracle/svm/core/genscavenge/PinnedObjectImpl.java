@@ -36,6 +36,7 @@ import org.graalvm.word.UnsignedWord;
 import com.oracle.svm.core.SubstrateOptions;
 import com.oracle.svm.core.annotate.AutomaticFeature;
 import com.oracle.svm.core.annotate.Uninterruptible;
+import com.oracle.svm.core.annotate.WritesArrayElements;
 import com.oracle.svm.core.heap.ObjectHeader;
 import com.oracle.svm.core.hub.DynamicHub;
 import com.oracle.svm.core.hub.LayoutEncoding;
@@ -127,6 +128,7 @@ final class PinnedObjectImpl implements PinnedObject {
     }
 
     @Override
+    @WritesArrayElements
     public Pointer addressOfObject() {
         assert open : "Should not call addressOfObject() on a closed PinnedObject.";
         return Word.objectToUntrackedPointer(referent);
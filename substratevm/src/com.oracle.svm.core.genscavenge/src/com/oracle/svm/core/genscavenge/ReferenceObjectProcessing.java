@@ -27,9 +27,11 @@ package com.oracle.svm.core.genscavenge;
 import static org.graalvm.compiler.nodes.extended.BranchProbabilityNode.SLOW_PATH_PROBABILITY;
 import static org.graalvm.compiler.nodes.extended.BranchProbabilityNode.probability;
 
+import java.lang.ref.PhantomReference;
 import java.lang.ref.Reference;
 import java.lang.ref.ReferenceQueue;
 import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
 
 import org.graalvm.word.Pointer;
 import org.graalvm.word.UnsignedWord;
@@ -41,6 +43,7 @@ import com.oracle.svm.core.heap.Heap;
 import com.oracle.svm.core.heap.ObjectReferenceVisitor;
 import com.oracle.svm.core.heap.ReferenceInternals;
 import com.oracle.svm.core.hub.DynamicHub;
+import com.oracle.svm.core.log.Log;
 import com.oracle.svm.core.snippets.KnownIntrinsics;
 import com.oracle.svm.core.thread.VMOperation;
 import com.oracle.svm.core.util.UnsignedUtils;
@@ -65,6 +68,16 @@ final class ReferenceObjectProcessing {
      */
     private static long initialSoftRefClock = 0;
 
+    /*
+     * Counts of the current collection per type of reference, see getTypeIndex(). Only the
+     * reachability of the referents is decided during the collection: enqueueing the pending
+     * references and running cleaners is left to the reference handler.
+     */
+    private static final String[] TYPE_NAMES = {"soft", "weak", "phantom", "other"};
+    private static final long[] discoveredCounts = new long[TYPE_NAMES.length];
+    private static final long[] clearedCounts = new long[TYPE_NAMES.length];
+    private static final long[] pendingCounts = new long[TYPE_NAMES.length];
+
     private ReferenceObjectProcessing() { // all static
     }
 
@@ -138,6 +151,20 @@ final class ReferenceObjectProcessing {
         // lets add the reference to the list of remembered references. All remembered references
         // are revisited after the GC finished promoting all strongly reachable objects.
 
+        if (ParallelScavenge.isInParallelPhase()) {
+            ParallelScavenge.acquireGlobalLock();
+            try {
+                addToRememberedRefsList(dr);
+            } finally {
+                ParallelScavenge.releaseGlobalLock();
+            }
+        } else {
+            addToRememberedRefsList(dr);
+        }
+    }
+
+    private static void addToRememberedRefsList(Reference<?> dr) {
+        discoveredCounts[getTypeIndex(dr)]++;
         // null link means undiscovered, avoid for the last node with a cyclic reference
         Reference<?> next = (rememberedRefsList != null) ? rememberedRefsList : dr;
         ReferenceInternals.setNextDiscovered(dr, next);
@@ -146,12 +173,12 @@ final class ReferenceObjectProcessing {
 
     /**
      * Updates remembered references according to the liveness of the referent, dirtying cards, and
-     * clears the discovered status of non-pending references.
-     *
-     * @return a list of those references which are pending to be added to a {@link ReferenceQueue}.
+     * clears the discovered status of non-pending references. Those references which are pending
+     * to be added to a {@link ReferenceQueue} are appended to the pending list of the heap.
      */
-    static Reference<?> processRememberedReferences() {
+    static void processRememberedReferences() {
         Reference<?> pendingHead = null;
+        Reference<?> pendingTail = null;
         Reference<?> current = rememberedRefsList;
         rememberedRefsList = null;
 
@@ -161,11 +188,20 @@ final class ReferenceObjectProcessing {
             assert next != null;
             next = (next != current) ? next : null;
 
-            if (!processRememberedRef(current) && ReferenceInternals.hasQueue(current)) {
+            int typeIndex = getTypeIndex(current);
+            boolean live = processRememberedRef(current);
+            if (!live) {
+                clearedCounts[typeIndex]++;
+            }
+            if (!live && ReferenceInternals.hasQueue(current)) {
                 // The referent is dead, so add it to the list of references that will be processed
                 // by the reference handler.
                 ReferenceInternals.setNextDiscovered(current, pendingHead);
+                if (pendingHead == null) {
+                    pendingTail = current;
+                }
                 pendingHead = current;
+                pendingCounts[typeIndex]++;
             } else {
                 // No need to enqueue this reference.
                 ReferenceInternals.setNextDiscovered(current, null);
@@ -174,7 +210,15 @@ final class ReferenceObjectProcessing {
             current = next;
         }
 
-        return pendingHead;
+        HeapImpl.getHeapImpl().addToReferencePendingList(pendingHead, pendingTail);
+    }
+
+    static void beforeCollection() {
+        for (int i = 0; i < TYPE_NAMES.length; i++) {
+            discoveredCounts[i] = 0;
+            clearedCounts[i] = 0;
+            pendingCounts[i] = 0;
+        }
     }
 
     static void afterCollection(UnsignedWord usedBytes, UnsignedWord maxBytes) {
@@ -187,6 +231,25 @@ final class ReferenceObjectProcessing {
         }
     }
 
+    /** Prints the discovered, cleared and pending references of the last collection per type. */
+    static void logCounts(Log log) {
+        log.string("  references (discovered/cleared/pending):");
+        for (int i = 0; i < TYPE_NAMES.length; i++) {
+            log.string(" ").string(TYPE_NAMES[i]).string(": ").signed(discoveredCounts[i]).string("/").signed(clearedCounts[i]).string("/").signed(pendingCounts[i]);
+        }
+    }
+
+    private static int getTypeIndex(Reference<?> dr) {
+        if (dr instanceof SoftReference) {
+            return 0;
+        } else if (dr instanceof WeakReference) {
+            return 1;
+        } else if (dr instanceof PhantomReference) {
+            return 2;
+        }
+        return 3;
+    }
+
     /**
      * Determine if the referent is live, updating the reference field, and dirtying cards.
      *
@@ -226,6 +289,9 @@ final class ReferenceObjectProcessing {
     }
 
     private static boolean willSurviveThisCollection(Object obj) {
+        if (MarkCompactCollector.isMarking()) {
+            return MarkCompactCollector.isMarked(obj);
+        }
         HeapChunk.Header<?> chunk = HeapChunk.getEnclosingHeapChunk(obj);
         Space space = HeapChunk.getSpace(chunk);
         return !space.isFromSpace();
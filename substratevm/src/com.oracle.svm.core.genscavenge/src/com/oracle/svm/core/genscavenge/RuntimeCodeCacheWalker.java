@@ -27,14 +27,19 @@ package com.oracle.svm.core.genscavenge;
 import org.graalvm.compiler.word.Word;
 import org.graalvm.nativeimage.Platform;
 import org.graalvm.nativeimage.Platforms;
+import org.graalvm.word.Pointer;
+import org.graalvm.word.UnsignedWord;
 
 import com.oracle.svm.core.SubstrateGCOptions;
 import com.oracle.svm.core.annotate.DuplicatedInNativeCode;
 import com.oracle.svm.core.code.CodeInfo;
 import com.oracle.svm.core.code.CodeInfoAccess;
+import com.oracle.svm.core.code.CodeInfoTable;
+import com.oracle.svm.core.code.RuntimeCodeCache;
 import com.oracle.svm.core.code.RuntimeCodeCache.CodeInfoVisitor;
 import com.oracle.svm.core.code.RuntimeCodeInfoAccess;
 import com.oracle.svm.core.code.UntetheredCodeInfoAccess;
+import com.oracle.svm.core.deopt.SubstrateInstalledCode;
 import com.oracle.svm.core.heap.ObjectReferenceVisitor;
 
 /**
@@ -45,10 +50,16 @@ import com.oracle.svm.core.heap.ObjectReferenceVisitor;
  * This class analyzes which runtime-compiled code references otherwise unreachable Java heap
  * objects. Based on that information, it determines which parts of the code cache can be freed and
  * it makes sure that the GC visits all object references of code that may stay alive.
+ * <p>
+ * If the reachability of all tether objects is known, i.e., in a complete collection, the walker
+ * also ages the code: code whose {@link SubstrateInstalledCode#getAndClearUsed usage bit} was set
+ * since the previous aging cycle is in use, all other code becomes cold after a while and may be
+ * evicted if the {@link RuntimeCodeCache} exceeds its size limit, unless its tether is reachable.
  */
 final class RuntimeCodeCacheWalker implements CodeInfoVisitor {
     private final RuntimeCodeCacheReachabilityAnalyzer checkForUnreachableObjectsVisitor;
     private final ObjectReferenceVisitor greyToBlackObjectVisitor;
+    private boolean ageCode;
 
     @Platforms(Platform.HOSTED_ONLY.class)
     RuntimeCodeCacheWalker(ObjectReferenceVisitor greyToBlackObjectVisitor) {
@@ -56,6 +67,10 @@ final class RuntimeCodeCacheWalker implements CodeInfoVisitor {
         this.greyToBlackObjectVisitor = greyToBlackObjectVisitor;
     }
 
+    void setAgeCode(boolean value) {
+        this.ageCode = value;
+    }
+
     @Override
     @DuplicatedInNativeCode
     public <T extends CodeInfo> boolean visitCode(T codeInfo) {
@@ -91,11 +106,24 @@ final class RuntimeCodeCacheWalker implements CodeInfoVisitor {
              * to make sure that all the objects that are accessed during the invalidation remain
              * reachable. Those objects can only be collected in a subsequent garbage collection.
              */
-            if (state == CodeInfo.STATE_NON_ENTRANT || invalidateCodeThatReferencesUnreachableObjects && state == CodeInfo.STATE_CODE_CONSTANTS_LIVE && hasWeakReferenceToUnreachableObject(codeInfo)) {
+            boolean invalidate = state == CodeInfo.STATE_NON_ENTRANT ||
+                            invalidateCodeThatReferencesUnreachableObjects && state == CodeInfo.STATE_CODE_CONSTANTS_LIVE && hasWeakReferenceToUnreachableObject(codeInfo);
+            if (!invalidate && ageCode && state == CodeInfo.STATE_CODE_CONSTANTS_LIVE) {
+                if (getAndClearUsed(codeInfo)) {
+                    CodeInfoTable.getRuntimeCodeCache().markInUse(codeInfo);
+                } else {
+                    /* The code was not entered, so it ages and may get evicted if it is cold. */
+                    invalidate = CodeInfoTable.getRuntimeCodeCache().ageUnusedCode(codeInfo);
+                }
+            }
+            if (invalidate) {
                 RuntimeCodeInfoAccess.walkObjectFields(codeInfo, greyToBlackObjectVisitor);
                 CodeInfoAccess.setState(codeInfo, CodeInfo.STATE_READY_FOR_INVALIDATION);
                 return true;
             }
+        } else if (tether != null && ageCode && getAndClearUsed(codeInfo)) {
+            /* A reachable tether only protects the code from eviction, it is no usage signal. */
+            CodeInfoTable.getRuntimeCodeCache().markInUse(codeInfo);
         }
 
         /*
@@ -111,6 +139,23 @@ final class RuntimeCodeCacheWalker implements CodeInfoVisitor {
         return true;
     }
 
+    /**
+     * Returns and clears the usage bit that the entry path of the code sets. If the installed code
+     * object was already copied, the bit is cleared in the copy so that the update is not lost.
+     */
+    private static boolean getAndClearUsed(CodeInfo codeInfo) {
+        Object installedCode = UntetheredCodeInfoAccess.getInstalledCodeUnsafe(codeInfo);
+        if (installedCode == null) {
+            return false;
+        }
+        Pointer ptr = Word.objectToUntrackedPointer(installedCode);
+        UnsignedWord header = ObjectHeaderImpl.readHeaderFromPointer(ptr);
+        if (ObjectHeaderImpl.isForwardedHeader(header)) {
+            installedCode = ObjectHeaderImpl.getForwardedObject(ptr, header);
+        }
+        return ((SubstrateInstalledCode) installedCode).getAndClearUsed();
+    }
+
     private static boolean isReachable(Object possiblyForwardedObject) {
         return RuntimeCodeCacheReachabilityAnalyzer.isReachable(Word.objectToUntrackedPointer(possiblyForwardedObject));
     }
@@ -24,6 +24,9 @@
  */
 package com.oracle.svm.core.genscavenge;
 
+import org.graalvm.word.UnsignedWord;
+
+import com.oracle.svm.core.heap.GCListenerSupport;
 import com.oracle.svm.core.log.Log;
 
 /**
@@ -31,13 +34,22 @@ import com.oracle.svm.core.log.Log;
  * {@linkplain #close() stopped}.
  */
 final class Timer implements AutoCloseable {
+    /** The timer does not measure a pause phase that is reported to {@link GCListenerSupport}. */
+    static final int NO_PAUSE_PHASE = -1;
+
     private final String name;
+    private final int pauseLevel;
     private long openNanos;
     private long closeNanos;
     private long collectedNanos;
 
     Timer(String name) {
+        this(name, NO_PAUSE_PHASE);
+    }
+
+    Timer(String name, int pauseLevel) {
         this.name = name;
+        this.pauseLevel = pauseLevel;
     }
 
     public String getName() {
@@ -58,6 +70,10 @@ final class Timer implements AutoCloseable {
         }
         closeNanos = System.nanoTime();
         collectedNanos += closeNanos - openNanos;
+        if (pauseLevel != NO_PAUSE_PHASE && GCListenerSupport.get().hasListeners()) {
+            UnsignedWord gcEpoch = HeapImpl.getHeapImpl().getGCImpl().getCollectionEpoch();
+            GCListenerSupport.get().phasePause(gcEpoch, pauseLevel, name, openNanos, closeNanos);
+        }
     }
 
     public void reset() {
@@ -90,25 +106,39 @@ final class Timer implements AutoCloseable {
 
 /** Collection timers primarily for {@link GCImpl}. */
 final class Timers {
-    final Timer blackenImageHeapRoots = new Timer("blackenImageHeapRoots");
-    final Timer blackenDirtyCardRoots = new Timer("blackenDirtyCardRoots");
-    final Timer blackenStackRoots = new Timer("blackenStackRoots");
-    final Timer cheneyScanFromRoots = new Timer("cheneyScanFromRoots");
-    final Timer cheneyScanFromDirtyRoots = new Timer("cheneyScanFromDirtyRoots");
-    final Timer collection = new Timer("collection");
-    final Timer cleanCodeCache = new Timer("cleanCodeCache");
-    final Timer referenceObjects = new Timer("referenceObjects");
-    final Timer promotePinnedObjects = new Timer("promotePinnedObjects");
-    final Timer rootScan = new Timer("rootScan");
-    final Timer scanGreyObjects = new Timer("scanGreyObjects");
-    final Timer releaseSpaces = new Timer("releaseSpaces");
-    final Timer verifyAfter = new Timer("verifyAfter");
-    final Timer verifyBefore = new Timer("verifyBefore");
-    final Timer walkThreadLocals = new Timer("walkThreadLocals");
-    final Timer walkRuntimeCodeCache = new Timer("walkRuntimeCodeCache");
-    final Timer cleanRuntimeCodeCache = new Timer("cleanRuntimeCodeCache");
+    /*
+     * The second constructor argument is the nesting level of the phase within the collection
+     * pause, see GCListener.phasePause. Level 0 is the whole pause and is reported by GCImpl.
+     */
+    final Timer blackenImageHeapRoots = new Timer("blackenImageHeapRoots", 4);
+    final Timer blackenDirtyCardRoots = new Timer("blackenDirtyCardRoots", 4);
+    final Timer blackenStackRoots = new Timer("blackenStackRoots", 4);
+    final Timer cheneyScanFromRoots = new Timer("cheneyScanFromRoots", 3);
+    final Timer cheneyScanFromDirtyRoots = new Timer("cheneyScanFromDirtyRoots", 3);
+    final Timer collection = new Timer("collection", 1);
+    final Timer cleanCodeCache = new Timer("cleanCodeCache", 2);
+    final Timer referenceObjects = new Timer("referenceObjects", 2);
+    final Timer promotePinnedObjects = new Timer("promotePinnedObjects", 4);
+    final Timer rootScan = new Timer("rootScan", 2);
+    final Timer scanGreyObjects = new Timer("scanGreyObjects", 4);
+    final Timer releaseSpaces = new Timer("releaseSpaces", 2);
+    final Timer markLiveObjects = new Timer("markLiveObjects", 2);
+    final Timer updateReferences = new Timer("updateReferences", 2);
+    final Timer compactOldGeneration = new Timer("compactOldGeneration", 2);
+    final Timer verifyAfter = new Timer("verifyAfter", 1);
+    final Timer verifyBefore = new Timer("verifyBefore", 1);
+    final Timer walkThreadLocals = new Timer("walkThreadLocals", 4);
+    final Timer walkRuntimeCodeCache = new Timer("walkRuntimeCodeCache", 4);
+    final Timer cleanRuntimeCodeCache = new Timer("cleanRuntimeCodeCache", 4);
     final Timer mutator = new Timer("mutator");
 
+    /*
+     * Card scanning that the concurrent precleaner did between the previous and this collection,
+     * and that therefore did not have to be done in blackenDirtyCardRoots.
+     */
+    long precleanedCards;
+    long precleanNanos;
+
     Timers() {
     }
 
@@ -131,7 +161,12 @@ final class Timers {
         cleanCodeCache.reset();
         referenceObjects.reset();
         releaseSpaces.reset();
+        markLiveObjects.reset();
+        updateReferences.reset();
+        compactOldGeneration.reset();
         verifyAfter.reset();
+        precleanedCards = 0;
+        precleanNanos = 0;
         /* The mutator timer is *not* reset here. */
         trace.string("]").newline();
     }
@@ -156,7 +191,12 @@ final class Timers {
             logOneTimer(log, "      ", cleanCodeCache);
             logOneTimer(log, "      ", referenceObjects);
             logOneTimer(log, "      ", releaseSpaces);
+            logOneTimer(log, "      ", markLiveObjects);
+            logOneTimer(log, "      ", updateReferences);
+            logOneTimer(log, "      ", compactOldGeneration);
             logOneTimer(log, "    ", verifyAfter);
+            logOneCounter(log, "    ", "concurrentPrecleanedCards", precleanedCards);
+            logOneCounter(log, "    ", "concurrentPreclean", precleanNanos);
             logGCLoad(log, "    ", "GCLoad", collection, mutator);
             log.string("]");
         }
@@ -168,6 +208,12 @@ final class Timers {
         }
     }
 
+    static void logOneCounter(Log log, String prefix, String name, long value) {
+        if (value > 0) {
+            log.newline().string(prefix).string(name).string(": ").signed(value);
+        }
+    }
+
     /**
      * Log the "GC load" for the past collection as the collection time divided by the sum of the
      * previous mutator interval plus the collection time. This method uses wall-time, and so does
@@ -35,6 +35,7 @@ import com.oracle.svm.core.annotate.Uninterruptible;
 import com.oracle.svm.core.genscavenge.GCImpl.ChunkReleaser;
 import com.oracle.svm.core.heap.ObjectVisitor;
 import com.oracle.svm.core.log.Log;
+import com.oracle.svm.core.thread.VMOperation;
 
 public final class YoungGeneration extends Generation {
     private final Space eden;
@@ -42,12 +43,14 @@ public final class YoungGeneration extends Generation {
     private final Space[] survivorToSpaces;
     private final GreyObjectsWalker[] survivorGreyObjectsWalkers;
     private final int maxSurvivorSpaces;
+    private int tenuringAge;
 
     @Platforms(Platform.HOSTED_ONLY.class)
     YoungGeneration(String name) {
         super(name);
         this.eden = new Space("edenSpace", true, 0);
         this.maxSurvivorSpaces = HeapPolicy.getMaxSurvivorSpaces();
+        this.tenuringAge = maxSurvivorSpaces;
         this.survivorFromSpaces = new Space[maxSurvivorSpaces];
         this.survivorToSpaces = new Space[maxSurvivorSpaces];
         this.survivorGreyObjectsWalkers = new GreyObjectsWalker[maxSurvivorSpaces];
@@ -62,6 +65,16 @@ public final class YoungGeneration extends Generation {
         return maxSurvivorSpaces;
     }
 
+    /** Objects that survived this many incremental collections are promoted to the old generation. */
+    int getTenuringAge() {
+        return tenuringAge;
+    }
+
+    void setTenuringAge(int age) {
+        assert VMOperation.isGCInProgress();
+        tenuringAge = Math.max(0, Math.min(age, maxSurvivorSpaces));
+    }
+
     @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
     void tearDown() {
         ThreadLocalAllocation.tearDown();
@@ -214,6 +227,18 @@ public final class YoungGeneration extends Generation {
         return true;
     }
 
+    void handOffGreyObjects() {
+        for (int i = 0; i < maxSurvivorSpaces; i++) {
+            getSurvivorGreyObjectsWalker(i).handOffGreyObjects();
+        }
+    }
+
+    void skipGreyObjects() {
+        for (int i = 0; i < maxSurvivorSpaces; i++) {
+            getSurvivorGreyObjectsWalker(i).skipGreyObjects();
+        }
+    }
+
     /**
      * This value is only updated during a GC. Be careful when calling this method during a GC as it
      * might wrongly include chunks that will be freed at the end of the GC.
@@ -255,7 +280,7 @@ public final class YoungGeneration extends Generation {
         assert originalSpace.isEdenSpace() || originalSpace.isSurvivorSpace() : "Should be Eden or survivor.";
         assert originalSpace.isFromSpace() : "must not be called for other objects";
 
-        if (originalSpace.getAge() < maxSurvivorSpaces) {
+        if (originalSpace.getAge() < tenuringAge) {
             int age = originalSpace.getNextAgeForPromotion();
             Space toSpace = getSurvivorToSpaceAt(age - 1);
             return toSpace.promoteAlignedObject(original, originalSpace);
@@ -268,7 +293,7 @@ public final class YoungGeneration extends Generation {
     private void promoteUnalignedObject(UnalignedHeapChunk.UnalignedHeader originalChunk, Space originalSpace) {
         assert originalSpace.isFromSpace() : "must not be called for other objects";
 
-        if (originalSpace.getAge() < maxSurvivorSpaces) {
+        if (originalSpace.getAge() < tenuringAge) {
             int age = originalSpace.getNextAgeForPromotion();
             Space toSpace = getSurvivorToSpaceAt(age - 1);
             toSpace.promoteUnalignedHeapChunk(originalChunk, originalSpace);
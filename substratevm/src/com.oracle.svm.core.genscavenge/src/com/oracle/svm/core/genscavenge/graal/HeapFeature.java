@@ -40,9 +40,11 @@ import com.oracle.svm.core.SubstrateOptions;
 import com.oracle.svm.core.annotate.AutomaticFeature;
 import com.oracle.svm.core.genscavenge.ChunkedImageHeapLayouter;
 import com.oracle.svm.core.genscavenge.CompleteGarbageCollectorMXBean;
+import com.oracle.svm.core.genscavenge.GenScavengePerfData;
 import com.oracle.svm.core.genscavenge.HeapImpl;
 import com.oracle.svm.core.genscavenge.HeapImplMemoryMXBean;
 import com.oracle.svm.core.genscavenge.ImageHeapInfo;
+import com.oracle.svm.core.genscavenge.ImageHeapPrefaulter;
 import com.oracle.svm.core.genscavenge.IncrementalGarbageCollectorMXBean;
 import com.oracle.svm.core.genscavenge.LinearImageHeapLayouter;
 import com.oracle.svm.core.genscavenge.remset.CardTableBasedRememberedSet;
@@ -56,8 +58,11 @@ import com.oracle.svm.core.graal.snippets.SubstrateAllocationSnippets;
 import com.oracle.svm.core.heap.Heap;
 import com.oracle.svm.core.image.ImageHeapLayouter;
 import com.oracle.svm.core.jdk.RuntimeFeature;
+import com.oracle.svm.core.jdk.RuntimeSupport;
 import com.oracle.svm.core.jdk.management.ManagementFeature;
 import com.oracle.svm.core.jdk.management.ManagementSupport;
+import com.oracle.svm.core.jvmstat.PerfDataFeature;
+import com.oracle.svm.core.jvmstat.PerfManager;
 
 @AutomaticFeature
 class HeapFeature implements GraalFeature {
@@ -69,7 +74,7 @@ class HeapFeature implements GraalFeature {
 
     @Override
     public List<Class<? extends Feature>> getRequiredFeatures() {
-        return Arrays.asList(RuntimeFeature.class, ManagementFeature.class);
+        return Arrays.asList(RuntimeFeature.class, ManagementFeature.class, PerfDataFeature.class);
     }
 
     @Override
@@ -82,6 +87,10 @@ class HeapFeature implements GraalFeature {
         ManagementSupport managementSupport = ManagementSupport.getSingleton();
         managementSupport.addPlatformManagedObjectSingleton(java.lang.management.MemoryMXBean.class, new HeapImplMemoryMXBean());
         managementSupport.addPlatformManagedObjectList(com.sun.management.GarbageCollectorMXBean.class, Arrays.asList(new IncrementalGarbageCollectorMXBean(), new CompleteGarbageCollectorMXBean()));
+
+        if (PerfManager.isEnabled()) {
+            PerfManager.singleton().register(new GenScavengePerfData());
+        }
     }
 
     @Override
@@ -101,6 +110,8 @@ class HeapFeature implements GraalFeature {
     public void beforeAnalysis(BeforeAnalysisAccess access) {
         // Needed for the barrier set
         access.registerAsUsed(Object[].class);
+
+        RuntimeSupport.getRuntimeSupport().addStartupHook(new ImageHeapPrefaulter());
     }
 
     @Override
@@ -27,6 +27,7 @@ package com.oracle.svm.core.genscavenge.remset;
 import java.util.List;
 
 import org.graalvm.compiler.api.replacements.Fold;
+import org.graalvm.compiler.nodes.extended.MembarNode;
 import org.graalvm.compiler.replacements.nodes.AssertionNode;
 import org.graalvm.compiler.word.Word;
 import org.graalvm.nativeimage.Platform;
@@ -36,27 +37,40 @@ import org.graalvm.word.Pointer;
 import org.graalvm.word.UnsignedWord;
 import org.graalvm.word.WordFactory;
 
+import com.oracle.svm.core.SubstrateUtil;
 import com.oracle.svm.core.annotate.AlwaysInline;
+import com.oracle.svm.core.annotate.Uninterruptible;
+import com.oracle.svm.core.c.NonmovableArrays;
 import com.oracle.svm.core.config.ConfigurationValues;
 import com.oracle.svm.core.genscavenge.AlignedHeapChunk;
 import com.oracle.svm.core.genscavenge.AlignedHeapChunk.AlignedHeader;
 import com.oracle.svm.core.genscavenge.GreyToBlackObjectVisitor;
 import com.oracle.svm.core.genscavenge.HeapChunk;
+import com.oracle.svm.core.genscavenge.HeapImpl;
 import com.oracle.svm.core.genscavenge.HeapPolicy;
 import com.oracle.svm.core.genscavenge.ObjectHeaderImpl;
+import com.oracle.svm.core.heap.InstanceReferenceMapEncoder;
+import com.oracle.svm.core.heap.ReferenceAccess;
+import com.oracle.svm.core.heap.StoredContinuation;
+import com.oracle.svm.core.heap.StoredContinuationImpl;
+import com.oracle.svm.core.hub.DynamicHub;
+import com.oracle.svm.core.hub.DynamicHubSupport;
 import com.oracle.svm.core.hub.LayoutEncoding;
 import com.oracle.svm.core.image.ImageHeapObject;
+import com.oracle.svm.core.snippets.KnownIntrinsics;
 import com.oracle.svm.core.util.HostedByteBufferPointer;
 import com.oracle.svm.core.util.PointerUtils;
 import com.oracle.svm.core.util.UnsignedUtils;
 
+import jdk.vm.ci.code.MemoryBarriers;
+
 final class AlignedChunkRememberedSet {
     private AlignedChunkRememberedSet() {
     }
 
     @Fold
     public static UnsignedWord getHeaderSize() {
-        UnsignedWord headerSize = getFirstObjectTableLimitOffset();
+        UnsignedWord headerSize = getSummaryTableLimitOffset();
         UnsignedWord alignment = WordFactory.unsigned(ConfigurationValues.getObjectLayout().getAlignment());
         return UnsignedUtils.roundUp(headerSize, alignment);
     }
@@ -65,6 +79,7 @@ final class AlignedChunkRememberedSet {
     public static void enableRememberedSet(HostedByteBufferPointer chunk, int chunkPosition, List<ImageHeapObject> objects) {
         // Completely clean the card table and the first object table.
         CardTable.cleanTable(getCardTableStart(chunk), getCardTableSize());
+        CardTable.cleanTable(getSummaryTableStart(chunk), getSummaryTableSize());
         FirstObjectTable.initializeTable(getFirstObjectTableStart(chunk), getFirstObjectTableSize());
 
         Pointer fotStart = getFirstObjectTableStart(chunk);
@@ -94,6 +109,7 @@ final class AlignedChunkRememberedSet {
         // Completely clean the card table and the first object table as further objects may be
         // added later on to this chunk.
         CardTable.cleanTable(getCardTableStart(chunk), getCardTableSize());
+        CardTable.cleanTable(getSummaryTableStart(chunk), getSummaryTableSize());
         FirstObjectTable.initializeTable(getFirstObjectTableStart(chunk), getFirstObjectTableSize());
 
         Pointer offset = AlignedHeapChunk.getObjectsStart(chunk);
@@ -107,6 +123,7 @@ final class AlignedChunkRememberedSet {
 
     public static void clearRememberedSet(AlignedHeader chunk) {
         CardTable.cleanTable(getCardTableStart(chunk), getCardTableSize());
+        CardTable.cleanTable(getSummaryTableStart(chunk), getSummaryTableSize());
     }
 
     /**
@@ -120,6 +137,16 @@ final class AlignedChunkRememberedSet {
         UnsignedWord index = getObjectIndex(chunk, objectPointer);
         if (verifyOnly) {
             AssertionNode.assertion(false, CardTable.isDirty(cardTableStart, index), "card must be dirty", "", "", 0L, 0L);
+        } else if (CardTable.hasSummaryTable()) {
+            /*
+             * The precleaner cleans the summary entry before the cards, and the cards before it
+             * reads the references of their objects. So the stores must become visible in the
+             * opposite order: reference, card, summary entry.
+             */
+            MembarNode.memoryBarrier(MemoryBarriers.STORE_STORE);
+            CardTable.setDirty(cardTableStart, index);
+            MembarNode.memoryBarrier(MemoryBarriers.STORE_STORE);
+            CardTable.setDirty(getSummaryTableStart(chunk), CardTable.indexToSummaryIndex(index));
         } else {
             CardTable.setDirty(cardTableStart, index);
         }
@@ -133,7 +160,28 @@ final class AlignedChunkRememberedSet {
         UnsignedWord memorySize = objectsLimit.subtract(objectsStart);
         UnsignedWord indexLimit = CardTable.indexLimitForMemorySize(memorySize);
 
-        for (UnsignedWord index = WordFactory.zero(); index.belowThan(indexLimit); index = index.add(1)) {
+        if (!CardTable.hasSummaryTable()) {
+            walkDirtyCards(cardTableStart, fotStart, objectsStart, objectsLimit, WordFactory.zero(), indexLimit, visitor);
+            return;
+        }
+
+        /* Only look at the cards of dirty summary entries. */
+        Pointer summaryTableStart = getSummaryTableStart(chunk);
+        UnsignedWord summaryIndexLimit = CardTable.summaryIndexLimitForIndexLimit(indexLimit);
+        for (UnsignedWord summaryIndex = WordFactory.zero(); summaryIndex.belowThan(summaryIndexLimit); summaryIndex = summaryIndex.add(1)) {
+            if (CardTable.isDirty(summaryTableStart, summaryIndex)) {
+                CardTable.setClean(summaryTableStart, summaryIndex);
+
+                UnsignedWord startIndex = CardTable.summaryIndexToIndex(summaryIndex);
+                UnsignedWord endIndex = UnsignedUtils.min(CardTable.summaryIndexToIndex(summaryIndex.add(1)), indexLimit);
+                walkDirtyCards(cardTableStart, fotStart, objectsStart, objectsLimit, startIndex, endIndex, visitor);
+            }
+        }
+    }
+
+    private static void walkDirtyCards(Pointer cardTableStart, Pointer fotStart, Pointer objectsStart, Pointer objectsLimit, UnsignedWord startIndex, UnsignedWord endIndex,
+                    GreyToBlackObjectVisitor visitor) {
+        for (UnsignedWord index = startIndex; index.belowThan(endIndex); index = index.add(1)) {
             if (CardTable.isDirty(cardTableStart, index)) {
                 CardTable.setClean(cardTableStart, index);
 
@@ -149,9 +197,184 @@ final class AlignedChunkRememberedSet {
         }
     }
 
+    /**
+     * Cleans the dirty cards of a chunk in the old generation while the application is running, so
+     * that the next incremental collection does not have to scan them. The object on a card is
+     * examined after its card was cleaned. If it has a reference to the young generation, the card
+     * is dirtied again. A concurrent write barrier that dirties the card again is harmless.
+     * <p>
+     * The objects are read without any synchronization with the application, so this method must
+     * not contain a safepoint: a collection would move the objects while they are examined.
+     *
+     * @return the number of cards that were cleaned and remain clean.
+     */
+    @Uninterruptible(reason = "Objects must not move while their references are examined.")
+    public static UnsignedWord precleanDirtyCards(AlignedHeader chunk) {
+        Pointer cardTableStart = getCardTableStart(chunk);
+        Pointer summaryTableStart = getSummaryTableStart(chunk);
+        Pointer objectsStart = AlignedHeapChunk.getObjectsStart(chunk);
+        Pointer objectsLimit = HeapChunk.getTopPointer(chunk);
+        UnsignedWord indexLimit = CardTable.indexLimitForMemorySize(objectsLimit.subtract(objectsStart));
+        if (!hasDirtySummaryEntry(summaryTableStart, indexLimit)) {
+            return WordFactory.zero();
+        }
+
+        UnsignedWord precleanedCards = WordFactory.zero();
+        UnsignedWord currentSummaryIndex = WordFactory.unsigned(-1L);
+        long claimedCards = 0L;
+        Pointer ptr = objectsStart;
+        while (ptr.belowThan(objectsLimit)) {
+            Object obj = ptr.toObject();
+            UnsignedWord index = CardTable.memoryOffsetToIndex(ptr.subtract(objectsStart));
+            UnsignedWord summaryIndex = CardTable.indexToSummaryIndex(index);
+            if (summaryIndex.notEqual(currentSummaryIndex)) {
+                currentSummaryIndex = summaryIndex;
+                claimedCards = claimDirtyCards(cardTableStart, summaryTableStart, summaryIndex, indexLimit);
+                precleanedCards = precleanedCards.add(countCards(claimedCards));
+            }
+
+            long cardBit = 1L << index.subtract(CardTable.summaryIndexToIndex(summaryIndex)).rawValue();
+            if ((claimedCards & cardBit) != 0 && mayReferenceYoungObject(obj)) {
+                claimedCards &= ~cardBit;
+                precleanedCards = precleanedCards.subtract(1);
+                CardTable.setDirty(cardTableStart, index);
+                MembarNode.memoryBarrier(MemoryBarriers.STORE_STORE);
+                CardTable.setDirty(summaryTableStart, summaryIndex);
+            }
+            ptr = ptr.add(getObjectSize(obj));
+        }
+        return precleanedCards;
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    private static boolean hasDirtySummaryEntry(Pointer summaryTableStart, UnsignedWord indexLimit) {
+        UnsignedWord summaryIndexLimit = CardTable.indexToSummaryIndex(indexLimit.add(CardTable.CARDS_PER_SUMMARY_ENTRY - 1));
+        for (UnsignedWord summaryIndex = WordFactory.zero(); summaryIndex.belowThan(summaryIndexLimit); summaryIndex = summaryIndex.add(1)) {
+            if (CardTable.isDirty(summaryTableStart, summaryIndex)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Cleans the summary entry and the dirty cards that it covers. Returns a mask of the cards that
+     * were dirty, with bit {@code i} for the {@code i}-th card of the summary entry.
+     */
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    private static long claimDirtyCards(Pointer cardTableStart, Pointer summaryTableStart, UnsignedWord summaryIndex, UnsignedWord indexLimit) {
+        if (!CardTable.isDirty(summaryTableStart, summaryIndex)) {
+            return 0L;
+        }
+        CardTable.setClean(summaryTableStart, summaryIndex);
+        MembarNode.memoryBarrier(MemoryBarriers.STORE_LOAD);
+
+        long claimedCards = 0L;
+        UnsignedWord startIndex = CardTable.summaryIndexToIndex(summaryIndex);
+        UnsignedWord endIndex = UnsignedUtils.min(CardTable.summaryIndexToIndex(summaryIndex.add(1)), indexLimit);
+        for (UnsignedWord index = startIndex; index.belowThan(endIndex); index = index.add(1)) {
+            if (CardTable.isDirty(cardTableStart, index)) {
+                CardTable.setClean(cardTableStart, index);
+                claimedCards |= 1L << index.subtract(startIndex).rawValue();
+            }
+        }
+        MembarNode.memoryBarrier(MemoryBarriers.STORE_LOAD);
+        return claimedCards;
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    private static int countCards(long cards) {
+        int count = 0;
+        long remaining = cards;
+        while (remaining != 0) {
+            remaining &= remaining - 1;
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Returns true if the object has a reference to the young generation. Objects in the young
+     * generation are the only ones without the remembered set bit, apart from the image heap.
+     * Reference objects and stored continuations have references that are not described by the
+     * reference map, so their cards are always left to the collector.
+     */
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    private static boolean mayReferenceYoungObject(Object obj) {
+        DynamicHub hub = KnownIntrinsics.readHub(obj);
+        int encoding = hub.getLayoutEncoding();
+        Pointer objPointer = Word.objectToUntrackedPointer(obj);
+        int referenceSize = ConfigurationValues.getObjectLayout().getReferenceSize();
+        if (LayoutEncoding.isArray(encoding)) {
+            if (!LayoutEncoding.isObjectArray(encoding)) {
+                return false;
+            }
+            Pointer pos = objPointer.add(LayoutEncoding.getArrayBaseOffset(encoding));
+            Pointer end = objPointer.add(LayoutEncoding.getArrayElementOffset(encoding, readArrayLength(objPointer)));
+            for (; pos.belowThan(end); pos = pos.add(referenceSize)) {
+                if (isYoungReference(pos)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        if (LayoutEncoding.isStoredContinuation(encoding) || hub.isReferenceInstanceClass()) {
+            return true;
+        }
+
+        Pointer position = NonmovableArrays.addressOf(DynamicHubSupport.getReferenceMapEncoding(), hub.getReferenceMapIndex());
+        int entryCount = position.readInt(0);
+        position = position.add(4);
+        Pointer end = position.add(WordFactory.unsigned(InstanceReferenceMapEncoder.MAP_ENTRY_SIZE).multiply(entryCount));
+        while (position.belowThan(end)) {
+            int offset = position.readInt(0);
+            long count = position.readInt(4) & 0xFFFFFFFFL;
+            position = position.add(8);
+
+            Pointer pos = objPointer.add(offset);
+            for (long c = 0; c < count; c++) {
+                if (isYoungReference(pos)) {
+                    return true;
+                }
+                pos = pos.add(referenceSize);
+            }
+        }
+        return false;
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    private static boolean isYoungReference(Pointer location) {
+        Pointer target = ReferenceAccess.singleton().readObjectAsUntrackedPointer(location, ReferenceAccess.singleton().haveCompressedReferences());
+        if (target.isNull() || HeapImpl.getHeapImpl().isInImageHeap(target)) {
+            return false;
+        }
+        return !ObjectHeaderImpl.hasRememberedSet(ObjectHeaderImpl.readHeaderFromPointer(target));
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    private static UnsignedWord getObjectSize(Object obj) {
+        int encoding = KnownIntrinsics.readHub(obj).getLayoutEncoding();
+        if (LayoutEncoding.isArray(encoding)) {
+            return LayoutEncoding.getArraySize(encoding, readArrayLength(Word.objectToUntrackedPointer(obj)));
+        } else if (LayoutEncoding.isStoredContinuation(encoding)) {
+            return WordFactory.unsigned(StoredContinuationImpl.readSize(SubstrateUtil.cast(obj, StoredContinuation.class)));
+        } else {
+            return LayoutEncoding.getInstanceSize(encoding);
+        }
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    private static int readArrayLength(Pointer objPointer) {
+        return objPointer.readInt(ConfigurationValues.getObjectLayout().getArrayLengthOffset());
+    }
+
     public static boolean verify(AlignedHeader chunk) {
         boolean success = true;
         success &= CardTable.verify(getCardTableStart(chunk), AlignedHeapChunk.getObjectsStart(chunk), HeapChunk.getTopPointer(chunk));
+        if (CardTable.hasSummaryTable()) {
+            success &= CardTable.verifySummary(getCardTableStart(chunk), getSummaryTableStart(chunk), AlignedHeapChunk.getObjectsStart(chunk), HeapChunk.getTopPointer(chunk));
+        }
         success &= FirstObjectTable.verify(getFirstObjectTableStart(chunk), AlignedHeapChunk.getObjectsStart(chunk), HeapChunk.getTopPointer(chunk));
         return success;
     }
@@ -198,6 +421,32 @@ final class AlignedChunkRememberedSet {
         return UnsignedUtils.roundUp(fotLimit, alignment);
     }
 
+    @Fold
+    static UnsignedWord getSummaryTableSize() {
+        if (!CardTable.hasSummaryTable()) {
+            return WordFactory.zero();
+        }
+        UnsignedWord structSize = getStructSize();
+        UnsignedWord available = HeapPolicy.getAlignedHeapChunkSize().subtract(structSize);
+        UnsignedWord requiredSize = CardTable.summaryTableSizeForMemorySize(available);
+        UnsignedWord alignment = WordFactory.unsigned(ConfigurationValues.getObjectLayout().getAlignment());
+        return UnsignedUtils.roundUp(requiredSize, alignment);
+    }
+
+    @Fold
+    static UnsignedWord getSummaryTableStartOffset() {
+        return getFirstObjectTableLimitOffset();
+    }
+
+    @Fold
+    static UnsignedWord getSummaryTableLimitOffset() {
+        UnsignedWord summaryStart = getSummaryTableStartOffset();
+        UnsignedWord summarySize = getSummaryTableSize();
+        UnsignedWord summaryLimit = summaryStart.add(summarySize);
+        UnsignedWord alignment = WordFactory.unsigned(ConfigurationValues.getObjectLayout().getAlignment());
+        return UnsignedUtils.roundUp(summaryLimit, alignment);
+    }
+
     @Fold
     static UnsignedWord getCardTableStartOffset() {
         UnsignedWord structSize = getStructSize();
@@ -214,10 +463,12 @@ final class AlignedChunkRememberedSet {
         return UnsignedUtils.roundUp(tableLimit, alignment);
     }
 
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
     private static Pointer getCardTableStart(AlignedHeader chunk) {
         return getCardTableStart(HeapChunk.asPointer(chunk));
     }
 
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
     private static Pointer getCardTableStart(Pointer chunk) {
         return chunk.add(getCardTableStartOffset());
     }
@@ -229,4 +480,14 @@ final class AlignedChunkRememberedSet {
     private static Pointer getFirstObjectTableStart(Pointer chunk) {
         return chunk.add(getFirstObjectTableStartOffset());
     }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    private static Pointer getSummaryTableStart(AlignedHeader chunk) {
+        return getSummaryTableStart(HeapChunk.asPointer(chunk));
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    private static Pointer getSummaryTableStart(Pointer chunk) {
+        return chunk.add(getSummaryTableStartOffset());
+    }
 }
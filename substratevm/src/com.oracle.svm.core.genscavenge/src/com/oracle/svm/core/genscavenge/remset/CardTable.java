@@ -26,6 +26,7 @@ package com.oracle.svm.core.genscavenge.remset;
 
 import java.lang.ref.Reference;
 
+import org.graalvm.compiler.api.replacements.Fold;
 import org.graalvm.compiler.core.common.SuppressFBWarnings;
 import org.graalvm.compiler.word.Word;
 import org.graalvm.word.Pointer;
@@ -33,8 +34,10 @@ import org.graalvm.word.UnsignedWord;
 import org.graalvm.word.WordFactory;
 
 import com.oracle.svm.core.UnmanagedMemoryUtil;
+import com.oracle.svm.core.annotate.Uninterruptible;
 import com.oracle.svm.core.genscavenge.HeapChunk;
 import com.oracle.svm.core.genscavenge.HeapImpl;
+import com.oracle.svm.core.genscavenge.HeapOptions;
 import com.oracle.svm.core.genscavenge.Space;
 import com.oracle.svm.core.genscavenge.graal.BarrierSnippets;
 import com.oracle.svm.core.heap.ObjectReferenceVisitor;
@@ -69,11 +72,19 @@ import com.oracle.svm.core.util.UnsignedUtils;
  * <li>The "dirty" value is 0, since that makes dirtying a card a single "clearByte" instructions
  * which is available in all the instruction set architectures I care about, whereas a "setByte"
  * with a non-zero value takes more instruction space.</li>
+ *
+ * <li>If {@link HeapOptions#ConcurrentCardPrecleaning} is enabled, there is a second, coarser
+ * table with one entry per {@link #CARDS_PER_SUMMARY_ENTRY} cards. A summary entry is dirtied
+ * together with any of its cards, so that a collection can skip whole groups of clean cards. The
+ * summary table uses the same entry values as the card table.</li>
  * </ul>
  */
 final class CardTable {
     public static final int BYTES_COVERED_BY_ENTRY = 512;
 
+    /** The number of cards that are covered by a summary entry, so that they fit in a long mask. */
+    public static final int CARDS_PER_SUMMARY_ENTRY = 64;
+
     private static final int ENTRY_SIZE_BYTES = 1;
 
     private static final int DIRTY_ENTRY = 0;
@@ -88,14 +99,17 @@ final class CardTable {
         UnmanagedMemoryUtil.fill(tableStart, size, (byte) CLEAN_ENTRY);
     }
 
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
     public static void setDirty(Pointer table, UnsignedWord index) {
         table.writeByte(indexToTableOffset(index), (byte) DIRTY_ENTRY, BarrierSnippets.CARD_REMEMBERED_SET_LOCATION);
     }
 
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
     public static void setClean(Pointer table, UnsignedWord index) {
         table.writeByte(indexToTableOffset(index), (byte) CLEAN_ENTRY, BarrierSnippets.CARD_REMEMBERED_SET_LOCATION);
     }
 
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
     public static boolean isDirty(Pointer table, UnsignedWord index) {
         int entry = readEntry(table, index);
         return entry == DIRTY_ENTRY;
@@ -106,14 +120,17 @@ final class CardTable {
         return entry == CLEAN_ENTRY;
     }
 
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
     private static int readEntry(Pointer table, UnsignedWord index) {
         return table.readByte(indexToTableOffset(index));
     }
 
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
     private static UnsignedWord indexToTableOffset(UnsignedWord index) {
         return index.multiply(ENTRY_SIZE_BYTES);
     }
 
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
     public static UnsignedWord memoryOffsetToIndex(UnsignedWord offset) {
         return offset.unsignedDivide(BYTES_COVERED_BY_ENTRY);
     }
@@ -133,6 +150,45 @@ final class CardTable {
         return CardTable.memoryOffsetToIndex(roundedMemory);
     }
 
+    @Fold
+    public static boolean hasSummaryTable() {
+        return HeapOptions.ConcurrentCardPrecleaning.getValue();
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    public static UnsignedWord indexToSummaryIndex(UnsignedWord index) {
+        return index.unsignedDivide(CARDS_PER_SUMMARY_ENTRY);
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    public static UnsignedWord summaryIndexToIndex(UnsignedWord summaryIndex) {
+        return summaryIndex.multiply(CARDS_PER_SUMMARY_ENTRY);
+    }
+
+    public static UnsignedWord summaryIndexLimitForIndexLimit(UnsignedWord indexLimit) {
+        UnsignedWord roundedIndexLimit = UnsignedUtils.roundUp(indexLimit, WordFactory.unsigned(CARDS_PER_SUMMARY_ENTRY));
+        return indexToSummaryIndex(roundedIndexLimit);
+    }
+
+    public static UnsignedWord summaryTableSizeForMemorySize(UnsignedWord memorySize) {
+        UnsignedWord maxSummaryIndex = summaryIndexLimitForIndexLimit(indexLimitForMemorySize(memorySize));
+        return maxSummaryIndex.multiply(ENTRY_SIZE_BYTES);
+    }
+
+    /** Verifies that the summary entry of every dirty card is dirty as well. */
+    public static boolean verifySummary(Pointer cardTableStart, Pointer summaryTableStart, Pointer objectsStart, Pointer objectsLimit) {
+        UnsignedWord indexLimit = indexLimitForMemorySize(objectsLimit.subtract(objectsStart));
+        for (UnsignedWord index = WordFactory.zero(); index.belowThan(indexLimit); index = index.add(1)) {
+            UnsignedWord summaryIndex = indexToSummaryIndex(index);
+            if (isDirty(cardTableStart, index) && isClean(summaryTableStart, summaryIndex)) {
+                Log.log().string("The card table at ").hex(cardTableStart.add(indexToTableOffset(index))).string(" is dirty, but its summary entry at ")
+                                .hex(summaryTableStart.add(indexToTableOffset(summaryIndex))).string(" is clean.").newline();
+                return false;
+            }
+        }
+        return true;
+    }
+
     public static boolean verify(Pointer cardTableStart, Pointer objectsStart, Pointer objectsLimit) {
         boolean success = true;
         Pointer curPtr = objectsStart;
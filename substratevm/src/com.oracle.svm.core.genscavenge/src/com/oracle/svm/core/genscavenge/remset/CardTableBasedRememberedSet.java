@@ -32,6 +32,7 @@ import org.graalvm.nativeimage.Platforms;
 import org.graalvm.word.UnsignedWord;
 
 import com.oracle.svm.core.annotate.AlwaysInline;
+import com.oracle.svm.core.annotate.Uninterruptible;
 import com.oracle.svm.core.genscavenge.AlignedHeapChunk.AlignedHeader;
 import com.oracle.svm.core.genscavenge.GCImpl;
 import com.oracle.svm.core.genscavenge.GreyToBlackObjectVisitor;
@@ -147,6 +148,12 @@ public class CardTableBasedRememberedSet implements RememberedSet {
         }
     }
 
+    @Override
+    @Uninterruptible(reason = "Objects must not move while their references are examined.")
+    public UnsignedWord precleanDirtyCards(AlignedHeader chunk) {
+        return AlignedChunkRememberedSet.precleanDirtyCards(chunk);
+    }
+
     @Override
     public void walkDirtyObjects(AlignedHeader chunk, GreyToBlackObjectVisitor visitor) {
         AlignedChunkRememberedSet.walkDirtyObjects(chunk, visitor);
@@ -34,6 +34,7 @@ import org.graalvm.word.UnsignedWord;
 import org.graalvm.word.WordFactory;
 
 import com.oracle.svm.core.annotate.AlwaysInline;
+import com.oracle.svm.core.annotate.Uninterruptible;
 import com.oracle.svm.core.config.ConfigurationValues;
 import com.oracle.svm.core.genscavenge.AlignedHeapChunk.AlignedHeader;
 import com.oracle.svm.core.genscavenge.GreyToBlackObjectVisitor;
@@ -131,6 +132,12 @@ public final class NoRememberedSet implements RememberedSet {
         // Nothing to do.
     }
 
+    @Override
+    @Uninterruptible(reason = "Objects must not move while their references are examined.")
+    public UnsignedWord precleanDirtyCards(AlignedHeader chunk) {
+        return WordFactory.zero();
+    }
+
     @Override
     public void walkDirtyObjects(AlignedHeader chunk, GreyToBlackObjectVisitor visitor) {
         throw VMError.shouldNotReachHere();
@@ -34,6 +34,7 @@ import org.graalvm.nativeimage.Platforms;
 import org.graalvm.word.UnsignedWord;
 
 import com.oracle.svm.core.annotate.AlwaysInline;
+import com.oracle.svm.core.annotate.Uninterruptible;
 import com.oracle.svm.core.genscavenge.AlignedHeapChunk.AlignedHeader;
 import com.oracle.svm.core.genscavenge.GreyToBlackObjectVisitor;
 import com.oracle.svm.core.genscavenge.Space;
@@ -127,6 +128,14 @@ public interface RememberedSet {
     @AlwaysInline("GC performance")
     void dirtyCardIfNecessary(Object holderObject, Object object);
 
+    /**
+     * Cleans the dirty cards of an aligned chunk in the old generation while the application is
+     * running, and dirties those cards again that still cover references to the young generation.
+     * Returns the number of cards that remain clean.
+     */
+    @Uninterruptible(reason = "Objects must not move while their references are examined.")
+    UnsignedWord precleanDirtyCards(AlignedHeader chunk);
+
     /**
      * Walks all dirty objects in an aligned chunk.
      */
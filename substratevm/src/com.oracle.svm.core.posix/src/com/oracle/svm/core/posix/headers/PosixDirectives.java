@@ -65,6 +65,7 @@ public class PosixDirectives implements CContext.Directives {
 
     private static final String[] linuxLibs = new String[]{
                     "<mntent.h>",
+                    "<sys/syscall.h>",
     };
 
     @Override
@@ -54,6 +54,7 @@ import org.graalvm.word.SignedWord;
 import org.graalvm.word.UnsignedWord;
 import org.graalvm.word.WordFactory;
 
+import com.oracle.svm.core.SubstrateOptions;
 import com.oracle.svm.core.annotate.AutomaticFeature;
 import com.oracle.svm.core.annotate.Uninterruptible;
 import com.oracle.svm.core.c.CGlobalData;
@@ -68,6 +69,7 @@ import com.oracle.svm.core.os.VirtualMemoryProvider.Access;
 import com.oracle.svm.core.posix.PosixUtils;
 import com.oracle.svm.core.posix.headers.Fcntl;
 import com.oracle.svm.core.posix.headers.Unistd;
+import com.oracle.svm.core.posix.headers.linux.LinuxMman;
 import com.oracle.svm.core.util.PointerUtils;
 
 import jdk.vm.ci.code.MemoryBarriers;
@@ -165,7 +167,11 @@ public class LinuxImageHeapProvider implements ImageHeapProvider {
 
         // If we cannot find or open the image file, fall back to copy it from memory.
         if (fd.equal(CANNOT_OPEN_FD)) {
-            return fallbackCopyingProvider.initialize(reservedAddressSpace, reservedSize, basePointer, endPointer);
+            int result = fallbackCopyingProvider.initialize(reservedAddressSpace, reservedSize, basePointer, endPointer);
+            if (result == CEntryPointErrors.NO_ERROR) {
+                adviseHugePages(((Pointer) basePointer.read()).add(imageHeapOffsetInAddressSpace), imageHeapSizeInFile);
+            }
+            return result;
         }
 
         // If we are the first isolate and can use the existing image heap, do it.
@@ -178,6 +184,7 @@ public class LinuxImageHeapProvider implements ImageHeapProvider {
             if (VirtualMemoryProvider.get().protect(writableBegin, writableSize, Access.READ | Access.WRITE) != 0) {
                 return CEntryPointErrors.PROTECT_HEAP_FAILED;
             }
+            adviseHugePages(imageHeapBegin, imageHeapSizeInFile);
             basePointer.write(imageHeapBegin);
             if (endPointer.isNonNull()) {
                 endPointer.write(IMAGE_HEAP_END.get());
@@ -191,7 +198,11 @@ public class LinuxImageHeapProvider implements ImageHeapProvider {
         Pointer allocatedMemory = WordFactory.nullPointer();
         if (reservedAddressSpace.isNull()) {
             assert imageHeapOffsetInAddressSpace == 0;
-            allocatedMemory = VirtualMemoryProvider.get().reserve(imageHeapSizeInFile, requiredAlignment);
+            UnsignedWord reserveAlignment = requiredAlignment;
+            if (SubstrateOptions.ImageHeapHugePages.getValue() && requiredAlignment.belowThan(SubstrateOptions.IMAGE_HEAP_HUGE_PAGE_SIZE)) {
+                reserveAlignment = WordFactory.unsigned(SubstrateOptions.IMAGE_HEAP_HUGE_PAGE_SIZE);
+            }
+            allocatedMemory = VirtualMemoryProvider.get().reserve(imageHeapSizeInFile, reserveAlignment);
             if (allocatedMemory.isNull()) {
                 return CEntryPointErrors.RESERVE_ADDRESS_SPACE_FAILED;
             }
@@ -240,6 +251,7 @@ public class LinuxImageHeapProvider implements ImageHeapProvider {
             return CEntryPointErrors.PROTECT_HEAP_FAILED;
         }
 
+        adviseHugePages(heap, imageHeapSizeInFile);
         basePointer.write(heap.subtract(imageHeapOffsetInAddressSpace));
         if (endPointer.isNonNull()) {
             endPointer.write(roundUp(heap.add(imageHeapSizeInFile), pageSize));
@@ -247,6 +259,19 @@ public class LinuxImageHeapProvider implements ImageHeapProvider {
         return CEntryPointErrors.NO_ERROR;
     }
 
+    /**
+     * Advises the kernel to back the image heap with transparent huge pages if the image was built
+     * with {@link SubstrateOptions#ImageHeapHugePages}. This is only a hint: the kernel uses huge
+     * pages for the 2 MB aligned ranges of the heap as far as its configuration permits, and we
+     * ignore any failure, for example on kernels without transparent huge page support.
+     */
+    @Uninterruptible(reason = "Called during isolate initialization.")
+    private static void adviseHugePages(Pointer heapBegin, UnsignedWord heapSize) {
+        if (SubstrateOptions.ImageHeapHugePages.getValue()) {
+            LinuxMman.NoTransitions.madvise(heapBegin, heapSize, LinuxMman.MADV_HUGEPAGE());
+        }
+    }
+
     /**
      * Locate our image file, containing the image heap. Unfortunately we must open it by its path.
      *
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.posix.linux;
+
+import org.graalvm.nativeimage.ImageSingletons;
+import org.graalvm.nativeimage.StackValue;
+import org.graalvm.nativeimage.c.type.CIntPointer;
+import org.graalvm.nativeimage.hosted.Feature;
+import org.graalvm.word.PointerBase;
+
+import com.oracle.svm.core.annotate.AutomaticFeature;
+import com.oracle.svm.core.os.NumaNodeProvider;
+import com.oracle.svm.core.posix.headers.linux.LinuxNuma;
+
+class LinuxNumaNodeProvider implements NumaNodeProvider {
+
+    @Override
+    public int getCurrentNode() {
+        CIntPointer cpu = StackValue.get(CIntPointer.class);
+        CIntPointer node = StackValue.get(CIntPointer.class);
+        long result = LinuxNuma.syscall3(LinuxNuma.SYS_getcpu(), cpu.rawValue(), node.rawValue(), 0L);
+        return result == 0 ? node.read() : -1;
+    }
+
+    @Override
+    public int getNode(PointerBase address) {
+        CIntPointer node = StackValue.get(CIntPointer.class);
+        long result = LinuxNuma.syscall5(LinuxNuma.SYS_get_mempolicy(), node.rawValue(), 0L, 0L, address.rawValue(), LinuxNuma.MPOL_F_NODE | LinuxNuma.MPOL_F_ADDR);
+        return result == 0 ? node.read() : -1;
+    }
+}
+
+@AutomaticFeature
+class LinuxNumaNodeProviderFeature implements Feature {
+    @Override
+    public void afterRegistration(AfterRegistrationAccess access) {
+        ImageSingletons.add(NumaNodeProvider.class, new LinuxNumaNodeProvider());
+    }
+}
@@ -31,6 +31,7 @@ import org.graalvm.word.UnsignedWord;
 import org.graalvm.word.WordFactory;
 
 import com.oracle.svm.core.annotate.Uninterruptible;
+import com.oracle.svm.core.annotate.WritesArrayElements;
 import com.oracle.svm.core.config.ConfigurationValues;
 import com.oracle.svm.core.hub.LayoutEncoding;
 import com.oracle.svm.core.util.VMError;
@@ -278,6 +279,7 @@ public final class JavaMemoryUtil {
     }
 
     @Uninterruptible(reason = "Memory is on the heap, copying must not be interrupted.")
+    @WritesArrayElements
     private static void copyOnHeap(Object srcBase, UnsignedWord srcOffset, Object destBase, UnsignedWord destOffset, UnsignedWord size) {
         Word fromPtr = Word.objectToUntrackedPointer(srcBase).add(srcOffset);
         Word toPtr = Word.objectToUntrackedPointer(destBase).add(destOffset);
@@ -367,6 +369,7 @@ public final class JavaMemoryUtil {
     }
 
     @Uninterruptible(reason = "Accessed memory is on the heap, code must not be interrupted.")
+    @WritesArrayElements
     private static void fillOnHeap(Object destBase, long destOffset, long bytes, byte bvalue) {
         Word fromPtr = Word.objectToUntrackedPointer(destBase).add(WordFactory.unsigned(destOffset));
         fill(fromPtr, WordFactory.unsigned(bytes), bvalue);
@@ -398,6 +401,7 @@ public final class JavaMemoryUtil {
     }
 
     @Uninterruptible(reason = "Accessed memory is on the heap, code must not be interrupted.")
+    @WritesArrayElements
     private static void copySwapOnHeap(Object srcBase, long srcOffset, Object destBase, long destOffset, long bytes, long elemSize) {
         Word fromPtr = Word.objectToUntrackedPointer(srcBase).add(WordFactory.unsigned(srcOffset));
         Word toPtr = Word.objectToUntrackedPointer(destBase).add(WordFactory.unsigned(destOffset));
@@ -193,6 +193,10 @@ public class SubstrateOptions {
     @Option(help = "The maximum number of lines in the stack trace for Java exceptions (0 means all)", type = OptionType.User)//
     public static final RuntimeOptionKey<Integer> MaxJavaStackTraceDepth = new RuntimeOptionKey<>(1024);
 
+    @Option(help = "The maximum number of frames that are captured for the stack trace of a Throwable when MaxJavaStackTraceDepth is 0 (0 means all). " +
+                    "The captured frames are only decoded when the stack trace is accessed. Deeper stacks, and stacks with more frames than MaxJavaStackTraceDepth, are decoded eagerly.", type = OptionType.Expert)//
+    public static final HostedOptionKey<Integer> MaxCapturedStackTraceDepth = new HostedOptionKey<>(1024);
+
     /* Same option name and specification as the Java HotSpot VM. */
     @Option(help = "Maximum total size of NIO direct-buffer allocations")//
     public static final RuntimeOptionKey<Long> MaxDirectMemorySize = new RuntimeOptionKey<>(0L);
@@ -203,9 +207,19 @@ public class SubstrateOptions {
     @Option(help = "Enable support for threads and and thread-local variables (disable for single-threaded implementation)")//
     public static final HostedOptionKey<Boolean> MultiThreaded = new HostedOptionKey<>(true);
 
+    @Option(help = "Lock objects that have a monitor slot by storing the owning thread in the slot, and allocate a lock object only on contention, " +
+                    "recursive locking, wait/notify, and re-locking during deoptimization.", type = OptionType.Expert, stability = OptionStability.EXPERIMENTAL)//
+    public static final HostedOptionKey<Boolean> UseThinLocks = new HostedOptionKey<>(false);
+
     @Option(help = "Use only a writable native image heap (requires ld.gold linker)")//
     public static final HostedOptionKey<Boolean> ForceNoROSectionRelocations = new HostedOptionKey<>(false);
 
+    @Option(help = "Align the image heap to 2 MB transparent huge pages and advise the kernel to back it with huge pages (Linux only).", type = OptionType.Expert)//
+    public static final HostedOptionKey<Boolean> ImageHeapHugePages = new HostedOptionKey<>(false);
+
+    /** The size of a transparent huge page on AMD64 and AArch64 with 4 KB base pages. */
+    public static final int IMAGE_HEAP_HUGE_PAGE_SIZE = 2 * 1024 * 1024;
+
     @Option(help = "Support multiple isolates.") //
     public static final HostedOptionKey<Boolean> SpawnIsolates = new HostedOptionKey<Boolean>(null) {
         @Override
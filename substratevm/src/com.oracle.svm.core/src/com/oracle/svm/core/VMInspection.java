@@ -62,7 +62,7 @@ public class VMInspection implements Feature {
 
     @Override
     public boolean isInConfiguration(IsInConfigurationAccess access) {
-        return isEnabled() || VMInspectionOptions.DumpThreadStacksOnSignal.getValue();
+        return isEnabled() || VMInspectionOptions.DumpThreadStacksOnSignal.getValue() || VMInspectionOptions.DumpHeapOnSignal.getValue();
     }
 
     @Override
@@ -75,6 +75,12 @@ public class VMInspection implements Feature {
         return VMInspectionOptions.AllowVMInspection.getValue();
     }
 
+    /** Determines whether the image contains the metadata and code for writing heap dumps. */
+    @Fold
+    public static boolean isHeapDumpSupported() {
+        return isEnabled() || VMInspectionOptions.DumpHeapOnSignal.getValue();
+    }
+
     public static final class IsEnabled implements BooleanSupplier {
         @Override
         public boolean getAsBoolean() {
@@ -86,13 +92,17 @@ public class VMInspection implements Feature {
 final class VMInspectionStartupHook implements Runnable {
     @Override
     public void run() {
-        DumpAllStacks.install();
+        if (VMInspectionOptions.AllowVMInspection.getValue() || VMInspectionOptions.DumpThreadStacksOnSignal.getValue()) {
+            DumpAllStacks.install();
+        }
         if (VMInspectionOptions.AllowVMInspection.getValue() && !Platform.includedIn(WINDOWS.class)) {
             /* We have enough signals to enable the rest. */
             DumpHeapReport.install();
             if (DeoptimizationSupport.enabled()) {
                 DumpRuntimeCompilation.install();
             }
+        } else if (VMInspectionOptions.DumpHeapOnSignal.getValue() && !Platform.includedIn(WINDOWS.class)) {
+            DumpHeapReport.install();
         }
     }
 }
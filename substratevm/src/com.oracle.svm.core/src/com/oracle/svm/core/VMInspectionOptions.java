@@ -35,4 +35,7 @@ public final class VMInspectionOptions {
 
     @Option(help = "Dumps all thread stacktraces on SIGQUIT/SIGBREAK.", type = OptionType.User) //
     public static final HostedOptionKey<Boolean> DumpThreadStacksOnSignal = new HostedOptionKey<>(false);
+
+    @Option(help = "Includes support for writing HPROF heap dumps via VMRuntime.dumpHeap and dumps the heap on SIGUSR1.", type = OptionType.User) //
+    public static final HostedOptionKey<Boolean> DumpHeapOnSignal = new HostedOptionKey<>(false);
 }
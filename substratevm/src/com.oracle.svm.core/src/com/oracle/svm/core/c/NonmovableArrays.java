@@ -47,6 +47,7 @@ import com.oracle.svm.core.JavaMemoryUtil;
 import com.oracle.svm.core.SubstrateUtil;
 import com.oracle.svm.core.UnmanagedMemoryUtil;
 import com.oracle.svm.core.annotate.Uninterruptible;
+import com.oracle.svm.core.annotate.WritesArrayElements;
 import com.oracle.svm.core.config.ConfigurationValues;
 import com.oracle.svm.core.heap.Heap;
 import com.oracle.svm.core.heap.ObjectHeader;
@@ -276,6 +277,7 @@ public final class NonmovableArrays {
     }
 
     @Uninterruptible(reason = "Destination array must not move.")
+    @WritesArrayElements
     private static <T> T arraycopyToHeap(NonmovableArray<?> src, int srcPos, T dest, int destPos, int length) {
         if (SubstrateUtil.HOSTED) {
             System.arraycopy(getHostedArray(src), srcPos, dest, destPos, length);
@@ -314,6 +316,7 @@ public final class NonmovableArrays {
     /** Returns a {@link NonmovableArray} for an array of primitives in the image heap. */
     @SuppressWarnings("unchecked")
     @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    @WritesArrayElements
     public static <T> NonmovableArray<T> fromImageHeap(Object array) {
         if (SubstrateUtil.HOSTED) {
             if (array == null) {
@@ -270,7 +270,14 @@ public final class CodeInfoAccess {
     }
 
     public static void lookupCodeInfo(CodeInfo info, long ip, SimpleCodeInfoQueryResult codeInfoQueryResult) {
-        CodeInfoDecoder.lookupCodeInfo(info, ip, codeInfoQueryResult);
+        if (CodeInfoLookupCache.isEnabled(info)) {
+            if (!CodeInfoLookupCache.get(ip, codeInfoQueryResult)) {
+                CodeInfoDecoder.lookupCodeInfo(info, ip, codeInfoQueryResult);
+                CodeInfoLookupCache.put(ip, codeInfoQueryResult);
+            }
+        } else {
+            CodeInfoDecoder.lookupCodeInfo(info, ip, codeInfoQueryResult);
+        }
     }
 
     @Uninterruptible(reason = "Nonmovable object arrays are not visible to GC until installed.")
@@ -34,6 +34,8 @@ import org.graalvm.nativeimage.ImageSingletons;
 
 import com.oracle.svm.core.annotate.AlwaysInline;
 import com.oracle.svm.core.annotate.Uninterruptible;
+import com.oracle.svm.core.c.NonmovableArray;
+import com.oracle.svm.core.c.NonmovableArrays;
 import com.oracle.svm.core.option.HostedOptionKey;
 import com.oracle.svm.core.util.ByteArrayReader;
 import com.oracle.svm.core.util.Counter;
@@ -63,19 +65,39 @@ import com.oracle.svm.core.util.NonmovableByteArrayReader;
  * {@linkplain #loadEntryOffset index} is used to turn this into a constant time lookup. The index
  * stores the entry offset for every IP at the given {@linkplain Options#CodeInfoIndexGranularity
  * granularity}.
+ *
+ * Alternatively, a {@linkplain Options#CodeInfoSortedIndex sorted index} stores the IP, the entry
+ * offset, and the frame size encoding of every entry. A binary search in this index finds the entry
+ * for an IP directly, so no entries need to be decoded linearly. This index is larger, but
+ * considerably speeds up lookups for code with many entries, e.g., during exception unwinding.
+ *
+ * <pre>
+ * u4 entryIP
+ * u4 entryOffset
+ * s4 frameSizeEncoding
+ * </pre>
  */
 public final class CodeInfoDecoder {
     public static class Options {
         @Option(help = "The granularity of the index for looking up code metadata. Should be a power of 2. Larger values make the index smaller, but access slower.")//
         public static final HostedOptionKey<Integer> CodeInfoIndexGranularity = new HostedOptionKey<>(256);
+
+        @Option(help = "Index every entry of the code metadata so that lookups use a binary search instead of a linear search. Makes the index larger, but access faster.")//
+        public static final HostedOptionKey<Boolean> CodeInfoSortedIndex = new HostedOptionKey<>(false);
+
+        @Option(help = "Number of entries of the per-thread cache for lookups of code metadata of the image. 0 disables the cache.")//
+        public static final HostedOptionKey<Integer> CodeInfoLookupCacheSize = new HostedOptionKey<>(16);
     }
 
+    static final int SORTED_INDEX_ENTRY_SIZE = 3 * Integer.BYTES;
+
     private CodeInfoDecoder() {
     }
 
     static long lookupCodeInfoEntryOffset(CodeInfo info, long ip) {
-        long entryIP = lookupEntryIP(ip);
-        long entryOffset = loadEntryOffset(info, ip);
+        long indexPos = lookupIndexPosition(info, ip);
+        long entryIP = loadEntryIP(info, indexPos);
+        long entryOffset = loadEntryOffset(info, indexPos);
         do {
             int entryFlags = loadEntryFlags(info, entryOffset);
             if (entryIP == ip) {
@@ -90,9 +112,10 @@ public final class CodeInfoDecoder {
     }
 
     static void lookupCodeInfo(CodeInfo info, long ip, CodeInfoQueryResult codeInfoQueryResult) {
-        long sizeEncoding = initialSizeEncoding();
-        long entryIP = lookupEntryIP(ip);
-        long entryOffset = loadEntryOffset(info, ip);
+        long indexPos = lookupIndexPosition(info, ip);
+        long sizeEncoding = loadInitialSizeEncoding(info, indexPos);
+        long entryIP = loadEntryIP(info, indexPos);
+        long entryOffset = loadEntryOffset(info, indexPos);
         do {
             int entryFlags = loadEntryFlags(info, entryOffset);
             sizeEncoding = updateSizeEncoding(info, entryOffset, entryFlags, sizeEncoding);
@@ -115,9 +138,10 @@ public final class CodeInfoDecoder {
     }
 
     static void lookupCodeInfo(CodeInfo info, long ip, SimpleCodeInfoQueryResult codeInfoQueryResult) {
-        long sizeEncoding = initialSizeEncoding();
-        long entryIP = lookupEntryIP(ip);
-        long entryOffset = loadEntryOffset(info, ip);
+        long indexPos = lookupIndexPosition(info, ip);
+        long sizeEncoding = loadInitialSizeEncoding(info, indexPos);
+        long entryIP = loadEntryIP(info, indexPos);
+        long entryOffset = loadEntryOffset(info, indexPos);
         do {
             int entryFlags = loadEntryFlags(info, entryOffset);
             sizeEncoding = updateSizeEncoding(info, entryOffset, entryFlags, sizeEncoding);
@@ -139,9 +163,10 @@ public final class CodeInfoDecoder {
 
     static long lookupDeoptimizationEntrypoint(CodeInfo info, long method, long encodedBci, CodeInfoQueryResult codeInfo) {
 
-        long sizeEncoding = initialSizeEncoding();
-        long entryIP = lookupEntryIP(method);
-        long entryOffset = loadEntryOffset(info, method);
+        long indexPos = lookupIndexPosition(info, method);
+        long sizeEncoding = loadInitialSizeEncoding(info, indexPos);
+        long entryIP = loadEntryIP(info, indexPos);
+        long entryOffset = loadEntryOffset(info, indexPos);
         while (true) {
             int entryFlags = loadEntryFlags(info, entryOffset);
             sizeEncoding = updateSizeEncoding(info, entryOffset, entryFlags, sizeEncoding);
@@ -185,8 +210,9 @@ public final class CodeInfoDecoder {
     }
 
     static long lookupStackReferenceMapIndex(CodeInfo info, long ip) {
-        long entryIP = lookupEntryIP(ip);
-        long entryOffset = loadEntryOffset(info, ip);
+        long indexPos = lookupIndexPosition(info, ip);
+        long entryIP = loadEntryIP(info, indexPos);
+        long entryOffset = loadEntryOffset(info, indexPos);
         do {
             int entryFlags = loadEntryFlags(info, entryOffset);
             if (entryIP == ip) {
@@ -208,10 +234,55 @@ public final class CodeInfoDecoder {
         return Long.divideUnsigned(ip, indexGranularity()) * indexGranularity();
     }
 
-    private static long loadEntryOffset(CodeInfo info, long ip) {
+    static boolean useSortedIndex() {
+        return Options.CodeInfoSortedIndex.getValue();
+    }
+
+    /**
+     * Returns the position in the index of the entry from which the linear search for the given IP
+     * starts. For a {@linkplain Options#CodeInfoSortedIndex sorted index}, this is the last entry
+     * with an IP that is not larger than the given IP.
+     */
+    private static long lookupIndexPosition(CodeInfo info, long ip) {
         counters().lookupEntryOffsetCount.inc();
-        long index = Long.divideUnsigned(ip, indexGranularity());
-        return NonmovableByteArrayReader.getU4(CodeInfoAccess.getCodeInfoIndex(info), index * Integer.BYTES);
+        if (!useSortedIndex()) {
+            return Long.divideUnsigned(ip, indexGranularity());
+        }
+
+        /* The first entry always corresponds to IP zero, so there is always a result. */
+        NonmovableArray<Byte> index = CodeInfoAccess.getCodeInfoIndex(info);
+        long low = 0;
+        long high = NonmovableArrays.lengthOf(index) / SORTED_INDEX_ENTRY_SIZE - 1;
+        while (low < high) {
+            long mid = (low + high + 1) >>> 1;
+            if (NonmovableByteArrayReader.getU4(index, mid * SORTED_INDEX_ENTRY_SIZE) <= ip) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    private static long loadEntryIP(CodeInfo info, long indexPos) {
+        if (useSortedIndex()) {
+            return NonmovableByteArrayReader.getU4(CodeInfoAccess.getCodeInfoIndex(info), indexPos * SORTED_INDEX_ENTRY_SIZE);
+        }
+        return indexPos * indexGranularity();
+    }
+
+    private static long loadEntryOffset(CodeInfo info, long indexPos) {
+        if (useSortedIndex()) {
+            return NonmovableByteArrayReader.getU4(CodeInfoAccess.getCodeInfoIndex(info), indexPos * SORTED_INDEX_ENTRY_SIZE + Integer.BYTES);
+        }
+        return NonmovableByteArrayReader.getU4(CodeInfoAccess.getCodeInfoIndex(info), indexPos * Integer.BYTES);
+    }
+
+    private static long loadInitialSizeEncoding(CodeInfo info, long indexPos) {
+        if (useSortedIndex()) {
+            return NonmovableByteArrayReader.getS4(CodeInfoAccess.getCodeInfoIndex(info), indexPos * SORTED_INDEX_ENTRY_SIZE + 2 * Integer.BYTES);
+        }
+        return initialSizeEncoding();
     }
 
     @AlwaysInline("Make IP-lookup loop call free")
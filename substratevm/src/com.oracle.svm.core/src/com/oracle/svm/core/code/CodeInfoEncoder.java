@@ -140,12 +140,17 @@ public class CodeInfoEncoder {
         IPData startEntry = makeEntry(compilationOffset);
         startEntry.frameSizeEncoding = encodeFrameSize(totalFrameSize, true, isEntryPoint, hasCalleeSavedRegisters);
 
-        /* Register the frame size for all entries that are starting points for the index. */
-        long entryIP = CodeInfoDecoder.lookupEntryIP(CodeInfoDecoder.indexGranularity() + compilationOffset);
-        while (entryIP <= CodeInfoDecoder.lookupEntryIP(compilation.getTargetCodeSize() + compilationOffset - 1)) {
-            IPData entry = makeEntry(entryIP);
-            entry.frameSizeEncoding = encodeFrameSize(totalFrameSize, false, isEntryPoint, hasCalleeSavedRegisters);
-            entryIP += CodeInfoDecoder.indexGranularity();
+        /*
+         * Register the frame size for all entries that are starting points for the index. A sorted
+         * index stores the frame size of every entry, so no additional entries are necessary.
+         */
+        if (!CodeInfoDecoder.useSortedIndex()) {
+            long entryIP = CodeInfoDecoder.lookupEntryIP(CodeInfoDecoder.indexGranularity() + compilationOffset);
+            while (entryIP <= CodeInfoDecoder.lookupEntryIP(compilation.getTargetCodeSize() + compilationOffset - 1)) {
+                IPData entry = makeEntry(entryIP);
+                entry.frameSizeEncoding = encodeFrameSize(totalFrameSize, false, isEntryPoint, hasCalleeSavedRegisters);
+                entryIP += CodeInfoDecoder.indexGranularity();
+            }
         }
 
         /* Make entries for all calls and deoptimization entry points of the method. */
@@ -238,13 +243,23 @@ public class CodeInfoEncoder {
         }
 
         long nextIndexIP = 0;
+        int currentSizeEncoding = 0;
         UnsafeArrayTypeWriter indexBuffer = UnsafeArrayTypeWriter.create(ByteArrayReader.supportsUnalignedMemoryAccess());
         UnsafeArrayTypeWriter encodingBuffer = UnsafeArrayTypeWriter.create(ByteArrayReader.supportsUnalignedMemoryAccess());
         for (IPData data = first; data != null; data = data.next) {
-            assert data.ip <= nextIndexIP;
-            if (data.ip == nextIndexIP) {
+            if (CodeInfoDecoder.useSortedIndex()) {
+                if (data.frameSizeEncoding != 0) {
+                    currentSizeEncoding = data.frameSizeEncoding;
+                }
+                indexBuffer.putU4(data.ip);
                 indexBuffer.putU4(encodingBuffer.getBytesWritten());
-                nextIndexIP += CodeInfoDecoder.indexGranularity();
+                indexBuffer.putS4(currentSizeEncoding);
+            } else {
+                assert data.ip <= nextIndexIP;
+                if (data.ip == nextIndexIP) {
+                    indexBuffer.putU4(encodingBuffer.getBytesWritten());
+                    nextIndexIP += CodeInfoDecoder.indexGranularity();
+                }
             }
 
             int entryFlags = 0;
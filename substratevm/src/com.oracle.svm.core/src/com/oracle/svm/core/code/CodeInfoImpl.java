@@ -242,6 +242,26 @@ interface CodeInfoImpl extends CodeInfo {
     @RawField
     void setCodeObserverHandles(NonmovableArray<InstalledCodeObserverHandle> handles);
 
+    /**
+     * The {@linkplain RuntimeCodeCache#getAgingCycle aging cycle} in which this code was installed
+     * or last entered.
+     */
+    @RawField
+    long getLastUsedAgingCycle();
+
+    @RawField
+    void setLastUsedAgingCycle(long cycle);
+
+    /**
+     * The segment of the {@link RuntimeCodeCache} that this code is accounted to, or
+     * {@link RuntimeCodeCache#SEGMENT_NONE} if the code is not in the code cache.
+     */
+    @RawField
+    int getCodeCacheSegment();
+
+    @RawField
+    void setCodeCacheSegment(int segment);
+
     /** GC-specific data that may only be accessed by the GC. */
     @RawField
     Word getGCData();
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.code;
+
+import org.graalvm.nativeimage.CurrentIsolate;
+import org.graalvm.word.Pointer;
+
+import com.oracle.svm.core.SubstrateOptions;
+import com.oracle.svm.core.threadlocal.FastThreadLocalBytes;
+import com.oracle.svm.core.threadlocal.FastThreadLocalFactory;
+
+/**
+ * A small direct-mapped per-thread cache for {@link SimpleCodeInfoQueryResult lookups} in the code
+ * metadata of the image. Stack walks (exception unwinding, GC root scanning, sampling) repeatedly
+ * look up the same return addresses, so this avoids searching the encoded metadata again.
+ * <p>
+ * Only lookups in the {@linkplain CodeInfoTable#getImageCodeInfo() image code} are cached because
+ * that code is never freed. An entry stores the IP incremented by one, so that zeroed memory
+ * represents an empty entry. The IP is written last and invalidated first, so a lookup that
+ * interrupts an update on the same thread does not see a partially written entry.
+ */
+final class CodeInfoLookupCache {
+    private static final int ENTRY_SIZE = 4 * Long.BYTES;
+    private static final int IP_OFFSET = 0;
+    private static final int ENCODED_FRAME_SIZE_OFFSET = Long.BYTES;
+    private static final int EXCEPTION_OFFSET_OFFSET = 2 * Long.BYTES;
+    private static final int REFERENCE_MAP_INDEX_OFFSET = 3 * Long.BYTES;
+
+    private static final FastThreadLocalBytes<Pointer> entries = FastThreadLocalFactory.createBytes(() -> Math.max(1, size()) * ENTRY_SIZE);
+
+    private CodeInfoLookupCache() {
+    }
+
+    private static int size() {
+        return CodeInfoDecoder.Options.CodeInfoLookupCacheSize.getValue();
+    }
+
+    static boolean isEnabled(CodeInfo info) {
+        if (size() <= 0 || info.notEqual(CodeInfoTable.getImageCodeInfo())) {
+            return false;
+        }
+        /* Threads that are not attached do not have thread-local memory. */
+        return !SubstrateOptions.MultiThreaded.getValue() || CurrentIsolate.getCurrentThread().isNonNull();
+    }
+
+    static boolean get(long ip, SimpleCodeInfoQueryResult result) {
+        Pointer entry = entry(ip);
+        if (entry.readLong(IP_OFFSET) != ip + 1) {
+            return false;
+        }
+        result.setEncodedFrameSize(entry.readLong(ENCODED_FRAME_SIZE_OFFSET));
+        result.setExceptionOffset(entry.readLong(EXCEPTION_OFFSET_OFFSET));
+        result.setReferenceMapIndex(entry.readLong(REFERENCE_MAP_INDEX_OFFSET));
+        return entry.readLong(IP_OFFSET) == ip + 1;
+    }
+
+    static void put(long ip, SimpleCodeInfoQueryResult result) {
+        Pointer entry = entry(ip);
+        entry.writeLong(IP_OFFSET, 0);
+        entry.writeLong(ENCODED_FRAME_SIZE_OFFSET, result.getEncodedFrameSize());
+        entry.writeLong(EXCEPTION_OFFSET_OFFSET, result.getExceptionOffset());
+        entry.writeLong(REFERENCE_MAP_INDEX_OFFSET, result.getReferenceMapIndex());
+        entry.writeLong(IP_OFFSET, ip + 1);
+    }
+
+    private static Pointer entry(long ip) {
+        /* Return addresses are rarely aligned, so use the low bits after mixing in higher bits. */
+        long hash = ip ^ (ip >>> 7);
+        return entries.getAddress().add((int) Long.remainderUnsigned(hash, size()) * ENTRY_SIZE);
+    }
+}
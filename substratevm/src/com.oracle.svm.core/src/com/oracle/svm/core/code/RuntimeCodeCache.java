@@ -65,8 +65,24 @@ public class RuntimeCodeCache {
 
         @Option(help = "Allocate code cache with write access, allowing inlining of objects", type = OptionType.Expert)//
         public static final RuntimeOptionKey<Boolean> WriteableCodeCache = new RuntimeOptionKey<>(false);
+
+        @Option(help = "Maximum size in bytes of the code and data of runtime compiled methods. When exceeded, cold code is evicted during garbage collections. 0 means no limit.")//
+        public static final RuntimeOptionKey<Long> MaxRuntimeCodeCacheSize = new RuntimeOptionKey<>(0L);
+
+        @Option(help = "Number of code cache aging cycles (full garbage collections) after which runtime compiled code that was not entered becomes cold. Code installed in the current or the previous cycle is never evicted.")//
+        public static final RuntimeOptionKey<Integer> RuntimeCodeCacheColdAge = new RuntimeOptionKey<>(4);
     }
 
+    /** Code that is not (or no longer) in the code cache. */
+    public static final int SEGMENT_NONE = 0;
+    /** Code that was installed or entered recently. */
+    public static final int SEGMENT_HOT = 1;
+    /**
+     * Code that was not entered for {@link Options#RuntimeCodeCacheColdAge} aging cycles
+     * and can therefore be evicted.
+     */
+    public static final int SEGMENT_COLD = 2;
+
     private final RingBuffer<CodeCacheLogEntry> recentCodeCacheOperations = new RingBuffer<>(30, CodeCacheLogEntry::new);
     private long codeCacheOperationSequenceNumber;
 
@@ -74,6 +90,7 @@ public class RuntimeCodeCache {
     private final Counter lookupMethodCount = new Counter(counters, "lookupMethod", "");
     private final Counter addMethodCount = new Counter(counters, "addMethod", "");
     private final Counter invalidateMethodCount = new Counter(counters, "invalidateMethod", "");
+    private final Counter evictMethodCount = new Counter(counters, "evictMethod", "");
     private final CodeNotOnStackVerifier codeNotOnStackVerifier = new CodeNotOnStackVerifier();
 
     static final String INFO_ADD = "Add";
@@ -84,6 +101,17 @@ public class RuntimeCodeCache {
     private NonmovableArray<UntetheredCodeInfo> codeInfos;
     private int numCodeInfos;
 
+    /*
+     * The code cache is not physically segmented: all code is allocated individually. The
+     * segments only account for the code and data memory of hot and cold code, and determine which
+     * code is eligible for eviction.
+     */
+    private long agingCycle;
+    private UnsignedWord hotSegmentSize = WordFactory.zero();
+    private UnsignedWord coldSegmentSize = WordFactory.zero();
+    private UnsignedWord peakSize = WordFactory.zero();
+    private UnsignedWord pendingEvictionSize = WordFactory.zero();
+
     @Platforms(Platform.HOSTED_ONLY.class)
     public RuntimeCodeCache() {
     }
@@ -188,6 +216,9 @@ public class RuntimeCodeCache {
         numCodeInfos++;
         NonmovableArrays.setWord(codeInfos, insertionPoint, info);
 
+        RuntimeCodeInfoAccess.setLastUsedAgingCycle(info, agingCycle);
+        addToSegment(info, SEGMENT_HOT);
+
         if (Options.TraceCodeCache.getValue()) {
             logTable();
         }
@@ -260,6 +291,7 @@ public class RuntimeCodeCache {
         NonmovableArrays.arraycopy(codeInfos, idx + 1, codeInfos, idx, numCodeInfos - (idx + 1));
         numCodeInfos--;
         NonmovableArrays.setWord(codeInfos, numCodeInfos, WordFactory.nullPointer());
+        removeFromSegment(info);
 
         RuntimeCodeInfoAccess.partialReleaseAfterInvalidate(info, notifyGC);
 
@@ -269,6 +301,122 @@ public class RuntimeCodeCache {
         assert verifyTable();
     }
 
+    /**
+     * Starts a new aging cycle. The GC calls this method before it visits the runtime compiled code
+     * in a collection that determines the reachability of all code tethers, so code that is not
+     * in use can be aged, see {@link #markInUse} and {@link #ageUnusedCode}.
+     */
+    public void startAgingCycle() {
+        assert VMOperation.isGCInProgress() : "must only be called by the GC";
+        agingCycle++;
+        pendingEvictionSize = WordFactory.zero();
+    }
+
+    public long getAgingCycle() {
+        return agingCycle;
+    }
+
+    /**
+     * Records that the code is in use in the current aging cycle, i.e., it was entered since the
+     * previous cycle, see {@link SubstrateInstalledCode#getAndClearUsed}. Cold code moves back to
+     * the hot segment.
+     */
+    public void markInUse(CodeInfo info) {
+        assert VMOperation.isGCInProgress() : "must only be called by the GC";
+        if (RuntimeCodeInfoAccess.getCodeCacheSegment(info) != SEGMENT_NONE) {
+            RuntimeCodeInfoAccess.setLastUsedAgingCycle(info, agingCycle);
+            moveToSegment(info, SEGMENT_HOT);
+        }
+    }
+
+    /**
+     * Ages code that was not entered since the previous aging cycle and moves it to the cold
+     * segment once it is older than {@link Options#RuntimeCodeCacheColdAge}. Returns true if the
+     * code is cold and must be evicted because the code cache exceeds
+     * {@link Options#MaxRuntimeCodeCacheSize}. The caller is responsible for invalidating the
+     * evicted code, which frees its memory and makes its {@link SubstrateInstalledCode} invalid.
+     */
+    public boolean ageUnusedCode(CodeInfo info) {
+        assert VMOperation.isGCInProgress() : "must only be called by the GC";
+        int segment = RuntimeCodeInfoAccess.getCodeCacheSegment(info);
+        long age = agingCycle - RuntimeCodeInfoAccess.getLastUsedAgingCycle(info);
+        if (segment == SEGMENT_NONE || age <= 1) {
+            /* Code installed, e.g., recompiled after an invalidation, within the last cycle. */
+            return false;
+        } else if (segment == SEGMENT_HOT) {
+            if (age < Options.RuntimeCodeCacheColdAge.getValue()) {
+                return false;
+            }
+            moveToSegment(info, SEGMENT_COLD);
+        }
+
+        long maxSize = Options.MaxRuntimeCodeCacheSize.getValue();
+        if (maxSize <= 0 || getUsedSize().subtract(pendingEvictionSize).belowOrEqual(WordFactory.unsigned(maxSize))) {
+            return false;
+        }
+        pendingEvictionSize = pendingEvictionSize.add(CodeInfoAccess.getCodeAndDataMemorySize(info));
+        evictMethodCount.inc();
+        return true;
+    }
+
+    /** Returns the size of the code and data memory of all methods in the code cache. */
+    public UnsignedWord getUsedSize() {
+        return hotSegmentSize.add(coldSegmentSize);
+    }
+
+    public UnsignedWord getHotSegmentSize() {
+        return hotSegmentSize;
+    }
+
+    public UnsignedWord getColdSegmentSize() {
+        return coldSegmentSize;
+    }
+
+    public UnsignedWord getPeakSize() {
+        return peakSize;
+    }
+
+    public void resetPeakSize() {
+        peakSize = getUsedSize();
+    }
+
+    private void moveToSegment(CodeInfo info, int segment) {
+        if (RuntimeCodeInfoAccess.getCodeCacheSegment(info) != segment) {
+            removeFromSegment(info);
+            addToSegment(info, segment);
+        }
+    }
+
+    private void addToSegment(CodeInfo info, int segment) {
+        assert RuntimeCodeInfoAccess.getCodeCacheSegment(info) == SEGMENT_NONE;
+        UnsignedWord size = CodeInfoAccess.getCodeAndDataMemorySize(info);
+        if (segment == SEGMENT_HOT) {
+            hotSegmentSize = hotSegmentSize.add(size);
+        } else {
+            assert segment == SEGMENT_COLD;
+            coldSegmentSize = coldSegmentSize.add(size);
+        }
+        RuntimeCodeInfoAccess.setCodeCacheSegment(info, segment);
+
+        UnsignedWord usedSize = getUsedSize();
+        if (usedSize.aboveThan(peakSize)) {
+            peakSize = usedSize;
+        }
+    }
+
+    private void removeFromSegment(CodeInfo info) {
+        int segment = RuntimeCodeInfoAccess.getCodeCacheSegment(info);
+        UnsignedWord size = CodeInfoAccess.getCodeAndDataMemorySize(info);
+        if (segment == SEGMENT_HOT) {
+            assert hotSegmentSize.aboveOrEqual(size);
+            hotSegmentSize = hotSegmentSize.subtract(size);
+        } else if (segment == SEGMENT_COLD) {
+            assert coldSegmentSize.aboveOrEqual(size);
+            coldSegmentSize = coldSegmentSize.subtract(size);
+        }
+        RuntimeCodeInfoAccess.setCodeCacheSegment(info, SEGMENT_NONE);
+    }
+
     @Uninterruptible(reason = "called from uninterruptible code")
     private boolean verifyTable() {
         if (codeInfos.isNull()) {
@@ -306,7 +454,7 @@ public class RuntimeCodeCache {
     }
 
     public void logTable(Log log) {
-        log.string("== [RuntimeCodeCache: ").signed(numCodeInfos).string(" methods");
+        log.string("== [RuntimeCodeCache: ").signed(numCodeInfos).string(" methods, hot: ").unsigned(hotSegmentSize).string(" bytes, cold: ").unsigned(coldSegmentSize).string(" bytes");
         for (int i = 0; i < numCodeInfos; i++) {
             logCodeInfo(log, i);
         }
@@ -145,6 +145,22 @@ public final class RuntimeCodeInfoAccess {
         return objectFields;
     }
 
+    public static long getLastUsedAgingCycle(CodeInfo info) {
+        return cast(info).getLastUsedAgingCycle();
+    }
+
+    static void setLastUsedAgingCycle(CodeInfo info, long cycle) {
+        cast(info).setLastUsedAgingCycle(cycle);
+    }
+
+    public static int getCodeCacheSegment(CodeInfo info) {
+        return cast(info).getCodeCacheSegment();
+    }
+
+    static void setCodeCacheSegment(CodeInfo info, int segment) {
+        cast(info).setCodeCacheSegment(segment);
+    }
+
     public static boolean areAllObjectsOnImageHeap(CodeInfo info) {
         return cast(info).getAllObjectsAreInImageHeap();
     }
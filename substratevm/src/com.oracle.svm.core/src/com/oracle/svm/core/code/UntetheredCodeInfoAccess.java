@@ -48,6 +48,15 @@ public final class UntetheredCodeInfoAccess {
         return getObjectFieldUnsafe(info, CodeInfoImpl.TETHER_OBJFIELD);
     }
 
+    /**
+     * Provides direct access to the installed code object without any verification, see
+     * {@link #getTetherUnsafe}.
+     */
+    @Uninterruptible(reason = "Must prevent the GC from freeing the CodeInfo object.")
+    public static Object getInstalledCodeUnsafe(UntetheredCodeInfo info) {
+        return getObjectFieldUnsafe(info, CodeInfoImpl.INSTALLEDCODE_OBJFIELD);
+    }
+
     /** @see CodeInfoImpl#getCodeStart */
     @Uninterruptible(reason = "Must prevent the GC from freeing the CodeInfo object.", callerMustBe = true)
     public static CodePointer getCodeStart(UntetheredCodeInfo info) {
@@ -373,6 +373,7 @@ public final class DeoptimizedFrame {
     /**
      * The code address inside the source method (= the method to deoptimize).
      */
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
     public CodePointer getSourcePC() {
         return sourcePC;
     }
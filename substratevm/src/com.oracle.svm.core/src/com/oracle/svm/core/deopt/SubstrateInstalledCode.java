@@ -99,6 +99,16 @@ public interface SubstrateInstalledCode {
 
     SubstrateSpeculationLog getSpeculationLog();
 
+    /**
+     * Returns true if this code was entered since the last call of this method, and clears that
+     * usage bit. Called by the GC, which ages code that is not used, see
+     * {@link com.oracle.svm.core.code.RuntimeCodeCache}. Implementations that do not track their
+     * invocations return true so that their code is never evicted.
+     */
+    default boolean getAndClearUsed() {
+        return true;
+    }
+
     /**
      * Provides access to a {@link SubstrateInstalledCode}.
      *
@@ -83,6 +83,10 @@ public class GCCause {
         return GCCauses[causeId];
     }
 
+    public static GCCause[] getGCCauses() {
+        return GCCauses;
+    }
+
     @Platforms(Platform.HOSTED_ONLY.class)
     public static void cacheReverseMapping() {
         GCCauses = HostedGCCauseList.toArray(new GCCause[HostedGCCauseList.size()]);
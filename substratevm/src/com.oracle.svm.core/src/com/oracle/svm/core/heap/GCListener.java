@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.heap;
+
+import org.graalvm.word.UnsignedWord;
+
+import com.oracle.svm.core.annotate.Uninterruptible;
+
+/**
+ * Receives notifications about the collections and collection phases of the garbage collector, for
+ * example to emit monitoring events. The notifications are sent by the thread that executes the
+ * collection, at a safepoint, so the listeners must neither allocate nor block. All times are
+ * {@link System#nanoTime()} values.
+ */
+public interface GCListener {
+    /**
+     * Called when a pause phase of the collection with the given epoch has finished. Level 0 is the
+     * whole pause, higher levels are nested sub-phases.
+     */
+    @Uninterruptible(reason = "Called by the GC, which must not be interrupted.")
+    void phasePause(UnsignedWord gcEpoch, int level, String phaseName, long startNanos, long endNanos);
+
+    /** Called when the collection with the given epoch has finished. */
+    @Uninterruptible(reason = "Called by the GC, which must not be interrupted.")
+    void collectionEnd(UnsignedWord gcEpoch, GCName name, GCCause cause, long startNanos, long endNanos);
+}
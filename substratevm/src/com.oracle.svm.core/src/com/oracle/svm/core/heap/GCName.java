@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.heap;
+
+import java.util.ArrayList;
+
+import org.graalvm.nativeimage.Platform;
+import org.graalvm.nativeimage.Platforms;
+import org.graalvm.nativeimage.hosted.Feature;
+
+import com.oracle.svm.core.annotate.AutomaticFeature;
+import com.oracle.svm.core.annotate.Uninterruptible;
+import com.oracle.svm.core.util.VMError;
+
+/**
+ * The names of the different kinds of collections that a garbage collector implementation
+ * performs, e.g., for reporting them to monitoring tools. Like {@link GCCause}, each name has a
+ * unique id that is assigned at image build time.
+ */
+public class GCName {
+    @Platforms(Platform.HOSTED_ONLY.class) private static final ArrayList<GCName> HostedGCNameList = new ArrayList<>();
+
+    protected static GCName[] GCNames = new GCName[0];
+
+    private final int id;
+    private final String name;
+
+    @Platforms(Platform.HOSTED_ONLY.class)
+    protected GCName(String name, int id) {
+        this.id = id;
+        this.name = name;
+        addGCNameMapping();
+    }
+
+    @Platforms(Platform.HOSTED_ONLY.class)
+    private void addGCNameMapping() {
+        synchronized (HostedGCNameList) { /* Checkstyle: allow synchronization. */
+            while (HostedGCNameList.size() <= id) {
+                HostedGCNameList.add(null);
+            }
+            VMError.guarantee(HostedGCNameList.get(id) == null, name + " and another GCName have the same id.");
+            HostedGCNameList.set(id, this);
+        } /* Checkstyle: disallow synchronization. */
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    public int getId() {
+        return id;
+    }
+
+    public static GCName[] getGCNames() {
+        return GCNames;
+    }
+
+    @Platforms(Platform.HOSTED_ONLY.class)
+    public static void cacheReverseMapping() {
+        GCNames = HostedGCNameList.toArray(new GCName[HostedGCNameList.size()]);
+    }
+}
+
+@AutomaticFeature
+class GCNameFeature implements Feature {
+    @Override
+    public void beforeCompilation(BeforeCompilationAccess access) {
+        GCName.cacheReverseMapping();
+        access.registerAsImmutable(GCName.GCNames);
+    }
+}
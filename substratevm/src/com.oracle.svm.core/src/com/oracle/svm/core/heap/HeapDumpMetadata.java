@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.heap;
+
+import org.graalvm.compiler.api.replacements.Fold;
+import org.graalvm.nativeimage.ImageSingletons;
+import org.graalvm.nativeimage.Platform;
+import org.graalvm.nativeimage.Platforms;
+
+import com.oracle.svm.core.annotate.UnknownObjectField;
+import com.oracle.svm.core.c.NonmovableArrays;
+import com.oracle.svm.core.code.ReusableTypeReader;
+import com.oracle.svm.core.hub.DynamicHub;
+import com.oracle.svm.core.util.VMError;
+
+import jdk.vm.ci.meta.JavaKind;
+
+/**
+ * Field metadata that is needed to write heap dumps, computed at image build time. Heap dumps must
+ * describe the name, type, and location of every instance and static field, which is not
+ * available from the {@link DynamicHub reference maps} used by the GC.
+ *
+ * For each type that declares fields, the encoding contains (all numbers are unsigned variable
+ * length integers unless noted otherwise):
+ * <ul>
+ * <li>the number of bytes that the instance fields declared by the type occupy in a heap dump</li>
+ * <li>the number of instance fields, followed by name index, type (u1) and offset of each
+ * field</li>
+ * <li>the number of static fields, followed by name index, type (u1) and offset of each field.
+ * The offset is relative to {@link com.oracle.svm.core.StaticFieldsSupport#getStaticObjectFields()}
+ * or {@link com.oracle.svm.core.StaticFieldsSupport#getStaticPrimitiveFields()}, depending on the
+ * type.</li>
+ * </ul>
+ * Field types use the HPROF basic type codes.
+ */
+public final class HeapDumpMetadata {
+    public static final int TYPE_OBJECT = 2;
+    public static final int TYPE_BOOLEAN = 4;
+    public static final int TYPE_CHAR = 5;
+    public static final int TYPE_FLOAT = 6;
+    public static final int TYPE_DOUBLE = 7;
+    public static final int TYPE_BYTE = 8;
+    public static final int TYPE_SHORT = 9;
+    public static final int TYPE_INT = 10;
+    public static final int TYPE_LONG = 11;
+
+    /** Marker in {@link #typeEncodingIndices} for types that do not declare any fields. */
+    public static final int NO_FIELDS = -1;
+
+    @UnknownObjectField(types = {byte[].class}) private byte[] typeEncodings;
+    @UnknownObjectField(types = {int[].class}) private int[] typeEncodingIndices;
+    @UnknownObjectField(types = {String[].class}) private String[] fieldNames;
+
+    @Platforms(Platform.HOSTED_ONLY.class)
+    public HeapDumpMetadata() {
+    }
+
+    @Fold
+    public static HeapDumpMetadata singleton() {
+        return ImageSingletons.lookup(HeapDumpMetadata.class);
+    }
+
+    @Platforms(Platform.HOSTED_ONLY.class)
+    public void setData(byte[] encodings, int[] encodingIndices, String[] names) {
+        this.typeEncodings = encodings;
+        this.typeEncodingIndices = encodingIndices;
+        this.fieldNames = names;
+    }
+
+    public int getFieldNameCount() {
+        return fieldNames.length;
+    }
+
+    public String getFieldName(int index) {
+        return fieldNames[index];
+    }
+
+    /**
+     * Positions the reader at the start of the field metadata of the given type.
+     *
+     * @return false if the type does not declare any fields, true otherwise.
+     */
+    public boolean initReader(ReusableTypeReader reader, DynamicHub hub) {
+        int typeId = hub.getTypeID();
+        if (typeId >= typeEncodingIndices.length || typeEncodingIndices[typeId] == NO_FIELDS) {
+            return false;
+        }
+        reader.setData(NonmovableArrays.fromImageHeap(typeEncodings));
+        reader.setByteIndex(typeEncodingIndices[typeId]);
+        return true;
+    }
+
+    /** Returns the number of bytes that a value of the given type occupies in a heap dump. */
+    public static int getValueSize(int type) {
+        switch (type) {
+            case TYPE_OBJECT:
+            case TYPE_DOUBLE:
+            case TYPE_LONG:
+                return Long.BYTES;
+            case TYPE_BOOLEAN:
+            case TYPE_BYTE:
+                return Byte.BYTES;
+            case TYPE_CHAR:
+            case TYPE_SHORT:
+                return Short.BYTES;
+            case TYPE_FLOAT:
+            case TYPE_INT:
+                return Integer.BYTES;
+            default:
+                throw VMError.shouldNotReachHere("Unknown heap dump type");
+        }
+    }
+
+    @Platforms(Platform.HOSTED_ONLY.class)
+    public static int toType(JavaKind storageKind) {
+        switch (storageKind) {
+            case Object:
+                return TYPE_OBJECT;
+            case Boolean:
+                return TYPE_BOOLEAN;
+            case Char:
+                return TYPE_CHAR;
+            case Float:
+                return TYPE_FLOAT;
+            case Double:
+                return TYPE_DOUBLE;
+            case Byte:
+                return TYPE_BYTE;
+            case Short:
+                return TYPE_SHORT;
+            case Int:
+                return TYPE_INT;
+            case Long:
+                return TYPE_LONG;
+            default:
+                throw VMError.shouldNotReachHere("Unexpected field kind: " + storageKind);
+        }
+    }
+}
@@ -24,11 +24,8 @@
  */
 package com.oracle.svm.core.heap;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
-import org.graalvm.collections.Pair;
-import org.graalvm.compiler.api.replacements.Fold;
 import org.graalvm.compiler.core.common.util.TypeConversion;
 import org.graalvm.compiler.word.Word;
 import org.graalvm.nativeimage.IsolateThread;
@@ -44,7 +41,6 @@ import com.oracle.svm.core.code.CodeInfo;
 import com.oracle.svm.core.code.CodeInfoAccess;
 import com.oracle.svm.core.code.CodeInfoTable;
 import com.oracle.svm.core.code.FrameInfoQueryResult;
-import com.oracle.svm.core.config.ConfigurationValues;
 import com.oracle.svm.core.deopt.DeoptimizedFrame;
 import com.oracle.svm.core.graal.nodes.NewStoredContinuationNode;
 import com.oracle.svm.core.stack.JavaStackWalker;
@@ -54,8 +50,6 @@ import com.oracle.svm.core.thread.Safepoint;
 import com.oracle.svm.core.thread.Target_java_lang_Continuation;
 import com.oracle.svm.core.util.VMError;
 
-import jdk.vm.ci.meta.JavaKind;
-
 /**
  * Helper class to access a {@link StoredContinuation}.
  *
@@ -212,17 +206,6 @@ public final class StoredContinuationImpl {
         return payloadLocation(f).add(readFrameMetaSize(f));
     }
 
-    /** A non-uninterruptible function to allocate temporary buffer. */
-    public static byte[] allocateBuf(StoredContinuation f) {
-        return new byte[TypeConversion.asU4(readAllFrameSize(f))];
-    }
-
-    @Uninterruptible(reason = "access stack")
-    public static void writeBuf(StoredContinuation f, byte[] buf) {
-        Pointer frameStart = payloadFrameStart(f);
-        UnmanagedMemoryUtil.copy(frameStart, Word.objectToUntrackedPointer(buf).add(getByteArrayBaseOffset()), WordFactory.unsigned(buf.length));
-    }
-
     public static int allocateFromCurrentStack(Target_java_lang_Continuation contRef, Pointer rootSp, Pointer leafSp, CodePointer leafIp) {
         return allocateFromStack(contRef, rootSp, leafSp, leafIp, WordFactory.nullPointer());
     }
@@ -238,7 +221,7 @@ public final class StoredContinuationImpl {
     private static int allocateFromStack(Target_java_lang_Continuation contRef, Pointer rootSp, Pointer leafSP, CodePointer leafIp, IsolateThread otherThread) {
         boolean isCurrentThread = leafSP.isNonNull();
 
-        YieldVisitor visitor = new YieldVisitor(rootSp, leafSP, leafIp);
+        YieldVisitor visitor = new YieldVisitor(rootSp, leafSP, leafIp, !isCurrentThread);
         Pointer resultLeafSP = leafSP;
 
         if (isCurrentThread) {
@@ -258,29 +241,30 @@ public final class StoredContinuationImpl {
         }
         VMError.guarantee(resultLeafSP.isNonNull());
 
-        int frameCount = visitor.frameSizeReferenceMapIndex.size();
+        int frameCount = visitor.frameCount;
         long payloadSize = SHARED_REFERENCE_MAP_ENCODING_SIZE + FRAME_META_SIZE * frameCount + rootSp.subtract(resultLeafSP).rawValue();
 
         contRef.internalContinuation = allocateWriteFrameCount(payloadSize, frameCount);
+        writeFrames(contRef.internalContinuation, visitor, resultLeafSP);
 
-        writePayloadLong(contRef.internalContinuation, SHARED_REFERENCE_MAP_ENCODING_OFFSET, visitor.referenceMapEncoding.rawValue());
+        return JavaContinuations.YIELD_SUCCESS;
+    }
+
+    @Uninterruptible(reason = "write StoredContinuation")
+    private static void writeFrames(StoredContinuation f, YieldVisitor visitor, Pointer leafSP) {
+        writePayloadLong(f, SHARED_REFERENCE_MAP_ENCODING_OFFSET, visitor.referenceMapEncoding.rawValue());
 
         long allFrameSize = 0;
-        for (int i = 0; i < frameCount; i++) {
-            Pair<Integer, Integer> frameSizeRefMapInxPair = visitor.frameSizeReferenceMapIndex.get(i);
-            writePayloadInt(contRef.internalContinuation, FRAME_META_START_OFFSET + i * FRAME_META_SIZE + SIZE_OFFSET_IN_FRAME_META,
-                            frameSizeRefMapInxPair.getLeft());
-            writePayloadInt(contRef.internalContinuation, FRAME_META_START_OFFSET + i * FRAME_META_SIZE + REFERENCE_MAP_INDEX_OFFSET_IN_FRAME_META,
-                            frameSizeRefMapInxPair.getRight());
-            allFrameSize += frameSizeRefMapInxPair.getLeft();
+        for (int i = 0; i < visitor.frameCount; i++) {
+            writePayloadInt(f, FRAME_META_START_OFFSET + i * FRAME_META_SIZE + SIZE_OFFSET_IN_FRAME_META, visitor.frameSizes[i]);
+            writePayloadInt(f, FRAME_META_START_OFFSET + i * FRAME_META_SIZE + REFERENCE_MAP_INDEX_OFFSET_IN_FRAME_META, visitor.referenceMapIndices[i]);
+            allFrameSize += visitor.frameSizes[i];
         }
 
-        Pointer frameStart = payloadFrameStart(contRef.internalContinuation);
-        long frameSize = readAllFrameSize(contRef.internalContinuation);
+        Pointer frameStart = payloadFrameStart(f);
+        long frameSize = readAllFrameSize(f);
         VMError.guarantee(frameSize == allFrameSize);
-        UnmanagedMemoryUtil.copy(resultLeafSP, frameStart, WordFactory.unsigned(frameSize));
-
-        return JavaContinuations.YIELD_SUCCESS;
+        UnmanagedMemoryUtil.copy(leafSP, frameStart, WordFactory.unsigned(frameSize));
     }
 
     /**
@@ -320,36 +304,51 @@ public final class StoredContinuationImpl {
     }
 
     private static class YieldVisitor extends StackFrameVisitor {
+        private static final int INITIAL_FRAME_CAPACITY = 16;
+
         int preemptStatus = JavaContinuations.YIELD_SUCCESS;
 
         Pointer rootSP;
         Pointer leafSP;
         CodePointer leafIP;
 
-        List<Pair<Integer, Integer>> frameSizeReferenceMapIndex = new ArrayList<>();
+        /**
+         * Only a preempted thread can be in a safepoint check or already be yielding, so the frame
+         * information, which is expensive to decode, is only needed then.
+         */
+        final boolean preempting;
+
+        int frameCount;
+        int[] frameSizes = new int[INITIAL_FRAME_CAPACITY];
+        int[] referenceMapIndices = new int[INITIAL_FRAME_CAPACITY];
         NonmovableArray<Byte> referenceMapEncoding = WordFactory.nullPointer();
 
-        private static boolean startFromNextFrame = false;
+        private boolean startFromNextFrame = false;
 
-        YieldVisitor(Pointer rootSp, Pointer verifyLeafSp, CodePointer leafIp) {
+        YieldVisitor(Pointer rootSp, Pointer verifyLeafSp, CodePointer leafIp, boolean preempting) {
             if (verifyLeafSp.isNonNull()) {
                 VMError.guarantee(verifyLeafSp.belowThan(rootSp));
             }
             this.rootSP = rootSp;
             this.leafSP = verifyLeafSp;
             this.leafIP = leafIp;
+            this.preempting = preempting;
         }
 
         @SuppressWarnings("hiding")
         @Override
         protected boolean visitFrame(Pointer sp, CodePointer ip, CodeInfo codeInfo, DeoptimizedFrame deoptimizedFrame) {
-            FrameInfoQueryResult frameInfo = CodeInfoTable.lookupCodeInfoQueryResult(codeInfo, ip).getFrameInfo();
-            if (frameInfo.getSourceClass().equals(StoredContinuationImpl.class) && frameInfo.getSourceMethodName().equals("allocateFromStack")) {
-                preemptStatus = JavaContinuations.YIELDING;
-                return false;
+            FrameInfoQueryResult frameInfo = null;
+            if (preempting) {
+                frameInfo = CodeInfoTable.lookupCodeInfoQueryResult(codeInfo, ip).getFrameInfo();
+                if (frameInfo.getSourceClass().equals(StoredContinuationImpl.class) && frameInfo.getSourceMethodName().equals("allocateFromStack")) {
+                    preemptStatus = JavaContinuations.YIELDING;
+                    return false;
+                }
             }
 
             if (leafSP.isNull()) {
+                assert preempting;
                 // We're preempting a continuation, walk starts from a safepoint.
                 // Should start from the method calling `enterSlowPathSafepointCheck`.
                 if (startFromNextFrame) {
@@ -361,7 +360,7 @@ public final class StoredContinuationImpl {
                     }
                     return true;
                 }
-            } else if (frameSizeReferenceMapIndex.isEmpty()) {
+            } else if (frameCount == 0) {
                 // yielding current thread,
                 // `leafSP` and `leafIP` are used for verification purpose.
                 VMError.guarantee(leafSP.equal(sp));
@@ -378,7 +377,13 @@ public final class StoredContinuationImpl {
             long relIp = CodeInfoAccess.relativeIP(codeInfo, ip);
             int frameSize = TypeConversion.asU4(CodeInfoAccess.lookupTotalFrameSize(codeInfo, relIp));
             int referenceMapIndex = TypeConversion.asS4(CodeInfoAccess.lookupStackReferenceMapIndex(codeInfo, relIp));
-            frameSizeReferenceMapIndex.add(Pair.create(frameSize, referenceMapIndex));
+            if (frameCount == frameSizes.length) {
+                frameSizes = Arrays.copyOf(frameSizes, frameCount * 2);
+                referenceMapIndices = Arrays.copyOf(referenceMapIndices, frameCount * 2);
+            }
+            frameSizes[frameCount] = frameSize;
+            referenceMapIndices[frameCount] = referenceMapIndex;
+            frameCount++;
 
             Pointer currentFrameEnd = sp.add(frameSize);
             VMError.guarantee(currentFrameEnd.belowOrEqual(rootSP));
@@ -386,9 +391,4 @@ public final class StoredContinuationImpl {
             return currentFrameEnd.notEqual(rootSP);
         }
     }
-
-    @Fold
-    protected static int getByteArrayBaseOffset() {
-        return ConfigurationValues.getObjectLayout().getArrayBaseOffset(JavaKind.Byte);
-    }
 }
@@ -593,6 +593,7 @@ public final class DynamicHub implements JavaKind.FormatWithToString, AnnotatedE
         return arrayHub;
     }
 
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
     public int getReferenceMapIndex() {
         return referenceMapIndex;
     }
@@ -637,6 +638,7 @@ public final class DynamicHub implements JavaKind.FormatWithToString, AnnotatedE
         return HubType.isStoredContinuation(hubType);
     }
 
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
     public boolean isReferenceInstanceClass() {
         return HubType.isReferenceInstance(hubType);
     }
@@ -25,6 +25,7 @@
 package com.oracle.svm.core.hub;
 
 import com.oracle.svm.core.annotate.DuplicatedInNativeCode;
+import com.oracle.svm.core.annotate.Uninterruptible;
 
 @DuplicatedInNativeCode
 public enum HubType {
@@ -44,6 +45,7 @@ public enum HubType {
         this.value = value;
     }
 
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
     public int getValue() {
         return value;
     }
@@ -52,6 +54,7 @@ public enum HubType {
         return hubType <= StoredContinuation.getValue();
     }
 
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
     public static boolean isReferenceInstance(int hubType) {
         return hubType == InstanceReference.getValue();
     }
@@ -35,6 +35,7 @@ import org.graalvm.word.Pointer;
 import org.graalvm.word.UnsignedWord;
 import org.graalvm.word.WordFactory;
 
+import com.oracle.svm.core.SubstrateUtil;
 import com.oracle.svm.core.annotate.DuplicatedInNativeCode;
 import com.oracle.svm.core.annotate.Uninterruptible;
 import com.oracle.svm.core.config.ObjectLayout;
@@ -214,6 +215,22 @@ public class LayoutEncoding {
         }
     }
 
+    /**
+     * Like {@link #getSizeFromObject(Object)}, but uses the given hub instead of reading the hub
+     * from the object. This is needed when the object header can be overwritten concurrently, e.g.,
+     * by another GC thread that installs a forwarding pointer.
+     */
+    public static UnsignedWord getSizeFromObject(Object obj, DynamicHub hub) {
+        int encoding = hub.getLayoutEncoding();
+        if (isArray(encoding)) {
+            return getArraySize(encoding, ArrayLengthNode.arrayLength(obj));
+        } else if (isStoredContinuation(encoding)) {
+            return WordFactory.unsigned(StoredContinuationImpl.readSize(SubstrateUtil.cast(obj, StoredContinuation.class)));
+        } else {
+            return getInstanceSize(encoding);
+        }
+    }
+
     /** Returns the end of the Object when the call started, e.g., for logging. */
     public static Pointer getObjectEnd(Object obj) {
         // TODO: This assumes that the object starts at obj.
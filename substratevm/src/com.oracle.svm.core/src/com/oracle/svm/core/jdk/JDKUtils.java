@@ -25,6 +25,7 @@
 package com.oracle.svm.core.jdk;
 
 import com.oracle.svm.core.SubstrateUtil;
+import com.oracle.svm.core.heap.Heap;
 
 public final class JDKUtils {
 
@@ -37,7 +38,16 @@ public final class JDKUtils {
         return SubstrateUtil.cast(ex, Target_java_lang_Throwable.class).detailMessage;
     }
 
+    /**
+     * Returns the stack trace stored in {@link Throwable}, ignoring possible overrides of
+     * {@link Throwable#getStackTrace}. A stack trace that was not decoded yet is only decoded if
+     * allocation is allowed, otherwise null is returned.
+     */
     public static StackTraceElement[] getRawStackTrace(Throwable ex) {
-        return SubstrateUtil.cast(ex, Target_java_lang_Throwable.class).stackTrace;
+        Target_java_lang_Throwable throwable = SubstrateUtil.cast(ex, Target_java_lang_Throwable.class);
+        if (throwable.stackTrace == null && throwable.backtrace != null && !Heap.getHeap().isAllocationDisallowed()) {
+            return throwable.getOurStackTrace();
+        }
+        return throwable.stackTrace;
     }
 }
@@ -169,8 +169,13 @@ final class Target_java_lang_String {
 @SuppressWarnings({"unused"})
 final class Target_java_lang_Throwable {
 
+    /**
+     * Like in the Java HotSpot VM, this field holds the raw stack trace that is decoded into
+     * {@link #stackTrace} when the stack trace is accessed, see
+     * {@link StackTraceUtils#captureRawStackTrace}.
+     */
     @Alias @RecomputeFieldValue(kind = Reset)//
-    private Object backtrace;
+    Object backtrace;
 
     @Alias @RecomputeFieldValue(kind = Reset)//
     StackTraceElement[] stackTrace;
@@ -180,14 +185,27 @@ final class Target_java_lang_Throwable {
     @Substitute
     @NeverInline("Starting a stack walk in the caller frame")
     private Object fillInStackTrace() {
-        stackTrace = StackTraceUtils.getStackTrace(true, KnownIntrinsics.readCallerStackPointer());
+        long[] rawStackTrace = StackTraceUtils.captureRawStackTrace(KnownIntrinsics.readCallerStackPointer());
+        if (rawStackTrace != null) {
+            backtrace = rawStackTrace;
+            stackTrace = null;
+        } else {
+            backtrace = null;
+            stackTrace = StackTraceUtils.getStackTrace(true, KnownIntrinsics.readCallerStackPointer());
+        }
         return this;
     }
 
     @Substitute
-    private StackTraceElement[] getOurStackTrace() {
-        if (stackTrace != null) {
-            return stackTrace;
+    StackTraceElement[] getOurStackTrace() {
+        StackTraceElement[] result = stackTrace;
+        if (result == null && backtrace != null) {
+            /* Concurrent callers decode the same stack trace, so it does not matter who wins. */
+            result = StackTraceUtils.materializeStackTrace((long[]) backtrace);
+            stackTrace = result;
+        }
+        if (result != null) {
+            return result;
         } else {
             return new StackTraceElement[0];
         }
@@ -196,19 +214,17 @@ final class Target_java_lang_Throwable {
     @Substitute
     @TargetElement(onlyWith = JDK8OrEarlier.class)
     int getStackTraceDepth() {
-        if (stackTrace != null) {
-            return stackTrace.length;
-        }
-        return 0;
+        return getOurStackTrace().length;
     }
 
     @Substitute
     @TargetElement(onlyWith = JDK8OrEarlier.class)
     StackTraceElement getStackTraceElement(int index) {
-        if (stackTrace == null) {
+        StackTraceElement[] trace = getOurStackTrace();
+        if (index < 0 || index >= trace.length) {
             throw new IndexOutOfBoundsException();
         }
-        return stackTrace[index];
+        return trace[index];
     }
 }
 
@@ -25,16 +25,23 @@
 package com.oracle.svm.core.jdk;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
 import org.graalvm.compiler.serviceprovider.JavaVersionUtil;
 import org.graalvm.nativeimage.IsolateThread;
+import org.graalvm.nativeimage.c.function.CodePointer;
 import org.graalvm.util.DirectAnnotationAccess;
 import org.graalvm.word.Pointer;
+import org.graalvm.word.WordFactory;
 
 import com.oracle.svm.core.SubstrateOptions;
+import com.oracle.svm.core.code.CodeInfo;
+import com.oracle.svm.core.code.CodeInfoTable;
 import com.oracle.svm.core.code.FrameInfoQueryResult;
+import com.oracle.svm.core.deopt.DeoptimizedFrame;
 import com.oracle.svm.core.stack.JavaStackFrameVisitor;
 import com.oracle.svm.core.stack.JavaStackWalker;
+import com.oracle.svm.core.stack.StackFrameVisitor;
 import com.oracle.svm.core.thread.JavaContinuations;
 import com.oracle.svm.core.thread.Target_java_lang_Continuation;
 
@@ -60,6 +67,42 @@ public class StackTraceUtils {
         return visitor.trace.toArray(NO_ELEMENTS);
     }
 
+    /**
+     * Captures the stack trace of the current thread for {@link Throwable#fillInStackTrace()}
+     * without decoding any frame information: only the instruction pointers of the frames are
+     * stored, and {@link #materializeStackTrace} decodes them when the stack trace is accessed.
+     *
+     * A frame can contain several inlined or no visible Java frames, so the number of frames that
+     * {@link SubstrateOptions#MaxJavaStackTraceDepth} allows cannot be determined before decoding.
+     * At most as many frames as stack trace elements are captured, or
+     * {@link SubstrateOptions#MaxCapturedStackTraceDepth} frames if the stack trace depth is
+     * unlimited. Returns null if the stack is deeper than that, or if it contains runtime compiled
+     * or deoptimized frames, because their metadata can be freed before the stack trace is
+     * accessed. The stack trace must be captured with {@link #getStackTrace(boolean, Pointer)}
+     * then, so the result never differs from eager decoding.
+     */
+    public static long[] captureRawStackTrace(Pointer startSP) {
+        int maxDepth = SubstrateOptions.MaxJavaStackTraceDepth.getValue();
+        RawStackTraceVisitor visitor = new RawStackTraceVisitor(maxDepth > 0 ? maxDepth : SubstrateOptions.MaxCapturedStackTraceDepth.getValue());
+        JavaStackWalker.walkCurrentThread(startSP, visitor);
+        return visitor.getTrace();
+    }
+
+    /**
+     * Decodes a stack trace captured by {@link #captureRawStackTrace} in the same way as
+     * {@link #getStackTrace(boolean, Pointer)} with exception frames filtered.
+     */
+    public static StackTraceElement[] materializeStackTrace(long[] rawStackTrace) {
+        BuildStackTraceVisitor visitor = new BuildStackTraceVisitor(true, SubstrateOptions.MaxJavaStackTraceDepth.getValue());
+        CodeInfo imageCodeInfo = CodeInfoTable.getImageCodeInfo();
+        for (long ip : rawStackTrace) {
+            if (!visitor.visitFrame(WordFactory.nullPointer(), WordFactory.pointer(ip), imageCodeInfo, null)) {
+                break;
+            }
+        }
+        return visitor.trace.toArray(NO_ELEMENTS);
+    }
+
     /**
      * Captures the stack trace of another thread. Used by {@link Thread#getStackTrace()} and
      * {@link Thread#getAllStackTraces()}.
@@ -212,6 +255,44 @@ class BuildStackTraceVisitor extends JavaStackFrameVisitor {
     }
 }
 
+class RawStackTraceVisitor extends StackFrameVisitor {
+    private static final int INITIAL_CAPACITY = 32;
+
+    private final int limit;
+    private long[] trace;
+    private int count;
+    private boolean requiresDecoding;
+
+    RawStackTraceVisitor(int limit) {
+        this.limit = limit;
+        this.trace = new long[limit > 0 ? Math.min(limit, INITIAL_CAPACITY) : INITIAL_CAPACITY];
+    }
+
+    @Override
+    protected boolean visitFrame(Pointer sp, CodePointer ip, CodeInfo codeInfo, DeoptimizedFrame deoptimizedFrame) {
+        if (deoptimizedFrame != null || codeInfo.notEqual(CodeInfoTable.getImageCodeInfo())) {
+            requiresDecoding = true;
+            return false;
+        }
+
+        if (limit > 0 && count == limit) {
+            /* The stack is deeper than the limit, which only eager decoding can apply exactly. */
+            requiresDecoding = true;
+            return false;
+        }
+
+        if (count == trace.length) {
+            trace = Arrays.copyOf(trace, count * 2);
+        }
+        trace[count++] = ip.rawValue();
+        return true;
+    }
+
+    long[] getTrace() {
+        return requiresDecoding ? null : Arrays.copyOf(trace, count);
+    }
+}
+
 class GetCallerClassVisitor extends JavaStackFrameVisitor {
     private final boolean showLambdaFrames;
     private int depth;
@@ -115,6 +115,7 @@ public final class ManagementSupport implements ThreadListener {
 
     private final SubstrateClassLoadingMXBean classLoadingMXBean;
     private final SubstrateCompilationMXBean compilationMXBean;
+    private final SubstrateCodeCacheMemoryPoolMXBean codeCacheMemoryPoolMXBean;
     private final SubstrateRuntimeMXBean runtimeMXBean;
     private final SubstrateThreadMXBean threadMXBean;
 
@@ -128,6 +129,7 @@ public final class ManagementSupport implements ThreadListener {
 
         classLoadingMXBean = new SubstrateClassLoadingMXBean();
         compilationMXBean = new SubstrateCompilationMXBean();
+        codeCacheMemoryPoolMXBean = new SubstrateCodeCacheMemoryPoolMXBean();
         runtimeMXBean = new SubstrateRuntimeMXBean();
         threadMXBean = new SubstrateThreadMXBean();
 
@@ -139,11 +141,12 @@ public final class ManagementSupport implements ThreadListener {
         addPlatformManagedObjectSingleton(java.lang.management.CompilationMXBean.class, compilationMXBean);
         addPlatformManagedObjectSingleton(java.lang.management.RuntimeMXBean.class, runtimeMXBean);
         addPlatformManagedObjectSingleton(com.sun.management.ThreadMXBean.class, threadMXBean);
+        /* The Java heap is not divided into pools, so only the runtime code cache is reported. */
+        addPlatformManagedObjectList(java.lang.management.MemoryPoolMXBean.class, Collections.singletonList(codeCacheMemoryPoolMXBean));
         /*
          * The following platform objects must be registered as existing and valid, even though we
          * do not have an implementation yet.
          */
-        addPlatformManagedObjectList(java.lang.management.MemoryPoolMXBean.class, Collections.emptyList());
         addPlatformManagedObjectList(java.lang.management.BufferPoolMXBean.class, Collections.emptyList());
     }
 
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.jdk.management;
+
+//Checkstyle: stop
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+
+import javax.management.ObjectName;
+
+import org.graalvm.nativeimage.Platform;
+import org.graalvm.nativeimage.Platforms;
+
+import com.oracle.svm.core.code.CodeInfoTable;
+import com.oracle.svm.core.code.RuntimeCodeCache;
+
+import sun.management.Util;
+//Checkstyle: resume
+
+/**
+ * Reports the occupancy of the {@link RuntimeCodeCache}, i.e., the code and data memory of runtime
+ * compiled methods. Code of the image itself is not included.
+ */
+public final class SubstrateCodeCacheMemoryPoolMXBean implements MemoryPoolMXBean {
+
+    @Platforms(Platform.HOSTED_ONLY.class)
+    SubstrateCodeCacheMemoryPoolMXBean() {
+    }
+
+    @Override
+    public ObjectName getObjectName() {
+        return Util.newObjectName(ManagementFactory.MEMORY_POOL_MXBEAN_DOMAIN_TYPE, getName());
+    }
+
+    @Override
+    public String getName() {
+        return "CodeCache";
+    }
+
+    @Override
+    public MemoryType getType() {
+        return MemoryType.NON_HEAP;
+    }
+
+    @Override
+    public MemoryUsage getUsage() {
+        return memoryUsage(CodeInfoTable.getRuntimeCodeCache().getUsedSize().rawValue());
+    }
+
+    @Override
+    public MemoryUsage getPeakUsage() {
+        return memoryUsage(CodeInfoTable.getRuntimeCodeCache().getPeakSize().rawValue());
+    }
+
+    @Override
+    public void resetPeakUsage() {
+        CodeInfoTable.getRuntimeCodeCache().resetPeakSize();
+    }
+
+    /**
+     * Returns the bytes of code that was recently in use. Not part of the standard interface, so
+     * callers need to cast the bean.
+     */
+    public long getHotSegmentSize() {
+        return CodeInfoTable.getRuntimeCodeCache().getHotSegmentSize().rawValue();
+    }
+
+    /**
+     * Returns the bytes of code that may be evicted when the code cache exceeds its limit. Not part
+     * of the standard interface, so callers need to cast the bean.
+     */
+    public long getColdSegmentSize() {
+        return CodeInfoTable.getRuntimeCodeCache().getColdSegmentSize().rawValue();
+    }
+
+    private static MemoryUsage memoryUsage(long used) {
+        /* Code memory is committed on demand for each method. */
+        long maxSize = RuntimeCodeCache.Options.MaxRuntimeCodeCacheSize.getValue();
+        return new MemoryUsage(0, used, used, maxSize > 0 ? maxSize : -1);
+    }
+
+    @Override
+    public boolean isValid() {
+        return true;
+    }
+
+    @Override
+    public String[] getMemoryManagerNames() {
+        /* Return a new array each time because arrays are not immutable. */
+        return new String[0];
+    }
+
+    @Override
+    public MemoryUsage getCollectionUsage() {
+        return null;
+    }
+
+    @Override
+    public boolean isUsageThresholdSupported() {
+        return false;
+    }
+
+    @Override
+    public long getUsageThreshold() {
+        throw new UnsupportedOperationException("Usage threshold is not supported");
+    }
+
+    @Override
+    public void setUsageThreshold(long threshold) {
+        throw new UnsupportedOperationException("Usage threshold is not supported");
+    }
+
+    @Override
+    public boolean isUsageThresholdExceeded() {
+        throw new UnsupportedOperationException("Usage threshold is not supported");
+    }
+
+    @Override
+    public long getUsageThresholdCount() {
+        throw new UnsupportedOperationException("Usage threshold is not supported");
+    }
+
+    @Override
+    public boolean isCollectionUsageThresholdSupported() {
+        return false;
+    }
+
+    @Override
+    public long getCollectionUsageThreshold() {
+        throw new UnsupportedOperationException("Collection usage threshold is not supported");
+    }
+
+    @Override
+    public void setCollectionUsageThreshold(long threshold) {
+        throw new UnsupportedOperationException("Collection usage threshold is not supported");
+    }
+
+    @Override
+    public boolean isCollectionUsageThresholdExceeded() {
+        throw new UnsupportedOperationException("Collection usage threshold is not supported");
+    }
+
+    @Override
+    public long getCollectionUsageThresholdCount() {
+        throw new UnsupportedOperationException("Collection usage threshold is not supported");
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.jvmstat;
+
+import org.graalvm.compiler.options.Option;
+
+import com.oracle.svm.core.option.HostedOptionKey;
+import com.oracle.svm.core.option.RuntimeOptionKey;
+
+/** Options for the jvmstat performance data, with the same names as the HotSpot flags. */
+public final class PerfDataOptions {
+    @Option(help = "Publish jvmstat performance data (hsperfdata) so that tools like jps and jstat can monitor the image.")//
+    public static final HostedOptionKey<Boolean> UsePerfData = new HostedOptionKey<>(false);
+
+    @Option(help = "Keep the performance data in process memory instead of a memory-mapped file in the temporary directory.")//
+    public static final RuntimeOptionKey<Boolean> PerfDisableSharedMem = new RuntimeOptionKey<>(false);
+
+    @Option(help = "Size of the performance data memory region, in bytes.")//
+    public static final RuntimeOptionKey<Integer> PerfDataMemorySize = new RuntimeOptionKey<>(64 * 1024);
+
+    @Option(help = "Interval between samples of the performance data counters, in milliseconds. Sampling is disabled if 0.")//
+    public static final RuntimeOptionKey<Integer> PerfDataSamplingInterval = new RuntimeOptionKey<>(50);
+
+    private PerfDataOptions() {
+    }
+}
@@ -26,12 +26,8 @@ package com.oracle.svm.core.jvmstat;
 
 import java.nio.ByteBuffer;
 
-import org.graalvm.nativeimage.ImageSingletons;
 import org.graalvm.nativeimage.Platform;
 import org.graalvm.nativeimage.Platforms;
-import org.graalvm.nativeimage.hosted.Feature;
-
-import com.oracle.svm.core.annotate.AutomaticFeature;
 
 public interface PerfDataSupport {
     ByteBuffer attach(String user, int lvmid, int mode);
@@ -82,13 +78,3 @@ class NoPerfDataSupport implements PerfDataSupport {
         throw new IllegalArgumentException("Performance data is not supported.");
     }
 }
-
-@AutomaticFeature
-class PerfDataFeature implements Feature {
-    @Override
-    public void duringSetup(DuringSetupAccess access) {
-        if (!ImageSingletons.contains(PerfDataSupport.class)) {
-            ImageSingletons.add(PerfDataSupport.class, new NoPerfDataSupport());
-        }
-    }
-}
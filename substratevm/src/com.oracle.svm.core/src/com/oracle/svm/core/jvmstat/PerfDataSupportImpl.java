@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.jvmstat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.graalvm.nativeimage.Platform;
+import org.graalvm.nativeimage.Platforms;
+import org.graalvm.nativeimage.ProcessProperties;
+
+/**
+ * Implements the {@code Perf} API of the JDK on top of the {@link PerfMemory} of the isolate. The
+ * performance data of other processes is mapped read-only from their hsperfdata files.
+ */
+final class PerfDataSupportImpl implements PerfDataSupport {
+    @Platforms(Platform.HOSTED_ONLY.class)
+    PerfDataSupportImpl() {
+    }
+
+    @Override
+    public ByteBuffer attach(String user, int lvmid, int mode) {
+        if (lvmid == 0 || lvmid == ProcessProperties.getProcessID()) {
+            return PerfManager.singleton().getMemory().getBuffer().duplicate();
+        }
+        try {
+            return PerfMemory.mapForeign(user, lvmid);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Could not attach to the performance data of process " + lvmid, e);
+        }
+    }
+
+    @Override
+    public void detach(ByteBuffer bb) {
+        // nothing to do: mapped buffers are unmapped when they are garbage collected
+    }
+
+    @Override
+    public long highResCounter() {
+        return System.nanoTime();
+    }
+
+    @Override
+    public long highResFrequency() {
+        return 1L * 1000 * 1000 * 1000;
+    }
+
+    @Override
+    public ByteBuffer createLong(String name, int variability, int units, long value) {
+        return PerfManager.singleton().createLongBuffer(name, (byte) variability, (byte) units, value);
+    }
+
+    @Override
+    public ByteBuffer createByteArray(String name, int variability, int units, byte[] value, int maxLength) {
+        return PerfManager.singleton().createByteArray(name, (byte) variability, (byte) units, value, maxLength);
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.jvmstat;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A counter of type long in the {@link PerfMemory}. The value is updated with a plain store, so a
+ * counter must only be written by one thread at a time. Readers in other processes read without
+ * any synchronization, just like for the counters of the HotSpot VM.
+ */
+public final class PerfLongCounter {
+    private final ByteBuffer buffer;
+    private final int offset;
+
+    PerfLongCounter(ByteBuffer buffer, int offset) {
+        this.buffer = buffer;
+        this.offset = offset;
+    }
+
+    public long get() {
+        return buffer.getLong(offset);
+    }
+
+    public void set(long value) {
+        buffer.putLong(offset, value);
+    }
+
+    public void add(long value) {
+        buffer.putLong(offset, buffer.getLong(offset) + value);
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.jvmstat;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.graalvm.compiler.api.replacements.Fold;
+import org.graalvm.nativeimage.ImageSingletons;
+import org.graalvm.nativeimage.Platform;
+import org.graalvm.nativeimage.Platforms;
+
+/**
+ * Manages the jvmstat performance data of the isolate: creates the {@link PerfMemory} and the
+ * counters of all {@link PerfDataHolder registered holders} at startup, and periodically samples
+ * the counters in a {@link PerfDataThread}.
+ */
+public final class PerfManager {
+    private final List<PerfDataHolder> holders = new ArrayList<>();
+
+    private PerfMemory memory;
+    private PerfLongCounter hrtTicks;
+    private PerfDataThread samplerThread;
+
+    @Platforms(Platform.HOSTED_ONLY.class)
+    PerfManager() {
+    }
+
+    @Fold
+    public static PerfManager singleton() {
+        return ImageSingletons.lookup(PerfManager.class);
+    }
+
+    @Fold
+    public static boolean isEnabled() {
+        return PerfDataOptions.UsePerfData.getValue();
+    }
+
+    @Platforms(Platform.HOSTED_ONLY.class)
+    public void register(PerfDataHolder holder) {
+        holders.add(holder);
+    }
+
+    /**
+     * The memory is created lazily because the JDK can create counters before the startup hooks
+     * run.
+     */
+    synchronized PerfMemory getMemory() {
+        if (memory == null) {
+            memory = PerfMemory.create(PerfDataOptions.PerfDataMemorySize.getValue());
+        }
+        return memory;
+    }
+
+    void startup() {
+        PerfMemory perfMemory = getMemory();
+        createLong("sun.os.hrt.frequency", PerfMemory.VARIABILITY_CONSTANT, PerfMemory.UNITS_HERTZ, 1_000_000_000L);
+        hrtTicks = createLong("sun.os.hrt.ticks", PerfMemory.VARIABILITY_VARIABLE, PerfMemory.UNITS_TICKS, 0);
+        for (PerfDataHolder holder : holders) {
+            holder.allocate(this);
+        }
+        sample();
+        perfMemory.setAccessible(true);
+
+        int interval = PerfDataOptions.PerfDataSamplingInterval.getValue();
+        if (interval > 0) {
+            samplerThread = new PerfDataThread(this, interval);
+            samplerThread.start();
+        }
+    }
+
+    void sample() {
+        hrtTicks.set(getMemory().elapsedTicks());
+        for (PerfDataHolder holder : holders) {
+            holder.update();
+        }
+    }
+
+    void teardown() {
+        if (samplerThread != null) {
+            samplerThread.interrupt();
+        }
+        getMemory().teardown();
+    }
+
+    /** Creates a counter of type long with the given initial value. */
+    public PerfLongCounter createLong(String name, byte variability, byte units, long value) {
+        PerfMemory perfMemory = getMemory();
+        int offset = perfMemory.allocateEntry(name, PerfMemory.TYPE_LONG, Long.BYTES, 0, units, variability);
+        PerfLongCounter result;
+        if (offset < 0) {
+            /* The memory is full: the counter still works, but is not visible to other processes. */
+            result = new PerfLongCounter(ByteBuffer.allocate(Long.BYTES), 0);
+        } else {
+            result = new PerfLongCounter(perfMemory.getBuffer(), offset);
+        }
+        result.set(value);
+        return result;
+    }
+
+    /** Creates a constant string, which is stored null-terminated like in the HotSpot VM. */
+    public void createString(String name, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        createByteArray(name, PerfMemory.VARIABILITY_CONSTANT, PerfMemory.UNITS_STRING, bytes, bytes.length + 1);
+    }
+
+    /** Creates a counter for the JDK, which accesses it via the returned buffer. */
+    ByteBuffer createLongBuffer(String name, byte variability, byte units, long value) {
+        PerfMemory perfMemory = getMemory();
+        int offset = perfMemory.allocateEntry(name, PerfMemory.TYPE_LONG, Long.BYTES, 0, units, variability);
+        ByteBuffer result = offset < 0 ? ByteBuffer.allocate(Long.BYTES).order(perfMemory.getBuffer().order()) : perfMemory.slice(offset, Long.BYTES);
+        result.putLong(0, value);
+        return result;
+    }
+
+    /** Creates a byte array of the given maximum length, initialized with the given bytes. */
+    ByteBuffer createByteArray(String name, byte variability, byte units, byte[] value, int maxLength) {
+        PerfMemory perfMemory = getMemory();
+        int offset = perfMemory.allocateEntry(name, PerfMemory.TYPE_BYTE, 1, maxLength, units, variability);
+        ByteBuffer result = offset < 0 ? ByteBuffer.allocate(maxLength) : perfMemory.slice(offset, maxLength);
+        for (int i = 0; i < Math.min(value.length, maxLength); i++) {
+            result.put(i, value[i]);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,297 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.jvmstat;
+
+//Checkstyle: stop
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.graalvm.compiler.serviceprovider.GraalUnsafeAccess;
+import org.graalvm.nativeimage.ProcessProperties;
+
+import com.oracle.svm.core.log.Log;
+
+import sun.misc.Unsafe;
+
+//Checkstyle: resume
+
+/**
+ * The memory region that holds the jvmstat performance data, in the format that the HotSpot VM
+ * uses (version 2.0 of the hsperfdata format). By default, the region is a memory-mapped file
+ * {@code <tmpdir>/hsperfdata_<user>/<pid>}, so that tools in other processes can read it.
+ *
+ * The region starts with a prologue, followed by a sequence of entries. Each entry has a header,
+ * the name of the counter, and the data. Entries are only ever appended, and the prologue is
+ * updated after an entry is complete so that readers never see a partially written entry. The
+ * values of counters are then updated in place with plain stores.
+ */
+public final class PerfMemory {
+    private static final Unsafe UNSAFE = GraalUnsafeAccess.getUnsafe();
+
+    public static final byte TYPE_LONG = 'J';
+    public static final byte TYPE_BYTE = 'B';
+
+    public static final byte UNITS_NONE = 1;
+    public static final byte UNITS_BYTES = 2;
+    public static final byte UNITS_TICKS = 3;
+    public static final byte UNITS_EVENTS = 4;
+    public static final byte UNITS_STRING = 5;
+    public static final byte UNITS_HERTZ = 6;
+
+    public static final byte VARIABILITY_CONSTANT = 1;
+    public static final byte VARIABILITY_MONOTONIC = 2;
+    public static final byte VARIABILITY_VARIABLE = 3;
+
+    private static final byte FLAG_SUPPORTED = 1;
+
+    private static final int MAJOR_VERSION = 2;
+    private static final int MINOR_VERSION = 0;
+
+    /* Offsets in the prologue. */
+    private static final int MAGIC_OFFSET = 0;
+    private static final int BYTE_ORDER_OFFSET = 4;
+    private static final int MAJOR_VERSION_OFFSET = 5;
+    private static final int MINOR_VERSION_OFFSET = 6;
+    private static final int ACCESSIBLE_OFFSET = 7;
+    private static final int USED_OFFSET = 8;
+    private static final int OVERFLOW_OFFSET = 12;
+    private static final int MOD_TIME_STAMP_OFFSET = 16;
+    private static final int ENTRY_OFFSET_OFFSET = 24;
+    private static final int NUM_ENTRIES_OFFSET = 28;
+    private static final int PROLOGUE_SIZE = 32;
+
+    /* Offsets in the header of an entry. */
+    private static final int ENTRY_LENGTH_OFFSET = 0;
+    private static final int NAME_OFFSET_OFFSET = 4;
+    private static final int VECTOR_LENGTH_OFFSET = 8;
+    private static final int DATA_TYPE_OFFSET = 12;
+    private static final int FLAGS_OFFSET = 13;
+    private static final int DATA_UNITS_OFFSET = 14;
+    private static final int DATA_VARIABILITY_OFFSET = 15;
+    private static final int DATA_OFFSET_OFFSET = 16;
+    private static final int ENTRY_HEADER_SIZE = 20;
+
+    private final ByteBuffer buffer;
+    private final File file;
+    private final long startNanos;
+
+    private int used;
+    private int numEntries;
+    private int overflow;
+
+    private PerfMemory(ByteBuffer buffer, File file) {
+        this.buffer = buffer.order(ByteOrder.nativeOrder());
+        this.file = file;
+        this.startNanos = System.nanoTime();
+        this.used = PROLOGUE_SIZE;
+        writePrologue();
+    }
+
+    /** Creates the memory region, falling back to process memory if the file cannot be mapped. */
+    static PerfMemory create(int size) {
+        if (!PerfDataOptions.PerfDisableSharedMem.getValue()) {
+            File file = getFile(null, ProcessProperties.getProcessID());
+            try {
+                return new PerfMemory(mapFile(file, size), file);
+            } catch (IOException | SecurityException | UnsupportedOperationException e) {
+                Log.log().string("Could not create the performance data file ").string(file.getPath()).string(": ").string(String.valueOf(e.getMessage())).newline();
+            }
+        }
+        return new PerfMemory(ByteBuffer.allocateDirect(size), null);
+    }
+
+    /** The file that holds the performance data of a process, as expected by jvmstat. */
+    static File getFile(String user, long pid) {
+        String userName = user != null ? user : System.getProperty("user.name");
+        File directory = new File(System.getProperty("java.io.tmpdir"), "hsperfdata_" + userName);
+        return new File(directory, Long.toString(pid));
+    }
+
+    /**
+     * Maps a new file in the same way as the HotSpot VM: the directory must be a real directory of
+     * the current user that only the user can write, and the file is created exclusively, without
+     * following symbolic links, and readable only by the user. Another user can therefore neither
+     * redirect the file nor read the command line and arguments that it contains.
+     */
+    private static MappedByteBuffer mapFile(File file, int size) throws IOException {
+        Path directory = file.getParentFile().toPath();
+        try {
+            Files.createDirectory(directory, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwxr-xr-x")));
+        } catch (FileAlreadyExistsException e) {
+            /* Created by an earlier or concurrently starting process, checked below. */
+        }
+        PosixFileAttributes attributes = Files.readAttributes(directory, PosixFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        if (!attributes.isDirectory()) {
+            throw new IOException(directory + " is not a directory");
+        }
+        UserPrincipal user = directory.getFileSystem().getUserPrincipalLookupService().lookupPrincipalByName(System.getProperty("user.name"));
+        if (!attributes.owner().equals(user)) {
+            throw new IOException(directory + " is not owned by the current user");
+        }
+        Set<PosixFilePermission> permissions = attributes.permissions();
+        if (permissions.contains(PosixFilePermission.GROUP_WRITE) || permissions.contains(PosixFilePermission.OTHERS_WRITE)) {
+            throw new IOException(directory + " is writable by other users");
+        }
+
+        Path path = file.toPath();
+        /* A stale file of a process with the same pid must not leak its old entries. */
+        Files.deleteIfExists(path);
+        Set<OpenOption> options = new HashSet<>(Arrays.asList(StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE, LinkOption.NOFOLLOW_LINKS));
+        try (FileChannel channel = FileChannel.open(path, options, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")))) {
+            /* Writing the last byte sets the size of the file. */
+            channel.write(ByteBuffer.allocate(1), size - 1);
+            /* The mapping stays valid after the file is closed. */
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    /** Maps the performance data file of another process for reading. */
+    static ByteBuffer mapForeign(String user, long pid) throws IOException {
+        File file = getFile(user, pid);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            return raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+        }
+    }
+
+    private void writePrologue() {
+        /* The magic number is always stored in big-endian byte order. */
+        buffer.put(MAGIC_OFFSET, (byte) 0xca);
+        buffer.put(MAGIC_OFFSET + 1, (byte) 0xfe);
+        buffer.put(MAGIC_OFFSET + 2, (byte) 0xc0);
+        buffer.put(MAGIC_OFFSET + 3, (byte) 0xc0);
+        buffer.put(BYTE_ORDER_OFFSET, (byte) (buffer.order() == ByteOrder.BIG_ENDIAN ? 0 : 1));
+        buffer.put(MAJOR_VERSION_OFFSET, (byte) MAJOR_VERSION);
+        buffer.put(MINOR_VERSION_OFFSET, (byte) MINOR_VERSION);
+        buffer.put(ACCESSIBLE_OFFSET, (byte) 0);
+        buffer.putInt(USED_OFFSET, used);
+        buffer.putInt(OVERFLOW_OFFSET, 0);
+        buffer.putLong(MOD_TIME_STAMP_OFFSET, 0);
+        buffer.putInt(ENTRY_OFFSET_OFFSET, PROLOGUE_SIZE);
+        buffer.putInt(NUM_ENTRIES_OFFSET, 0);
+    }
+
+    /** Marks the region as complete enough for readers, or as no longer valid. */
+    void setAccessible(boolean accessible) {
+        UNSAFE.storeFence();
+        buffer.put(ACCESSIBLE_OFFSET, (byte) (accessible ? 1 : 0));
+    }
+
+    /** The ticks of the high-resolution counter since the region was created. */
+    long elapsedTicks() {
+        return System.nanoTime() - startNanos;
+    }
+
+    /**
+     * Appends an entry and returns the offset of its data in the region, or -1 if the region is
+     * full. Entries are only created during startup or when the JDK creates a counter, so
+     * synchronization is not an issue for updating the values of counters.
+     */
+    synchronized int allocateEntry(String name, byte dataType, int elementSize, int vectorLength, byte units, byte variability) {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        int length = ENTRY_HEADER_SIZE + nameBytes.length + 1;
+        /* Align the data to the size of its elements. */
+        length = roundUp(length, elementSize);
+        int dataStart = length;
+        length += elementSize * Math.max(vectorLength, 1);
+        length = roundUp(length, Long.BYTES);
+
+        int entryStart = used;
+        if (length > buffer.capacity() - entryStart) {
+            overflow += length;
+            buffer.putInt(OVERFLOW_OFFSET, overflow);
+            return -1;
+        }
+
+        buffer.putInt(entryStart + ENTRY_LENGTH_OFFSET, length);
+        buffer.putInt(entryStart + NAME_OFFSET_OFFSET, ENTRY_HEADER_SIZE);
+        buffer.putInt(entryStart + VECTOR_LENGTH_OFFSET, vectorLength);
+        buffer.put(entryStart + DATA_TYPE_OFFSET, dataType);
+        buffer.put(entryStart + FLAGS_OFFSET, isSupportedName(name) ? FLAG_SUPPORTED : 0);
+        buffer.put(entryStart + DATA_UNITS_OFFSET, units);
+        buffer.put(entryStart + DATA_VARIABILITY_OFFSET, variability);
+        buffer.putInt(entryStart + DATA_OFFSET_OFFSET, dataStart);
+        for (int i = 0; i < nameBytes.length; i++) {
+            buffer.put(entryStart + ENTRY_HEADER_SIZE + i, nameBytes[i]);
+        }
+        buffer.put(entryStart + ENTRY_HEADER_SIZE + nameBytes.length, (byte) 0);
+
+        /* Publish the entry only after it is complete. */
+        used = entryStart + length;
+        numEntries++;
+        UNSAFE.storeFence();
+        buffer.putInt(USED_OFFSET, used);
+        buffer.putLong(MOD_TIME_STAMP_OFFSET, elapsedTicks());
+        buffer.putInt(NUM_ENTRIES_OFFSET, numEntries);
+        return entryStart + dataStart;
+    }
+
+    /** Like in HotSpot, only the counters of the stable namespaces are marked as supported. */
+    private static boolean isSupportedName(String name) {
+        return name.startsWith("java.") || name.startsWith("com.sun.");
+    }
+
+    private static int roundUp(int value, int alignment) {
+        return (value + alignment - 1) / alignment * alignment;
+    }
+
+    ByteBuffer getBuffer() {
+        return buffer;
+    }
+
+    /** Returns a view of a part of the region, with the byte order of the region. */
+    ByteBuffer slice(int offset, int length) {
+        ByteBuffer result = buffer.duplicate();
+        result.position(offset);
+        result.limit(offset + length);
+        return result.slice().order(buffer.order());
+    }
+
+    void teardown() {
+        setAccessible(false);
+        if (file != null && !file.delete()) {
+            Log.log().string("Could not delete the performance data file ").string(file.getPath()).newline();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.jvmstat;
+
+//Checkstyle: stop
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import org.graalvm.nativeimage.ImageSingletons;
+import org.graalvm.nativeimage.Platform;
+import org.graalvm.nativeimage.Platforms;
+
+import com.oracle.svm.core.JavaMainWrapper.JavaMainSupport;
+import com.oracle.svm.core.thread.Safepoint;
+
+//Checkstyle: resume
+
+/**
+ * The counters of the runtime that do not depend on the garbage collector: the identification of
+ * the process for jps, thread counts, and safepoint statistics. The names are the same as in the
+ * HotSpot VM.
+ */
+final class SystemCounters implements PerfDataHolder {
+    private PerfLongCounter liveThreads;
+    private PerfLongCounter peakThreads;
+    private PerfLongCounter daemonThreads;
+    private PerfLongCounter startedThreads;
+
+    private PerfLongCounter safepoints;
+    private PerfLongCounter safepointTime;
+    private PerfLongCounter safepointSyncTime;
+
+    @Platforms(Platform.HOSTED_ONLY.class)
+    SystemCounters() {
+    }
+
+    @Override
+    public void allocate(PerfManager manager) {
+        String javaCommand = null;
+        String vmArgs = "";
+        if (ImageSingletons.contains(JavaMainSupport.class)) {
+            JavaMainSupport mainSupport = ImageSingletons.lookup(JavaMainSupport.class);
+            javaCommand = mainSupport.getJavaCommand();
+            vmArgs = String.join(" ", mainSupport.getInputArguments());
+        }
+        manager.createString("sun.rt.javaCommand", javaCommand != null ? javaCommand : "");
+        manager.createString("java.rt.vmArgs", vmArgs);
+        manager.createString("java.rt.vmFlags", "");
+        manager.createString("java.property.java.vm.name", String.valueOf(System.getProperty("java.vm.name")));
+        manager.createString("java.property.java.vm.vendor", String.valueOf(System.getProperty("java.vm.vendor")));
+        manager.createString("java.property.java.vm.version", String.valueOf(System.getProperty("java.vm.version")));
+
+        liveThreads = manager.createLong("java.threads.live", PerfMemory.VARIABILITY_VARIABLE, PerfMemory.UNITS_NONE, 0);
+        peakThreads = manager.createLong("java.threads.livePeak", PerfMemory.VARIABILITY_VARIABLE, PerfMemory.UNITS_NONE, 0);
+        daemonThreads = manager.createLong("java.threads.daemon", PerfMemory.VARIABILITY_VARIABLE, PerfMemory.UNITS_NONE, 0);
+        startedThreads = manager.createLong("java.threads.started", PerfMemory.VARIABILITY_MONOTONIC, PerfMemory.UNITS_EVENTS, 0);
+
+        safepoints = manager.createLong("sun.rt.safepoints", PerfMemory.VARIABILITY_MONOTONIC, PerfMemory.UNITS_EVENTS, 0);
+        safepointTime = manager.createLong("sun.rt.safepointTime", PerfMemory.VARIABILITY_MONOTONIC, PerfMemory.UNITS_TICKS, 0);
+        safepointSyncTime = manager.createLong("sun.rt.safepointSyncTime", PerfMemory.VARIABILITY_MONOTONIC, PerfMemory.UNITS_TICKS, 0);
+    }
+
+    @Override
+    public void update() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        liveThreads.set(threadMXBean.getThreadCount());
+        peakThreads.set(threadMXBean.getPeakThreadCount());
+        daemonThreads.set(threadMXBean.getDaemonThreadCount());
+        startedThreads.set(threadMXBean.getTotalStartedThreadCount());
+
+        /* The ticks of the high-resolution counter are nanoseconds. */
+        Safepoint.Master master = Safepoint.Master.singleton();
+        safepoints.set(master.getSafepointCount());
+        safepointTime.set(master.getTotalSafepointNanos());
+        safepointSyncTime.set(master.getTotalSynchronizationNanos());
+    }
+}
@@ -26,6 +26,8 @@ package com.oracle.svm.core.monitor;
 
 import static jdk.vm.ci.meta.DeoptimizationAction.InvalidateReprofile;
 import static jdk.vm.ci.meta.DeoptimizationReason.NullCheckException;
+import static org.graalvm.compiler.nodes.extended.BranchProbabilityNode.FAST_PATH_PROBABILITY;
+import static org.graalvm.compiler.nodes.extended.BranchProbabilityNode.probability;
 
 import java.util.Map;
 
@@ -59,6 +61,7 @@ import com.oracle.svm.core.SubstrateOptions;
 import com.oracle.svm.core.graal.nodes.KillMemoryNode;
 import com.oracle.svm.core.graal.snippets.NodeLoweringProvider;
 import com.oracle.svm.core.graal.snippets.SubstrateTemplates;
+import com.oracle.svm.core.snippets.KnownIntrinsics;
 import com.oracle.svm.core.snippets.SnippetRuntime;
 import com.oracle.svm.core.snippets.SnippetRuntime.SubstrateForeignCallDescriptor;
 import com.oracle.svm.core.util.VMError;
@@ -67,8 +70,9 @@ import jdk.vm.ci.meta.SpeculationLog;
 
 /**
  * Snippets for lowering of monitor nodes (the nodes representing the Java "synchronized" keyword).
- * There is currently no fast path, because the {@link java.util.concurrent.locks.ReentrantLock}
- * used for monitor operations cannot be inlined in a snippet without changes or code duplication.
+ * The fast path acquires or releases a thin lock in the monitor slot of the object, see
+ * {@link MultiThreadedMonitorSupport}. Everything else, in particular any operation on the
+ * {@link java.util.concurrent.locks.ReentrantLock} of an inflated monitor, is done in the slow path.
  *
  * For AOT compiled code, the null check for the object is already inserted by the bytecode parser,
  * i.e., the object is already guaranteed to be non-null. For JIT compiled code though the null
@@ -91,6 +95,12 @@ public class MonitorSnippets extends SubstrateTemplates implements Snippets {
         KillMemoryNode.killMemory(LocationIdentity.any());
 
         if (SubstrateOptions.MultiThreaded.getValue()) {
+            if (MultiThreadedMonitorSupport.useThinLocks()) {
+                int monitorOffset = KnownIntrinsics.readHub(obj).getMonitorOffset();
+                if (probability(FAST_PATH_PROBABILITY, monitorOffset != 0) && probability(FAST_PATH_PROBABILITY, MultiThreadedMonitorSupport.tryLockThin(obj, monitorOffset))) {
+                    return;
+                }
+            }
             callSlowPath(SLOW_PATH_MONITOR_ENTER, obj);
         }
     }
@@ -101,6 +111,12 @@ public class MonitorSnippets extends SubstrateTemplates implements Snippets {
         KillMemoryNode.killMemory(LocationIdentity.any());
 
         if (SubstrateOptions.MultiThreaded.getValue()) {
+            if (MultiThreadedMonitorSupport.useThinLocks()) {
+                int monitorOffset = KnownIntrinsics.readHub(obj).getMonitorOffset();
+                if (probability(FAST_PATH_PROBABILITY, monitorOffset != 0) && probability(FAST_PATH_PROBABILITY, MultiThreadedMonitorSupport.tryUnlockThin(obj, monitorOffset))) {
+                    return;
+                }
+            }
             callSlowPath(SLOW_PATH_MONITOR_EXIT, obj);
         }
     }
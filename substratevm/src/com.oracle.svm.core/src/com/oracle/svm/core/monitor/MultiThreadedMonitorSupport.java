@@ -39,6 +39,7 @@ import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReentrantLock;
 
+import org.graalvm.compiler.api.replacements.Fold;
 import org.graalvm.compiler.core.common.SuppressFBWarnings;
 import org.graalvm.compiler.serviceprovider.GraalUnsafeAccess;
 import org.graalvm.compiler.serviceprovider.JavaVersionUtil;
@@ -47,6 +48,7 @@ import org.graalvm.nativeimage.IsolateThread;
 import org.graalvm.nativeimage.Platform;
 import org.graalvm.nativeimage.Platforms;
 
+import com.oracle.svm.core.SubstrateOptions;
 import com.oracle.svm.core.SubstrateUtil;
 import com.oracle.svm.core.WeakIdentityHashMap;
 import com.oracle.svm.core.annotate.Alias;
@@ -79,6 +81,15 @@ import sun.misc.Unsafe;
  * (and thus need a monitor) and assigns a monitor offset to point to the {@link #getMonitorOffset
  * slot for the monitor}. The monitor is implemented with a {@link ReentrantLock}.
  * <p>
+ * With {@link SubstrateOptions#UseThinLocks}, a {@link ReentrantLock} is only allocated when it is
+ * needed: as long as an object with a monitor slot is locked without contention, the slot just
+ * holds the owning {@link Thread} (a "thin lock").
+ * Acquiring and releasing a thin lock is a single compare-and-swap of the slot, which
+ * {@link MonitorSnippets} inline into compiled code. The thin lock is inflated to a
+ * {@link ReentrantLock} on contention, on recursive locking, when the object is used for
+ * {@link #wait()} or {@link #notify()}, and for re-locking during deoptimization. Inflated monitors
+ * are never deflated. Objects without a monitor slot always use a {@link ReentrantLock}.
+ * <p>
  * There are a few exceptions: {@link String} and {@link DynamicHub} objects never have monitor
  * fields because we want instances in the image heap to be immutable. Arrays never have monitor
  * fields because it would increase the size of every array and it is not possible to distinguish
@@ -102,6 +113,33 @@ public class MultiThreadedMonitorSupport extends MonitorSupport {
      */
     protected static final FastThreadLocalInt lockedMonitors = FastThreadLocalFactory.createInt();
 
+    /**
+     * Thin locks are only used if {@link SubstrateOptions#UseThinLocks} is enabled. They are not
+     * used with the experimental Loom support, because {@link #lockedMonitors} must be maintained
+     * for every monitor operation.
+     */
+    @Fold
+    public static boolean useThinLocks() {
+        return SubstrateOptions.UseThinLocks.getValue() && !JavaContinuations.useLoom();
+    }
+
+    /**
+     * Locks an object that is not locked by any thread by installing the current thread in its
+     * monitor slot. Fails if the object is locked or its monitor is already inflated. Also inlined
+     * into the monitor snippets, so this must not do anything but the compare-and-swap.
+     */
+    static boolean tryLockThin(Object obj, int monitorOffset) {
+        return UNSAFE.compareAndSwapObject(obj, monitorOffset, null, Thread.currentThread());
+    }
+
+    /**
+     * Unlocks an object that is thin-locked by the current thread. Fails if the monitor has been
+     * inflated in the meantime, which can happen while the current thread holds the thin lock.
+     */
+    static boolean tryUnlockThin(Object obj, int monitorOffset) {
+        return UNSAFE.compareAndSwapObject(obj, monitorOffset, Thread.currentThread(), null);
+    }
+
     protected static void onMonitorLocked() {
         if (JavaContinuations.useLoom()) {
             lockedMonitors.set(lockedMonitors.get() + 1);
@@ -193,12 +231,31 @@ public class MultiThreadedMonitorSupport extends MonitorSupport {
     private static long SYNC_MONITOR_CONDITION_FIELD_OFFSET = -1;
     private static long SYNC_STATE_FIELD_OFFSET = -1;
 
+    /** The number of stripes of {@link #additionalMonitors}, must be a power of two. */
+    private static final int ADDITIONAL_MONITORS_STRIPES = 32;
+
     /**
-     * Secondary storage for monitor slots. Synchronized to prevent concurrent access and
-     * modification.
+     * Secondary storage for monitor slots. The objects are distributed over several stripes by
+     * their identity hash code, so that threads that synchronize on different objects without a
+     * monitor slot rarely wait for each other.
      */
-    private final Map<Object, ReentrantLock> additionalMonitors = new WeakIdentityHashMap<>();
-    private final ReentrantLock additionalMonitorsLock = new ReentrantLock();
+    private final AdditionalMonitorsStripe[] additionalMonitors = createAdditionalMonitors();
+
+    /**
+     * A part of the secondary storage. Synchronized to prevent concurrent access and modification.
+     */
+    private static final class AdditionalMonitorsStripe {
+        final Map<Object, ReentrantLock> monitors = new WeakIdentityHashMap<>();
+        final ReentrantLock lock = new ReentrantLock();
+    }
+
+    private static AdditionalMonitorsStripe[] createAdditionalMonitors() {
+        AdditionalMonitorsStripe[] result = new AdditionalMonitorsStripe[ADDITIONAL_MONITORS_STRIPES];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = new AdditionalMonitorsStripe();
+        }
+        return result;
+    }
 
     @Override
     public int maybeAdjustNewParkStatus(int status) {
@@ -259,6 +316,12 @@ public class MultiThreadedMonitorSupport extends MonitorSupport {
     @RestrictHeapAccess(reason = NO_LONGER_UNINTERRUPTIBLE, overridesCallers = true, access = Access.UNRESTRICTED)
     @Override
     public void monitorEnter(Object obj) {
+        if (useThinLocks()) {
+            int monitorOffset = getMonitorOffset(obj);
+            if (monitorOffset != 0 && tryLockThin(obj, monitorOffset)) {
+                return;
+            }
+        }
         ReentrantLock lockObject = getOrCreateMonitor(obj, true);
         lockObject.lock();
 
@@ -298,6 +361,12 @@ public class MultiThreadedMonitorSupport extends MonitorSupport {
     @RestrictHeapAccess(reason = NO_LONGER_UNINTERRUPTIBLE, overridesCallers = true, access = Access.UNRESTRICTED)
     @Override
     public void monitorExit(Object obj) {
+        if (useThinLocks()) {
+            int monitorOffset = getMonitorOffset(obj);
+            if (monitorOffset != 0 && tryUnlockThin(obj, monitorOffset)) {
+                return;
+            }
+        }
         ReentrantLock lockObject = getOrCreateMonitor(obj, true);
         lockObject.unlock();
 
@@ -318,7 +387,8 @@ public class MultiThreadedMonitorSupport extends MonitorSupport {
          * 
          * Because any thread can hold the lock at this time, there is no way we can patch any
          * internal state of the lock immediately here. The actual state patching therefore happens
-         * later in doRelockObject.
+         * later in doRelockObject. A thin lock is inflated here, so doRelockObject only ever sees a
+         * ReentrantLock.
          */
         return getOrCreateMonitor(obj, true);
     }
@@ -362,12 +432,18 @@ public class MultiThreadedMonitorSupport extends MonitorSupport {
 
     @Override
     public boolean isLockedByCurrentThread(Object obj) {
+        if (getThinLockOwner(obj) == Thread.currentThread()) {
+            return true;
+        }
         ReentrantLock lockObject = getOrCreateMonitor(obj, false);
         return lockObject != null && lockObject.isHeldByCurrentThread();
     }
 
     @Override
     public boolean isLockedByAnyThread(Object obj) {
+        if (getThinLockOwner(obj) != null) {
+            return true;
+        }
         ReentrantLock lockObject = getOrCreateMonitor(obj, false);
         return lockObject != null && lockObject.isLocked();
     }
@@ -396,6 +472,10 @@ public class MultiThreadedMonitorSupport extends MonitorSupport {
 
     @Override
     public void notify(Object obj, boolean notifyAll) {
+        if (getThinLockOwner(obj) == Thread.currentThread()) {
+            /* Waiting inflates the monitor, so nobody can be waiting on a thin lock. */
+            return;
+        }
         /* Make sure the current thread holds the lock on the receiver. */
         ReentrantLock lock = ensureLocked(obj);
         /* Find the wait/notify condition of the receiver. */
@@ -435,43 +515,78 @@ public class MultiThreadedMonitorSupport extends MonitorSupport {
         }
     }
 
-    protected ReentrantLock getOrCreateMonitorFromObject(Object obj, boolean createIfNotExisting, int monitorOffset) {
-        ReentrantLock existingMonitor = (ReentrantLock) BarrieredAccess.readObject(obj, monitorOffset);
-        if (existingMonitor != null || !createIfNotExisting) {
-            assert existingMonitor == null || isMonitorLock(existingMonitor);
-            return existingMonitor;
+    /** Returns the thread holding a thin lock on the object, or null. */
+    protected static Thread getThinLockOwner(Object obj) {
+        int monitorOffset = getMonitorOffset(obj);
+        if (monitorOffset != 0) {
+            Object existing = BarrieredAccess.readObject(obj, monitorOffset);
+            if (existing instanceof Thread) {
+                return (Thread) existing;
+            }
         }
-        /* Atomically put a new lock in place of the null at the monitorOffset. */
-        ReentrantLock newMonitor = newMonitorLock();
-        if (UNSAFE.compareAndSwapObject(obj, monitorOffset, null, newMonitor)) {
-            return newMonitor;
+        return null;
+    }
+
+    /**
+     * Returns the inflated monitor of the object. If requested, a thin lock or an empty monitor slot
+     * is inflated, i.e., replaced with a {@link ReentrantLock} that has the same owner. Inflating a
+     * thin lock that is held by another thread is safe because the owner can only release it with a
+     * compare-and-swap of the slot, which fails after inflation, so the owner then releases the
+     * {@link ReentrantLock} instead.
+     */
+    protected ReentrantLock getOrCreateMonitorFromObject(Object obj, boolean createIfNotExisting, int monitorOffset) {
+        Object existing = BarrieredAccess.readObject(obj, monitorOffset);
+        while (true) {
+            if (existing instanceof ReentrantLock) {
+                ReentrantLock existingMonitor = (ReentrantLock) existing;
+                assert isMonitorLock(existingMonitor);
+                return existingMonitor;
+            }
+            if (!createIfNotExisting) {
+                return null;
+            }
+            ReentrantLock newMonitor;
+            if (existing == null) {
+                newMonitor = newMonitorLock();
+            } else {
+                /* A thin lock is always held exactly once, recursive locking inflates. */
+                newMonitor = newLockedMonitorForThread((Thread) existing, 1);
+            }
+            /* Atomically put the new lock in place of the value at the monitorOffset. */
+            if (UNSAFE.compareAndSwapObject(obj, monitorOffset, existing, newMonitor)) {
+                return newMonitor;
+            }
+            /* We lost the race: the monitor was inflated, locked, or unlocked in the meantime. */
+            existing = BarrieredAccess.readObject(obj, monitorOffset);
         }
-        /* We lost the race, use the lock some other thread installed. */
-        return (ReentrantLock) BarrieredAccess.readObject(obj, monitorOffset);
     }
 
     protected ReentrantLock getOrCreateMonitorFromMap(Object obj, boolean createIfNotExisting) {
         assert obj.getClass() != Target_java_lang_ref_ReferenceQueue_Lock.class : "ReferenceQueue.Lock must have a monitor field or we can deadlock accessing WeakIdentityHashMap below";
-        VMError.guarantee(!additionalMonitorsLock.isHeldByCurrentThread(),
-                        "Recursive manipulation of the additionalMonitors map can lead to table corruptions and double insertion of a monitor for the same object");
-
         /*
-         * Lock the monitor map and maybe add a monitor for this object. This serialization might be
-         * a scalability problem.
+         * Computing the identity hash code also stores it in the object, so the lookup in the map
+         * of the stripe takes the fast path. The high bits select the stripe because the map
+         * mostly uses the low bits for its buckets.
          */
-        additionalMonitorsLock.lock();
+        int identityHashCode = System.identityHashCode(obj);
+        AdditionalMonitorsStripe stripe = additionalMonitors[(identityHashCode >>> 16) & (ADDITIONAL_MONITORS_STRIPES - 1)];
+        VMError.guarantee(!stripe.lock.isHeldByCurrentThread(),
+                        "Recursive manipulation of the additionalMonitors map can lead to table corruptions and double insertion of a monitor for the same object");
+
+        /* Lock the stripe of the monitor map and maybe add a monitor for this object. */
+        stripe.lock.lock();
         try {
-            ReentrantLock existingMonitor = additionalMonitors.get(obj);
+            ReentrantLock existingMonitor = stripe.monitors.get(obj);
             if (existingMonitor != null || !createIfNotExisting) {
                 assert existingMonitor == null || isMonitorLock(existingMonitor);
                 return existingMonitor;
             }
             ReentrantLock newMonitor = newMonitorLock();
-            ReentrantLock previousEntry = additionalMonitors.put(obj, newMonitor);
+            ReentrantLock previousEntry = stripe.monitors.put(obj, newMonitor);
             VMError.guarantee(previousEntry == null, "Replaced monitor in secondary storage map");
             return newMonitor;
         } finally {
-            additionalMonitorsLock.unlock();
+            stripe.lock.unlock();
         }
     }
 
@@ -490,6 +605,10 @@ public class MultiThreadedMonitorSupport extends MonitorSupport {
      * (for a good reason, because it is a highly unusual operation).
      */
     protected static ReentrantLock newLockedMonitorForThread(IsolateThread isolateThread, int recursionDepth) {
+        return newLockedMonitorForThread(JavaThreads.fromVMThread(isolateThread), recursionDepth);
+    }
+
+    protected static ReentrantLock newLockedMonitorForThread(Thread ownerThread, int recursionDepth) {
         ReentrantLock result = newMonitorLock();
         for (int i = 0; i < recursionDepth; i++) {
             result.lock();
@@ -499,7 +618,7 @@ public class MultiThreadedMonitorSupport extends MonitorSupport {
         Target_java_util_concurrent_locks_AbstractOwnableSynchronizer sync = SubstrateUtil.cast(lock.sync, Target_java_util_concurrent_locks_AbstractOwnableSynchronizer.class);
 
         assert sync.exclusiveOwnerThread == Thread.currentThread() : "Must be locked by current thread";
-        sync.exclusiveOwnerThread = JavaThreads.fromVMThread(isolateThread);
+        sync.exclusiveOwnerThread = ownerThread;
 
         return result;
     }
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.os;
+
+import org.graalvm.compiler.api.replacements.Fold;
+import org.graalvm.nativeimage.ImageSingletons;
+import org.graalvm.word.PointerBase;
+
+/**
+ * Provides the NUMA topology information that is needed to keep memory local to the threads that
+ * use it. Only available on platforms that support it.
+ */
+public interface NumaNodeProvider {
+
+    @Fold
+    static NumaNodeProvider singleton() {
+        return ImageSingletons.lookup(NumaNodeProvider.class);
+    }
+
+    @Fold
+    static boolean isAvailable() {
+        return ImageSingletons.contains(NumaNodeProvider.class);
+    }
+
+    /**
+     * Returns the NUMA node of the CPU that the current thread is running on, or -1 if it cannot be
+     * determined. The thread can be migrated at any time, so the result is only a hint.
+     */
+    int getCurrentNode();
+
+    /**
+     * Returns the NUMA node on which the memory page that contains the given address is placed, or
+     * -1 if it cannot be determined.
+     */
+    int getNode(PointerBase address);
+}
@@ -359,6 +359,17 @@ public final class Safepoint {
         safepointRequested.setVolatile(value);
     }
 
+    /**
+     * Prevents that the current thread enters the safepoint slow path in the near future. This may
+     * only be used by threads that help to execute a VM operation (e.g., parallel GC worker
+     * threads): they are in native state, but execute interruptible code while the safepoint of the
+     * VM operation is still in progress.
+     */
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    public static void resetSafepointRequestedForVMOperationHelper() {
+        setSafepointRequested(THREAD_REQUEST_RESET);
+    }
+
     @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
     static int getSafepointRequested(IsolateThread vmThread) {
         return safepointRequested.getVolatile(vmThread);
@@ -561,6 +572,14 @@ public final class Safepoint {
         /** The thread requesting a safepoint. */
         private volatile IsolateThread requestingThread;
 
+        /*
+         * Cumulative times for monitoring. Only written by the thread that executes VM operations,
+         * so readers in other threads do not need any locking.
+         */
+        private long safepointBeginNanos;
+        private long totalSynchronizationNanos;
+        private long totalSafepointNanos;
+
         @Platforms(Platform.HOSTED_ONLY.class)
         private Master() {
             this.safepointState = NOT_AT_SAFEPOINT;
@@ -585,12 +604,14 @@ public final class Safepoint {
             }
 
             requestingThread = CurrentIsolate.getCurrentThread();
+            safepointBeginNanos = System.nanoTime();
             Statistics.reset();
             Statistics.setStartNanos();
             ImageSingletons.lookup(Heap.class).prepareForSafepoint();
             safepointState = SYNCHRONIZING;
             requestSafepoints(reason);
             waitForSafepoints(reason);
+            totalSynchronizationNanos += System.nanoTime() - safepointBeginNanos;
             Statistics.setFrozenNanos();
             safepointState = AT_SAFEPOINT;
             safepointId = safepointId.add(1);
@@ -607,6 +628,7 @@ public final class Safepoint {
             releaseSafepoints(reason);
             ImageSingletons.lookup(Heap.class).endSafepoint();
             Statistics.setThawedNanos();
+            totalSafepointNanos += System.nanoTime() - safepointBeginNanos;
             requestingThread = WordFactory.nullPointer();
 
             if (unlock) {
@@ -847,6 +869,21 @@ public final class Safepoint {
             return safepointId;
         }
 
+        /** The number of safepoints since the start of the isolate. */
+        public long getSafepointCount() {
+            return safepointId.rawValue();
+        }
+
+        /** The total time that threads spent stopped at safepoints, including synchronization. */
+        public long getTotalSafepointNanos() {
+            return totalSafepointNanos;
+        }
+
+        /** The total time that was needed to bring all threads to safepoints. */
+        public long getTotalSynchronizationNanos() {
+            return totalSynchronizationNanos;
+        }
+
         /** A sample method to execute in a VMOperation. */
         public static class TestingBackdoor {
 
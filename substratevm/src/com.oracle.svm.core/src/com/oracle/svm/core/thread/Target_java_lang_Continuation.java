@@ -33,6 +33,7 @@ import com.oracle.svm.core.annotate.Substitute;
 import com.oracle.svm.core.annotate.TargetClass;
 import com.oracle.svm.core.annotate.TargetElement;
 import com.oracle.svm.core.annotate.Uninterruptible;
+import com.oracle.svm.core.config.ConfigurationValues;
 import com.oracle.svm.core.heap.StoredContinuation;
 import com.oracle.svm.core.heap.StoredContinuationImpl;
 import com.oracle.svm.core.jdk.LoomJDK;
@@ -195,19 +196,27 @@ public final class Target_java_lang_Continuation {
             assert cont.internalContinuation != null;
             assert cont.ip.isNonNull();
 
-            byte[] buf = StoredContinuationImpl.allocateBuf(cont.internalContinuation);
-            StoredContinuationImpl.writeBuf(cont.internalContinuation, buf);
-
-            for (int i = 0; i < buf.length; i++) {
-                currentSP.writeByte(i - buf.length, buf[i]);
-            }
-
+            StoredContinuation storedCont = cont.internalContinuation;
             CodePointer ip = cont.ip;
 
             cont.internalContinuation = null;
             cont.sp = currentSP;
             cont.ip = currentIP;
-            KnownIntrinsics.farReturn(0, currentSP.subtract(buf.length), ip, false);
+
+            /*
+             * The stored frames are copied below the stack pointer of our caller, i.e., they
+             * overwrite the frame of this method, including its return address. So the copy must
+             * be done inline, without a call whose frame would be overwritten as well, and nothing
+             * but the locals of the copy loop must be used until the far return.
+             */
+            int wordSize = ConfigurationValues.getTarget().wordSize;
+            long frameSize = StoredContinuationImpl.readAllFrameSize(storedCont);
+            Pointer frameStart = StoredContinuationImpl.payloadFrameStart(storedCont);
+            Pointer leafSP = currentSP.subtract(WordFactory.unsigned(frameSize));
+            for (long offset = 0; offset < frameSize; offset += wordSize) {
+                leafSP.writeWord(WordFactory.signed(offset), frameStart.readWord(WordFactory.signed(offset)));
+            }
+            KnownIntrinsics.farReturn(0, leafSP, ip, false);
         } else {
             assert cont.sp.isNull() && cont.ip.isNull() && cont.internalContinuation == null;
             cont.monitorBefore = 0;
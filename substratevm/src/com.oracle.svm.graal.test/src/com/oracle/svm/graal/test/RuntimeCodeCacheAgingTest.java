@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.graal.test;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.graalvm.compiler.code.CompilationResult;
+import org.graalvm.compiler.debug.DebugContext;
+import org.graalvm.compiler.printer.GraalDebugHandlersFactory;
+import org.graalvm.nativeimage.ImageInfo;
+import org.graalvm.nativeimage.ImageSingletons;
+import org.graalvm.nativeimage.hosted.Feature;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.oracle.svm.core.code.RuntimeCodeCache;
+import com.oracle.svm.core.option.RuntimeOptionValues;
+import com.oracle.svm.graal.GraalSupport;
+import com.oracle.svm.graal.SubstrateGraalUtils;
+import com.oracle.svm.graal.hosted.GraalFeature;
+import com.oracle.svm.graal.meta.RuntimeCodeInstaller;
+import com.oracle.svm.graal.meta.SubstrateInstalledCodeImpl;
+import com.oracle.svm.graal.meta.SubstrateMethod;
+import com.oracle.svm.hosted.FeatureImpl.BeforeAnalysisAccessImpl;
+
+/**
+ * Checks that runtime compiled code that is not entered ages out of the code cache, while code
+ * that is entered between collections survives {@link RuntimeCodeCache#ageUnusedCode}. Runs only
+ * in an image built with {@link TestFeature}.
+ */
+public class RuntimeCodeCacheAgingTest {
+
+    public static class TestFeature implements Feature {
+        @Override
+        public List<Class<? extends Feature>> getRequiredFeatures() {
+            return Collections.singletonList(GraalFeature.class);
+        }
+
+        @Override
+        public void beforeAnalysis(BeforeAnalysisAccess a) {
+            BeforeAnalysisAccessImpl access = (BeforeAnalysisAccessImpl) a;
+            GraalFeature graalFeature = ImageSingletons.lookup(GraalFeature.class);
+            try {
+                SubstrateMethod used = graalFeature.prepareMethodForRuntimeCompilation(RuntimeCodeCacheAgingTest.class.getDeclaredMethod("usedMethod", int.class), access);
+                SubstrateMethod unused = graalFeature.prepareMethodForRuntimeCompilation(RuntimeCodeCacheAgingTest.class.getDeclaredMethod("unusedMethod", int.class), access);
+                ImageSingletons.add(CompilationRoots.class, new CompilationRoots(used, unused));
+            } catch (NoSuchMethodException ex) {
+                throw new AssertionError(ex);
+            }
+        }
+    }
+
+    static final class CompilationRoots {
+        final SubstrateMethod usedMethod;
+        final SubstrateMethod unusedMethod;
+
+        CompilationRoots(SubstrateMethod usedMethod, SubstrateMethod unusedMethod) {
+            this.usedMethod = usedMethod;
+            this.unusedMethod = unusedMethod;
+        }
+    }
+
+    static int usedMethod(int value) {
+        return value + 1;
+    }
+
+    static int unusedMethod(int value) {
+        return value - 1;
+    }
+
+    @Before
+    public void onlyInImageWithFeature() {
+        Assume.assumeTrue(ImageInfo.inImageRuntimeCode() && ImageSingletons.contains(CompilationRoots.class));
+    }
+
+    @Test
+    public void testUnusedCodeAgesOut() {
+        CompilationRoots roots = ImageSingletons.lookup(CompilationRoots.class);
+        SubstrateInstalledCodeImpl usedCode = compileAndInstall(roots.usedMethod);
+        SubstrateInstalledCodeImpl unusedCode = compileAndInstall(roots.unusedMethod);
+        Assert.assertTrue(usedCode.isValid());
+        Assert.assertTrue(unusedCode.isValid());
+
+        /* Every cold method exceeds a code cache of one byte, so it is evicted. */
+        Long maxSize = RuntimeCodeCache.Options.MaxRuntimeCodeCacheSize.getValue();
+        RuntimeOptionValues.singleton().update(RuntimeCodeCache.Options.MaxRuntimeCodeCacheSize, 1L);
+        try {
+            int cycles = RuntimeCodeCache.Options.RuntimeCodeCacheColdAge.getValue() + 2;
+            for (int i = 0; i < cycles; i++) {
+                /* Reading the entry point is how callers enter the code. */
+                Assert.assertNotEquals(0L, usedCode.getEntryPoint());
+                System.gc();
+            }
+        } finally {
+            RuntimeOptionValues.singleton().update(RuntimeCodeCache.Options.MaxRuntimeCodeCacheSize, maxSize);
+        }
+
+        Assert.assertTrue("entered code must stay installed", usedCode.isValid());
+        Assert.assertFalse("code that was never entered must be evicted", unusedCode.isValid());
+    }
+
+    private static SubstrateInstalledCodeImpl compileAndInstall(SubstrateMethod method) {
+        CompilationResult result;
+        try (DebugContext debug = new DebugContext.Builder(RuntimeOptionValues.singleton(), new GraalDebugHandlersFactory(GraalSupport.getRuntimeConfig().getSnippetReflection())).build()) {
+            result = SubstrateGraalUtils.compile(debug, method);
+        }
+        SubstrateInstalledCodeImpl installedCode = new SubstrateInstalledCodeImpl(method);
+        RuntimeCodeInstaller.install(method, result, installedCode);
+        return installedCode;
+    }
+}
@@ -46,6 +46,9 @@ import jdk.vm.ci.meta.ResolvedJavaMethod;
  */
 public class SubstrateInstalledCodeImpl extends InstalledCode implements SubstrateInstalledCode {
 
+    /** Set when a caller reads the entry point to invoke the code, cleared by the GC. */
+    private boolean used;
+
     public SubstrateInstalledCodeImpl(SharedRuntimeMethod method) {
         super(method.format("%H.%n#(%p)"));
     }
@@ -66,6 +69,22 @@ public class SubstrateInstalledCodeImpl extends InstalledCode implements Substra
         this.entryPoint = address;
     }
 
+    @Override
+    public long getEntryPoint() {
+        if (!used) {
+            /* Avoid dirtying the cache line on every call, only the GC clears the bit. */
+            used = true;
+        }
+        return entryPoint;
+    }
+
+    @Override
+    public boolean getAndClearUsed() {
+        boolean result = used;
+        used = false;
+        return result;
+    }
+
     @Override
     public void clearAddress() {
         assert VMOperation.isInProgressAtSafepoint();
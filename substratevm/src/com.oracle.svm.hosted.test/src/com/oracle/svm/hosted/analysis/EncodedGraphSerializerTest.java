@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.hosted.analysis;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.graalvm.compiler.api.replacements.SnippetReflectionProvider;
+import org.graalvm.compiler.core.common.type.StampFactory;
+import org.graalvm.compiler.core.common.type.StampPair;
+import org.graalvm.compiler.debug.DebugContext;
+import org.graalvm.compiler.graph.NodeClass;
+import org.graalvm.compiler.nodes.ConstantNode;
+import org.graalvm.compiler.nodes.EncodedGraph;
+import org.graalvm.compiler.nodes.GraphEncoder;
+import org.graalvm.compiler.nodes.NamedLocationIdentity;
+import org.graalvm.compiler.nodes.ParameterNode;
+import org.graalvm.compiler.nodes.ReturnNode;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.calc.AddNode;
+import org.graalvm.compiler.options.OptionValues;
+import org.graalvm.word.LocationIdentity;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.graal.pointsto.flow.AnalysisParsedGraph;
+import com.oracle.svm.hosted.analysis.EncodedGraphSerializer.UncacheableGraphException;
+import com.oracle.svm.hosted.c.GraalAccess;
+
+import jdk.vm.ci.code.Architecture;
+import jdk.vm.ci.meta.JavaConstant;
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.MetaAccessProvider;
+import jdk.vm.ci.meta.SpeculationLog;
+
+public class EncodedGraphSerializerTest {
+
+    private final SnippetReflectionProvider snippetReflection = GraalAccess.getOriginalSnippetReflection();
+    private final MetaAccessProvider metaAccess = GraalAccess.getOriginalProviders().getMetaAccess();
+
+    private static Class<?> findClass(String name) throws UncacheableGraphException {
+        try {
+            // Checkstyle: stop
+            return Class.forName(name, false, EncodedGraphSerializerTest.class.getClassLoader());
+            // Checkstyle: resume
+        } catch (ClassNotFoundException ex) {
+            throw new UncacheableGraphException("class not found: " + name);
+        }
+    }
+
+    private EncodedGraph roundTrip(EncodedGraph graph) throws IOException, UncacheableGraphException {
+        byte[] data = new EncodedGraphSerializer.Writer(snippetReflection, null, metaAccess).write(graph);
+        return new EncodedGraphSerializer.Reader(snippetReflection, null, metaAccess, EncodedGraphSerializerTest::findClass).read(data);
+    }
+
+    private static EncodedGraph createEncodedGraph(Object[] objects, NodeClass<?>[] nodeClasses) {
+        return new EncodedGraph(new byte[]{1, 2, 3, 4, 5}, 3, objects, nodeClasses, null, null, null, true, false);
+    }
+
+    @Test
+    public void testObjects() throws IOException, UncacheableGraphException {
+        Object[] objects = {
+                        null, "string", "non-ASCII \u00e9\u4e2d", true, (byte) -1, (short) 1234, 'c', 42, Long.MIN_VALUE, 1.5f, Double.NaN,
+                        JavaKind.Int, new int[]{1, -2}, new long[]{3L}, new double[]{4.5}, new boolean[]{true, false}, new byte[]{6, 7}, new String[]{"a", null},
+                        new Object[]{JavaKind.Long, new int[]{8}},
+                        JavaConstant.forInt(42), JavaConstant.forDouble(-0.0), JavaConstant.NULL_POINTER, snippetReflection.forObject("constant"),
+                        StampFactory.forInteger(32, 0, 10), StampFactory.forKind(JavaKind.Float), StampFactory.forVoid(), StampFactory.object(),
+                        StampPair.createSingle(StampFactory.forKind(JavaKind.Long)),
+                        LocationIdentity.any(), LocationIdentity.init(), NamedLocationIdentity.getArrayLocation(JavaKind.Int),
+                        SpeculationLog.NO_SPECULATION,
+        };
+        NodeClass<?>[] nodeClasses = {NodeClass.get(ConstantNode.class), NodeClass.get(ReturnNode.class)};
+        EncodedGraph graph = createEncodedGraph(objects, nodeClasses);
+
+        EncodedGraph result = roundTrip(graph);
+
+        Assert.assertArrayEquals(graph.getEncoding(), result.getEncoding());
+        Assert.assertEquals(graph.getStartOffset(), result.getStartOffset());
+        Assert.assertEquals(graph.hasUnsafeAccess(), result.hasUnsafeAccess());
+        Assert.assertEquals(graph.trackNodeSourcePosition(), result.trackNodeSourcePosition());
+        Assert.assertArrayEquals(nodeClasses, result.getNodeClasses());
+        Assert.assertEquals(objects.length, result.getNumObjects());
+        for (int i = 0; i < objects.length; i++) {
+            Assert.assertTrue("object " + i + ": " + objects[i], Arrays.deepEquals(new Object[]{objects[i]}, new Object[]{result.getObject(i)}));
+        }
+    }
+
+    @Test
+    public void testGraph() throws IOException, UncacheableGraphException {
+        OptionValues options = new OptionValues(OptionValues.newOptionMap());
+        DebugContext debug = DebugContext.disabled(options);
+        StructuredGraph graph = new StructuredGraph.Builder(options, debug).build();
+        ParameterNode parameter = graph.addWithoutUnique(new ParameterNode(0, StampPair.createSingle(StampFactory.forKind(JavaKind.Int))));
+        ValueNode sum = graph.addOrUnique(new AddNode(parameter, ConstantNode.forInt(1, graph)));
+        graph.start().setNext(graph.add(new ReturnNode(sum)));
+
+        Architecture architecture = AnalysisParsedGraph.HOST_ARCHITECTURE;
+        EncodedGraph encodedGraph = GraphEncoder.encodeSingleGraph(graph, architecture);
+
+        EncodedGraph result = roundTrip(encodedGraph);
+
+        /* Decodes the read graph and compares it node by node with the original graph. */
+        Assert.assertTrue(new GraphEncoder(architecture).verifyEncoding(graph, result));
+    }
+
+    @Test(expected = UncacheableGraphException.class)
+    public void testUnsupportedObjectRejected() throws IOException, UncacheableGraphException {
+        roundTrip(createEncodedGraph(new Object[]{"string", new Object()}, new NodeClass<?>[0]));
+    }
+
+    @Test(expected = UncacheableGraphException.class)
+    public void testNonAnalysisMethodRejected() throws IOException, UncacheableGraphException {
+        roundTrip(createEncodedGraph(new Object[]{metaAccess.lookupJavaMethod(Object.class.getDeclaredMethods()[0])}, new NodeClass<?>[0]));
+    }
+
+    @Test(expected = UncacheableGraphException.class)
+    public void testUnknownClassRejected() throws IOException, UncacheableGraphException {
+        byte[] data = new EncodedGraphSerializer.Writer(snippetReflection, null, metaAccess).write(createEncodedGraph(new Object[]{JavaKind.Int}, new NodeClass<?>[0]));
+        new EncodedGraphSerializer.Reader(snippetReflection, null, metaAccess, name -> {
+            throw new UncacheableGraphException("class not found: " + name);
+        }).read(data);
+    }
+}
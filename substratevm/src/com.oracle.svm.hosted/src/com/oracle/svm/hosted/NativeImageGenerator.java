@@ -135,6 +135,7 @@ import com.oracle.graal.pointsto.AnalysisPolicy;
 import com.oracle.graal.pointsto.BigBang;
 import com.oracle.graal.pointsto.BytecodeSensitiveAnalysisPolicy;
 import com.oracle.graal.pointsto.DefaultAnalysisPolicy;
+import com.oracle.graal.pointsto.SummaryAnalysisPolicy;
 import com.oracle.graal.pointsto.api.PointstoOptions;
 import com.oracle.graal.pointsto.constraints.UnsupportedFeatureException;
 import com.oracle.graal.pointsto.infrastructure.SubstitutionProcessor;
@@ -922,8 +923,14 @@ public class NativeImageGenerator {
         SVMHost hostVM = HostedConfiguration.instance().createHostVM(options, buildExecutor, loader.getClassLoader(), classInitializationSupport, automaticSubstitutions);
 
         automaticSubstitutions.init(loader, originalMetaAccess);
-        AnalysisPolicy analysisPolicy = PointstoOptions.AllocationSiteSensitiveHeap.getValue(options) ? new BytecodeSensitiveAnalysisPolicy(options)
-                        : new DefaultAnalysisPolicy(options);
+        AnalysisPolicy analysisPolicy;
+        if (PointstoOptions.AllocationSiteSensitiveHeap.getValue(options)) {
+            analysisPolicy = new BytecodeSensitiveAnalysisPolicy(options);
+        } else if (PointstoOptions.CompactMethodFlows.getValue(options)) {
+            analysisPolicy = new SummaryAnalysisPolicy(options);
+        } else {
+            analysisPolicy = new DefaultAnalysisPolicy(options);
+        }
         return new AnalysisUniverse(hostVM, target.wordJavaKind, loader.platform, analysisPolicy, aSubstitutions, originalMetaAccess, originalSnippetReflection,
                         new SubstrateSnippetReflectionProvider(new SubstrateWordTypes(originalMetaAccess, FrameAccess.getWordKind())));
     }
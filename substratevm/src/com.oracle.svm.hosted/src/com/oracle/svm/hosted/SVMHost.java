@@ -69,6 +69,7 @@ import com.oracle.graal.pointsto.BigBang;
 import com.oracle.graal.pointsto.api.HostVM;
 import com.oracle.graal.pointsto.api.PointstoOptions;
 import com.oracle.graal.pointsto.constraints.UnsupportedFeatureException;
+import com.oracle.graal.pointsto.flow.ParsedGraphCache;
 import com.oracle.graal.pointsto.infrastructure.OriginalClassProvider;
 import com.oracle.graal.pointsto.meta.AnalysisField;
 import com.oracle.graal.pointsto.meta.AnalysisMethod;
@@ -545,6 +546,17 @@ public class SVMHost implements HostVM {
 
     private final List<BiConsumer<AnalysisMethod, StructuredGraph>> methodAfterParsingHooks = new CopyOnWriteArrayList<>();
 
+    private ParsedGraphCache parsedGraphCache;
+
+    public void setParsedGraphCache(ParsedGraphCache parsedGraphCache) {
+        this.parsedGraphCache = parsedGraphCache;
+    }
+
+    @Override
+    public ParsedGraphCache getParsedGraphCache() {
+        return parsedGraphCache;
+    }
+
     public void addMethodAfterParsingHook(BiConsumer<AnalysisMethod, StructuredGraph> methodAfterParsingHook) {
         methodAfterParsingHooks.add(methodAfterParsingHook);
     }
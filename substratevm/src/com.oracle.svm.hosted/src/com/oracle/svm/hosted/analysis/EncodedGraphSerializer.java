@@ -0,0 +1,764 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.hosted.analysis;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.graalvm.compiler.api.replacements.SnippetReflectionProvider;
+import org.graalvm.compiler.bytecode.ResolvedJavaMethodBytecode;
+import org.graalvm.compiler.bytecode.ResolvedJavaMethodBytecodeProvider;
+import org.graalvm.compiler.core.common.type.FloatStamp;
+import org.graalvm.compiler.core.common.type.IntegerStamp;
+import org.graalvm.compiler.core.common.type.ObjectStamp;
+import org.graalvm.compiler.core.common.type.Stamp;
+import org.graalvm.compiler.core.common.type.StampFactory;
+import org.graalvm.compiler.core.common.type.StampPair;
+import org.graalvm.compiler.graph.NodeClass;
+import org.graalvm.compiler.graph.NodeSourcePosition;
+import org.graalvm.compiler.nodes.EncodedGraph;
+import org.graalvm.compiler.nodes.FieldLocationIdentity;
+import org.graalvm.compiler.nodes.NamedLocationIdentity;
+import org.graalvm.word.LocationIdentity;
+
+import com.oracle.graal.pointsto.BigBang;
+import com.oracle.graal.pointsto.infrastructure.OriginalFieldProvider;
+import com.oracle.graal.pointsto.infrastructure.OriginalMethodProvider;
+import com.oracle.graal.pointsto.meta.AnalysisField;
+import com.oracle.graal.pointsto.meta.AnalysisMethod;
+import com.oracle.graal.pointsto.meta.AnalysisType;
+import com.oracle.svm.core.hub.DynamicHub;
+import com.oracle.svm.hosted.SVMHost;
+import com.oracle.svm.hosted.c.GraalAccess;
+
+import jdk.vm.ci.meta.JavaConstant;
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.MetaAccessProvider;
+import jdk.vm.ci.meta.PrimitiveConstant;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+import jdk.vm.ci.meta.ResolvedJavaType;
+import jdk.vm.ci.meta.SpeculationLog;
+
+/**
+ * Converts {@link EncodedGraph encoded graphs} of the analysis to a byte stream and back. The
+ * objects of an encoded graph are written symbolically, i.e., types, methods and fields by name,
+ * so that a graph can be read back in a later image build. Only the kinds of objects that bytecode
+ * parsing produces are supported; a graph that references any other object, or an element that is
+ * not a plain class file element (for example a substitution), is rejected with an
+ * {@link UncacheableGraphException}.
+ */
+final class EncodedGraphSerializer {
+
+    @SuppressWarnings("serial")
+    static final class UncacheableGraphException extends Exception {
+        UncacheableGraphException(String message) {
+            super(message, null, false, false);
+        }
+    }
+
+    /**
+     * Resolves classes by name in the class loader of the image that is built.
+     */
+    interface ClassResolver {
+        Class<?> findClass(String name) throws UncacheableGraphException;
+    }
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte BOOLEAN = 2;
+    private static final byte BYTE = 3;
+    private static final byte SHORT = 4;
+    private static final byte CHAR = 5;
+    private static final byte INT = 6;
+    private static final byte LONG = 7;
+    private static final byte FLOAT = 8;
+    private static final byte DOUBLE = 9;
+    private static final byte ENUM = 10;
+    private static final byte INT_ARRAY = 11;
+    private static final byte LONG_ARRAY = 12;
+    private static final byte DOUBLE_ARRAY = 13;
+    private static final byte BOOLEAN_ARRAY = 14;
+    private static final byte BYTE_ARRAY = 15;
+    private static final byte OBJECT_ARRAY = 16;
+    private static final byte TYPE = 17;
+    private static final byte METHOD = 18;
+    private static final byte FIELD = 19;
+    private static final byte PRIMITIVE_CONSTANT = 20;
+    private static final byte NULL_CONSTANT = 21;
+    private static final byte STRING_CONSTANT = 22;
+    private static final byte CLASS_CONSTANT = 23;
+    private static final byte OBJECT_STAMP = 24;
+    private static final byte INTEGER_STAMP = 25;
+    private static final byte FLOAT_STAMP = 26;
+    private static final byte VOID_STAMP = 27;
+    private static final byte ILLEGAL_STAMP = 28;
+    private static final byte STAMP_PAIR = 29;
+    private static final byte SOURCE_POSITION = 30;
+    private static final byte BYTECODE = 31;
+    private static final byte ANY_LOCATION = 32;
+    private static final byte INIT_LOCATION = 33;
+    private static final byte FIELD_LOCATION = 34;
+    private static final byte ARRAY_LOCATION = 35;
+    private static final byte NO_SPECULATION = 36;
+
+    private static final byte POSITION_NORMAL = 0;
+    private static final byte POSITION_PLACEHOLDER = 1;
+    private static final byte POSITION_SUBSTITUTION = 2;
+
+    private static final String CLASS_INITIALIZER_NAME = "<clinit>";
+    private static final String CONSTRUCTOR_NAME = "<init>";
+
+    private EncodedGraphSerializer() {
+    }
+
+    /**
+     * Returns true if the type is the unmodified class of the image class path, i.e., if the
+     * analysis type directly wraps the JVMCI type of the class.
+     */
+    static boolean isPlain(AnalysisType type) {
+        try {
+            Class<?> javaClass = type.getJavaClass();
+            return javaClass != null && GraalAccess.getOriginalProviders().getMetaAccess().lookupJavaType(javaClass).equals(type.getWrappedWithoutResolve());
+        } catch (RuntimeException | LinkageError ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns true if the method is the unmodified method of its class file, i.e., the method is
+     * neither substituted, annotated nor synthesized by the image builder.
+     */
+    static boolean isPlain(AnalysisMethod method) {
+        try {
+            if (!isPlain(method.getDeclaringClass())) {
+                return false;
+            }
+            MetaAccessProvider originalMetaAccess = GraalAccess.getOriginalProviders().getMetaAccess();
+            if (method.isClassInitializer()) {
+                ResolvedJavaType originalType = originalMetaAccess.lookupJavaType(method.getDeclaringClass().getJavaClass());
+                return method.wrapped.equals(originalType.getClassInitializer());
+            }
+            Executable executable = OriginalMethodProvider.getJavaMethod(GraalAccess.getOriginalSnippetReflection(), method);
+            return executable != null && originalMetaAccess.lookupJavaMethod(executable).equals(method.wrapped);
+        } catch (RuntimeException | LinkageError ex) {
+            return false;
+        }
+    }
+
+    static boolean isPlain(AnalysisField field) {
+        try {
+            if (!isPlain(field.getDeclaringClass())) {
+                return false;
+            }
+            Field javaField = OriginalFieldProvider.getJavaField(GraalAccess.getOriginalSnippetReflection(), field);
+            return javaField != null && GraalAccess.getOriginalProviders().getMetaAccess().lookupJavaField(javaField).equals(field.wrapped);
+        } catch (RuntimeException | LinkageError ex) {
+            return false;
+        }
+    }
+
+    static final class Writer {
+        private final SnippetReflectionProvider snippetReflection;
+        private final SVMHost hostVM;
+        private final MetaAccessProvider metaAccess;
+        private final Set<String> dependencies = new HashSet<>();
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(bytes);
+
+        Writer(BigBang bb) {
+            this(bb.getSnippetReflectionProvider(), (SVMHost) bb.getHostVM(), bb.getMetaAccess());
+        }
+
+        Writer(SnippetReflectionProvider snippetReflection, SVMHost hostVM, MetaAccessProvider metaAccess) {
+            this.snippetReflection = snippetReflection;
+            this.hostVM = hostVM;
+            this.metaAccess = metaAccess;
+        }
+
+        /**
+         * The names of the classes whose class files the written graph was derived from.
+         */
+        Set<String> getDependencies() {
+            return dependencies;
+        }
+
+        byte[] write(EncodedGraph graph) throws UncacheableGraphException {
+            if (graph.getAssumptions() != null && !graph.getAssumptions().isEmpty()) {
+                throw new UncacheableGraphException("graph has assumptions");
+            }
+            if (graph.getFields() != null) {
+                throw new UncacheableGraphException("graph has accessed fields");
+            }
+            try {
+                byte[] encoding = graph.getEncoding();
+                out.writeInt(encoding.length);
+                out.write(encoding);
+                out.writeInt(graph.getStartOffset());
+                out.writeBoolean(graph.trackNodeSourcePosition());
+                out.writeBoolean(graph.hasUnsafeAccess());
+
+                NodeClass<?>[] nodeClasses = graph.getNodeClasses();
+                out.writeInt(nodeClasses.length);
+                for (NodeClass<?> nodeClass : nodeClasses) {
+                    out.writeUTF(nodeClass.getJavaClass().getName());
+                }
+
+                out.writeInt(graph.getNumObjects());
+                for (int i = 0; i < graph.getNumObjects(); i++) {
+                    writeObject(graph.getObject(i));
+                }
+
+                List<ResolvedJavaMethod> inlinedMethods = graph.getInlinedMethods();
+                if (inlinedMethods == null) {
+                    out.writeInt(-1);
+                } else {
+                    out.writeInt(inlinedMethods.size());
+                    for (ResolvedJavaMethod inlinedMethod : inlinedMethods) {
+                        writeMethod(inlinedMethod);
+                    }
+                }
+                out.flush();
+            } catch (IOException ex) {
+                throw new UncacheableGraphException(ex.getMessage());
+            }
+            return bytes.toByteArray();
+        }
+
+        private void writeObject(Object o) throws IOException, UncacheableGraphException {
+            if (o == null) {
+                out.writeByte(NULL);
+            } else if (o instanceof String) {
+                out.writeByte(STRING);
+                writeString((String) o);
+            } else if (o instanceof Boolean) {
+                out.writeByte(BOOLEAN);
+                out.writeBoolean((Boolean) o);
+            } else if (o instanceof Byte) {
+                out.writeByte(BYTE);
+                out.writeByte((Byte) o);
+            } else if (o instanceof Short) {
+                out.writeByte(SHORT);
+                out.writeShort((Short) o);
+            } else if (o instanceof Character) {
+                out.writeByte(CHAR);
+                out.writeChar((Character) o);
+            } else if (o instanceof Integer) {
+                out.writeByte(INT);
+                out.writeInt((Integer) o);
+            } else if (o instanceof Long) {
+                out.writeByte(LONG);
+                out.writeLong((Long) o);
+            } else if (o instanceof Float) {
+                out.writeByte(FLOAT);
+                out.writeFloat((Float) o);
+            } else if (o instanceof Double) {
+                out.writeByte(DOUBLE);
+                out.writeDouble((Double) o);
+            } else if (o instanceof Enum) {
+                Class<?> enumClass = ((Enum<?>) o).getDeclaringClass();
+                out.writeByte(ENUM);
+                writeClassName(enumClass);
+                out.writeUTF(((Enum<?>) o).name());
+            } else if (o instanceof int[]) {
+                int[] array = (int[]) o;
+                out.writeByte(INT_ARRAY);
+                out.writeInt(array.length);
+                for (int element : array) {
+                    out.writeInt(element);
+                }
+            } else if (o instanceof long[]) {
+                long[] array = (long[]) o;
+                out.writeByte(LONG_ARRAY);
+                out.writeInt(array.length);
+                for (long element : array) {
+                    out.writeLong(element);
+                }
+            } else if (o instanceof double[]) {
+                double[] array = (double[]) o;
+                out.writeByte(DOUBLE_ARRAY);
+                out.writeInt(array.length);
+                for (double element : array) {
+                    out.writeDouble(element);
+                }
+            } else if (o instanceof boolean[]) {
+                boolean[] array = (boolean[]) o;
+                out.writeByte(BOOLEAN_ARRAY);
+                out.writeInt(array.length);
+                for (boolean element : array) {
+                    out.writeBoolean(element);
+                }
+            } else if (o instanceof byte[]) {
+                byte[] array = (byte[]) o;
+                out.writeByte(BYTE_ARRAY);
+                out.writeInt(array.length);
+                out.write(array);
+            } else if (o instanceof Object[]) {
+                Object[] array = (Object[]) o;
+                out.writeByte(OBJECT_ARRAY);
+                writeClassName(array.getClass().getComponentType());
+                out.writeInt(array.length);
+                for (Object element : array) {
+                    writeObject(element);
+                }
+            } else if (o instanceof AnalysisType) {
+                out.writeByte(TYPE);
+                writeType((AnalysisType) o);
+            } else if (o instanceof AnalysisMethod) {
+                out.writeByte(METHOD);
+                writeMethod((AnalysisMethod) o);
+            } else if (o instanceof AnalysisField) {
+                out.writeByte(FIELD);
+                writeField((AnalysisField) o);
+            } else if (o instanceof JavaConstant) {
+                writeConstant((JavaConstant) o);
+            } else if (o instanceof Stamp) {
+                writeStamp((Stamp) o);
+            } else if (o instanceof StampPair) {
+                out.writeByte(STAMP_PAIR);
+                writeObject(((StampPair) o).getTrustedStamp());
+                writeObject(((StampPair) o).getUncheckedStamp());
+            } else if (o.getClass() == NodeSourcePosition.class) {
+                writeSourcePosition((NodeSourcePosition) o);
+            } else if (o.getClass() == ResolvedJavaMethodBytecode.class && ((ResolvedJavaMethodBytecode) o).getOrigin() == ResolvedJavaMethodBytecodeProvider.INSTANCE) {
+                out.writeByte(BYTECODE);
+                writeMethod(((ResolvedJavaMethodBytecode) o).getMethod());
+            } else if (o instanceof LocationIdentity) {
+                writeLocation((LocationIdentity) o);
+            } else if (o == SpeculationLog.NO_SPECULATION) {
+                out.writeByte(NO_SPECULATION);
+            } else {
+                throw new UncacheableGraphException("unsupported object of " + o.getClass().getName());
+            }
+        }
+
+        private void writeString(String s) throws IOException {
+            byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(utf8.length);
+            out.write(utf8);
+        }
+
+        private void writeClassName(Class<?> clazz) throws IOException {
+            Class<?> elementClass = clazz;
+            while (elementClass.isArray()) {
+                elementClass = elementClass.getComponentType();
+            }
+            if (!elementClass.isPrimitive()) {
+                dependencies.add(elementClass.getName());
+            }
+            out.writeUTF(clazz.getName());
+        }
+
+        private void writeType(AnalysisType type) throws IOException, UncacheableGraphException {
+            AnalysisType elementType = type;
+            while (elementType.isArray()) {
+                elementType = elementType.getComponentType();
+            }
+            if (!elementType.isPrimitive() && !isPlain(elementType)) {
+                throw new UncacheableGraphException("not a plain type: " + type.toJavaName(true));
+            }
+            writeClassName(type.getJavaClass());
+        }
+
+        private void writeMethod(ResolvedJavaMethod m) throws IOException, UncacheableGraphException {
+            if (!(m instanceof AnalysisMethod) || !isPlain((AnalysisMethod) m)) {
+                throw new UncacheableGraphException("not a plain method: " + m.format("%H.%n(%p)"));
+            }
+            writeType(((AnalysisMethod) m).getDeclaringClass());
+            out.writeUTF(m.getName());
+            out.writeUTF(m.getSignature().toMethodDescriptor());
+        }
+
+        private void writeField(AnalysisField f) throws IOException, UncacheableGraphException {
+            if (!isPlain(f)) {
+                throw new UncacheableGraphException("not a plain field: " + f.format("%H.%n"));
+            }
+            writeType(f.getDeclaringClass());
+            out.writeUTF(f.getName());
+        }
+
+        private void writeConstant(JavaConstant c) throws IOException, UncacheableGraphException {
+            if (c.getClass() == PrimitiveConstant.class && c.getJavaKind() != JavaKind.Illegal) {
+                out.writeByte(PRIMITIVE_CONSTANT);
+                writeObject(c.asBoxedPrimitive());
+                return;
+            } else if (c.isNull() && c.equals(JavaConstant.NULL_POINTER)) {
+                out.writeByte(NULL_CONSTANT);
+                return;
+            }
+            Object value = c.getJavaKind() == JavaKind.Object ? snippetReflection.asObject(Object.class, c) : null;
+            if (value instanceof String && c.equals(snippetReflection.forObject(((String) value).intern()))) {
+                out.writeByte(STRING_CONSTANT);
+                writeString((String) value);
+                return;
+            } else if (value instanceof DynamicHub) {
+                Class<?> javaClass = ((DynamicHub) value).getHostedJavaClass();
+                AnalysisType type = (AnalysisType) metaAccess.lookupJavaType(javaClass);
+                if (c.equals(snippetReflection.forObject(hostVM.dynamicHub(type)))) {
+                    out.writeByte(CLASS_CONSTANT);
+                    writeType(type);
+                    return;
+                }
+            }
+            throw new UncacheableGraphException("unsupported constant " + c);
+        }
+
+        private void writeStamp(Stamp s) throws IOException, UncacheableGraphException {
+            if (s.getClass() == ObjectStamp.class) {
+                ObjectStamp stamp = (ObjectStamp) s;
+                if (stamp.type() != null && !(stamp.type() instanceof AnalysisType)) {
+                    throw new UncacheableGraphException("unsupported stamp " + s);
+                }
+                out.writeByte(OBJECT_STAMP);
+                writeObject(stamp.type());
+                out.writeBoolean(stamp.isExactType());
+                out.writeBoolean(stamp.nonNull());
+                out.writeBoolean(stamp.alwaysNull());
+                out.writeBoolean(stamp.isAlwaysArray());
+            } else if (s.getClass() == IntegerStamp.class) {
+                IntegerStamp stamp = (IntegerStamp) s;
+                if (!stamp.equals(IntegerStamp.create(stamp.getBits(), stamp.lowerBound(), stamp.upperBound(), stamp.downMask(), stamp.upMask()))) {
+                    throw new UncacheableGraphException("unsupported stamp " + s);
+                }
+                out.writeByte(INTEGER_STAMP);
+                out.writeInt(stamp.getBits());
+                out.writeLong(stamp.lowerBound());
+                out.writeLong(stamp.upperBound());
+                out.writeLong(stamp.downMask());
+                out.writeLong(stamp.upMask());
+            } else if (s.getClass() == FloatStamp.class) {
+                FloatStamp stamp = (FloatStamp) s;
+                out.writeByte(FLOAT_STAMP);
+                out.writeInt(stamp.getBits());
+                out.writeDouble(stamp.lowerBound());
+                out.writeDouble(stamp.upperBound());
+                out.writeBoolean(stamp.isNonNaN());
+            } else if (s == StampFactory.forVoid()) {
+                out.writeByte(VOID_STAMP);
+            } else if (s == StampFactory.forKind(JavaKind.Illegal)) {
+                out.writeByte(ILLEGAL_STAMP);
+            } else {
+                throw new UncacheableGraphException("unsupported stamp " + s);
+            }
+        }
+
+        private void writeSourcePosition(NodeSourcePosition position) throws IOException, UncacheableGraphException {
+            if (position.getSourceLanguage() != null) {
+                throw new UncacheableGraphException("source position with source language");
+            }
+            byte kind;
+            if (position.isPlaceholder()) {
+                if (position.getCaller() != null) {
+                    throw new UncacheableGraphException("placeholder source position with caller");
+                }
+                kind = POSITION_PLACEHOLDER;
+            } else if (position.isSubstitution()) {
+                kind = POSITION_SUBSTITUTION;
+            } else {
+                kind = POSITION_NORMAL;
+            }
+            out.writeByte(SOURCE_POSITION);
+            out.writeByte(kind);
+            writeObject(position.getCaller());
+            writeMethod(position.getMethod());
+            out.writeInt(position.getBCI());
+        }
+
+        private void writeLocation(LocationIdentity location) throws IOException, UncacheableGraphException {
+            if (location.equals(LocationIdentity.any())) {
+                out.writeByte(ANY_LOCATION);
+            } else if (location.equals(LocationIdentity.init())) {
+                out.writeByte(INIT_LOCATION);
+            } else if (location instanceof FieldLocationIdentity && ((FieldLocationIdentity) location).getField() instanceof AnalysisField) {
+                out.writeByte(FIELD_LOCATION);
+                writeField((AnalysisField) ((FieldLocationIdentity) location).getField());
+            } else {
+                for (JavaKind kind : JavaKind.values()) {
+                    if (kind != JavaKind.Illegal && kind != JavaKind.Void && NamedLocationIdentity.getArrayLocation(kind) == location) {
+                        out.writeByte(ARRAY_LOCATION);
+                        out.writeByte(kind.ordinal());
+                        return;
+                    }
+                }
+                throw new UncacheableGraphException("unsupported location " + location);
+            }
+        }
+    }
+
+    static final class Reader {
+        private final SnippetReflectionProvider snippetReflection;
+        private final SVMHost hostVM;
+        private final MetaAccessProvider metaAccess;
+        private final ClassResolver classResolver;
+
+        private DataInputStream in;
+
+        Reader(BigBang bb, ClassResolver classResolver) {
+            this(bb.getSnippetReflectionProvider(), (SVMHost) bb.getHostVM(), bb.getMetaAccess(), classResolver);
+        }
+
+        Reader(SnippetReflectionProvider snippetReflection, SVMHost hostVM, MetaAccessProvider metaAccess, ClassResolver classResolver) {
+            this.snippetReflection = snippetReflection;
+            this.hostVM = hostVM;
+            this.metaAccess = metaAccess;
+            this.classResolver = classResolver;
+        }
+
+        EncodedGraph read(byte[] data) throws IOException, UncacheableGraphException {
+            in = new DataInputStream(new ByteArrayInputStream(data));
+            byte[] encoding = new byte[in.readInt()];
+            in.readFully(encoding);
+            int startOffset = in.readInt();
+            boolean trackNodeSourcePosition = in.readBoolean();
+            boolean hasUnsafeAccess = in.readBoolean();
+
+            NodeClass<?>[] nodeClasses = new NodeClass<?>[in.readInt()];
+            for (int i = 0; i < nodeClasses.length; i++) {
+                nodeClasses[i] = NodeClass.get(classResolver.findClass(in.readUTF()));
+            }
+
+            Object[] objects = new Object[in.readInt()];
+            for (int i = 0; i < objects.length; i++) {
+                objects[i] = readObject();
+            }
+
+            List<ResolvedJavaMethod> inlinedMethods = null;
+            int numInlinedMethods = in.readInt();
+            if (numInlinedMethods >= 0) {
+                inlinedMethods = new ArrayList<>(numInlinedMethods);
+                for (int i = 0; i < numInlinedMethods; i++) {
+                    inlinedMethods.add(readMethod());
+                }
+            }
+            return new EncodedGraph(encoding, startOffset, objects, nodeClasses, null, inlinedMethods, null, hasUnsafeAccess, trackNodeSourcePosition);
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private Object readObject() throws IOException, UncacheableGraphException {
+            byte tag = in.readByte();
+            switch (tag) {
+                case NULL:
+                    return null;
+                case STRING:
+                    return readString();
+                case BOOLEAN:
+                    return in.readBoolean();
+                case BYTE:
+                    return in.readByte();
+                case SHORT:
+                    return in.readShort();
+                case CHAR:
+                    return in.readChar();
+                case INT:
+                    return in.readInt();
+                case LONG:
+                    return in.readLong();
+                case FLOAT:
+                    return in.readFloat();
+                case DOUBLE:
+                    return in.readDouble();
+                case ENUM: {
+                    Class<?> enumClass = classResolver.findClass(in.readUTF());
+                    String name = in.readUTF();
+                    if (!enumClass.isEnum()) {
+                        throw new UncacheableGraphException("not an enum class: " + enumClass.getName());
+                    }
+                    try {
+                        return Enum.valueOf((Class) enumClass, name);
+                    } catch (IllegalArgumentException ex) {
+                        throw new UncacheableGraphException("no enum constant " + enumClass.getName() + "." + name);
+                    }
+                }
+                case INT_ARRAY: {
+                    int[] array = new int[in.readInt()];
+                    for (int i = 0; i < array.length; i++) {
+                        array[i] = in.readInt();
+                    }
+                    return array;
+                }
+                case LONG_ARRAY: {
+                    long[] array = new long[in.readInt()];
+                    for (int i = 0; i < array.length; i++) {
+                        array[i] = in.readLong();
+                    }
+                    return array;
+                }
+                case DOUBLE_ARRAY: {
+                    double[] array = new double[in.readInt()];
+                    for (int i = 0; i < array.length; i++) {
+                        array[i] = in.readDouble();
+                    }
+                    return array;
+                }
+                case BOOLEAN_ARRAY: {
+                    boolean[] array = new boolean[in.readInt()];
+                    for (int i = 0; i < array.length; i++) {
+                        array[i] = in.readBoolean();
+                    }
+                    return array;
+                }
+                case BYTE_ARRAY: {
+                    byte[] array = new byte[in.readInt()];
+                    in.readFully(array);
+                    return array;
+                }
+                case OBJECT_ARRAY: {
+                    Class<?> componentClass = classResolver.findClass(in.readUTF());
+                    Object[] array = (Object[]) Array.newInstance(componentClass, in.readInt());
+                    for (int i = 0; i < array.length; i++) {
+                        Object element = readObject();
+                        if (element != null && !componentClass.isInstance(element)) {
+                            throw new UncacheableGraphException("array element of wrong type");
+                        }
+                        array[i] = element;
+                    }
+                    return array;
+                }
+                case TYPE:
+                    return readType();
+                case METHOD:
+                    return readMethod();
+                case FIELD:
+                    return readField();
+                case PRIMITIVE_CONSTANT:
+                    return JavaConstant.forBoxedPrimitive(readObject());
+                case NULL_CONSTANT:
+                    return JavaConstant.NULL_POINTER;
+                case STRING_CONSTANT:
+                    return snippetReflection.forObject(readString().intern());
+                case CLASS_CONSTANT:
+                    return snippetReflection.forObject(hostVM.dynamicHub(readType()));
+                case OBJECT_STAMP: {
+                    ResolvedJavaType type = (ResolvedJavaType) readObject();
+                    return new ObjectStamp(type, in.readBoolean(), in.readBoolean(), in.readBoolean(), in.readBoolean());
+                }
+                case INTEGER_STAMP:
+                    return IntegerStamp.create(in.readInt(), in.readLong(), in.readLong(), in.readLong(), in.readLong());
+                case FLOAT_STAMP:
+                    return new FloatStamp(in.readInt(), in.readDouble(), in.readDouble(), in.readBoolean());
+                case VOID_STAMP:
+                    return StampFactory.forVoid();
+                case ILLEGAL_STAMP:
+                    return StampFactory.forKind(JavaKind.Illegal);
+                case STAMP_PAIR:
+                    return StampPair.create((Stamp) readObject(), (Stamp) readObject());
+                case SOURCE_POSITION: {
+                    byte kind = in.readByte();
+                    NodeSourcePosition caller = (NodeSourcePosition) readObject();
+                    ResolvedJavaMethod method = readMethod();
+                    int bci = in.readInt();
+                    switch (kind) {
+                        case POSITION_PLACEHOLDER:
+                            return NodeSourcePosition.placeholder(method, bci);
+                        case POSITION_SUBSTITUTION:
+                            return NodeSourcePosition.substitution(caller, method, bci);
+                        default:
+                            return new NodeSourcePosition(caller, method, bci);
+                    }
+                }
+                case BYTECODE:
+                    return new ResolvedJavaMethodBytecode(readMethod());
+                case ANY_LOCATION:
+                    return LocationIdentity.any();
+                case INIT_LOCATION:
+                    return LocationIdentity.init();
+                case FIELD_LOCATION:
+                    return new FieldLocationIdentity(readField());
+                case ARRAY_LOCATION:
+                    return NamedLocationIdentity.getArrayLocation(JavaKind.values()[in.readByte()]);
+                case NO_SPECULATION:
+                    return SpeculationLog.NO_SPECULATION;
+                default:
+                    throw new IOException("unknown object tag " + tag);
+            }
+        }
+
+        private String readString() throws IOException {
+            byte[] utf8 = new byte[in.readInt()];
+            in.readFully(utf8);
+            return new String(utf8, StandardCharsets.UTF_8);
+        }
+
+        private AnalysisType readType() throws IOException, UncacheableGraphException {
+            AnalysisType type = (AnalysisType) metaAccess.lookupJavaType(classResolver.findClass(in.readUTF()));
+            AnalysisType elementType = type;
+            while (elementType.isArray()) {
+                elementType = elementType.getComponentType();
+            }
+            if (!elementType.isPrimitive() && !isPlain(elementType)) {
+                throw new UncacheableGraphException("not a plain type: " + type.toJavaName(true));
+            }
+            return type;
+        }
+
+        private AnalysisMethod readMethod() throws IOException, UncacheableGraphException {
+            AnalysisType declaringType = readType();
+            String name = in.readUTF();
+            String descriptor = in.readUTF();
+
+            AnalysisMethod result = null;
+            if (name.equals(CLASS_INITIALIZER_NAME)) {
+                result = declaringType.getClassInitializer();
+            } else {
+                for (AnalysisMethod candidate : name.equals(CONSTRUCTOR_NAME) ? declaringType.getDeclaredConstructors() : declaringType.getDeclaredMethods()) {
+                    if (candidate.getName().equals(name) && candidate.getSignature().toMethodDescriptor().equals(descriptor)) {
+                        result = candidate;
+                        break;
+                    }
+                }
+            }
+            if (result == null || !isPlain(result)) {
+                throw new UncacheableGraphException("no plain method " + declaringType.toJavaName(true) + "." + name + descriptor);
+            }
+            return result;
+        }
+
+        private AnalysisField readField() throws IOException, UncacheableGraphException {
+            AnalysisType declaringType = readType();
+            String name = in.readUTF();
+            AnalysisField result;
+            try {
+                result = (AnalysisField) metaAccess.lookupJavaField(declaringType.getJavaClass().getDeclaredField(name));
+            } catch (NoSuchFieldException | LinkageError ex) {
+                throw new UncacheableGraphException("no field " + declaringType.toJavaName(true) + "." + name);
+            }
+            if (result == null || !isPlain(result)) {
+                throw new UncacheableGraphException("no plain field " + declaringType.toJavaName(true) + "." + name);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,449 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.hosted.analysis;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.graalvm.collections.UnmodifiableMapCursor;
+import org.graalvm.compiler.nodes.EncodedGraph;
+import org.graalvm.compiler.nodes.GraphEncoder;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.options.OptionKey;
+
+import com.oracle.graal.pointsto.BigBang;
+import com.oracle.graal.pointsto.flow.AnalysisParsedGraph;
+import com.oracle.graal.pointsto.flow.ParsedGraphCache;
+import com.oracle.graal.pointsto.meta.AnalysisMethod;
+import com.oracle.svm.core.TypeResult;
+import com.oracle.svm.core.option.HostedOptionValues;
+import com.oracle.svm.core.option.LocatableMultiOptionValue;
+import com.oracle.svm.core.util.VMError;
+import com.oracle.svm.hosted.FeatureHandler;
+import com.oracle.svm.hosted.ImageClassLoader;
+import com.oracle.svm.hosted.SVMHost;
+import com.oracle.svm.hosted.analysis.EncodedGraphSerializer.UncacheableGraphException;
+import com.oracle.svm.hosted.classinitialization.InitKind;
+
+import jdk.vm.ci.code.Architecture;
+import jdk.vm.ci.runtime.JVMCI;
+
+/**
+ * A {@link ParsedGraphCache} that is persisted in a file, so that an image build can reuse the
+ * graphs that bytecode parsing produced in an earlier build of the same image.
+ *
+ * A cached graph is only reused when it is still valid for the current build:
+ * <ul>
+ * <li>The image builder, the JVM that runs it, the {@link #fingerprint hosted options, system
+ * properties and features} must be the same as when the cache was written, otherwise the whole
+ * cache is discarded.</li>
+ * <li>The class files of all classes that were initialized at image build time must be unchanged,
+ * because parsing folds the values of their static final fields. Otherwise the whole cache is
+ * discarded too.</li>
+ * <li>The class files of all classes that a graph refers to, i.e., its dependencies, must be
+ * unchanged. Otherwise only this graph is discarded.</li>
+ * </ul>
+ * Graphs of methods that are not plain class file methods, for example substitutions, graphs that
+ * refer to objects that cannot be written symbolically, and graphs whose parsing had
+ * {@linkplain #markUncacheable side effects} are not cached.
+ */
+final class PersistentAnalysisCache implements ParsedGraphCache, EncodedGraphSerializer.ClassResolver {
+
+    private static final int MAGIC = 0x53564d41;
+    private static final int VERSION = 1;
+    private static final String FILE_EXTENSION = ".analysis-cache";
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private static final byte[] NO_DIGEST = new byte[0];
+
+    private static final class Entry {
+        final String[] dependencies;
+        final byte[][] digests;
+        final byte[] graph;
+
+        Entry(String[] dependencies, byte[][] digests, byte[] graph) {
+            this.dependencies = dependencies;
+            this.digests = digests;
+            this.graph = graph;
+        }
+    }
+
+    private final ImageClassLoader imageClassLoader;
+    private final Path file;
+    private final byte[] fingerprint;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, byte[]> classDigests = new ConcurrentHashMap<>();
+    /* Weak, since graphs whose parsing fails are never stored. */
+    private final Set<StructuredGraph> uncacheableGraphs = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+    private String discardReason;
+
+    private final AtomicInteger lookups = new AtomicInteger();
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger stale = new AtomicInteger();
+    private final AtomicInteger stored = new AtomicInteger();
+    private final AtomicInteger uncacheable = new AtomicInteger();
+
+    PersistentAnalysisCache(ImageClassLoader imageClassLoader, FeatureHandler featureHandler, Path directory, String imageName) {
+        this.imageClassLoader = imageClassLoader;
+        this.file = directory.resolve(imageName + FILE_EXTENSION);
+        this.fingerprint = fingerprint(featureHandler);
+    }
+
+    private static String key(AnalysisMethod method) {
+        return method.getDeclaringClass().getJavaClass().getName() + "." + method.getName() + method.getSignature().toMethodDescriptor();
+    }
+
+    @Override
+    public EncodedGraph lookup(BigBang bb, AnalysisMethod method) {
+        lookups.incrementAndGet();
+        String key = key(method);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        try {
+            if (EncodedGraphSerializer.isPlain(method) && isUnchanged(entry)) {
+                EncodedGraph graph = new EncodedGraphSerializer.Reader(bb, this).read(entry.graph);
+                hits.incrementAndGet();
+                return graph;
+            }
+        } catch (IOException | UncacheableGraphException | RuntimeException | LinkageError ex) {
+            /* The entry is no longer valid for this build, it is removed below. */
+        }
+        stale.incrementAndGet();
+        entries.remove(key, entry);
+        return null;
+    }
+
+    @Override
+    public void store(BigBang bb, AnalysisMethod method, StructuredGraph graph) {
+        try {
+            if (uncacheableGraphs.remove(graph)) {
+                throw new UncacheableGraphException("parsing had side effects");
+            } else if (!EncodedGraphSerializer.isPlain(method)) {
+                throw new UncacheableGraphException("not a plain method");
+            }
+            EncodedGraphSerializer.Writer writer = new EncodedGraphSerializer.Writer(bb);
+            byte[] bytes = writer.write(GraphEncoder.encodeSingleGraph(graph, AnalysisParsedGraph.HOST_ARCHITECTURE));
+            writer.getDependencies().add(method.getDeclaringClass().getJavaClass().getName());
+
+            String[] dependencies = writer.getDependencies().toArray(new String[0]);
+            byte[][] digests = new byte[dependencies.length][];
+            for (int i = 0; i < dependencies.length; i++) {
+                digests[i] = classDigest(dependencies[i]);
+                if (digests[i] == NO_DIGEST) {
+                    throw new UncacheableGraphException("no class file for " + dependencies[i]);
+                }
+            }
+            entries.put(key(method), new Entry(dependencies, digests, bytes));
+            stored.incrementAndGet();
+        } catch (UncacheableGraphException | RuntimeException | LinkageError ex) {
+            uncacheable.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void markUncacheable(StructuredGraph graph) {
+        uncacheableGraphs.add(graph);
+    }
+
+    private boolean isUnchanged(Entry entry) {
+        for (int i = 0; i < entry.dependencies.length; i++) {
+            if (!Arrays.equals(entry.digests[i], classDigest(entry.dependencies[i]))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Class<?> findClass(String name) throws UncacheableGraphException {
+        TypeResult<Class<?>> result = imageClassLoader.findClass(name);
+        if (!result.isPresent()) {
+            throw new UncacheableGraphException("class not found: " + name);
+        }
+        return result.get();
+    }
+
+    /**
+     * Returns the digest of the class file of the class, or {@link #NO_DIGEST} if the class or its
+     * class file does not exist.
+     */
+    private byte[] classDigest(String className) {
+        byte[] digest = classDigests.get(className);
+        if (digest == null) {
+            digest = computeClassDigest(className);
+            byte[] existing = classDigests.putIfAbsent(className, digest);
+            if (existing != null) {
+                digest = existing;
+            }
+        }
+        return digest;
+    }
+
+    private byte[] computeClassDigest(String className) {
+        TypeResult<Class<?>> result = imageClassLoader.findClass(className);
+        if (!result.isPresent()) {
+            return NO_DIGEST;
+        }
+        return classFileDigest(result.get());
+    }
+
+    private static byte[] classFileDigest(Class<?> clazz) {
+        if (clazz.isArray() || clazz.isPrimitive()) {
+            return NO_DIGEST;
+        }
+        try (InputStream in = clazz.getResourceAsStream("/" + clazz.getName().replace('.', '/') + ".class")) {
+            if (in == null) {
+                return NO_DIGEST;
+            }
+            MessageDigest md = newMessageDigest();
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                md.update(buffer, 0, n);
+            }
+            return md.digest();
+        } catch (IOException ex) {
+            return NO_DIGEST;
+        }
+    }
+
+    private static MessageDigest newMessageDigest() {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException ex) {
+            throw VMError.shouldNotReachHere(ex);
+        }
+    }
+
+    /**
+     * Computes a digest of everything that the parsing of any method depends on beyond the class
+     * files: the image builder and the JVM that runs it, the hosted options, the system properties
+     * (which also contain the command line of the image builder with the image class path), and
+     * the class files of the features that are part of the build.
+     */
+    private static byte[] fingerprint(FeatureHandler featureHandler) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(VERSION);
+            out.writeUTF(String.valueOf(System.getProperty("java.vm.version")));
+            Architecture arch = JVMCI.getRuntime().getHostJVMCIBackend().getTarget().arch;
+            out.writeUTF(arch.getName());
+            for (Class<?> builderClass : new Class<?>[]{PersistentAnalysisCache.class, AnalysisParsedGraph.class, GraphEncoder.class}) {
+                writeCodeSource(out, builderClass);
+            }
+
+            Map<String, String> options = new TreeMap<>();
+            UnmodifiableMapCursor<OptionKey<?>, Object> cursor = HostedOptionValues.singleton().getMap().getEntries();
+            while (cursor.advance()) {
+                OptionKey<?> key = cursor.getKey();
+                if (key == PersistentAnalysisCacheFeature.Options.AnalysisCacheDirectory) {
+                    continue;
+                }
+                Object value = cursor.getValue();
+                options.put(key.getName(), String.valueOf(value instanceof LocatableMultiOptionValue ? ((LocatableMultiOptionValue<?>) value).values() : value));
+            }
+            writeMap(out, options);
+
+            Map<String, String> properties = new TreeMap<>();
+            Properties systemProperties = System.getProperties();
+            for (String name : systemProperties.stringPropertyNames()) {
+                properties.put(name, systemProperties.getProperty(name));
+            }
+            writeMap(out, properties);
+
+            List<String> features = new ArrayList<>();
+            featureHandler.forEachFeature(feature -> features.add(feature.getClass().getName() + ":" + Arrays.toString(classFileDigest(feature.getClass()))));
+            features.sort(null);
+            for (String feature : features) {
+                out.writeUTF(feature);
+            }
+        } catch (IOException ex) {
+            throw VMError.shouldNotReachHere(ex);
+        }
+        return newMessageDigest().digest(bytes.toByteArray());
+    }
+
+    private static void writeCodeSource(DataOutputStream out, Class<?> clazz) throws IOException {
+        CodeSource codeSource = clazz.getProtectionDomain().getCodeSource();
+        if (codeSource == null || codeSource.getLocation() == null) {
+            out.writeUTF(clazz.getName());
+            return;
+        }
+        out.writeUTF(codeSource.getLocation().toString());
+        try {
+            File location = new File(codeSource.getLocation().toURI());
+            out.writeLong(location.length());
+            out.writeLong(location.lastModified());
+        } catch (URISyntaxException | IllegalArgumentException ex) {
+            /* Not a file, so only the location is part of the fingerprint. */
+        }
+    }
+
+    private static void writeMap(DataOutputStream out, Map<String, String> map) throws IOException {
+        out.writeInt(map.size());
+        for (Map.Entry<String, String> entry : map.entrySet()) {
+            out.writeUTF(entry.getKey());
+            writeLongString(out, entry.getValue());
+        }
+    }
+
+    private static void writeLongString(DataOutputStream out, String s) throws IOException {
+        byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+    /**
+     * Loads the graphs of an earlier build, if the cache file exists and is valid for this build.
+     */
+    void load() throws IOException {
+        if (!Files.isRegularFile(file)) {
+            discardReason = "no cache file";
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || !Arrays.equals(readBytes(in), fingerprint)) {
+                discardReason = "image builder, options or features changed";
+                return;
+            }
+            int numInitializedClasses = in.readInt();
+            for (int i = 0; i < numInitializedClasses; i++) {
+                String className = in.readUTF();
+                if (!Arrays.equals(readBytes(in), classDigest(className))) {
+                    discardReason = "class " + className + " that is initialized at image build time changed";
+                    return;
+                }
+            }
+            int numEntries = in.readInt();
+            for (int i = 0; i < numEntries; i++) {
+                String key = in.readUTF();
+                String[] dependencies = new String[in.readInt()];
+                byte[][] digests = new byte[dependencies.length][];
+                for (int j = 0; j < dependencies.length; j++) {
+                    dependencies[j] = in.readUTF();
+                    digests[j] = readBytes(in);
+                }
+                entries.put(key, new Entry(dependencies, digests, readBytes(in)));
+            }
+        }
+    }
+
+    /**
+     * Writes all graphs that are valid for this build, i.e., the graphs stored in this build and
+     * the graphs loaded from an earlier build that were not found to be stale, to the cache file.
+     */
+    void save(SVMHost hostVM) throws IOException {
+        Map<String, byte[]> initializedClasses = new TreeMap<>();
+        for (Class<?> clazz : hostVM.getClassInitializationSupport().classesWithKind(InitKind.BUILD_TIME)) {
+            byte[] digest = classFileDigest(clazz);
+            if (digest != NO_DIGEST) {
+                initializedClasses.put(clazz.getName(), digest);
+            }
+        }
+
+        Files.createDirectories(file.getParent());
+        Path tempFile = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                writeBytes(out, fingerprint);
+                out.writeInt(initializedClasses.size());
+                for (Map.Entry<String, byte[]> initializedClass : initializedClasses.entrySet()) {
+                    out.writeUTF(initializedClass.getKey());
+                    writeBytes(out, initializedClass.getValue());
+                }
+                out.writeInt(entries.size());
+                for (Map.Entry<String, Entry> mapEntry : entries.entrySet()) {
+                    Entry entry = mapEntry.getValue();
+                    out.writeUTF(mapEntry.getKey());
+                    out.writeInt(entry.dependencies.length);
+                    for (int i = 0; i < entry.dependencies.length; i++) {
+                        out.writeUTF(entry.dependencies[i]);
+                        writeBytes(out, entry.digests[i]);
+                    }
+                    writeBytes(out, entry.graph);
+                }
+            }
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        byte[] result = new byte[in.readInt()];
+        in.readFully(result);
+        return result;
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    String getStatistics() {
+        int numLookups = lookups.get();
+        int numHits = hits.get();
+        String result = String.format("%d of %d parsed graphs reused (%.1f%%), %d stored, %d not cacheable, %d stale",
+                        numHits, numLookups, numLookups == 0 ? 0d : 100d * numHits / numLookups, stored.get(), uncacheable.get(), stale.get());
+        if (discardReason != null) {
+            result += "; previous cache discarded: " + discardReason;
+        }
+        return result;
+    }
+}
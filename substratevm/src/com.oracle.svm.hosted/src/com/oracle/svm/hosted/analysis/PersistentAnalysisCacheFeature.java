@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.hosted.analysis;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.graalvm.compiler.options.Option;
+import org.graalvm.compiler.options.OptionType;
+import org.graalvm.compiler.serviceprovider.GraalServices;
+import org.graalvm.nativeimage.hosted.Feature;
+
+import com.oracle.graal.pointsto.reports.ReportUtils;
+import com.oracle.svm.core.annotate.AutomaticFeature;
+import com.oracle.svm.core.option.HostedOptionKey;
+import com.oracle.svm.hosted.FeatureImpl;
+import com.oracle.svm.hosted.SVMHost;
+
+/**
+ * Persists the graphs that bytecode parsing produces during the static analysis in a cache
+ * directory, so that repeated builds of the same image only parse methods whose classes changed.
+ */
+@AutomaticFeature
+public class PersistentAnalysisCacheFeature implements Feature {
+
+    static class Options {
+        @Option(help = "Directory in which parsed analysis graphs are cached across image builds. Caching is disabled if empty.", type = OptionType.Expert)//
+        public static final HostedOptionKey<String> AnalysisCacheDirectory = new HostedOptionKey<>("");
+    }
+
+    private PersistentAnalysisCache cache;
+    private String imageName;
+
+    @Override
+    public boolean isInConfiguration(IsInConfigurationAccess access) {
+        return !Options.AnalysisCacheDirectory.getValue().isEmpty();
+    }
+
+    @Override
+    public void duringSetup(DuringSetupAccess a) {
+        FeatureImpl.DuringSetupAccessImpl access = (FeatureImpl.DuringSetupAccessImpl) a;
+        imageName = ReportUtils.extractImageName(access.getHostVM().getImageName());
+        Path directory = Paths.get(Options.AnalysisCacheDirectory.getValue()).toAbsolutePath();
+        cache = new PersistentAnalysisCache(access.getImageClassLoader(), access.getFeatureHandler(), directory, imageName);
+        try {
+            cache.load();
+        } catch (IOException ex) {
+            access.getHostVM().warn("could not read analysis cache " + cache.getFile() + ": " + ex);
+            cache = new PersistentAnalysisCache(access.getImageClassLoader(), access.getFeatureHandler(), directory, imageName);
+        }
+        access.getHostVM().setParsedGraphCache(cache);
+    }
+
+    @Override
+    public void afterAnalysis(AfterAnalysisAccess a) {
+        SVMHost hostVM = (SVMHost) ((FeatureImpl.AfterAnalysisAccessImpl) a).getBigBang().getHostVM();
+        hostVM.setParsedGraphCache(null);
+        System.out.format("[%s:%s] analysis cache: %s%n", imageName, GraalServices.getExecutionID(), cache.getStatistics());
+        try {
+            cache.save(hostVM);
+        } catch (IOException ex) {
+            hostVM.warn("could not write analysis cache " + cache.getFile() + ": " + ex);
+        }
+        cache = null;
+    }
+}
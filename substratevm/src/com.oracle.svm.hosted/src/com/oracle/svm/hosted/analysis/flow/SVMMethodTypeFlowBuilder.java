@@ -36,6 +36,7 @@ import org.graalvm.compiler.nodes.NodeView;
 import org.graalvm.compiler.nodes.StructuredGraph;
 import org.graalvm.compiler.nodes.ValueNode;
 import org.graalvm.compiler.nodes.java.LoadFieldNode;
+import org.graalvm.compiler.word.WordCastNode;
 
 import com.oracle.graal.pointsto.BigBang;
 import com.oracle.graal.pointsto.flow.MethodTypeFlow;
@@ -46,6 +47,8 @@ import com.oracle.graal.pointsto.flow.builder.TypeFlowBuilder;
 import com.oracle.graal.pointsto.meta.AnalysisField;
 import com.oracle.graal.pointsto.meta.AnalysisType;
 import com.oracle.graal.pointsto.typestate.TypeState;
+import com.oracle.svm.core.annotate.WritesArrayElements;
+import com.oracle.svm.core.config.ConfigurationValues;
 import com.oracle.svm.core.graal.thread.CompareAndSetVMThreadLocalNode;
 import com.oracle.svm.core.graal.thread.LoadVMThreadLocalNode;
 import com.oracle.svm.core.graal.thread.StoreVMThreadLocalNode;
@@ -56,6 +59,7 @@ import com.oracle.svm.hosted.NativeImageOptions;
 import com.oracle.svm.hosted.SVMHost;
 import com.oracle.svm.hosted.substitute.ComputedValueField;
 
+import jdk.vm.ci.code.BytecodePosition;
 import jdk.vm.ci.meta.JavaKind;
 
 public class SVMMethodTypeFlowBuilder extends MethodTypeFlowBuilder {
@@ -172,6 +176,36 @@ public class SVMMethodTypeFlowBuilder extends MethodTypeFlowBuilder {
 
     }
 
+    @Override
+    protected boolean isObjectHeaderOffset(ValueNode offset) {
+        if (!offset.isJavaConstant()) {
+            return false;
+        }
+        /*
+         * Accesses like the installation of the identity hash code use a constant offset into the
+         * object header, and never write array elements.
+         */
+        long value = offset.asJavaConstant().asLong();
+        return value >= 0 && value < ConfigurationValues.getObjectLayout().getArrayBaseOffset(JavaKind.Byte);
+    }
+
+    @Override
+    protected boolean mayWriteArrayThroughAddress(WordCastNode node) {
+        if (super.mayWriteArrayThroughAddress(node) || method.getAnnotation(WritesArrayElements.class) != null) {
+            return true;
+        }
+        /*
+         * Annotated methods are not inlined before analysis, but the node can still come from an
+         * annotated method that was inlined by a graph builder plugin or intrinsic.
+         */
+        for (BytecodePosition pos = node.getNodeSourcePosition(); pos != null; pos = pos.getCaller()) {
+            if (pos.getMethod().getAnnotation(WritesArrayElements.class) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     protected void delegateNodeProcessing(FixedNode n, MethodTypeFlowBuilder.TypeFlowsOfNodes state) {
         if (n instanceof LoadVMThreadLocalNode) {
@@ -45,8 +45,10 @@ import com.oracle.graal.pointsto.flow.ActualParameterTypeFlow;
 import com.oracle.graal.pointsto.flow.ActualReturnTypeFlow;
 import com.oracle.graal.pointsto.flow.AllInstantiatedTypeFlow;
 import com.oracle.graal.pointsto.flow.AllSynchronizedTypeFlow;
+import com.oracle.graal.pointsto.flow.AllWrittenArraysTypeFlow;
 import com.oracle.graal.pointsto.flow.ArrayCopyTypeFlow;
 import com.oracle.graal.pointsto.flow.ArrayElementsTypeFlow;
+import com.oracle.graal.pointsto.flow.ArrayWriteTypeFlow;
 import com.oracle.graal.pointsto.flow.BoxTypeFlow;
 import com.oracle.graal.pointsto.flow.CloneTypeFlow;
 import com.oracle.graal.pointsto.flow.DynamicNewInstanceTypeFlow;
@@ -428,6 +430,7 @@ class PointsToJsonObject extends JsonObject {
             names.put(OffsetLoadTypeFlow.LoadIndexedTypeFlow.class, "loadIndexed");
             names.put(MergeTypeFlow.class, "merge");
             names.put(MonitorEnterTypeFlow.class, "monitorEnter");
+            names.put(ArrayWriteTypeFlow.class, "arrayWrite");
             names.put(ProxyTypeFlow.class, "proxy");
             names.put(SourceTypeFlow.class, "source");
             names.put(OffsetStoreTypeFlow.StoreIndexedTypeFlow.class, "storeIndexed");
@@ -437,6 +440,7 @@ class PointsToJsonObject extends JsonObject {
             names.put(OffsetStoreTypeFlow.UnsafePartitionStoreTypeFlow.class, "unsafeStore");
             names.put(AllInstantiatedTypeFlow.class, "allInstantiated");
             names.put(AllSynchronizedTypeFlow.class, "allSynchronized");
+            names.put(AllWrittenArraysTypeFlow.class, "allWrittenArrays");
             names.put(ArrayElementsTypeFlow.class, "arrayElements");
             names.put(FieldFilterTypeFlow.class, "fieldFilter");
             names.put(FieldSinkTypeFlow.class, "fieldSink");
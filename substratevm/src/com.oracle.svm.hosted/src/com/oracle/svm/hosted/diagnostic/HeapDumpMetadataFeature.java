@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.hosted.diagnostic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.graalvm.compiler.core.common.util.TypeConversion;
+import org.graalvm.compiler.core.common.util.UnsafeArrayTypeWriter;
+import org.graalvm.nativeimage.ImageSingletons;
+import org.graalvm.nativeimage.hosted.Feature;
+
+import com.oracle.svm.core.VMInspection;
+import com.oracle.svm.core.annotate.AutomaticFeature;
+import com.oracle.svm.core.heap.HeapDumpMetadata;
+import com.oracle.svm.core.util.ByteArrayReader;
+import com.oracle.svm.hosted.FeatureImpl.BeforeCompilationAccessImpl;
+import com.oracle.svm.hosted.meta.HostedField;
+import com.oracle.svm.hosted.meta.HostedType;
+import com.oracle.svm.hosted.meta.HostedUniverse;
+
+import jdk.vm.ci.meta.ResolvedJavaField;
+
+/** Encodes the field metadata that is needed at run time to write heap dumps. */
+@AutomaticFeature
+public class HeapDumpMetadataFeature implements Feature {
+    @Override
+    public boolean isInConfiguration(IsInConfigurationAccess access) {
+        return VMInspection.isHeapDumpSupported();
+    }
+
+    @Override
+    public void afterRegistration(AfterRegistrationAccess access) {
+        ImageSingletons.add(HeapDumpMetadata.class, new HeapDumpMetadata());
+    }
+
+    @Override
+    public void beforeCompilation(BeforeCompilationAccess access) {
+        HostedUniverse universe = ((BeforeCompilationAccessImpl) access).getUniverse();
+
+        int maxTypeId = 0;
+        for (HostedType type : universe.getTypes()) {
+            maxTypeId = Math.max(maxTypeId, type.getTypeID());
+        }
+        int[] encodingIndices = new int[maxTypeId + 1];
+        Arrays.fill(encodingIndices, HeapDumpMetadata.NO_FIELDS);
+
+        Map<String, Integer> nameIndices = new HashMap<>();
+        List<String> names = new ArrayList<>();
+        UnsafeArrayTypeWriter buffer = UnsafeArrayTypeWriter.create(ByteArrayReader.supportsUnalignedMemoryAccess());
+        for (HostedType type : universe.getTypes()) {
+            List<HostedField> instanceFields = new ArrayList<>();
+            for (HostedField field : type.getInstanceFields(false)) {
+                if (field.hasLocation()) {
+                    instanceFields.add(field);
+                }
+            }
+            List<HostedField> staticFields = new ArrayList<>();
+            for (ResolvedJavaField f : type.getStaticFields()) {
+                HostedField field = (HostedField) f;
+                if (field.hasLocation()) {
+                    staticFields.add(field);
+                }
+            }
+            if (instanceFields.isEmpty() && staticFields.isEmpty()) {
+                continue;
+            }
+
+            encodingIndices[type.getTypeID()] = TypeConversion.asS4(buffer.getBytesWritten());
+            int instanceFieldBytes = 0;
+            for (HostedField field : instanceFields) {
+                instanceFieldBytes += HeapDumpMetadata.getValueSize(HeapDumpMetadata.toType(field.getStorageKind()));
+            }
+            buffer.putUV(instanceFieldBytes);
+            encodeFields(buffer, instanceFields, nameIndices, names);
+            encodeFields(buffer, staticFields, nameIndices, names);
+        }
+
+        byte[] encodings = buffer.toArray(new byte[TypeConversion.asS4(buffer.getBytesWritten())]);
+        HeapDumpMetadata.singleton().setData(encodings, encodingIndices, names.toArray(new String[0]));
+    }
+
+    private static void encodeFields(UnsafeArrayTypeWriter buffer, List<HostedField> fields, Map<String, Integer> nameIndices, List<String> names) {
+        buffer.putUV(fields.size());
+        for (HostedField field : fields) {
+            Integer nameIndex = nameIndices.get(field.getName());
+            if (nameIndex == null) {
+                nameIndex = names.size();
+                names.add(field.getName());
+                nameIndices.put(field.getName(), nameIndex);
+            }
+            buffer.putUV(nameIndex);
+            buffer.putU1(HeapDumpMetadata.toType(field.getStorageKind()));
+            buffer.putUV(field.getLocation());
+        }
+    }
+}
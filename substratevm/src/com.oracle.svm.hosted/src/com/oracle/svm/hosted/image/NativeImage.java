@@ -459,13 +459,17 @@ public abstract class NativeImage extends AbstractImage {
             // - Write the heap to its own section.
             // Dynamic linkers/loaders generally don't ensure any alignment to more than page
             // boundaries, so we take care of this ourselves in CommittedMemoryProvider, if we can.
-            int alignment = objectFile.getPageSize();
+            // Aligning to huge pages allows the kernel to back the heap with transparent huge pages.
+            int alignment = SubstrateOptions.ImageHeapHugePages.getValue() ? Math.max(objectFile.getPageSize(), SubstrateOptions.IMAGE_HEAP_HUGE_PAGE_SIZE) : objectFile.getPageSize();
             RelocatableBuffer heapSectionBuffer = new RelocatableBuffer(heapLayout.getImageHeapSize(), objectFile.getByteOrder());
             ProgbitsSectionImpl heapSectionImpl = new BasicProgbitsSectionImpl(heapSectionBuffer.getBackingArray());
             heapSection = objectFile.newProgbitsSection(SectionName.SVM_HEAP.getFormatDependentName(objectFile.getFormat()), alignment, writable, false, heapSectionImpl);
             objectFile.createDefinedSymbol(heapSection.getName(), heapSection, 0, 0, false, false);
 
-            long offsetOfARelocatablePointer = writer.writeHeap(debug, heapSectionBuffer);
+            long offsetOfARelocatablePointer;
+            try (Timer.StopTimer t = new Timer(imageName, "(heap)").start()) {
+                offsetOfARelocatablePointer = writer.writeHeap(debug, heapSectionBuffer);
+            }
             assert !SubstrateOptions.SpawnIsolates.getValue() || heapSectionBuffer.getByteBuffer().getLong((int) offsetOfARelocatablePointer) == 0L;
 
             defineDataSymbol(Isolates.IMAGE_HEAP_BEGIN_SYMBOL_NAME, heapSection, 0);
@@ -484,7 +488,7 @@ public abstract class NativeImage extends AbstractImage {
 
             // We print the heap statistics after the heap was successfully written because this
             // could modify objects that will be part of the image heap.
-            printHeapStatistics(heap.getLayouter().getPartitions());
+            printHeapStatistics(heap.getLayouter().getPartitions(), heapLayout);
         }
 
         // [Footnote 1]
@@ -744,16 +748,30 @@ public abstract class NativeImage extends AbstractImage {
         return objectFile;
     }
 
-    private void printHeapStatistics(ImageHeapPartition[] partitions) {
+    private void printHeapStatistics(ImageHeapPartition[] partitions, ImageHeapLayoutInfo heapLayout) {
         if (NativeImageOptions.PrintHeapHistogram.getValue()) {
             // A histogram for the whole heap.
             ObjectGroupHistogram.print(heap);
             // Histograms for each partition.
             printHistogram(partitions);
         }
-        if (NativeImageOptions.PrintImageHeapPartitionSizes.getValue()) {
+        if (NativeImageOptions.PrintImageHeapPartitionSizes.getValue() || heap.usesArrayWriteInfo()) {
             printSizes(partitions);
         }
+        if (heap.usesArrayWriteInfo()) {
+            printNeverWrittenArrays(heapLayout);
+        }
+    }
+
+    /**
+     * Reports how much of the image heap is read-only only because the static analysis found that
+     * the arrays are never written. Without that information, these arrays would be writable.
+     */
+    private void printNeverWrittenArrays(ImageHeapLayoutInfo heapLayout) {
+        long writableSize = heapLayout.getWritableSize();
+        long neverWrittenSize = heap.getNeverWrittenArraysSize();
+        System.out.printf("PrintImageHeapPartitionSizes:  never written arrays: %d  size: %d  writable size: %d (without array write tracking: %d)%n",
+                        heap.getNeverWrittenArraysCount(), neverWrittenSize, writableSize, writableSize + neverWrittenSize);
     }
 
     private void printHistogram(ImageHeapPartition[] partitions) {
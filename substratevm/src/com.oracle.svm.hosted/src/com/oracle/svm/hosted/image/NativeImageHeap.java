@@ -48,6 +48,7 @@ import org.graalvm.nativeimage.c.function.RelocatedPointer;
 import org.graalvm.word.UnsignedWord;
 import org.graalvm.word.WordBase;
 
+import com.oracle.graal.pointsto.api.PointstoOptions;
 import com.oracle.graal.pointsto.meta.AnalysisUniverse;
 import com.oracle.graal.pointsto.util.AnalysisError;
 import com.oracle.svm.core.StaticFieldsSupport;
@@ -64,6 +65,7 @@ import com.oracle.svm.core.image.ImageHeapObject;
 import com.oracle.svm.core.image.ImageHeapPartition;
 import com.oracle.svm.core.jdk.StringInternSupport;
 import com.oracle.svm.core.meta.SubstrateObjectConstant;
+import com.oracle.svm.core.option.HostedOptionValues;
 import com.oracle.svm.core.util.HostedStringDeduplication;
 import com.oracle.svm.core.util.UserError;
 import com.oracle.svm.core.util.VMError;
@@ -121,6 +123,13 @@ public final class NativeImageHeap implements ImageHeap {
     /** Objects that are known to be immutable in the native image heap. */
     private final Set<Object> knownImmutableObjects = Collections.newSetFromMap(new IdentityHashMap<>());
 
+    /** Use the results of the static analysis to decide if the elements of arrays are written. */
+    private final boolean useArrayWriteInfo;
+
+    /** The arrays that are read-only only because the static analysis found them never written. */
+    private long neverWrittenArraysCount;
+    private long neverWrittenArraysSize;
+
     public NativeImageHeap(AnalysisUniverse aUniverse, HostedUniverse universe, HostedMetaAccess metaAccess, ImageHeapLayouter heapLayouter) {
         this.aUniverse = aUniverse;
         this.universe = universe;
@@ -131,6 +140,7 @@ public final class NativeImageHeap implements ImageHeap {
 
         this.minInstanceSize = objectLayout.getMinimumInstanceObjectSize();
         this.minArraySize = objectLayout.getMinimumArraySize();
+        this.useArrayWriteInfo = PointstoOptions.TrackArrayWrites.getValue(HostedOptionValues.singleton());
         assert assertFillerObjectSizes();
     }
 
@@ -175,6 +185,18 @@ public final class NativeImageHeap implements ImageHeap {
         return heapLayouter;
     }
 
+    public boolean usesArrayWriteInfo() {
+        return useArrayWriteInfo;
+    }
+
+    public long getNeverWrittenArraysCount() {
+        return neverWrittenArraysCount;
+    }
+
+    public long getNeverWrittenArraysSize() {
+        return neverWrittenArraysSize;
+    }
+
     @Fold
     static boolean useHeapBase() {
         return SubstrateOptions.SpawnIsolates.getValue() && ImageSingletons.lookup(CompressEncoding.class).hasBase();
@@ -472,7 +494,16 @@ public final class NativeImageHeap implements ImageHeap {
                     relocatable = addArrayElements((Object[]) object, false, info);
                     references = true;
                 }
-                written = true; /* How to know if any of the array elements are written? */
+                if (useArrayWriteInfo) {
+                    /* Empty arrays do not have any elements that could be written. */
+                    written = clazz.isElementsWritten() && Array.getLength(object) > 0;
+                    if (!written && !immutable) {
+                        neverWrittenArraysCount++;
+                        neverWrittenArraysSize += size;
+                    }
+                } else {
+                    written = true; /* How to know if any of the array elements are written? */
+                }
             } catch (AnalysisError.TypeNotFoundError ex) {
                 throw reportIllegalType(ex.getType(), info);
             }
@@ -29,6 +29,8 @@ import static com.oracle.svm.core.util.VMError.shouldNotReachHere;
 import java.lang.reflect.Array;
 import java.lang.reflect.Modifier;
 import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
 import org.graalvm.compiler.core.common.CompressEncoding;
 import org.graalvm.compiler.core.common.NumUtil;
@@ -51,6 +53,7 @@ import com.oracle.svm.core.heap.ObjectHeader;
 import com.oracle.svm.core.hub.DynamicHub;
 import com.oracle.svm.core.image.ImageHeapLayoutInfo;
 import com.oracle.svm.core.meta.SubstrateObjectConstant;
+import com.oracle.svm.hosted.NativeImageOptions;
 import com.oracle.svm.hosted.config.HybridLayout;
 import com.oracle.svm.hosted.image.NativeImageHeap.ObjectInfo;
 import com.oracle.svm.hosted.meta.HostedClass;
@@ -88,9 +91,13 @@ public final class NativeImageHeapWriter {
     @SuppressWarnings("try")
     public long writeHeap(DebugContext debug, RelocatableBuffer buffer) {
         try (Indent perHeapIndent = debug.logAndIndent("NativeImageHeap.writeHeap:")) {
-            for (ObjectInfo info : heap.getObjects()) {
-                assert !heap.isBlacklisted(info.getObject());
-                writeObject(info, buffer);
+            if (NativeImageOptions.ParallelImageHeapWriting.getValue()) {
+                writeObjectsInParallel(buffer);
+            } else {
+                for (ObjectInfo info : heap.getObjects()) {
+                    assert !heap.isBlacklisted(info.getObject());
+                    writeObject(info, buffer);
+                }
             }
 
             // Only static fields that are writable get written to the native image heap,
@@ -102,6 +109,44 @@ public final class NativeImageHeapWriter {
         return sectionOffsetOfARelocatablePointer;
     }
 
+    /** The minimum number of objects written by one parallel task. */
+    private static final int MIN_OBJECTS_PER_RANGE = 4096;
+    /** The number of ranges per thread, to balance the uneven object sizes. */
+    private static final int RANGES_PER_THREAD = 4;
+
+    /**
+     * Splits the heap objects into ranges that are written concurrently. Objects never overlap, so
+     * the ranges write disjoint parts of the buffer. Each range records its relocations in a local
+     * buffer, and the relocations are merged into {@code buffer} in range order at the end, which
+     * gives the same result as writing the objects sequentially.
+     */
+    private void writeObjectsInParallel(RelocatableBuffer buffer) {
+        ObjectInfo[] objects = heap.getObjects().toArray(new ObjectInfo[0]);
+        int numRanges = Math.max(1, Math.min(objects.length / MIN_OBJECTS_PER_RANGE, ForkJoinPool.getCommonPoolParallelism() * RANGES_PER_THREAD));
+        NativeImageHeapWriter[] rangeWriters = new NativeImageHeapWriter[numRanges];
+        RelocatableBuffer[] rangeBuffers = new RelocatableBuffer[numRanges];
+
+        IntStream.range(0, numRanges).parallel().forEach(range -> {
+            NativeImageHeapWriter rangeWriter = new NativeImageHeapWriter(heap, heapLayout);
+            RelocatableBuffer rangeBuffer = buffer.withLocalRelocations();
+            int start = (int) ((long) objects.length * range / numRanges);
+            int end = (int) ((long) objects.length * (range + 1) / numRanges);
+            for (int i = start; i < end; i++) {
+                assert !heap.isBlacklisted(objects[i].getObject());
+                rangeWriter.writeObject(objects[i], rangeBuffer);
+            }
+            rangeWriters[range] = rangeWriter;
+            rangeBuffers[range] = rangeBuffer;
+        });
+
+        for (int range = 0; range < numRanges; range++) {
+            buffer.addRelocations(rangeBuffers[range]);
+            if (sectionOffsetOfARelocatablePointer == -1) {
+                sectionOffsetOfARelocatablePointer = rangeWriters[range].sectionOffsetOfARelocatablePointer;
+            }
+        }
+    }
+
     private void writeStaticFields(RelocatableBuffer buffer) {
         /*
          * Write the values of static fields. The arrays for primitive and object fields are empty
@@ -52,6 +52,25 @@ public final class RelocatableBuffer {
         this.relocations = new TreeMap<>();
     }
 
+    private RelocatableBuffer(ByteBuffer byteBuffer) {
+        this.byteBuffer = byteBuffer;
+        this.relocations = new TreeMap<>();
+    }
+
+    /**
+     * Returns a buffer that writes to the same bytes as this buffer but records its relocations
+     * separately, so that disjoint parts of the bytes can be written concurrently. The relocations
+     * are merged back using {@link #addRelocations}.
+     */
+    public RelocatableBuffer withLocalRelocations() {
+        return new RelocatableBuffer(byteBuffer.duplicate().order(byteBuffer.order()));
+    }
+
+    public void addRelocations(RelocatableBuffer other) {
+        assert other.getBackingArray() == getBackingArray() : "Relocations must be for the same bytes.";
+        relocations.putAll(other.relocations);
+    }
+
     public void addRelocationWithoutAddend(int key, ObjectFile.RelocationKind relocationKind, Object targetObject) {
         relocations.put(key, new Info(relocationKind, null, targetObject));
     }
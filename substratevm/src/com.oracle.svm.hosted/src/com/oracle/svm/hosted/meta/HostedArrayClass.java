@@ -34,6 +34,12 @@ public class HostedArrayClass extends HostedClass {
     private final HostedType baseType;
     private final int arrayDepth;
 
+    /**
+     * False if the static analysis has shown that the elements of arrays of this type are never
+     * written at run time.
+     */
+    private boolean elementsWritten = true;
+
     public HostedArrayClass(HostedUniverse universe, AnalysisType wrapped, JavaKind kind, JavaKind storageKind, HostedClass superClass, HostedInterface[] interfaces, HostedType componentType) {
         super(universe, wrapped, kind, storageKind, superClass, interfaces, true);
         this.componentType = componentType;
@@ -78,6 +84,14 @@ public class HostedArrayClass extends HostedClass {
         return arrayDepth;
     }
 
+    public boolean isElementsWritten() {
+        return elementsWritten;
+    }
+
+    void setElementsNeverWritten() {
+        elementsWritten = false;
+    }
+
     @Override
     public HostedField[] getInstanceFields(boolean includeSuperclasses) {
         return new HostedField[0];
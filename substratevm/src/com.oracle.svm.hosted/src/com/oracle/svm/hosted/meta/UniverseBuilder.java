@@ -159,6 +159,7 @@ public class UniverseBuilder {
 
             collectDeclaredMethods();
             collectMonitorFieldInfo(staticAnalysisResultsBuilder.getBigBang());
+            collectArrayWriteInfo(staticAnalysisResultsBuilder.getBigBang());
 
             ForkJoinTask<?> profilingInformationBuildTask = ForkJoinTask.adapt(this::buildProfilingInformation).fork();
 
@@ -374,6 +375,24 @@ public class UniverseBuilder {
         HostedConfiguration.instance().collectMonitorFieldInfo(bb, hUniverse, getImmutableTypes());
     }
 
+    /**
+     * Marks the array types whose elements the static analysis found to be never written, so that
+     * image heap arrays of these types can be placed in the read-only image heap partitions.
+     */
+    private void collectArrayWriteInfo(BigBang bb) {
+        if (!bb.trackArrayWrites()) {
+            return;
+        }
+
+        Set<AnalysisType> writtenTypes = new HashSet<>();
+        bb.getAllWrittenArraysTypeState().types().forEach(writtenTypes::add);
+        for (HostedType type : hUniverse.types.values()) {
+            if (type.isArray() && !writtenTypes.contains(type.getWrapped())) {
+                ((HostedArrayClass) type).setElementsNeverWritten();
+            }
+        }
+    }
+
     private Set<AnalysisType> getImmutableTypes() {
         Set<AnalysisType> immutableTypes = new HashSet<>();
         for (Class<?> immutableType : IMMUTABLE_TYPES) {
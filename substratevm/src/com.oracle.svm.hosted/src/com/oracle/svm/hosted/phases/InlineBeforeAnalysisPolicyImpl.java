@@ -47,6 +47,7 @@ import com.oracle.graal.pointsto.phases.InlineBeforeAnalysisPolicy;
 import com.oracle.svm.core.annotate.NeverInlineTrivial;
 import com.oracle.svm.core.annotate.RestrictHeapAccess;
 import com.oracle.svm.core.annotate.Uninterruptible;
+import com.oracle.svm.core.annotate.WritesArrayElements;
 import com.oracle.svm.core.option.HostedOptionKey;
 import com.oracle.svm.core.util.VMError;
 
@@ -115,6 +116,13 @@ public final class InlineBeforeAnalysisPolicyImpl extends InlineBeforeAnalysisPo
              */
             return false;
         }
+        if (GuardedAnnotationAccess.isAnnotationPresent(callee, WritesArrayElements.class)) {
+            /*
+             * The analysis models the array writes of such methods based on the annotation of the
+             * method whose type flows are built, so the annotation must not be inlined away.
+             */
+            return false;
+        }
         if (!Uninterruptible.Utils.inliningAllowed(caller, callee)) {
             return false;
         }
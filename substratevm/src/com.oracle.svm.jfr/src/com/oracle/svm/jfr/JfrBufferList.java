@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.jfr;
+
+import org.graalvm.nativeimage.Platform;
+import org.graalvm.nativeimage.Platforms;
+import org.graalvm.nativeimage.UnmanagedMemory;
+import org.graalvm.nativeimage.c.type.CIntPointer;
+import org.graalvm.word.WordFactory;
+
+import com.oracle.svm.core.annotate.Uninterruptible;
+import com.oracle.svm.core.jdk.UninterruptibleUtils;
+
+/**
+ * A lock-free LIFO list of global JFR buffers, see {@link JfrGlobalMemory}. Buffers are identified
+ * by their index in {@link JfrGlobalMemory#getBuffers()}. The links between the entries are stored
+ * in native memory. The head of the list stores the index of the first entry together with a
+ * version that is incremented on every modification, so that a concurrent pop can't succeed with a
+ * stale link (ABA problem).
+ */
+public class JfrBufferList {
+    private static final int END_OF_LIST = 0;
+    private static final long INDEX_MASK = 0xFFFFFFFFL;
+
+    /** The version in the upper 32 bits and the index plus one of the first entry in the lower. */
+    private final UninterruptibleUtils.AtomicLong head;
+    /** The index plus one of the next entry, for each buffer index. */
+    private CIntPointer next;
+
+    @Platforms(Platform.HOSTED_ONLY.class)
+    public JfrBufferList() {
+        this.head = new UninterruptibleUtils.AtomicLong(END_OF_LIST);
+    }
+
+    public void initialize(long bufferCount) {
+        next = UnmanagedMemory.calloc(WordFactory.unsigned(bufferCount).multiply(Integer.BYTES));
+        head.set(END_OF_LIST);
+    }
+
+    public void teardown() {
+        if (next.isNonNull()) {
+            UnmanagedMemory.free(next);
+            next = WordFactory.nullPointer();
+        }
+        head.set(END_OF_LIST);
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    public boolean isEmpty() {
+        return getFirst(head.get()) == END_OF_LIST;
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    public void push(int bufferIndex) {
+        assert bufferIndex >= 0;
+        long oldHead;
+        long newHead;
+        do {
+            oldHead = head.get();
+            next.write(bufferIndex, getFirst(oldHead));
+            newHead = makeHead(getVersion(oldHead) + 1, bufferIndex + 1);
+        } while (!head.compareAndSet(oldHead, newHead));
+    }
+
+    /** Removes the first entry and returns its buffer index, or -1 if the list is empty. */
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    public int pop() {
+        long oldHead;
+        long newHead;
+        int first;
+        do {
+            oldHead = head.get();
+            first = getFirst(oldHead);
+            if (first == END_OF_LIST) {
+                return -1;
+            }
+            // The link may already be stale, but then the version changed and the CAS fails.
+            newHead = makeHead(getVersion(oldHead) + 1, next.read(first - 1));
+        } while (!head.compareAndSet(oldHead, newHead));
+        return first - 1;
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    private static int getFirst(long value) {
+        return (int) (value & INDEX_MASK);
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    private static int getVersion(long value) {
+        return (int) (value >>> 32);
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    private static long makeHead(int version, int first) {
+        return ((long) version << 32) | (first & INDEX_MASK);
+    }
+}
@@ -39,7 +39,14 @@ import org.graalvm.nativeimage.Platforms;
 public enum JfrEvents {
     ThreadStartEvent("jdk.ThreadStart"),
     ThreadEndEvent("jdk.ThreadEnd"),
-    DataLossEvent("jdk.DataLoss");
+    DataLossEvent("jdk.DataLoss"),
+    ExecutionSample("jdk.ExecutionSample"),
+    GarbageCollection("jdk.GarbageCollection"),
+    GCPhasePause("jdk.GCPhasePause"),
+    GCPhasePauseLevel1("jdk.GCPhasePauseLevel1"),
+    GCPhasePauseLevel2("jdk.GCPhasePauseLevel2"),
+    GCPhasePauseLevel3("jdk.GCPhasePauseLevel3"),
+    GCPhasePauseLevel4("jdk.GCPhasePauseLevel4");
 
     private final long id;
 
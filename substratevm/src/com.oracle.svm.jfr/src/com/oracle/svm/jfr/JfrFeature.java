@@ -24,8 +24,8 @@
  */
 package com.oracle.svm.jfr;
 
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.List;
 
 import org.graalvm.nativeimage.ImageSingletons;
@@ -36,6 +36,8 @@ import org.graalvm.nativeimage.hosted.RuntimeClassInitialization;
 
 import com.oracle.svm.core.annotate.AutomaticFeature;
 import com.oracle.svm.core.annotate.Uninterruptible;
+import com.oracle.svm.core.heap.GCListenerFeature;
+import com.oracle.svm.core.heap.GCListenerSupport;
 import com.oracle.svm.core.hub.DynamicHub;
 import com.oracle.svm.core.hub.DynamicHubSupport;
 import com.oracle.svm.core.jdk.RuntimeSupport;
@@ -104,7 +106,7 @@ public class JfrFeature implements Feature {
 
     @Override
     public List<Class<? extends Feature>> getRequiredFeatures() {
-        return Collections.singletonList(ThreadListenerFeature.class);
+        return Arrays.asList(ThreadListenerFeature.class, GCListenerFeature.class);
     }
 
     @Override
@@ -124,7 +126,11 @@ public class JfrFeature implements Feature {
         ImageSingletons.add(JfrTraceIdEpoch.class, new JfrTraceIdEpoch());
 
         JfrSerializerSupport.get().register(new JfrFrameTypeSerializer());
+        JfrSerializerSupport.get().register(new JfrThreadStateSerializer());
+        JfrSerializerSupport.get().register(new JfrGCNameSerializer());
+        JfrSerializerSupport.get().register(new JfrGCCauseSerializer());
         ThreadListenerSupport.get().register(SubstrateJVM.getThreadLocal());
+        GCListenerSupport.get().register(new JfrGCEvents());
     }
 
     @Override
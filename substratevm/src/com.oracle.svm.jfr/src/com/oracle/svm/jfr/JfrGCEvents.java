@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.jfr;
+
+import org.graalvm.nativeimage.Platform;
+import org.graalvm.nativeimage.Platforms;
+import org.graalvm.nativeimage.StackValue;
+import org.graalvm.word.UnsignedWord;
+
+import com.oracle.svm.core.annotate.Uninterruptible;
+import com.oracle.svm.core.heap.GCCause;
+import com.oracle.svm.core.heap.GCListener;
+import com.oracle.svm.core.heap.GCName;
+
+/**
+ * Emits the {@link JfrEvents#GarbageCollection} and GC phase pause events. The events are written
+ * to the native buffer of the thread that executes the collection.
+ */
+public class JfrGCEvents implements GCListener {
+    private static final JfrEvents[] PHASE_PAUSE_EVENTS = {JfrEvents.GCPhasePause, JfrEvents.GCPhasePauseLevel1, JfrEvents.GCPhasePauseLevel2, JfrEvents.GCPhasePauseLevel3,
+                    JfrEvents.GCPhasePauseLevel4};
+
+    @Platforms(Platform.HOSTED_ONLY.class)
+    public JfrGCEvents() {
+    }
+
+    @Override
+    @Uninterruptible(reason = "Accesses a JFR buffer.")
+    public void phasePause(UnsignedWord gcEpoch, int level, String phaseName, long startNanos, long endNanos) {
+        if (level < 0 || level >= PHASE_PAUSE_EVENTS.length) {
+            return;
+        }
+        JfrEvents event = PHASE_PAUSE_EVENTS[level];
+        if (!SubstrateJVM.isRecording() || !SubstrateJVM.get().isEnabled(event)) {
+            return;
+        }
+
+        JfrBuffer buffer = SubstrateJVM.getThreadLocal().getNativeBuffer();
+        if (buffer.isNull()) {
+            return;
+        }
+
+        JfrNativeEventWriterData data = StackValue.get(JfrNativeEventWriterData.class);
+        JfrNativeEventWriterDataAccess.initialize(data, buffer);
+
+        JfrNativeEventWriter.beginEventWrite(data, false);
+        JfrNativeEventWriter.putLong(data, event.getId());
+        JfrNativeEventWriter.putLong(data, JfrTicks.fromNanoTime(startNanos));
+        JfrNativeEventWriter.putLong(data, endNanos - startNanos);
+        JfrNativeEventWriter.putEventThread(data);
+        JfrNativeEventWriter.putLong(data, gcEpoch.rawValue());
+        JfrNativeEventWriter.putString(data, phaseName);
+        JfrNativeEventWriter.endEventWrite(data, false);
+    }
+
+    @Override
+    @Uninterruptible(reason = "Accesses a JFR buffer.")
+    public void collectionEnd(UnsignedWord gcEpoch, GCName name, GCCause cause, long startNanos, long endNanos) {
+        if (!SubstrateJVM.isRecording() || !SubstrateJVM.get().isEnabled(JfrEvents.GarbageCollection)) {
+            return;
+        }
+
+        JfrBuffer buffer = SubstrateJVM.getThreadLocal().getNativeBuffer();
+        if (buffer.isNull()) {
+            return;
+        }
+
+        JfrNativeEventWriterData data = StackValue.get(JfrNativeEventWriterData.class);
+        JfrNativeEventWriterDataAccess.initialize(data, buffer);
+
+        // The whole collection is a single pause, so it is also the sum and the longest pause.
+        long duration = endNanos - startNanos;
+        JfrNativeEventWriter.beginEventWrite(data, false);
+        JfrNativeEventWriter.putLong(data, JfrEvents.GarbageCollection.getId());
+        JfrNativeEventWriter.putLong(data, JfrTicks.fromNanoTime(startNanos));
+        JfrNativeEventWriter.putLong(data, duration);
+        JfrNativeEventWriter.putLong(data, gcEpoch.rawValue());
+        JfrNativeEventWriter.putLong(data, name.getId());
+        JfrNativeEventWriter.putLong(data, cause.getId());
+        JfrNativeEventWriter.putLong(data, duration);
+        JfrNativeEventWriter.putLong(data, duration);
+        JfrNativeEventWriter.endEventWrite(data, false);
+    }
+}
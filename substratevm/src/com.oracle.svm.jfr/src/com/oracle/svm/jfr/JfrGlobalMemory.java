@@ -24,10 +24,14 @@
  */
 package com.oracle.svm.jfr;
 
+import org.graalvm.compiler.nodes.NamedLocationIdentity;
+import org.graalvm.nativeimage.CurrentIsolate;
 import org.graalvm.nativeimage.Platform;
 import org.graalvm.nativeimage.Platforms;
 import org.graalvm.nativeimage.UnmanagedMemory;
 import org.graalvm.nativeimage.c.struct.SizeOf;
+import org.graalvm.nativeimage.c.type.CIntPointer;
+import org.graalvm.word.Pointer;
 import org.graalvm.word.UnsignedWord;
 import org.graalvm.word.WordFactory;
 
@@ -38,16 +42,32 @@ import com.oracle.svm.core.annotate.Uninterruptible;
  * Manages the global JFR memory. A lot of the methods must be uninterruptible to ensure that we can
  * iterate and process the global JFR memory at a safepoint without having to worry about partial
  * modifications that were interrupted by the safepoint.
+ *
+ * Thread-local buffers are promoted into a small number of active global buffers. Threads are
+ * spread over the active buffers, and only the promotion itself acquires a buffer, so promotions
+ * of different threads rarely compete. When an active buffer can't hold a promotion, it is retired
+ * to the list of full buffers and replaced with a buffer from the free list. Both lists are
+ * lock-free. The {@link JfrRecorderThread} persists the full buffers and returns them to the free
+ * list.
  */
 public class JfrGlobalMemory {
     private static final int PROMOTION_RETRY_COUNT = 100;
+    private static final int MAX_ACTIVE_BUFFERS = 4;
+    private static final int NO_BUFFER = 0;
 
     private long bufferCount;
     private long bufferSize;
     private JfrBuffers buffers;
+    private final JfrBufferList freeList;
+    private final JfrBufferList fullList;
+    /** The index plus one of the buffer that is active in a slot, or {@link #NO_BUFFER}. */
+    private CIntPointer activeBuffers;
+    private int activeBufferCount;
 
     @Platforms(Platform.HOSTED_ONLY.class)
     public JfrGlobalMemory() {
+        freeList = new JfrBufferList();
+        fullList = new JfrBufferList();
     }
 
     public void initialize(long globalBufferSize, long globalBufferCount) {
@@ -60,10 +80,25 @@ public class JfrGlobalMemory {
             JfrBuffer buffer = JfrBufferAccess.allocate(WordFactory.unsigned(bufferSize));
             buffers.addressOf(i).write(buffer);
         }
+
+        // Keep at least half of the buffers in reserve so that retired buffers can be replaced.
+        activeBufferCount = (int) Math.max(1, Math.min(MAX_ACTIVE_BUFFERS, bufferCount / 2));
+        activeBuffers = UnmanagedMemory.calloc(WordFactory.unsigned(activeBufferCount).multiply(Integer.BYTES));
+
+        freeList.initialize(bufferCount);
+        fullList.initialize(bufferCount);
+        for (int i = (int) bufferCount - 1; i >= 0; i--) {
+            freeList.push(i);
+        }
     }
 
     public void teardown() {
         if (buffers.isNonNull()) {
+            freeList.teardown();
+            fullList.teardown();
+            UnmanagedMemory.free(activeBuffers);
+            activeBuffers = WordFactory.nullPointer();
+
             for (int i = 0; i < bufferCount; i++) {
                 JfrBuffer buffer = buffers.addressOf(i).read();
                 JfrBufferAccess.free(buffer);
@@ -84,6 +119,26 @@ public class JfrGlobalMemory {
         return bufferCount;
     }
 
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    public JfrBuffer getBuffer(int index) {
+        return buffers.addressOf(index).read();
+    }
+
+    /**
+     * Removes a retired buffer from the list of full buffers and returns its index, or -1 if there
+     * is no full buffer. The buffer must be returned with {@link #recycleBuffer} once its data was
+     * persisted.
+     */
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    public int takeFullBuffer() {
+        return fullList.pop();
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    public void recycleBuffer(int index) {
+        freeList.push(index);
+    }
+
     @Uninterruptible(reason = "Epoch must not change while in this method.")
     public boolean write(JfrBuffer threadLocalBuffer, UnsignedWord unflushedSize) {
         JfrBuffer promotionBuffer = acquireBufferWithRetry(unflushedSize, PROMOTION_RETRY_COUNT);
@@ -112,21 +167,74 @@ public class JfrGlobalMemory {
     @Uninterruptible(reason = "Epoch must not change while in this method.")
     private JfrBuffer acquireBufferWithRetry(UnsignedWord size, int retryCount) {
         assert size.belowOrEqual(WordFactory.unsigned(bufferSize));
+        int firstSlot = getFirstSlot();
         for (int retry = 0; retry < retryCount; retry++) {
-            for (int i = 0; i < bufferCount; i++) {
-                JfrBuffer buffer = buffers.addressOf(i).read();
+            for (int i = 0; i < activeBufferCount; i++) {
+                int slot = (firstSlot + i) % activeBufferCount;
+                int activeBuffer = getOrInstallActiveBuffer(slot);
+                if (activeBuffer == NO_BUFFER) {
+                    continue;
+                }
+
+                JfrBuffer buffer = getBuffer(activeBuffer - 1);
                 if (JfrBufferAccess.getAvailableSize(buffer).aboveOrEqual(size) && JfrBufferAccess.acquire(buffer)) {
-                    // Recheck the available size after acquiring the buffer.
-                    if (JfrBufferAccess.getAvailableSize(buffer).aboveOrEqual(size)) {
+                    // Recheck that the buffer is still active and large enough after acquiring it.
+                    if (activeBuffers.read(slot) == activeBuffer && JfrBufferAccess.getAvailableSize(buffer).aboveOrEqual(size)) {
                         return buffer;
                     }
                     JfrBufferAccess.release(buffer);
+                } else if (JfrBufferAccess.getAvailableSize(buffer).belowThan(size)) {
+                    retireActiveBuffer(slot, activeBuffer);
                 }
             }
         }
         return WordFactory.nullPointer();
     }
 
+    /**
+     * Spreads the threads over the active buffers. The slot only depends on the thread, so that a
+     * thread keeps promoting into the same buffer.
+     */
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    private int getFirstSlot() {
+        long hash = CurrentIsolate.getCurrentThread().rawValue() * 0x9E3779B97F4A7C15L;
+        return Integer.remainderUnsigned((int) (hash >>> 32), activeBufferCount);
+    }
+
+    /** Returns the index plus one of the active buffer in the slot, or {@link #NO_BUFFER}. */
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    private int getOrInstallActiveBuffer(int slot) {
+        int activeBuffer = activeBuffers.read(slot);
+        if (activeBuffer != NO_BUFFER) {
+            return activeBuffer;
+        }
+
+        int freeBuffer = freeList.pop();
+        if (freeBuffer < 0) {
+            return NO_BUFFER;
+        }
+        if (casActiveBuffer(slot, NO_BUFFER, freeBuffer + 1)) {
+            return freeBuffer + 1;
+        }
+        // Another thread installed a buffer in the meanwhile.
+        freeList.push(freeBuffer);
+        return activeBuffers.read(slot);
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    private void retireActiveBuffer(int slot, int activeBuffer) {
+        // Only the thread that removes the buffer from the slot adds it to the full list.
+        if (casActiveBuffer(slot, activeBuffer, NO_BUFFER)) {
+            fullList.push(activeBuffer - 1);
+            SubstrateJVM.getRecorderThread().signal();
+        }
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    private boolean casActiveBuffer(int slot, int expected, int update) {
+        return ((Pointer) activeBuffers).logicCompareAndSwapInt(slot * Integer.BYTES, expected, update, NamedLocationIdentity.OFF_HEAP_LOCATION);
+    }
+
     @Uninterruptible(reason = "Epoch must not change while in this method.")
     private static void releasePromotionBuffer(JfrBuffer buffer) {
         assert JfrBufferAccess.isAcquired(buffer);
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.jfr;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import org.graalvm.nativeimage.Platform;
+import org.graalvm.nativeimage.Platforms;
+
+import com.oracle.svm.core.heap.Heap;
+import com.oracle.svm.jfr.traceid.JfrTraceId;
+
+/**
+ * Repository that collects the methods that are referenced by the stack traces of the previous
+ * epoch. Methods are only discovered while {@link JfrStackTraceRepository} decodes its stack
+ * traces, so this repository must be written directly after the stack trace repository.
+ */
+public class JfrMethodRepository implements JfrConstantPool {
+    private final Map<MethodInfo, Long> methods;
+    private long nextId;
+
+    @Platforms(Platform.HOSTED_ONLY.class)
+    public JfrMethodRepository() {
+        this.methods = new LinkedHashMap<>();
+        this.nextId = 1;
+    }
+
+    public long getMethodId(Class<?> clazz, String methodName) {
+        MethodInfo method = new MethodInfo(clazz, methodName);
+        Long id = methods.get(method);
+        if (id == null) {
+            id = nextId++;
+            methods.put(method, id);
+        }
+        return id;
+    }
+
+    @Override
+    public int write(JfrChunkWriter writer) {
+        if (methods.isEmpty()) {
+            return 0;
+        }
+        writer.writeCompressedLong(JfrTypes.Method.getId());
+        writer.writeCompressedInt(methods.size());
+
+        for (Map.Entry<MethodInfo, Long> entry : methods.entrySet()) {
+            writeMethod(writer, entry.getKey(), entry.getValue());
+        }
+        methods.clear();
+        return 1;
+    }
+
+    private static void writeMethod(JfrChunkWriter writer, MethodInfo method, long id) {
+        JfrSymbolRepository symbolRepo = SubstrateJVM.getSymbolRepository();
+        writer.writeCompressedLong(id);
+        if (method.clazz == null) {
+            writer.writeCompressedLong(0);
+        } else {
+            // Make sure that the type repository writes the class as well.
+            JfrTraceId.setUsedPreviousEpoch(method.clazz);
+            writer.writeCompressedLong(JfrTraceId.getTraceId(method.clazz));
+        }
+        // Method names of runtime compiled code are not necessarily in the image heap.
+        String name = method.name != null && Heap.getHeap().isInImageHeap(method.name) ? method.name : null;
+        writer.writeCompressedLong(symbolRepo.getSymbolId(name, true));
+        writer.writeCompressedLong(0); // descriptor, not available at run-time
+        writer.writeCompressedInt(0); // modifiers
+        writer.writeBoolean(false); // hidden
+    }
+
+    private static final class MethodInfo {
+        private final Class<?> clazz;
+        private final String name;
+
+        MethodInfo(Class<?> clazz, String name) {
+            this.clazz = clazz;
+            this.name = name;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof MethodInfo)) {
+                return false;
+            }
+            MethodInfo other = (MethodInfo) obj;
+            return clazz == other.clazz && Objects.equals(name, other.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(clazz) * 31 + Objects.hashCode(name);
+        }
+    }
+}
@@ -154,6 +154,23 @@ public final class JfrNativeEventWriter {
         }
     }
 
+    @Uninterruptible(reason = "Accesses a native JFR buffer.", callerMustBe = true)
+    public static void putString(JfrNativeEventWriterData data, String string) {
+        if (string == null) {
+            putByte(data, JfrChunkWriter.StringEncoding.NULL.byteValue);
+        } else if (string.length() == 0) {
+            putByte(data, JfrChunkWriter.StringEncoding.EMPTY_STRING.byteValue);
+        } else {
+            int length = UninterruptibleUtils.String.modifiedUtf8Length(string, false);
+            putByte(data, JfrChunkWriter.StringEncoding.UTF8_BYTE_ARRAY.byteValue);
+            putInt(data, length);
+            if (ensureSize(data, length)) {
+                UninterruptibleUtils.String.toModifiedUtf8(string, data.getCurrentPos(), data.getEndPos(), false);
+                increaseCurrentPos(data, length);
+            }
+        }
+    }
+
     @Uninterruptible(reason = "Accesses a native JFR buffer.", callerMustBe = true)
     public static void putEventThread(JfrNativeEventWriterData data) {
         putThread(data, CurrentIsolate.getCurrentThread());
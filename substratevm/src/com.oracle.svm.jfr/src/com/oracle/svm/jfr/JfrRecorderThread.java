@@ -24,6 +24,7 @@
  */
 package com.oracle.svm.jfr;
 
+import org.graalvm.compiler.nodes.PauseNode;
 import org.graalvm.word.UnsignedWord;
 
 import com.oracle.svm.core.annotate.Uninterruptible;
@@ -34,7 +35,9 @@ import com.oracle.svm.core.util.VMError;
 /**
  * A daemon thread that is created during JFR startup and torn down by
  * {@link SubstrateJVM#destroyJFR}. It is used for persisting the {@link JfrGlobalMemory} buffers to
- * a file.
+ * a file. The thread does not poll: it is signaled when a global buffer was retired because it is
+ * full, or when a promotion fills an active global buffer beyond
+ * {@link #BUFFER_FULL_ENOUGH_PERCENTAGE}.
  */
 public class JfrRecorderThread extends Thread {
     private static final int BUFFER_FULL_ENOUGH_PERCENTAGE = 50;
@@ -93,20 +96,50 @@ public class JfrRecorderThread extends Thread {
     }
 
     private void persistBuffers(JfrChunkWriter chunkWriter) {
+        boolean shouldNotify = false;
+
+        // Persist the retired buffers first and make them available for promotions again.
+        int index = globalMemory.takeFullBuffer();
+        while (index >= 0) {
+            shouldNotify |= persistRetiredBuffer(chunkWriter, globalMemory.getBuffer(index));
+            globalMemory.recycleBuffer(index);
+            index = globalMemory.takeFullBuffer();
+        }
+
+        // Active buffers are only persisted if they are full enough, as they are still in use.
         JfrBuffers buffers = globalMemory.getBuffers();
         for (int i = 0; i < globalMemory.getBufferCount(); i++) {
             JfrBuffer buffer = buffers.addressOf(i).read();
             if (isFullEnough(buffer)) {
-                boolean shouldNotify = persistBuffer(chunkWriter, buffer);
-                if (shouldNotify) {
-                    // Checkstyle: stop
-                    synchronized (Target_jdk_jfr_internal_JVM.FILE_DELTA_CHANGE) {
-                        Target_jdk_jfr_internal_JVM.FILE_DELTA_CHANGE.notifyAll();
-                    }
-                    // Checkstyle: resume
-                }
+                shouldNotify |= persistBuffer(chunkWriter, buffer);
             }
         }
+
+        if (shouldNotify) {
+            // Checkstyle: stop
+            synchronized (Target_jdk_jfr_internal_JVM.FILE_DELTA_CHANGE) {
+                Target_jdk_jfr_internal_JVM.FILE_DELTA_CHANGE.notifyAll();
+            }
+            // Checkstyle: resume
+        }
+    }
+
+    /**
+     * A retired buffer is no longer handed out for promotions, but a thread that started a
+     * promotion before the buffer was retired may still hold it for a short time.
+     */
+    @Uninterruptible(reason = "Epoch must not change while in this method.")
+    private static boolean persistRetiredBuffer(JfrChunkWriter chunkWriter, JfrBuffer buffer) {
+        while (!JfrBufferAccess.acquire(buffer)) {
+            PauseNode.pause();
+        }
+        try {
+            boolean shouldNotify = chunkWriter.write(buffer);
+            JfrBufferAccess.reinitialize(buffer);
+            return shouldNotify;
+        } finally {
+            JfrBufferAccess.release(buffer);
+        }
     }
 
     @Uninterruptible(reason = "Epoch must not change while in this method.")
@@ -140,7 +173,7 @@ public class JfrRecorderThread extends Thread {
 
     @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
     private static boolean isFullEnough(JfrBuffer buffer) {
-        UnsignedWord bufferTargetSize = buffer.getSize().multiply(100).unsignedDivide(BUFFER_FULL_ENOUGH_PERCENTAGE);
-        return JfrBufferAccess.getAvailableSize(buffer).belowOrEqual(bufferTargetSize);
+        UnsignedWord remainingTargetSize = buffer.getSize().multiply(100 - BUFFER_FULL_ENOUGH_PERCENTAGE).unsignedDivide(100);
+        return JfrBufferAccess.getAvailableSize(buffer).belowOrEqual(remainingTargetSize);
     }
 }
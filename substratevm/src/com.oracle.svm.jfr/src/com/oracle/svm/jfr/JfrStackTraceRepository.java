@@ -0,0 +1,346 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.jfr;
+
+import java.util.ArrayList;
+
+import org.graalvm.nativeimage.ImageSingletons;
+import org.graalvm.nativeimage.IsolateThread;
+import org.graalvm.nativeimage.Platform;
+import org.graalvm.nativeimage.Platforms;
+import org.graalvm.nativeimage.StackValue;
+import org.graalvm.nativeimage.c.function.CodePointer;
+import org.graalvm.nativeimage.c.struct.RawField;
+import org.graalvm.nativeimage.c.struct.RawStructure;
+import org.graalvm.nativeimage.c.struct.SizeOf;
+import org.graalvm.nativeimage.impl.UnmanagedMemorySupport;
+import org.graalvm.word.Pointer;
+import org.graalvm.word.UnsignedWord;
+import org.graalvm.word.WordFactory;
+
+import com.oracle.svm.core.FrameAccess;
+import com.oracle.svm.core.UnmanagedMemoryUtil;
+import com.oracle.svm.core.annotate.Uninterruptible;
+import com.oracle.svm.core.code.CodeInfo;
+import com.oracle.svm.core.code.CodeInfoAccess;
+import com.oracle.svm.core.code.CodeInfoQueryResult;
+import com.oracle.svm.core.code.CodeInfoTable;
+import com.oracle.svm.core.code.FrameInfoQueryResult;
+import com.oracle.svm.core.code.UntetheredCodeInfo;
+import com.oracle.svm.core.deopt.DeoptimizedFrame;
+import com.oracle.svm.core.deopt.Deoptimizer;
+import com.oracle.svm.core.jdk.UninterruptibleEntry;
+import com.oracle.svm.core.jdk.UninterruptibleHashtable;
+import com.oracle.svm.core.stack.JavaStackWalk;
+import com.oracle.svm.core.stack.JavaStackWalker;
+import com.oracle.svm.core.thread.VMOperation;
+import com.oracle.svm.jfr.traceid.JfrTraceIdEpoch;
+
+/**
+ * Repository that collects the stack traces of JFR events. Stack traces are recorded without
+ * allocating any Java heap memory: only the raw instruction pointers of the frames are stored in
+ * native memory. The instruction pointers are only decoded into methods, line numbers, and bytecode
+ * indices when the stack traces of the previous epoch are written to the chunk.
+ *
+ * Runtime compiled code may be freed between recording and writing a stack trace. Such frames are
+ * omitted when the stack trace is written.
+ */
+public class JfrStackTraceRepository implements JfrConstantPool {
+    private static final int MIN_STACK_DEPTH = 1;
+    private static final int MAX_STACK_DEPTH = 2048;
+
+    private final JfrStackTraceHashtable table0;
+    private final JfrStackTraceHashtable table1;
+
+    private int stackDepth;
+    /** Native buffer that is used for collecting the instruction pointers of a stack walk. */
+    private Pointer ipBuffer;
+    private int ipBufferDepth;
+
+    @Platforms(Platform.HOSTED_ONLY.class)
+    public JfrStackTraceRepository(int stackDepth) {
+        this.table0 = new JfrStackTraceHashtable();
+        this.table1 = new JfrStackTraceHashtable();
+        this.stackDepth = stackDepth;
+        this.ipBuffer = WordFactory.nullPointer();
+        this.ipBufferDepth = 0;
+    }
+
+    public void setStackDepth(int depth) {
+        if (depth < MIN_STACK_DEPTH || depth > MAX_STACK_DEPTH) {
+            throw new IllegalArgumentException("The value specified for the JFR option 'stackdepth' must be between " + MIN_STACK_DEPTH + " and " + MAX_STACK_DEPTH + ".");
+        }
+        this.stackDepth = depth;
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    public int getStackDepth() {
+        return stackDepth;
+    }
+
+    @Uninterruptible(reason = "Releases native memory.")
+    public void teardown() {
+        table0.teardown();
+        table1.teardown();
+        ImageSingletons.lookup(UnmanagedMemorySupport.class).free(ipBuffer);
+        ipBuffer = WordFactory.nullPointer();
+        ipBufferDepth = 0;
+    }
+
+    @Uninterruptible(reason = "Called by uninterruptible code.")
+    private JfrStackTraceHashtable getTable(boolean previousEpoch) {
+        boolean epoch = previousEpoch ? JfrTraceIdEpoch.getInstance().previousEpoch() : JfrTraceIdEpoch.getInstance().currentEpoch();
+        if (epoch) {
+            return table0;
+        } else {
+            return table1;
+        }
+    }
+
+    /**
+     * Records the Java stack of a thread that is stopped at a safepoint and returns the id of the
+     * stack trace in the current epoch. Returns 0 if the thread has no Java frames or if no native
+     * memory was available.
+     */
+    @Uninterruptible(reason = "Prevent deoptimization of stack frames while in this method.")
+    public long recordStackTrace(IsolateThread thread) {
+        assert VMOperation.isInProgressAtSafepoint() : "the stack trace buffer is shared";
+
+        Pointer buffer = getIPBuffer();
+        if (buffer.isNull()) {
+            return 0L;
+        }
+
+        JavaStackWalk walk = StackValue.get(JavaStackWalk.class);
+        if (!JavaStackWalker.initWalk(walk, thread)) {
+            return 0L;
+        }
+
+        int wordSize = FrameAccess.wordSize();
+        int depth = 0;
+        int hash = 0;
+        boolean truncated = false;
+        /* We are at a safepoint, so tethering of the CodeInfo is not necessary. */
+        do {
+            UntetheredCodeInfo untetheredInfo = walk.getIPCodeInfo();
+            if (untetheredInfo.isNull()) {
+                // An unknown frame, so we can't continue walking the stack.
+                truncated = true;
+                break;
+            }
+            if (depth == ipBufferDepth) {
+                truncated = true;
+                break;
+            }
+
+            CodePointer ip = walk.getPossiblyStaleIP();
+            DeoptimizedFrame deoptFrame = Deoptimizer.checkDeoptimized(walk.getSP());
+            if (deoptFrame != null) {
+                ip = deoptFrame.getSourcePC();
+            }
+            buffer.writeWord(depth * wordSize, ip);
+            hash = 31 * hash + (int) (ip.rawValue() ^ (ip.rawValue() >>> 32));
+            depth++;
+        } while (JavaStackWalker.continueWalk(walk, CodeInfoAccess.convert(walk.getIPCodeInfo())));
+
+        if (depth == 0) {
+            return 0L;
+        }
+
+        JfrStackTrace stackTrace = StackValue.get(JfrStackTrace.class);
+        stackTrace.setHash(hash);
+        stackTrace.setLength(depth);
+        stackTrace.setTruncated(truncated);
+        stackTrace.setFrames(buffer);
+        return getTable(false).add(stackTrace);
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.")
+    private Pointer getIPBuffer() {
+        if (ipBufferDepth != stackDepth) {
+            UnmanagedMemorySupport memory = ImageSingletons.lookup(UnmanagedMemorySupport.class);
+            memory.free(ipBuffer);
+            ipBuffer = memory.malloc(WordFactory.unsigned(stackDepth).multiply(FrameAccess.wordSize()));
+            ipBufferDepth = ipBuffer.isNull() ? 0 : stackDepth;
+        }
+        return ipBuffer;
+    }
+
+    @Override
+    public int write(JfrChunkWriter writer) {
+        JfrStackTraceHashtable table = getTable(true);
+        if (table.getSize() == 0) {
+            return 0;
+        }
+        writer.writeCompressedLong(JfrTypes.StackTrace.getId());
+        writer.writeCompressedLong(table.getSize());
+
+        ArrayList<CodeInfoQueryResult> frames = new ArrayList<>();
+        JfrStackTrace[] entries = table.getTable();
+        for (int i = 0; i < entries.length; i++) {
+            JfrStackTrace entry = entries[i];
+            if (entry.isNonNull()) {
+                while (entry.isNonNull()) {
+                    JfrStackTrace tmp = entry;
+                    writeStackTrace(writer, entry, frames);
+                    entry = entry.getNext();
+                    table.free(tmp);
+                }
+                entries[i] = WordFactory.nullPointer();
+            }
+        }
+        table.setSize(0);
+        return 1;
+    }
+
+    private static void writeStackTrace(JfrChunkWriter writer, JfrStackTrace stackTrace, ArrayList<CodeInfoQueryResult> frames) {
+        JfrMethodRepository methodRepo = SubstrateJVM.getMethodRepository();
+        int wordSize = FrameAccess.wordSize();
+
+        // Decode the instruction pointers first because each of them may expand to several
+        // (inlined) frames.
+        frames.clear();
+        int frameCount = 0;
+        for (int i = 0; i < stackTrace.getLength(); i++) {
+            CodePointer ip = stackTrace.getFrames().readWord(i * wordSize);
+            CodeInfoQueryResult queryResult = lookupCodeInfoQueryResult(ip);
+            if (queryResult != null) {
+                for (FrameInfoQueryResult frame = queryResult.getFrameInfo(); frame != null; frame = frame.getCaller()) {
+                    frameCount++;
+                }
+                frames.add(queryResult);
+            }
+        }
+
+        writer.writeCompressedLong(stackTrace.getId());
+        writer.writeBoolean(stackTrace.getTruncated());
+        writer.writeCompressedInt(frameCount);
+        for (CodeInfoQueryResult queryResult : frames) {
+            JfrFrameType frameType = isImageCode(queryResult.getIP()) ? JfrFrameType.FRAME_AOT_COMPILED : JfrFrameType.FRAME_JIT_COMPILED;
+            for (FrameInfoQueryResult frame = queryResult.getFrameInfo(); frame != null; frame = frame.getCaller()) {
+                writer.writeCompressedLong(methodRepo.getMethodId(frame.getSourceClass(), frame.getSourceMethodName()));
+                writer.writeCompressedInt(frame.getSourceLineNumber());
+                writer.writeCompressedInt(frame.getBci());
+                writer.writeCompressedLong(frameType.getId());
+            }
+        }
+        frames.clear();
+    }
+
+    @Uninterruptible(reason = "Prevent the GC from freeing the CodeInfo.")
+    private static CodeInfoQueryResult lookupCodeInfoQueryResult(CodePointer ip) {
+        UntetheredCodeInfo untetheredInfo = CodeInfoTable.lookupCodeInfo(ip);
+        if (untetheredInfo.isNull()) {
+            // The code was freed since the stack trace was recorded.
+            return null;
+        }
+
+        Object tether = CodeInfoAccess.acquireTether(untetheredInfo);
+        try {
+            CodeInfo info = CodeInfoAccess.convert(untetheredInfo, tether);
+            return lookupCodeInfoQueryResultInterruptible(info, ip);
+        } finally {
+            CodeInfoAccess.releaseTether(untetheredInfo, tether);
+        }
+    }
+
+    @Uninterruptible(reason = "Wrap call to interruptible code.", calleeMustBe = false)
+    private static CodeInfoQueryResult lookupCodeInfoQueryResultInterruptible(CodeInfo info, CodePointer ip) {
+        return CodeInfoTable.lookupCodeInfoQueryResult(info, ip);
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    private static boolean isImageCode(CodePointer ip) {
+        return CodeInfoAccess.contains(CodeInfoTable.getImageCodeInfo(), ip);
+    }
+
+    @RawStructure
+    private interface JfrStackTrace extends UninterruptibleEntry<JfrStackTrace> {
+        @RawField
+        int getLength();
+
+        @RawField
+        void setLength(int value);
+
+        @RawField
+        boolean getTruncated();
+
+        @RawField
+        void setTruncated(boolean value);
+
+        /** The instruction pointers of the frames, starting with the top-most frame. */
+        @RawField
+        Pointer getFrames();
+
+        @RawField
+        void setFrames(Pointer value);
+    }
+
+    private static class JfrStackTraceHashtable extends UninterruptibleHashtable<JfrStackTrace> {
+        @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+        @Override
+        protected JfrStackTrace[] createTable(int size) {
+            return new JfrStackTrace[size];
+        }
+
+        @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+        @Override
+        protected void free(JfrStackTrace t) {
+            // The frames are part of the same allocation, see copyToHeap().
+            ImageSingletons.lookup(UnmanagedMemorySupport.class).free(t);
+        }
+
+        @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+        @Override
+        protected boolean isEqual(JfrStackTrace a, JfrStackTrace b) {
+            if (a.getHash() != b.getHash() || a.getLength() != b.getLength() || a.getTruncated() != b.getTruncated()) {
+                return false;
+            }
+            int wordSize = FrameAccess.wordSize();
+            for (int i = 0; i < a.getLength(); i++) {
+                if (a.getFrames().readWord(i * wordSize).rawValue() != b.getFrames().readWord(i * wordSize).rawValue()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+        @Override
+        protected JfrStackTrace copyToHeap(JfrStackTrace stackTraceOnStack) {
+            UnsignedWord headerSize = SizeOf.unsigned(JfrStackTrace.class);
+            UnsignedWord framesSize = WordFactory.unsigned(stackTraceOnStack.getLength()).multiply(FrameAccess.wordSize());
+            JfrStackTrace stackTraceOnHeap = ImageSingletons.lookup(UnmanagedMemorySupport.class).malloc(headerSize.add(framesSize));
+            if (stackTraceOnHeap.isNonNull()) {
+                Pointer framesOnHeap = ((Pointer) stackTraceOnHeap).add(headerSize);
+                UnmanagedMemoryUtil.copy((Pointer) stackTraceOnStack, (Pointer) stackTraceOnHeap, headerSize);
+                UnmanagedMemoryUtil.copy(stackTraceOnStack.getFrames(), framesOnHeap, framesSize);
+                stackTraceOnHeap.setFrames(framesOnHeap);
+                return stackTraceOnHeap;
+            }
+            return WordFactory.nullPointer();
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.jfr;
+
+import java.util.concurrent.TimeUnit;
+
+import org.graalvm.nativeimage.CurrentIsolate;
+import org.graalvm.nativeimage.IsolateThread;
+import org.graalvm.nativeimage.StackValue;
+
+import com.oracle.svm.core.annotate.Uninterruptible;
+import com.oracle.svm.core.locks.VMCondition;
+import com.oracle.svm.core.locks.VMMutex;
+import com.oracle.svm.core.thread.JavaVMOperation;
+import com.oracle.svm.core.thread.VMThreads;
+import com.oracle.svm.core.thread.VMThreads.StatusSupport;
+
+/**
+ * A daemon thread that is started when method sampling is enabled and torn down by
+ * {@link SubstrateJVM#destroyJFR}. It periodically emits {@link JfrEvents#ExecutionSample} events
+ * for all threads that execute Java code.
+ *
+ * The frame metadata of native images only describes call sites and safepoints, so a stack can't be
+ * walked at an arbitrary instruction. Therefore, we don't interrupt the threads with a signal like
+ * HotSpot does. Instead, each sample is taken in a short safepoint operation that walks the stacks
+ * of all threads that were stopped while executing Java code. The stack walk and the event writing
+ * do not allocate any Java heap memory.
+ */
+public class JfrThreadSampler extends Thread {
+    private final JfrStackTraceRepository stackTraceRepo;
+    private final VMMutex mutex;
+    private final VMCondition condition;
+
+    private volatile long intervalMillis;
+    private volatile boolean stopped;
+
+    public JfrThreadSampler(JfrStackTraceRepository stackTraceRepo) {
+        super("JFR Thread Sampler");
+        this.stackTraceRepo = stackTraceRepo;
+        this.mutex = new VMMutex();
+        this.condition = new VMCondition(mutex);
+        setDaemon(true);
+    }
+
+    /** Sets the sampling interval. A value of 0 disables sampling. */
+    public void setIntervalMillis(long value) {
+        mutex.lock();
+        try {
+            intervalMillis = value;
+            condition.broadcast();
+        } finally {
+            mutex.unlock();
+        }
+    }
+
+    public void setStopped(boolean value) {
+        mutex.lock();
+        try {
+            stopped = value;
+            condition.broadcast();
+        } finally {
+            mutex.unlock();
+        }
+    }
+
+    @Override
+    public void run() {
+        while (waitForNextSample()) {
+            JavaVMOperation.enqueueBlockingSafepoint("JFR thread sampling", this::sampleThreads);
+        }
+    }
+
+    /** Returns false if the sampler was stopped. */
+    private boolean waitForNextSample() {
+        mutex.lock();
+        try {
+            while (!stopped) {
+                long interval = intervalMillis;
+                if (interval <= 0) {
+                    condition.block();
+                } else {
+                    long remainingNanos = TimeUnit.MILLISECONDS.toNanos(interval);
+                    while (!stopped && remainingNanos > 0 && intervalMillis == interval) {
+                        remainingNanos = condition.block(remainingNanos);
+                    }
+                    if (!stopped && intervalMillis == interval) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        } finally {
+            mutex.unlock();
+        }
+    }
+
+    @Uninterruptible(reason = "Accesses a JFR buffer.")
+    private void sampleThreads() {
+        if (!SubstrateJVM.isRecording() || !SubstrateJVM.get().isEnabled(JfrEvents.ExecutionSample)) {
+            return;
+        }
+
+        long ticks = JfrTicks.elapsedTicks();
+        IsolateThread currentThread = CurrentIsolate.getCurrentThread();
+        for (IsolateThread thread = VMThreads.firstThread(); thread.isNonNull(); thread = VMThreads.nextThread(thread)) {
+            // Only threads that were stopped in Java code are sampled. Threads in native code or
+            // in a blocking call are not executing Java code.
+            if (thread.notEqual(currentThread) && StatusSupport.getStatusVolatile(thread) == StatusSupport.STATUS_IN_SAFEPOINT) {
+                long stackTraceId = stackTraceRepo.recordStackTrace(thread);
+                if (stackTraceId != 0) {
+                    writeExecutionSample(ticks, thread, stackTraceId);
+                }
+            }
+        }
+    }
+
+    @Uninterruptible(reason = "Accesses a JFR buffer.")
+    private static void writeExecutionSample(long ticks, IsolateThread sampledThread, long stackTraceId) {
+        JfrBuffer buffer = SubstrateJVM.getThreadLocal().getNativeBuffer();
+        if (buffer.isNull()) {
+            return;
+        }
+
+        JfrNativeEventWriterData data = StackValue.get(JfrNativeEventWriterData.class);
+        JfrNativeEventWriterDataAccess.initialize(data, buffer);
+
+        JfrNativeEventWriter.beginEventWrite(data, false);
+        JfrNativeEventWriter.putLong(data, JfrEvents.ExecutionSample.getId());
+        JfrNativeEventWriter.putLong(data, ticks);
+        JfrNativeEventWriter.putThread(data, sampledThread);
+        JfrNativeEventWriter.putLong(data, stackTraceId);
+        JfrNativeEventWriter.putLong(data, JfrThreadState.RUNNABLE.getId());
+        JfrNativeEventWriter.endEventWrite(data, false);
+    }
+}
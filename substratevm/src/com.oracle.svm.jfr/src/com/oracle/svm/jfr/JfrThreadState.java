@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.jfr;
+
+import org.graalvm.nativeimage.Platform;
+import org.graalvm.nativeimage.Platforms;
+
+import com.oracle.svm.core.annotate.Uninterruptible;
+
+/**
+ * List of the thread states that can be part of an event. The ids are the JVMTI thread state
+ * values that HotSpot uses for the same states.
+ */
+public enum JfrThreadState {
+    NEW(0, "STATE_NEW"),
+    TERMINATED(2, "STATE_TERMINATED"),
+    RUNNABLE(5, "STATE_RUNNABLE"),
+    SLEEPING(225, "STATE_SLEEPING"),
+    IN_OBJECT_WAIT(401, "STATE_IN_OBJECT_WAIT"),
+    IN_OBJECT_WAIT_TIMED(417, "STATE_IN_OBJECT_WAIT_TIMED"),
+    PARKED(657, "STATE_PARKED"),
+    PARKED_TIMED(673, "STATE_PARKED_TIMED"),
+    BLOCKED_ON_MONITOR_ENTER(1025, "STATE_BLOCKED_ON_MONITOR_ENTER");
+
+    private final long id;
+    private final String text;
+
+    @Platforms(Platform.HOSTED_ONLY.class)
+    JfrThreadState(long id, String text) {
+        this.id = id;
+        this.text = text;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    public long getId() {
+        return id;
+    }
+}
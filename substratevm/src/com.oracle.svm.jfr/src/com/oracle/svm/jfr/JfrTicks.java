@@ -48,6 +48,13 @@ public final class JfrTicks {
         return System.nanoTime() - initialTicks;
     }
 
+    /** Converts a {@link System#nanoTime()} value to ticks. */
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    public static long fromNanoTime(long nanos) {
+        assert initialTicks > 0;
+        return nanos - initialTicks;
+    }
+
     public static long getTicksFrequency() {
         return TimeUnit.SECONDS.toNanos(1);
     }
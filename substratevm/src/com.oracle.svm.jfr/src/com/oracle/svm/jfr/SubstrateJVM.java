@@ -37,7 +37,6 @@ import org.graalvm.word.WordFactory;
 
 import com.oracle.svm.core.annotate.Uninterruptible;
 import com.oracle.svm.core.thread.JavaVMOperation;
-import com.oracle.svm.core.thread.ThreadListener;
 import com.oracle.svm.core.util.VMError;
 import com.oracle.svm.jfr.logging.JfrLogging;
 
@@ -45,22 +44,29 @@ import jdk.jfr.Configuration;
 import jdk.jfr.internal.EventWriter;
 import jdk.jfr.internal.JVM;
 import jdk.jfr.internal.LogTag;
+import jdk.jfr.internal.Options;
 
 /**
  * Manager class that handles most JFR Java API, see {@link Target_jdk_jfr_internal_JVM}.
  */
 class SubstrateJVM {
+    /** The sample type of {@link JVM#setMethodSamplingInterval} for threads in Java code. */
+    private static final long JAVA_SAMPLE_TYPE = 0;
+
     private final List<Configuration> knownConfigurations;
     private final JfrOptionSet options;
     private final JfrNativeEventSetting[] eventSettings;
     private final JfrSymbolRepository symbolRepo;
     private final JfrTypeRepository typeRepo;
+    private final JfrMethodRepository methodRepo;
+    private final JfrStackTraceRepository stackTraceRepo;
     private final JfrConstantPool[] repositories;
 
     private final JfrThreadLocal threadLocal;
     private final JfrGlobalMemory globalMemory;
     private final JfrUnlockedChunkWriter unlockedChunkWriter;
     private final JfrRecorderThread recorderThread;
+    private final JfrThreadSampler threadSampler;
 
     private final JfrLogging jfrLogging;
 
@@ -68,6 +74,8 @@ class SubstrateJVM {
     // We can't reuse the field JVM.recording because it does not get set in all the cases that we
     // are interested in.
     private volatile boolean recording;
+    private boolean sampleThreads;
+    private boolean threadSamplerStarted;
     private byte[] metadataDescriptor;
 
     @Platforms(Platform.HOSTED_ONLY.class)
@@ -84,19 +92,25 @@ class SubstrateJVM {
 
         symbolRepo = new JfrSymbolRepository();
         typeRepo = new JfrTypeRepository();
+        methodRepo = new JfrMethodRepository();
+        stackTraceRepo = new JfrStackTraceRepository(Options.getStackDepth());
         // The ordering in the array dictates the order in which the constant pools will be written
-        // in the recording.
-        repositories = new JfrConstantPool[]{typeRepo, symbolRepo};
+        // in the recording. Writing the stack traces collects the methods, which in turn reference
+        // classes and symbols.
+        repositories = new JfrConstantPool[]{stackTraceRepo, methodRepo, typeRepo, symbolRepo};
 
         threadLocal = new JfrThreadLocal();
         globalMemory = new JfrGlobalMemory();
         unlockedChunkWriter = new JfrChunkWriter(globalMemory);
         recorderThread = new JfrRecorderThread(globalMemory, unlockedChunkWriter);
+        threadSampler = new JfrThreadSampler(stackTraceRepo);
 
         jfrLogging = new JfrLogging();
 
         initialized = false;
         recording = false;
+        sampleThreads = true;
+        threadSamplerStarted = false;
         metadataDescriptor = null;
     }
 
@@ -121,7 +135,7 @@ class SubstrateJVM {
     }
 
     @Fold
-    public static ThreadListener getThreadLocal() {
+    public static JfrThreadLocal getThreadLocal() {
         return get().threadLocal;
     }
 
@@ -135,6 +149,16 @@ class SubstrateJVM {
         return get().symbolRepo;
     }
 
+    @Fold
+    public static JfrMethodRepository getMethodRepository() {
+        return get().methodRepo;
+    }
+
+    @Fold
+    public static JfrStackTraceRepository getStackTraceRepository() {
+        return get().stackTraceRepo;
+    }
+
     @Fold
     public static JfrLogging getJfrLogging() {
         return get().jfrLogging;
@@ -183,6 +207,16 @@ class SubstrateJVM {
             return false;
         }
 
+        if (threadSamplerStarted) {
+            threadSampler.setStopped(true);
+            try {
+                threadSampler.join();
+            } catch (InterruptedException e) {
+                throw VMError.shouldNotReachHere(e);
+            }
+            threadSamplerStarted = false;
+        }
+
         recorderThread.setStopped(true);
         recorderThread.signal();
         try {
@@ -192,6 +226,7 @@ class SubstrateJVM {
         }
 
         globalMemory.teardown();
+        stackTraceRepo.teardown();
         symbolRepo.teardown();
 
         initialized = false;
@@ -302,13 +337,22 @@ class SubstrateJVM {
     }
 
     /** See {@link JVM#setMethodSamplingInterval}. */
-    public void setMethodSamplingInterval(@SuppressWarnings("unused") long type, @SuppressWarnings("unused") long intervalMillis) {
-        // Not supported but this method is called during JFR startup, so we can't throw an error.
+    public synchronized void setMethodSamplingInterval(long type, long intervalMillis) {
+        if (type != JAVA_SAMPLE_TYPE) {
+            // Sampling of threads in native code is not supported.
+            return;
+        }
+
+        threadSampler.setIntervalMillis(sampleThreads ? intervalMillis : 0);
+        if (intervalMillis > 0 && sampleThreads && !threadSamplerStarted) {
+            threadSampler.start();
+            threadSamplerStarted = true;
+        }
     }
 
     /** See {@link JVM#setSampleThreads}. */
-    public void setSampleThreads(@SuppressWarnings("unused") boolean sampleThreads) {
-        throw new IllegalStateException("JFR Thread sampling is currently not supported.");
+    public synchronized void setSampleThreads(boolean sampleThreads) {
+        this.sampleThreads = sampleThreads;
     }
 
     /** See {@link JVM#setCompressedIntegers}. */
@@ -319,8 +363,8 @@ class SubstrateJVM {
     }
 
     /** See {@link JVM#setStackDepth}. */
-    public void setStackDepth(@SuppressWarnings("unused") int depth) {
-        throw new IllegalStateException("JFR stack traces are not supported");
+    public void setStackDepth(int depth) {
+        stackTraceRepo.setStackDepth(depth);
     }
 
     /** See {@link JVM#setStackTraceEnabled}. */
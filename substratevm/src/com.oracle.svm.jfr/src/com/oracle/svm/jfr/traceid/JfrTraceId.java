@@ -48,6 +48,11 @@ public class JfrTraceId {
         tag(clazz, JfrTraceIdEpoch.getInstance().thisEpochBit());
     }
 
+    @Uninterruptible(reason = "Epoch must not change.")
+    public static void setUsedPreviousEpoch(Class<?> clazz) {
+        tag(clazz, JfrTraceIdEpoch.getInstance().previousEpochBit());
+    }
+
     @Uninterruptible(reason = "Epoch must not change.")
     public static void clearUsedPreviousEpoch(Class<?> clazz) {
         clear(clazz, JfrTraceIdEpoch.getInstance().previousEpochBit());
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Checks that complete collections keep the old generation intact. The test runs with the default
+ * copying collector and, in a separate image, with {@code -H:+CompactingOldGeneration}, where the
+ * old generation is compacted in place after the young objects were promoted by an incremental
+ * collection.
+ */
+public class CompactingOldGenerationTest {
+    private static final int NODES = 20_000;
+
+    static final class Node {
+        final int value;
+        Node next;
+        Object payload;
+
+        Node(int value) {
+            this.value = value;
+        }
+    }
+
+    static volatile Object sink;
+
+    @Test
+    public void testOldObjectsSurviveCompleteCollections() {
+        Node head = createList();
+        /* Promotes the list to the old generation. */
+        System.gc();
+
+        /* Old objects refer to young objects, which survive incremental collections. */
+        for (Node node = head; node != null; node = node.next) {
+            if (node.value % 3 == 0) {
+                node.payload = new int[]{node.value};
+            }
+        }
+        allocateGarbage();
+        System.gc();
+        verifyList(head, 1);
+
+        /* Leaves gaps between the live objects of the old generation. */
+        for (Node node = head; node != null; node = node.next) {
+            node.next = node.next == null ? null : node.next.next;
+        }
+        allocateGarbage();
+        System.gc();
+        verifyList(head, 2);
+
+        allocateGarbage();
+        System.gc();
+        verifyList(head, 2);
+    }
+
+    private static Node createList() {
+        Node head = new Node(0);
+        Node tail = head;
+        for (int i = 1; i < NODES; i++) {
+            tail.next = new Node(i);
+            tail = tail.next;
+        }
+        return head;
+    }
+
+    private static void allocateGarbage() {
+        for (int i = 0; i < 100_000; i++) {
+            sink = new byte[128];
+        }
+        sink = null;
+    }
+
+    private static void verifyList(Node head, int step) {
+        int expected = 0;
+        for (Node node = head; node != null; node = node.next) {
+            Assert.assertEquals(expected, node.value);
+            if (node.value % 3 == 0) {
+                Assert.assertArrayEquals(new int[]{node.value}, (int[]) node.payload);
+            } else {
+                Assert.assertNull(node.payload);
+            }
+            expected += step;
+        }
+        Assert.assertEquals((NODES + step - 1) / step * step, expected);
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.test;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.graalvm.nativeimage.PinnedObject;
+import org.graalvm.word.Pointer;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Stresses collections while the grey objects are scanned by several GC worker threads. The gate
+ * runs this test in a separate image built with {@code -R:ParallelGCThreads=4}, with the default
+ * single-threaded scanning it still passes.
+ */
+public class ParallelScavengeTest {
+    private static final int THREADS = 4;
+    private static final int ROUNDS = 20;
+    private static final int NODES = 10_000;
+
+    static final class Node {
+        final int value;
+        Node next;
+        int[] payload;
+
+        Node(int value) {
+            this.value = value;
+        }
+    }
+
+    static volatile Object sink;
+
+    @Test
+    public void testConcurrentMutators() throws Throwable {
+        List<Throwable> failures = new ArrayList<>();
+        Thread[] threads = new Thread[THREADS];
+        for (int i = 0; i < THREADS; i++) {
+            int seed = i;
+            threads[i] = new Thread(() -> {
+                try {
+                    for (int round = 0; round < ROUNDS; round++) {
+                        Node head = createList(seed + round);
+                        allocateGarbage();
+                        if (round % 5 == 0) {
+                            System.gc();
+                        }
+                        verifyList(head, seed + round);
+                    }
+                } catch (Throwable e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (!failures.isEmpty()) {
+            throw failures.get(0);
+        }
+    }
+
+    @Test
+    public void testPinnedObjects() {
+        Node head = createList(0);
+        int[] pinnedArray = new int[1024];
+        for (int i = 0; i < pinnedArray.length; i++) {
+            pinnedArray[i] = i;
+        }
+        try (PinnedObject pinned = PinnedObject.create(pinnedArray)) {
+            Pointer address = pinned.addressOfArrayElement(0);
+            for (int round = 0; round < ROUNDS; round++) {
+                /* The pinned array stays in place, the objects around it are copied. */
+                head.next = new Node(-1);
+                head.next.next = createList(round);
+                allocateGarbage();
+                if (round % 5 == 0) {
+                    System.gc();
+                }
+                Pointer current = pinned.addressOfArrayElement(0);
+                Assert.assertTrue("Pinned objects must not move", address.equal(current));
+                for (int i = 0; i < pinnedArray.length; i++) {
+                    Assert.assertEquals(i, address.readInt(i * Integer.BYTES));
+                }
+                verifyList(head.next.next, round);
+            }
+        }
+    }
+
+    @Test
+    public void testReferenceProcessing() throws InterruptedException {
+        ReferenceQueue<Node> queue = new ReferenceQueue<>();
+        Node[] strong = new Node[NODES];
+        List<WeakReference<Node>> references = new ArrayList<>();
+        for (int i = 0; i < NODES; i++) {
+            Node node = new Node(i);
+            node.payload = new int[]{i};
+            if (i % 2 == 0) {
+                strong[i] = node;
+            }
+            references.add(new WeakReference<>(node, queue));
+        }
+        allocateGarbage();
+        System.gc();
+
+        for (int i = 0; i < NODES; i++) {
+            Node node = references.get(i).get();
+            if (i % 2 == 0) {
+                Assert.assertTrue(node == strong[i]);
+                Assert.assertArrayEquals(new int[]{i}, node.payload);
+            } else {
+                Assert.assertNull(node);
+            }
+        }
+
+        int enqueued = 0;
+        while (enqueued < NODES / 2) {
+            Reference<? extends Node> reference = queue.remove(60_000);
+            Assert.assertTrue("Cleared references must be enqueued", reference != null);
+            Assert.assertNull(reference.get());
+            enqueued++;
+        }
+        Assert.assertNull(queue.poll());
+    }
+
+    private static Node createList(int seed) {
+        Node head = new Node(seed);
+        Node tail = head;
+        for (int i = 1; i < NODES; i++) {
+            tail.next = new Node(seed + i);
+            if (i % 3 == 0) {
+                tail.next.payload = new int[]{seed + i};
+            }
+            tail = tail.next;
+        }
+        return head;
+    }
+
+    private static void allocateGarbage() {
+        for (int i = 0; i < 100_000; i++) {
+            sink = new byte[128];
+        }
+        sink = null;
+    }
+
+    private static void verifyList(Node head, int seed) {
+        int count = 0;
+        for (Node node = head; node != null; node = node.next) {
+            Assert.assertEquals(seed + count, node.value);
+            if (count % 3 == 0 && count != 0) {
+                Assert.assertArrayEquals(new int[]{node.value}, node.payload);
+            } else {
+                Assert.assertNull(node.payload);
+            }
+            count++;
+        }
+        Assert.assertEquals(NODES, count);
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Checks the transitions of object monitors. The test runs with the default monitors and, in a
+ * separate image, with {@code -H:+UseThinLocks}, where a monitor slot holds either nothing, the
+ * owning thread of a thin lock, or an inflated lock.
+ */
+public class ThinLockTest {
+    private static final int THREADS = 4;
+    private static final int ITERATIONS = 100_000;
+
+    /** Instances get a monitor slot because the class is used for synchronization. */
+    static final class Lockable {
+        int counter;
+        boolean signaled;
+    }
+
+    @Test
+    public void testRecursiveLocking() {
+        Lockable lockable = new Lockable();
+        synchronized (lockable) {
+            Assert.assertTrue(Thread.holdsLock(lockable));
+            synchronized (lockable) {
+                Assert.assertTrue(Thread.holdsLock(lockable));
+                synchronized (lockable) {
+                    lockable.counter++;
+                }
+            }
+            Assert.assertTrue(Thread.holdsLock(lockable));
+        }
+        Assert.assertFalse(Thread.holdsLock(lockable));
+        synchronized (lockable) {
+            Assert.assertEquals(1, lockable.counter);
+        }
+    }
+
+    @Test
+    public void testContention() throws InterruptedException {
+        Lockable lockable = new Lockable();
+        Thread[] threads = new Thread[THREADS];
+        for (int i = 0; i < THREADS; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < ITERATIONS; j++) {
+                    synchronized (lockable) {
+                        lockable.counter++;
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        synchronized (lockable) {
+            Assert.assertEquals(THREADS * ITERATIONS, lockable.counter);
+        }
+    }
+
+    @Test
+    public void testWaitAndNotify() throws InterruptedException {
+        Lockable lockable = new Lockable();
+        /* A wait on a thin-locked object must keep the lock held afterwards. */
+        synchronized (lockable) {
+            lockable.wait(1);
+            Assert.assertTrue(Thread.holdsLock(lockable));
+        }
+        Assert.assertFalse(Thread.holdsLock(lockable));
+
+        Lockable other = new Lockable();
+        CountDownLatch waiting = new CountDownLatch(1);
+        Thread waiter = new Thread(() -> {
+            synchronized (other) {
+                waiting.countDown();
+                while (!other.signaled) {
+                    try {
+                        other.wait();
+                    } catch (InterruptedException ex) {
+                        throw new AssertionError(ex);
+                    }
+                }
+                other.counter++;
+            }
+        });
+        waiter.start();
+        waiting.await();
+        synchronized (other) {
+            other.signaled = true;
+            other.notifyAll();
+        }
+        waiter.join();
+        synchronized (other) {
+            Assert.assertEquals(1, other.counter);
+        }
+    }
+
+    @Test
+    public void testInflateLockHeldByOtherThread() throws InterruptedException {
+        Lockable lockable = new Lockable();
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread owner = new Thread(() -> {
+            synchronized (lockable) {
+                held.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException ex) {
+                    throw new AssertionError(ex);
+                }
+                lockable.counter++;
+            }
+        });
+        owner.start();
+        held.await();
+        Assert.assertFalse(Thread.holdsLock(lockable));
+
+        /* Blocks on the lock that the owner holds, which inflates it. */
+        AtomicBoolean acquired = new AtomicBoolean();
+        Thread contender = new Thread(() -> {
+            synchronized (lockable) {
+                Assert.assertEquals(1, lockable.counter);
+                acquired.set(true);
+            }
+        });
+        contender.start();
+        while (contender.getState() == Thread.State.NEW || contender.getState() == Thread.State.RUNNABLE) {
+            Thread.sleep(1);
+        }
+        Assert.assertFalse(acquired.get());
+
+        /* The owner must release the inflated lock, not the thin lock it acquired. */
+        release.countDown();
+        owner.join();
+        contender.join();
+        Assert.assertTrue(acquired.get());
+        synchronized (lockable) {
+            Assert.assertTrue(Thread.holdsLock(lockable));
+        }
+        Assert.assertFalse(Thread.holdsLock(lockable));
+    }
+}
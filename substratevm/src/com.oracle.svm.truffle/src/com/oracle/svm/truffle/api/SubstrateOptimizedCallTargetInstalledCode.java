@@ -52,6 +52,9 @@ import jdk.vm.ci.meta.ResolvedJavaMethod;
 public class SubstrateOptimizedCallTargetInstalledCode extends InstalledCode implements SubstrateInstalledCode, OptimizedAssumptionDependency {
     protected final SubstrateOptimizedCallTarget callTarget;
 
+    /** Set on each invocation through {@link #doInvoke}, cleared by the GC. */
+    private boolean used;
+
     protected SubstrateOptimizedCallTargetInstalledCode(SubstrateOptimizedCallTarget callTarget) {
         super(null);
         this.callTarget = callTarget;
@@ -114,6 +117,13 @@ public class SubstrateOptimizedCallTargetInstalledCode extends InstalledCode imp
         callTarget.onCodeInstalled(this);
     }
 
+    @Override
+    public boolean getAndClearUsed() {
+        boolean result = used;
+        used = false;
+        return result;
+    }
+
     @Override
     public void clearAddress() {
         assert VMOperation.isInProgressAtSafepoint();
@@ -154,8 +164,12 @@ public class SubstrateOptimizedCallTargetInstalledCode extends InstalledCode imp
          * address. Otherwise, the code can be invalidated concurrently and we invoke an address
          * that no longer contains executable code.
          */
-        long start = callTarget.installedCode.entryPoint;
+        SubstrateOptimizedCallTargetInstalledCode installedCode = callTarget.installedCode;
+        long start = installedCode.entryPoint;
         if (start != 0) {
+            if (!installedCode.used) {
+                installedCode.used = true;
+            }
             SubstrateOptimizedCallTarget.CallBoundaryFunctionPointer target = WordFactory.pointer(start);
             Object result = target.invoke(callTarget, args);
             return result;
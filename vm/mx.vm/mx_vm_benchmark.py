@@ -163,11 +163,16 @@ class NativeImageVM(GraalVm):
                 self.base_image_build_args += ['--gc=' + vm.gc, '-H:+SpawnIsolates']
             if vm.native_architecture:
                 self.base_image_build_args += ['-H:+NativeArchitecture']
+            if vm.analysis_context_sensitivity:
+                self.base_image_build_args += ['-H:AnalysisContextSensitivity=' + vm.analysis_context_sensitivity]
+            if vm.analysis_threads:
+                self.base_image_build_args += ['-H:NumberOfThreads=' + str(vm.analysis_threads), '-H:NumberOfAnalysisThreads=' + str(vm.analysis_threads)]
             self.base_image_build_args += self.extra_image_build_arguments
 
     def __init__(self, name, config_name, extra_java_args=None, extra_launcher_args=None,
                  pgo_aot_inline=False, pgo_instrumented_iterations=0, pgo_inline_explored=False, hotspot_pgo=False,
-                 is_gate=False, is_llvm=False, pgo_context_sensitive=True, gc=None, native_architecture=False):
+                 is_gate=False, is_llvm=False, pgo_context_sensitive=True, gc=None, native_architecture=False, analysis_context_sensitivity=None,
+                 analysis_threads=None):
         super(NativeImageVM, self).__init__(name, config_name, extra_java_args, extra_launcher_args)
         self.pgo_aot_inline = pgo_aot_inline
         self.pgo_instrumented_iterations = pgo_instrumented_iterations
@@ -178,6 +183,8 @@ class NativeImageVM(GraalVm):
         self.is_llvm = is_llvm
         self.gc = gc
         self.native_architecture = native_architecture
+        self.analysis_context_sensitivity = analysis_context_sensitivity
+        self.analysis_threads = analysis_threads
 
     @staticmethod
     def supported_vm_arg_prefixes():
@@ -502,7 +509,29 @@ class NativeImageVM(GraalVm):
                 "metric.better": "lower",
                 "metric.iteration": 0,
                 "metric.object": "memory"
-            }, ['total_memory_bytes'])
+            }, ['total_memory_bytes']),
+            mx_benchmark.JsonStdOutFileRule(r'^# Printing analysis results stats to: (?P<path>\S+?)$', 'path', {
+                "benchmark": benchmarks[0],
+                "metric.name": "analysis-stats",
+                "metric.type": "numeric",
+                "metric.unit": "B",
+                "metric.value": ("<peak_heap_bytes>", int),
+                "metric.score-function": "id",
+                "metric.better": "lower",
+                "metric.iteration": 0,
+                "metric.object": "peak-heap"
+            }, ['peak_heap_bytes']),
+            mx_benchmark.JsonStdOutFileRule(r'^# Printing analysis results stats to: (?P<path>\S+?)$', 'path', {
+                "benchmark": benchmarks[0],
+                "metric.name": "analysis-stats",
+                "metric.type": "numeric",
+                "metric.unit": "ms",
+                "metric.value": ("<total_analysis_time_ms>", int),
+                "metric.score-function": "id",
+                "metric.better": "lower",
+                "metric.iteration": 0,
+                "metric.object": "analysis-time"
+            }, ['total_analysis_time_ms'])
         ]
 
     def run_stage_agent(self, config, stages):
@@ -881,6 +910,10 @@ def register_graalvm_vms():
             mx_benchmark.add_java_vm(NativeImageVM('native-image', 'gate-' + config_suffix, is_gate=True), _suite, 10)
             mx_benchmark.add_java_vm(NativeImageVM('native-image', 'llvm-' + config_suffix, is_llvm=True), _suite, 10)
             mx_benchmark.add_java_vm(NativeImageVM('native-image', 'native-architecture-' + config_suffix, native_architecture=True), _suite, 10)
+            mx_benchmark.add_java_vm(NativeImageVM('native-image', 'summary-analysis-' + config_suffix, analysis_context_sensitivity='summary'), _suite, 10)
+            # Measure how the analysis scales with the number of threads
+            for threads in [1, 2, 4, 8, 16, 32, 64]:
+                mx_benchmark.add_java_vm(NativeImageVM('native-image', 'analysis-threads-' + str(threads) + '-' + config_suffix, analysis_threads=threads), _suite, 10)
             break
 
     # Add VMs for libgraal